@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Spring IDE Developers
+ * Copyright (c) 2006, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,8 @@ public class AopProject implements IAopProject {
 
 	protected final Lock w = rwl.writeLock();
 
+	private int modificationCount = 0;
+
 	public AopProject(IJavaProject project) {
 		this.project = project;
 	}
@@ -49,7 +51,9 @@ public class AopProject implements IAopProject {
 		AopLog.log(AopLog.BUILDER_MESSAGES, "Created AOP reference '" + reference + "'");
 		try {
 			w.lock();
-			this.references.add(reference);
+			if (this.references.add(reference)) {
+				modificationCount++;
+			}
 		}
 		finally {
 			w.unlock();
@@ -65,7 +69,9 @@ public class AopProject implements IAopProject {
 					toRemove.add(reference);
 				}
 			}
-			this.references.removeAll(toRemove);
+			if (this.references.removeAll(toRemove)) {
+				modificationCount++;
+			}
 		}
 		finally {
 			w.unlock();
@@ -80,6 +86,20 @@ public class AopProject implements IAopProject {
 		return this.project;
 	}
 
+	/**
+	 * Returns a counter that changes whenever references are added or removed.
+	 * @since 3.8.1
+	 */
+	public int getModificationCount() {
+		try {
+			r.lock();
+			return modificationCount;
+		}
+		finally {
+			r.unlock();
+		}
+	}
+
 	public Set<IAopReference> getReferencesForResource(IResource resource) {
 		try {
 			r.lock();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Spring IDE Developers
+ * Copyright (c) 2006, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,14 +15,25 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutExpressionCache;
 import org.springframework.ide.eclipse.aop.core.model.IAopModelChangedListener;
 import org.springframework.ide.eclipse.aop.core.model.IAopProject;
 import org.springframework.ide.eclipse.aop.core.model.IAopReference;
@@ -30,6 +41,7 @@ import org.springframework.ide.eclipse.aop.core.model.IAopReferenceModel;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelUtils;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.core.internal.model.resources.SpringResourceChangeListener;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
 
 /**
  * @author Christian Dupuis
@@ -39,12 +51,17 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	private List<IAopModelChangedListener> listeners = new LinkedList<IAopModelChangedListener>();
 
-	private AopReferenceModelPeristence persistence;
+	private volatile AopReferenceModelPeristence persistence;
 
 	private Map<IJavaProject, IAopProject> projects = new ConcurrentHashMap<IJavaProject, IAopProject>();
 
+	/** Projects whose persisted references are being read */
+	private final ConcurrentMap<IJavaProject, FutureTask<IAopProject>> initializingProjects = new ConcurrentHashMap<IJavaProject, FutureTask<IAopProject>>();
+
 	private IResourceChangeListener workspaceListener;
 
+	private Job loadJob;
+
 	// private IModelChangeListener modelChangeListener;
 
 	public void addProject(IJavaProject project, IAopProject aopProject) {
@@ -68,6 +85,7 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public List<IAopReference> getAllReferences() {
+		loadPersistedProjects();
 		List<IAopReference> refs = new ArrayList<IAopReference>();
 		for (Map.Entry<IJavaProject, IAopProject> e : projects.entrySet()) {
 			refs.addAll(e.getValue().getAllReferences());
@@ -96,18 +114,130 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public Collection<IAopProject> getProjects() {
+		loadPersistedProjects();
 		return this.projects.values();
 	}
 
-	public IAopProject getProjectWithInitialization(IJavaProject project) {
-		if (this.projects.containsKey(project)) {
-			return this.projects.get(project);
-		}
-		else {
-			IAopProject aopProject = new AopProject(project);
-			addProject(project, aopProject);
+	public IAopProject getProjectWithInitialization(final IJavaProject project) {
+		IAopProject aopProject = this.projects.get(project);
+		if (aopProject != null) {
 			return aopProject;
 		}
+
+		// read the persisted references the first time the project is requested; the file is parsed without holding
+		// the model's monitor, concurrent requests for the same project wait for the first one
+		FutureTask<IAopProject> initialization = new FutureTask<IAopProject>(new Callable<IAopProject>() {
+
+			public IAopProject call() {
+				IAopProject newProject = new AopProject(project);
+				AopReferenceModelPeristence persistence = AopReferenceModel.this.persistence;
+				if (persistence != null) {
+					persistence.loadProject(newProject);
+				}
+				synchronized (AopReferenceModel.this) {
+					IAopProject existingProject = projects.get(project);
+					if (existingProject != null) {
+						return existingProject;
+					}
+					addProject(project, newProject);
+					return newProject;
+				}
+			}
+		});
+		FutureTask<IAopProject> runningInitialization = initializingProjects.putIfAbsent(project, initialization);
+		if (runningInitialization == null) {
+			runningInitialization = initialization;
+			try {
+				initialization.run();
+			}
+			finally {
+				initializingProjects.remove(project, initialization);
+			}
+		}
+		return getInitializedProject(runningInitialization);
+	}
+
+	private IAopProject getInitializedProject(FutureTask<IAopProject> initialization) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return initialization.get();
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Writes the references of all projects that have changed since they were written last.
+	 * @since 3.8.1
+	 */
+	public void saveChangedProjects() {
+		AopReferenceModelPeristence persistence = this.persistence;
+		if (persistence != null) {
+			persistence.saveProjects(new ArrayList<IAopProject>(projects.values()));
+		}
+	}
+
+	/**
+	 * Removes the given project from memory but keeps its persisted references, which are read again once the project
+	 * is requested the next time (e.g. after the project has been re-opened).
+	 * @since 3.8.1
+	 */
+	public synchronized void unloadProject(IJavaProject project) {
+		PointcutExpressionCache.remove(project.getProject());
+		IAopProject aopProject = projects.remove(project);
+		if (aopProject != null) {
+			if (persistence != null) {
+				persistence.unloadProject(aopProject);
+			}
+			fireModelChanged();
+		}
+	}
+
+	/**
+	 * Reads the persisted references of all accessible projects that haven't been requested yet, as needed by queries
+	 * that span the whole workspace.
+	 */
+	private void loadPersistedProjects() {
+		loadPersistedProjects(null);
+	}
+
+	private void loadPersistedProjects(IProgressMonitor monitor) {
+		AopReferenceModelPeristence persistence = this.persistence;
+		if (persistence == null) {
+			return;
+		}
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (String projectName : persistence.getUnloadedProjectNames()) {
+			if (monitor != null && monitor.isCanceled()) {
+				return;
+			}
+			IProject project = root.getProject(projectName);
+			if (!project.exists()) {
+				persistence.deleteProject(projectName);
+			}
+			else if (project.isAccessible()) {
+				IJavaProject javaProject = JdtUtils.getJavaProject(project);
+				if (javaProject != null) {
+					getProjectWithInitialization(javaProject);
+				}
+			}
+		}
 	}
 
 	public boolean isAdvice(IJavaElement je) {
@@ -116,8 +246,7 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	public boolean isAdvised(IJavaElement je) {
 		if (je != null) {
-			List<IAopReference> references = getAllReferences();
-			for (IAopReference reference : references) {
+			for (IAopReference reference : getReferencesForProject(je.getJavaProject())) {
 				if (reference.getTarget().equals(je)) {
 					return true;
 				}
@@ -127,10 +256,10 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public boolean isAdvised(IBean bean) {
-		if (bean != null) {
+		if (bean != null && bean.getElementResource() != null) {
 			String beanId = bean.getElementID();
-			List<IAopReference> references = getAllReferences();
-			for (IAopReference reference : references) {
+			IJavaProject javaProject = JdtUtils.getJavaProject(bean.getElementResource().getProject());
+			for (IAopReference reference : getReferencesForProject(javaProject)) {
 				if (reference.getTargetBeanId().equals(beanId)) {
 					return true;
 				}
@@ -140,11 +269,36 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	}
 
+	/**
+	 * Returns the references of the given project, reading its persisted references if necessary, together with the
+	 * references of all other projects that are already in memory (e.g. of configs in other projects that advise the
+	 * given project's types). Unlike {@link #getAllReferences()} this doesn't read the persisted references of other
+	 * projects, so that decorating a single element stays cheap.
+	 */
+	private List<IAopReference> getReferencesForProject(IJavaProject javaProject) {
+		List<IAopReference> references = new ArrayList<IAopReference>();
+		if (javaProject != null) {
+			references.addAll(getProjectWithInitialization(javaProject).getAllReferences());
+		}
+		for (Map.Entry<IJavaProject, IAopProject> e : projects.entrySet()) {
+			if (!e.getKey().equals(javaProject)) {
+				references.addAll(e.getValue().getAllReferences());
+			}
+		}
+		return references;
+	}
+
 	public void registerAopModelChangedListener(IAopModelChangedListener listener) {
 		this.listeners.add(listener);
 	}
 
 	public synchronized void removeProject(IJavaProject project) {
+		if (project != null) {
+			PointcutExpressionCache.remove(project.getProject());
+			if (persistence != null) {
+				persistence.deleteProject(project.getElementName());
+			}
+		}
 		for (IJavaProject jp : projects.keySet()) {
 			if (jp.equals(project)) {
 				projects.remove(jp);
@@ -160,12 +314,21 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	public void shutdown() {
 		// Remove the ResourceChangeListener from the Eclipse Workspace
-		IWorkspace workspace = ResourcesPlugin.getWorkspace();
-		workspace.removeResourceChangeListener(workspaceListener);
-		workspaceListener = null;
+		if (workspaceListener != null) {
+			IWorkspace workspace = ResourcesPlugin.getWorkspace();
+			workspace.removeResourceChangeListener(workspaceListener);
+			workspaceListener = null;
+		}
 
-		// Persist model
-		persistence.saveReferenceModel();
+		if (loadJob != null) {
+			loadJob.cancel();
+			loadJob = null;
+		}
+
+		// Persist changed projects
+		if (persistence != null) {
+			persistence.saveReferenceModel(new ArrayList<IAopProject>(projects.values()));
+		}
 
 		// Remove all projects
 		projects.clear();
@@ -179,13 +342,38 @@ public class AopReferenceModel implements IAopReferenceModel {
 		IWorkspace workspace = ResourcesPlugin.getWorkspace();
 		workspace.addResourceChangeListener(workspaceListener, SpringResourceChangeListener.LISTENER_FLAGS);
 
-		persistence = new AopReferenceModelPeristence();
-		persistence.loadReferenceModel();
+		// projects are read from the persisted state once they are requested
+		start(new AopReferenceModelPeristence());
+
+		// the markers of the persisted references are transient; recreate them without delaying the startup
+		loadJob = new Job("Loading AOP reference model") {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				loadPersistedProjects(monitor);
+				return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+			}
+		};
+		loadJob.setSystem(true);
+		loadJob.setPriority(Job.DECORATE);
+		loadJob.schedule();
 
 		// modelChangeListener = new AopBeansModelListener();
 		// BeansCorePlugin.getModel().addChangeListener(modelChangeListener);
 	}
 
+	/**
+	 * Starts reading the projects from the given persistence once they are requested; doesn't listen to workspace
+	 * changes.
+	 * <p>
+	 * Note: This method is only for internal testing purposes.
+	 * @since 3.8.1
+	 */
+	public void start(AopReferenceModelPeristence persistence) {
+		persistence.start();
+		this.persistence = persistence;
+	}
+
 	public void unregisterAopModelChangedListener(IAopModelChangedListener listener) {
 		this.listeners.remove(listener);
 	}
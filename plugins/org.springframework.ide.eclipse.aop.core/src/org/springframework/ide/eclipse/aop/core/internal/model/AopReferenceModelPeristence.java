@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,41 +10,56 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.aop.core.internal.model;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IAdaptable;
-import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.core.runtime.preferences.InstanceScope;
-import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.ui.IElementFactory;
 import org.eclipse.ui.IMemento;
 import org.eclipse.ui.IPersistableElement;
+import org.eclipse.ui.WorkbenchException;
 import org.eclipse.ui.XMLMemento;
 import org.springframework.ide.eclipse.aop.core.Activator;
 import org.springframework.ide.eclipse.aop.core.model.IAopProject;
 import org.springframework.ide.eclipse.aop.core.model.IAopReference;
-import org.springframework.ide.eclipse.aop.core.model.IAopReferenceModel;
 import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelMarkerUtils;
 
 /**
+ * Persists the {@link IAopReference}s of the {@link AopReferenceModel} with one file per {@link IAopProject}.
+ * <p>
+ * A project's file is only read when the project is requested from the model for the first time, and only projects
+ * whose references have changed since they were read or written last are written again.
  * @author Christian Dupuis
  * @since 2.0
  */
@@ -72,104 +87,105 @@ public class AopReferenceModelPeristence {
 
 	private static final String AOP_REFERENCE_ELEMENT = "aop-reference";
 
-	private static final String AOP_REFERENCE_MODEL_ELEMENT = "aop-reference-model";
-
 	private static final String ASPECT_DEFINITION_ELEMENT = "aspect-definition";
 
 	private static final String FACTORY_ID = "factory-id";
 
 	private static final String NAME_ATTRIBUTE = "name";
 
-	private IPath defaultFile = null;
+	private static final String PROJECTS_FOLDER_NAME = "projects";
+
+	private static final String PROJECT_FILE_EXTENSION = ".xml";
+
+	private static final String ENCODING = "UTF-8";
+
+	/** The single file that held the references of all projects before 3.8.1 */
+	private final File legacyFile;
+
+	private final File projectsFolder;
+
+	/** Names of the projects that have a file which hasn't been read yet */
+	private final Set<String> unloadedProjects = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** Modification counts of the {@link AopProject}s at the time they were read or written last */
+	private final Map<String, Integer> savedModificationCounts = new ConcurrentHashMap<String, Integer>();
 
 	public AopReferenceModelPeristence() {
-		this.defaultFile = Activator.getDefault().getStateLocation().append(".state");
+		this(Activator.getDefault().getStateLocation().toFile());
 	}
 
-	private IMemento appendNewChild(IMemento memento, String type) {
-		memento.createChild(type);
-		IMemento[] ms = memento.getChildren(type);
-		if (ms != null && ms.length > 0) {
-			return ms[ms.length - 1];
-		}
-		return memento;
+	/**
+	 * Creates a persistence that keeps its files in the given folder.
+	 * @since 3.8.1
+	 */
+	public AopReferenceModelPeristence(File stateLocation) {
+		this.legacyFile = new File(stateLocation, ".state");
+		this.projectsFolder = new File(stateLocation, PROJECTS_FOLDER_NAME);
 	}
 
-	private void createAopProjects(IAopReferenceModel model, XMLMemento memento) {
-		IMemento[] projects = memento.getChildren(AOP_PROJECT_ELEMENT);
-		if (projects != null && projects.length > 0) {
-			for (IMemento project : projects) {
-				String projectName = project.getString(NAME_ATTRIBUTE);
-				IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-				IResource member = root.findMember(projectName);
-				if (member instanceof IProject) {
-					IJavaProject javaProject = JavaCore.create((IProject) member);
-					IAopProject aopProject = model.getProject(javaProject);
-
-					createAspectDefinitions(projects, project, aopProject);
-
-					// recreate the marker
-					Set<IAopReference> references = aopProject.getAllReferences();
-					for (IAopReference reference : references) {
-						AopReferenceModelMarkerUtils.createMarker(reference, reference
-								.getResource());
-					}
-				}
-			}
+	/**
+	 * Determines which projects have persisted references; these are read by {@link #loadProject(IAopProject)}.
+	 * The single file of earlier versions is split into project files.
+	 * @since 3.8.1
+	 */
+	protected synchronized void start() {
+		if (!shouldModelByPersisted()) {
+			return;
 		}
-	}
-
-	private void createAopReferences(IAopProject aopProject, IMemento aspectDefinitionM,
-			IAspectDefinition aspectDefinition) {
-		String factoryId;
-		IMemento[] aopReferences = aspectDefinitionM.getChildren(AOP_REFERENCE_ELEMENT);
-		if (aopReferences != null && aopReferences.length > 0) {
-			for (IMemento aopReferenceM : aopReferences) {
-				factoryId = aopReferenceM.getString(FACTORY_ID);
-				IAopReference aopReference = (IAopReference) ELEMENT_FACTORIES.get(factoryId)
-						.createElement(aopReferenceM);
-				// The aopReference can be null if the resource has been deleted or is an external
-				if (aopReference != null) {
-					aopReference.setDefinition(aspectDefinition);
-					aopProject.addAopReference(aopReference);
-				}
-			}
+		if (legacyFile.exists()) {
+			migrateLegacyState();
 		}
-	}
-
-	private void createAspectDefinitions(IMemento[] projects, IMemento project,
-			IAopProject aopProject) {
-		IMemento[] aspectDefinitions = project.getChildren(ASPECT_DEFINITION_ELEMENT);
-		if (projects != null && projects.length > 0) {
-			for (IMemento aspectDefinitionM : aspectDefinitions) {
-				String factoryId = aspectDefinitionM.getString(FACTORY_ID);
-				IAspectDefinition aspectDefinition = (IAspectDefinition) ELEMENT_FACTORIES.get(
-						factoryId).createElement(aspectDefinitionM);
-				createAopReferences(aopProject, aspectDefinitionM, aspectDefinition);
+		File[] files = projectsFolder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String fileName = file.getName();
+				if (fileName.endsWith(PROJECT_FILE_EXTENSION)) {
+					unloadedProjects.add(decode(fileName.substring(0, fileName.length()
+							- PROJECT_FILE_EXTENSION.length())));
+				}
 			}
 		}
 	}
 
-	protected boolean isPersisted() {
-		return defaultFile.toFile().exists();
+	/**
+	 * Returns the names of the projects whose persisted references haven't been read yet.
+	 * @since 3.8.1
+	 */
+	public Set<String> getUnloadedProjectNames() {
+		return new HashSet<String>(unloadedProjects);
 	}
 
-	protected synchronized void loadReferenceModel() {
-		if (!shouldModelByPersisted() || !isPersisted()) {
+	/**
+	 * Reads the persisted references of the given project if they haven't been read yet, and schedules the creation
+	 * of their markers.
+	 * <p>
+	 * Only a file that isn't a well-formed document is deleted; if the file can't be read for other reasons it is
+	 * kept until the project's references change.
+	 * @since 3.8.1
+	 */
+	protected void loadProject(IAopProject aopProject) {
+		String projectName = aopProject.getProject().getElementName();
+		if (!unloadedProjects.remove(projectName)) {
 			return;
 		}
 
-		IAopReferenceModel model = Activator.getModel();
+		File file = getProjectFile(projectName);
 		Reader reader = null;
 		try {
-			reader = new FileReader(defaultFile.toFile());
+			reader = new InputStreamReader(new FileInputStream(file), ENCODING);
 			XMLMemento memento = XMLMemento.createReadRoot(reader);
-			createAopProjects(model, memento);
+			createAspectDefinitions(memento, aopProject);
+		}
+		catch (WorkbenchException e) {
+			Activator.log("Cannot parse AOP reference model file for project '" + projectName + "'", e);
+			file.delete();
+			return;
 		}
 		catch (Exception e) {
-			Activator.log("Cannot load .state model file", e);
-			// re-init aop reference model
-			Activator.getModel().clearProjects();
+			Activator.log("Cannot load AOP reference model file for project '" + projectName + "'", e);
+			// don't overwrite the file with the references read so far unless the project changes
+			savedModificationCounts.put(projectName, getModificationCount(aopProject));
+			return;
 		}
 		finally {
 			if (reader != null) {
@@ -180,77 +196,227 @@ public class AopReferenceModelPeristence {
 				}
 			}
 		}
+		savedModificationCounts.put(projectName, getModificationCount(aopProject));
+		scheduleMarkerCreation(aopProject.getAllReferences());
 	}
 
-	private boolean shouldModelByPersisted() {
-		IScopeContext context = new InstanceScope();
-		IEclipsePreferences node = context.getNode(Activator.PLUGIN_ID);
-		return node.getBoolean(Activator.PERSIST_AOP_MODEL_PREFERENCE, true);
+	/**
+	 * Writes the references of the given projects that have changed since they were read or written last.
+	 * @since 3.8.1
+	 */
+	protected void saveProjects(Collection<IAopProject> projects) {
+		if (!shouldModelByPersisted()) {
+			return;
+		}
+		for (IAopProject project : projects) {
+			saveProject(project);
+		}
+	}
+
+	/**
+	 * Forgets the in-memory state of the given project; its references are read again when the project is requested
+	 * the next time. Changed references are written first.
+	 * @since 3.8.1
+	 */
+	protected synchronized void unloadProject(IAopProject aopProject) {
+		if (!shouldModelByPersisted()) {
+			return;
+		}
+		String projectName = aopProject.getProject().getElementName();
+		saveProject(aopProject);
+		savedModificationCounts.remove(projectName);
+		if (getProjectFile(projectName).exists()) {
+			unloadedProjects.add(projectName);
+		}
+	}
+
+	/**
+	 * Deletes the persisted references of the given project.
+	 * @since 3.8.1
+	 */
+	protected synchronized void deleteProject(String projectName) {
+		unloadedProjects.remove(projectName);
+		savedModificationCounts.remove(projectName);
+		getProjectFile(projectName).delete();
 	}
 
-	protected synchronized void saveReferenceModel() {
+	/**
+	 * Writes the changed projects of the model on shutdown, or deletes all persisted references if the model should
+	 * not be persisted.
+	 */
+	protected synchronized void saveReferenceModel(Collection<IAopProject> loadedProjects) {
 		if (!shouldModelByPersisted()) {
-			if (isPersisted()) {
-				defaultFile.toFile().delete();
+			File[] files = projectsFolder.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					file.delete();
+				}
 			}
+			legacyFile.delete();
 			return;
 		}
+		saveProjects(loadedProjects);
+	}
 
-		XMLMemento memento = XMLMemento.createWriteRoot(AOP_REFERENCE_MODEL_ELEMENT);
-		Collection<IAopProject> projects = Activator.getModel().getProjects();
-		for (IAopProject project : projects) {
-			IMemento projectM = appendNewChild(memento, AOP_PROJECT_ELEMENT);
-			projectM.putString(NAME_ATTRIBUTE, project.getProject().getElementName());
-
-			Set<IAopReference> refs = project.getAllReferences();
-			Map<IAspectDefinition, List<IAopReference>> maps = new HashMap<IAspectDefinition, List<IAopReference>>();
-			for (IAopReference ref : refs) {
-				if (maps.containsKey(ref.getDefinition())) {
-					maps.get(ref.getDefinition()).add(ref);
+	private synchronized void saveProject(IAopProject project) {
+		String projectName = project.getProject().getElementName();
+		int modificationCount = getModificationCount(project);
+		Integer savedModificationCount = savedModificationCounts.get(projectName);
+		if (modificationCount >= 0 && savedModificationCount != null
+				&& savedModificationCount.intValue() == modificationCount) {
+			return;
+		}
+
+		Set<IAopReference> references = project.getAllReferences();
+		File file = getProjectFile(projectName);
+		if (references.isEmpty()) {
+			file.delete();
+		}
+		else {
+			XMLMemento memento = XMLMemento.createWriteRoot(AOP_PROJECT_ELEMENT);
+			memento.putString(NAME_ATTRIBUTE, projectName);
+			saveAspectDefinitions(memento, references);
+			if (!write(memento, file)) {
+				return;
+			}
+		}
+		savedModificationCounts.put(projectName, modificationCount);
+	}
+
+	private void saveAspectDefinitions(IMemento projectM, Set<IAopReference> references) {
+		Map<IAspectDefinition, List<IAopReference>> maps = new HashMap<IAspectDefinition, List<IAopReference>>();
+		for (IAopReference ref : references) {
+			if (maps.containsKey(ref.getDefinition())) {
+				maps.get(ref.getDefinition()).add(ref);
+			}
+			else {
+				List<IAopReference> r = new ArrayList<IAopReference>();
+				r.add(ref);
+				maps.put(ref.getDefinition(), r);
+			}
+		}
+
+		for (Map.Entry<IAspectDefinition, List<IAopReference>> entry : maps.entrySet()) {
+			if (entry.getKey() instanceof IAdaptable) {
+				IPersistableElement pers = (IPersistableElement) ((IAdaptable) entry.getKey())
+						.getAdapter(IPersistableElement.class);
+				if (pers == null) {
+					continue;
 				}
-				else {
-					List<IAopReference> r = new ArrayList<IAopReference>();
-					r.add(ref);
-					maps.put(ref.getDefinition(), r);
+				IMemento definitionM = projectM.createChild(ASPECT_DEFINITION_ELEMENT);
+				pers.saveState(definitionM);
+				definitionM.putString(FACTORY_ID, pers.getFactoryId());
+				for (IAopReference ref : entry.getValue()) {
+					if (ref instanceof IAdaptable) {
+						IPersistableElement pers2 = (IPersistableElement) ((IAdaptable) ref)
+								.getAdapter(IPersistableElement.class);
+						if (pers2 != null) {
+							IMemento refM = definitionM.createChild(AOP_REFERENCE_ELEMENT);
+							pers2.saveState(refM);
+							refM.putString(FACTORY_ID, pers2.getFactoryId());
+						}
+					}
 				}
 			}
+		}
+	}
 
-			for (Map.Entry<IAspectDefinition, List<IAopReference>> entry : maps.entrySet()) {
-				IMemento definitionM = appendNewChild(projectM, ASPECT_DEFINITION_ELEMENT);
-				if (entry.getKey() instanceof IAdaptable) {
-					IPersistableElement pers = (IPersistableElement) ((IAdaptable) entry.getKey())
-							.getAdapter(IPersistableElement.class);
-					if (pers != null) {
-						pers.saveState(definitionM);
-						definitionM.putString(FACTORY_ID, pers.getFactoryId());
-					}
-					for (IAopReference ref : entry.getValue()) {
-						if (ref instanceof IAdaptable) {
-							IPersistableElement pers2 = (IPersistableElement) ((IAdaptable) ref)
-									.getAdapter(IPersistableElement.class);
-							if (pers2 != null) {
-								IMemento refM = appendNewChild(definitionM, AOP_REFERENCE_ELEMENT);
-								pers2.saveState(refM);
-								refM.putString(FACTORY_ID, pers2.getFactoryId());
-							}
-						}
+	private void createAspectDefinitions(IMemento project, IAopProject aopProject) {
+		IMemento[] aspectDefinitions = project.getChildren(ASPECT_DEFINITION_ELEMENT);
+		if (aspectDefinitions != null && aspectDefinitions.length > 0) {
+			for (IMemento aspectDefinitionM : aspectDefinitions) {
+				String factoryId = aspectDefinitionM.getString(FACTORY_ID);
+				IAspectDefinition aspectDefinition = (IAspectDefinition) ELEMENT_FACTORIES.get(
+						factoryId).createElement(aspectDefinitionM);
+				createAopReferences(aopProject, aspectDefinitionM, aspectDefinition);
+			}
+		}
+	}
+
+	private void createAopReferences(IAopProject aopProject, IMemento aspectDefinitionM,
+			IAspectDefinition aspectDefinition) {
+		String factoryId;
+		IMemento[] aopReferences = aspectDefinitionM.getChildren(AOP_REFERENCE_ELEMENT);
+		if (aopReferences != null && aopReferences.length > 0) {
+			for (IMemento aopReferenceM : aopReferences) {
+				factoryId = aopReferenceM.getString(FACTORY_ID);
+				IAopReference aopReference = (IAopReference) ELEMENT_FACTORIES.get(factoryId)
+						.createElement(aopReferenceM);
+				// The aopReference can be null if the resource has been deleted or is an external
+				if (aopReference != null) {
+					aopReference.setDefinition(aspectDefinition);
+					aopProject.addAopReference(aopReference);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits the single file of earlier versions into project files; the project elements are copied without
+	 * creating the model elements they describe.
+	 */
+	private void migrateLegacyState() {
+		Reader reader = null;
+		try {
+			reader = new FileReader(legacyFile);
+			XMLMemento memento = XMLMemento.createReadRoot(reader);
+			IMemento[] projects = memento.getChildren(AOP_PROJECT_ELEMENT);
+			if (projects != null) {
+				for (IMemento project : projects) {
+					String projectName = project.getString(NAME_ATTRIBUTE);
+					if (projectName != null) {
+						XMLMemento projectM = XMLMemento.createWriteRoot(AOP_PROJECT_ELEMENT);
+						projectM.putMemento(project);
+						write(projectM, getProjectFile(projectName));
 					}
 				}
 			}
 		}
+		catch (Exception e) {
+			Activator.log("Cannot migrate .state model file", e);
+		}
+		finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+		legacyFile.delete();
+	}
 
-		// save memento to default map file
+	/**
+	 * Writes the given memento to a temporary file first, so that a failed write doesn't destroy the previous
+	 * contents of the file.
+	 */
+	private boolean write(XMLMemento memento, File file) {
+		projectsFolder.mkdirs();
+		File tempFile = new File(file.getPath() + ".tmp");
 		Writer writer = null;
 		try {
-			writer = new FileWriter(defaultFile.toFile());
+			writer = new OutputStreamWriter(new FileOutputStream(tempFile), ENCODING);
 			memento.save(writer);
+			writer.close();
+			writer = null;
+			try {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
 		}
 		catch (IOException e) {
+			Activator.log("Cannot save AOP reference model file '" + file + "'", e);
+			tempFile.delete();
+			return false;
 		}
 		finally {
 			if (writer != null) {
 				try {
-					writer.flush();
 					writer.close();
 				}
 				catch (IOException e) {
@@ -258,4 +424,61 @@ public class AopReferenceModelPeristence {
 			}
 		}
 	}
+
+	private void scheduleMarkerCreation(final Set<IAopReference> references) {
+		if (references.isEmpty()) {
+			return;
+		}
+		Job markerJob = new Job("Creating AOP reference model markers") {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				for (IAopReference reference : references) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					AopReferenceModelMarkerUtils.createMarker(reference, reference.getResource());
+				}
+				Activator.getModel().fireModelChanged();
+				return Status.OK_STATUS;
+			}
+		};
+		markerJob.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
+		markerJob.setSystem(true);
+		markerJob.setPriority(Job.INTERACTIVE);
+		markerJob.schedule();
+	}
+
+	private File getProjectFile(String projectName) {
+		return new File(projectsFolder, encode(projectName) + PROJECT_FILE_EXTENSION);
+	}
+
+	private static int getModificationCount(IAopProject project) {
+		// other implementations don't track their changes and are always written
+		return project instanceof AopProject ? ((AopProject) project).getModificationCount() : -1;
+	}
+
+	private boolean shouldModelByPersisted() {
+		IScopeContext context = new InstanceScope();
+		IEclipsePreferences node = context.getNode(Activator.PLUGIN_ID);
+		return node.getBoolean(Activator.PERSIST_AOP_MODEL_PREFERENCE, true);
+	}
+
+	private static String encode(String projectName) {
+		try {
+			return URLEncoder.encode(projectName, ENCODING);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(String fileName) {
+		try {
+			return URLDecoder.decode(fileName, ENCODING);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 }
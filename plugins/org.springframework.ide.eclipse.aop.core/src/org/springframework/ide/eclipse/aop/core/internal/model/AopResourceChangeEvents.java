@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,7 +35,11 @@ public class AopResourceChangeEvents extends SpringResourceChangeEventsAdapter {
 	}
 
 	public void projectClosed(IProject project, int eventType) {
-		clearProject(project);
+		// keep the persisted references, they are read again once the project is re-opened
+		IJavaProject jp = JdtUtils.getJavaProject(project);
+		if (jp != null) {
+			((AopReferenceModel) Activator.getModel()).unloadProject(jp);
+		}
 	}
 
 	public void projectDeleted(IProject project, int eventType) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 - 2013 Spring IDE Developers
+ * Copyright (c) 2007 - 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,12 +12,27 @@ package org.springframework.ide.eclipse.aop.core.internal.model.builder;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -29,6 +44,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaProject;
@@ -85,6 +101,19 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	private static final String PROCESSING_TOOK_MSG = "Processing took";
 
+	/**
+	 * Number of threads that match aspect definitions against beans; <code>1</code> matches on the job's thread
+	 * @since 3.8.1
+	 */
+	private static final int PARALLELISM = Integer.getInteger(
+			"org.springframework.ide.eclipse.aop.core.internal.model.builder.parallelism", Runtime.getRuntime()
+					.availableProcessors());
+
+	/** Number of beans that are matched against an aspect definition by a single {@link BeanMatchingTask} */
+	private static final int BEANS_PER_TASK = 32;
+
+	private static ExecutorService executor;
+
 	private final Set<IResource> affectedResources;
 
 	private final IProject project;
@@ -99,6 +128,8 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	private AspectDefinitionBuilderHelper aspectDefinitionBuilder;
 
+	private volatile boolean canceled = false;
+
 	/**
 	 * Constructor to create a {@link AopReferenceModelBuilderJob} instance.
 	 * @param affectedResources the set of resources that should be processed
@@ -110,8 +141,8 @@ public class AopReferenceModelBuilderJob extends Job {
 		this.project = project;
 		// this.originalResources = originalResources;
 		setPriority(Job.BUILD);
-		// make sure that only one Job at a time runs but without blocking the UI
-		setRule(new BlockingOnSelfSchedulingRule());
+		// make sure that only one Job at a time runs for a project but without blocking the UI
+		setRule(new ProjectSchedulingRule(project, affectedResources));
 		setSystem(!SHOW_PROGRESS);
 		setProperty(IProgressConstants.ICON_PROPERTY, AopCoreImages.DESC_OBJS_ASPECT);
 	}
@@ -174,7 +205,8 @@ public class AopReferenceModelBuilderJob extends Job {
 	 * {@link IBean}.
 	 */
 	private void buildAopReferencesForBean(final IBean bean, final IModelElement context, final IAspectDefinition info,
-			final IResource file, final IAopProject aopProject, IProgressMonitor monitor) {
+			final IResource file, final IAopProject aopProject, IProjectClassLoaderSupport classLoaderSupport,
+			final ReferenceCollector collector) {
 		try {
 			AopLog.log(AopLog.BUILDER, Activator.getFormattedMessage(
 					"AopReferenceModelBuilder.processingBeanDefinition", bean, bean.getElementResource().getFullPath()));
@@ -205,7 +237,7 @@ public class AopReferenceModelBuilderJob extends Job {
 			}
 
 			// do in context of active weaving class loader
-			this.classLoaderSupport.executeCallback(new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
+			classLoaderSupport.executeCallback(new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
 
 				public void doWithActiveProjectClassLoader() throws Throwable {
 					Class<?> targetClass = null;
@@ -213,13 +245,20 @@ public class AopReferenceModelBuilderJob extends Job {
 					// then we need to resolve the class against the external project otherwise we may end up with
 					// bogus error markers from ClassNotFoundExceptions
 					// STS-2533: https://issuetracker.springsource.com/browse/STS-2533
+					ClassLoader loader = null;
 					if (project != null && project.equals(file.getProject())) {
-						targetClass = ClassUtils.loadClass(className);
+						loader = Thread.currentThread().getContextClassLoader();
 					} else {
-						ClassLoader loader = JdtUtils.getClassLoader(file.getProject(), null);
-						targetClass = ClassUtils.loadClass(className, loader);
+						loader = JdtUtils.getClassLoader(file.getProject(), null);
 					}
 
+					// don't load target classes whose type hierarchy can't match the pointcut
+					if (!(info instanceof BeanIntroductionDefinition)
+							&& !aspectDefinitionMatcher.couldMatch(className, info, loader)) {
+						return;
+					}
+					targetClass = ClassUtils.loadClass(className, loader);
+
 					// handle introductions first
 					if (info instanceof BeanIntroductionDefinition) {
 						BeanIntroductionDefinition intro = (BeanIntroductionDefinition) info;
@@ -237,7 +276,7 @@ public class AopReferenceModelBuilderJob extends Job {
 								IAopReference ref = new AopReference(info.getType(), jdtAspectMember, JdtUtils
 										.getLineNumber(jdtAspectMember), jdtTargetType, JdtUtils
 										.getLineNumber(jdtTargetType), info, file, bean);
-								aopProject.addAopReference(ref);
+								collector.add(aopProject, ref);
 							}
 						}
 					}
@@ -265,7 +304,7 @@ public class AopReferenceModelBuilderJob extends Job {
 								IAopReference ref = new AopReference(info.getType(), jdtAspectMethod, JdtUtils
 										.getLineNumber(jdtAspectMethod), method, JdtUtils.getLineNumber(method), info,
 										file, bean);
-								aopProject.addAopReference(ref);
+								collector.add(aopProject, ref);
 							}
 							// System.out.println(String.format("--- matching on '%s' took '%s'", targetClass, (System
 							// .currentTimeMillis() - start)));
@@ -275,26 +314,15 @@ public class AopReferenceModelBuilderJob extends Job {
 			});
 		}
 		catch (Throwable t) {
-			markerJob.addThrowableHolder(new ThrowableHolder(t, file, bean, info));
+			collector.addThrowableHolder(new ThrowableHolder(t, file, bean, info));
 		}
 	}
 
-	private void buildAopReferencesForBeans(IModelElement config, IAspectDefinition info, IProgressMonitor monitor,
-			IResource file, IAopProject aopProject, Set<IBean> beans) {
-
-		monitor.subTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferences"));
-
-		for (IBean bean : beans) {
-			monitor.subTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferencesForBean", bean
-					.getElementName(), bean.getElementResource().getFullPath()));
-			buildAopReferencesForBean(bean, config, info, file, aopProject, monitor);
-
-			// Make sure that inner beans are handled as well
-			buildAopReferencesForBeans(config, info, monitor, file, aopProject, BeansModelUtils.getInnerBeans(bean));
-		}
-	}
-
-	private void buildAopReferencesForBeansConfig(IBeansConfig config, IAspectDefinition info, IProgressMonitor monitor) {
+	/**
+	 * Creates the tasks that match the given {@link IAspectDefinition} against the beans of the given config,
+	 * including their inner beans.
+	 */
+	private void addTasksForBeansConfig(IBeansConfig config, IAspectDefinition info, List<BeanMatchingTask> tasks) {
 
 		IResource file = config.getElementResource();
 		IJavaProject javaProject = JdtUtils.getJavaProject(file.getProject());
@@ -309,8 +337,22 @@ public class AopReferenceModelBuilderJob extends Job {
 			for (IBeansComponent component : config.getComponents()) {
 				addBeansFromComponent(component, beans);
 			}
-	
-			buildAopReferencesForBeans(config, info, monitor, file, aopProject, beans);
+
+			List<IBean> allBeans = new ArrayList<IBean>();
+			addBeansWithInnerBeans(beans, allBeans);
+
+			for (int i = 0; i < allBeans.size(); i += BEANS_PER_TASK) {
+				List<IBean> taskBeans = allBeans.subList(i, Math.min(i + BEANS_PER_TASK, allBeans.size()));
+				tasks.add(new BeanMatchingTask(config, info, file, aopProject, taskBeans));
+			}
+		}
+	}
+
+	private void addBeansWithInnerBeans(Set<IBean> beans, List<IBean> allBeans) {
+		for (IBean bean : beans) {
+			allBeans.add(bean);
+			// Make sure that inner beans are handled as well
+			addBeansWithInnerBeans(BeansModelUtils.getInnerBeans(bean), allBeans);
 		}
 	}
 	
@@ -340,7 +382,6 @@ public class AopReferenceModelBuilderJob extends Job {
 				// long start = System.currentTimeMillis();
 
 				aopProject = ((AopReferenceModel) Activator.getModel()).getProjectWithInitialization(javaProject);
-				aopProject.clearReferencesForResource(currentFile);
 
 				// AopLog.log(AopLog.BUILDER_CLASSPATH, Activator.getFormattedMessage(
 				// "AopReferenceModelBuilder.aopBuilderClassPath", StringUtils.arrayToDelimitedString(
@@ -351,23 +392,37 @@ public class AopReferenceModelBuilderJob extends Job {
 
 				addAspectInfosFromImport(config, aspectInfos);
 
-				// remove references for all definitions
-				for (IAspectDefinition info : aspectInfos) {
-					aopProject.clearReferencesForResource(info.getResource());
-				}
-
 				// System.out.println(String.format("-- preparing aop model for file '%s' took '%s'", currentFile,
 				// (System
 				// .currentTimeMillis() - start)));
 				//
 				// start = System.currentTimeMillis();
 
+				List<BeanMatchingTask> tasks = new ArrayList<BeanMatchingTask>();
 				for (IAspectDefinition info : aspectInfos) {
 					// build model for config
-					buildAopReferencesForBeansConfig(config, info, monitor);
+					addTasksForBeansConfig(config, info, tasks);
 
 					// build model for config sets
-					buildAopReferencesFromBeansConfigSets(project, config, info, monitor);
+					addTasksForBeansConfigSets(project, config, info, tasks);
+				}
+
+				// match all aspect definitions against the beans; the old references are only replaced once all
+				// tasks are done, so a canceled build keeps them
+				ReferenceCollector collector = new ReferenceCollector();
+				runTasks(tasks, collector, monitor);
+				if (canceled || monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+
+				// remove references for the file and all definitions
+				aopProject.clearReferencesForResource(currentFile);
+				for (IAspectDefinition info : aspectInfos) {
+					aopProject.clearReferencesForResource(info.getResource());
+				}
+				collector.addToProjects();
+				for (ThrowableHolder throwableHolder : collector.getThrowableHolders()) {
+					markerJob.addThrowableHolder(throwableHolder);
 				}
 
 				// System.out.println(String.format("-- building aop model for file '%s' took '%s'", currentFile,
@@ -394,8 +449,8 @@ public class AopReferenceModelBuilderJob extends Job {
 	 * certain config set and as such the {@link IAspectDefinition} need to be matched against the beans contained in
 	 * the config set.
 	 */
-	private void buildAopReferencesFromBeansConfigSets(IBeansProject project, IBeansConfig config,
-			IAspectDefinition info, IProgressMonitor monitor) {
+	private void addTasksForBeansConfigSets(IBeansProject project, IBeansConfig config,
+			IAspectDefinition info, List<BeanMatchingTask> tasks) {
 
 		Set<IBeansConfig> foundConfigs = new LinkedHashSet<IBeansConfig>();
 		for (IBeansConfigSet configSet : project.getConfigSets()) {
@@ -409,7 +464,7 @@ public class AopReferenceModelBuilderJob extends Job {
 			}
 		}
 		for (IBeansConfig bc : foundConfigs) {
-			buildAopReferencesForBeansConfig(bc, info, monitor);
+			addTasksForBeansConfig(bc, info, tasks);
 		}
 	}
 
@@ -424,6 +479,117 @@ public class AopReferenceModelBuilderJob extends Job {
 		return definitions;
 	}
 
+	/**
+	 * Runs the given tasks; with a {@link #PARALLELISM} greater than <code>1</code> the tasks run on the shared
+	 * {@link #getExecutor() executor} while the job's thread reports progress and watches for cancellation.
+	 */
+	private void runTasks(List<BeanMatchingTask> tasks, ReferenceCollector collector, IProgressMonitor monitor) {
+		monitor.beginTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferences"), tasks
+				.size());
+		try {
+			if (PARALLELISM <= 1 || tasks.size() <= 1) {
+				for (BeanMatchingTask task : tasks) {
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					task.run(collector);
+					monitor.worked(1);
+				}
+				return;
+			}
+
+			CompletionService<Void> completionService = new ExecutorCompletionService<Void>(getExecutor());
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (BeanMatchingTask task : tasks) {
+				futures.add(completionService.submit(task.asCallable(collector)));
+			}
+			try {
+				for (int done = 0; done < tasks.size();) {
+					if (monitor.isCanceled()) {
+						canceled = true;
+						// wait for the running tasks, the remaining ones return immediately
+						waitFor(futures);
+						throw new OperationCanceledException();
+					}
+					Future<Void> future = completionService.poll(100, TimeUnit.MILLISECONDS);
+					if (future != null) {
+						done++;
+						monitor.worked(1);
+						getResult(future);
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				canceled = true;
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+		}
+		finally {
+			monitor.done();
+		}
+	}
+
+	private void waitFor(List<Future<Void>> futures) {
+		for (Future<Void> future : futures) {
+			getResult(future);
+		}
+	}
+
+	private void getResult(Future<Void> future) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					future.get();
+					break;
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException e) {
+			Activator.log(e.getCause());
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Returns the bounded thread pool shared by all running {@link AopReferenceModelBuilderJob}s.
+	 * @since 3.8.1
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Spring AOP Reference Model Builder " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Stops the threads that match aspect definitions against beans.
+	 * @since 3.8.1
+	 */
+	public static synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
 	/**
 	 * Handles the creation of the AOP reference model
 	 * @param monitor the progressMonitor
@@ -434,6 +600,7 @@ public class AopReferenceModelBuilderJob extends Job {
 		AopLog.log(AopLog.BUILDER, Activator.getFormattedMessage("AopReferenceModelBuilder.startBuildReferenceModel",
 				affectedResources.size()));
 
+		canceled = false;
 		markerJob = new MarkerModifyingJob();
 		aspectDefinitionMatcher = new AspectDefinitionMatcher();
 		aspectDefinitionCache = new HashMap<IFile, List<IAspectDefinition>>();
@@ -449,7 +616,7 @@ public class AopReferenceModelBuilderJob extends Job {
 				if (currentResource instanceof IFile) {
 					IFile currentFile = (IFile) currentResource;
 
-					if (monitor.isCanceled()) {
+					if (monitor.isCanceled() || canceled) {
 						throw new OperationCanceledException();
 					}
 
@@ -458,10 +625,11 @@ public class AopReferenceModelBuilderJob extends Job {
 					monitor.subTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferenceModel",
 							currentFile.getFullPath().toString()));
 
-					markerJob.addResource(currentFile);
-
 					// do the actual aop matching
-					IAopProject aopProject = buildAopReferencesForFile(currentFile, monitor);
+					IAopProject aopProject = buildAopReferencesForFile(currentFile, new SubProgressMonitor(monitor, 1));
+
+					// only update the markers of files whose references have been rebuilt
+					markerJob.addResource(currentFile);
 
 					AopLog.log(AopLog.BUILDER_MESSAGES, Activator
 							.getFormattedMessage("AopReferenceModelBuilder.constructedAopReferenceModel"));
@@ -470,7 +638,6 @@ public class AopReferenceModelBuilderJob extends Job {
 						processedProjects.put(currentFile, aopProject);
 					}
 
-					monitor.worked(1);
 					AopLog.log(AopLog.BUILDER, Activator
 							.getFormattedMessage("AopReferenceModelBuilder.doneBuildingReferenceModel", currentFile
 									.getFullPath().toString()));
@@ -478,22 +645,35 @@ public class AopReferenceModelBuilderJob extends Job {
 				}
 			}
 
-			for (Map.Entry<IResource, IAopProject> entry : processedProjects.entrySet()) {
-				Set<IAopReference> references = entry.getValue().getAllReferences();
-				markerJob.addAopReference(entry.getKey(), references);
-			}
+			// write the references of the projects that have been changed by this build
+			((AopReferenceModel) Activator.getModel()).saveChangedProjects();
 
 			AopLog.logEnd(AopLog.BUILDER, PROCESSING_TOOK_MSG);
 		}
 		finally {
 			aspectDefinitionMatcher.close();
 			aspectDefinitionBuilder.close();
+
+			// also update the markers of the files built before a cancellation
+			for (Map.Entry<IResource, IAopProject> entry : processedProjects.entrySet()) {
+				Set<IAopReference> references = entry.getValue().getAllReferences();
+				markerJob.addAopReference(entry.getKey(), references);
+			}
+
 			// schedule marker update job
 			markerJob.schedule();
 		}
 
 	}
 
+	/**
+	 * Stops the running {@link BeanMatchingTask}s of this job; the flag is reset when the job runs again.
+	 */
+	@Override
+	protected void canceling() {
+		canceled = true;
+	}
+
 	/**
 	 * Template method to create a {@link IProjectClassLoaderSupport} instance.
 	 * <p>
@@ -504,12 +684,29 @@ public class AopReferenceModelBuilderJob extends Job {
 	}
 
 	/**
-	 * {@link ISchedulingRule} implementation that always conflicts with other {@link BlockingOnSelfSchedulingRule}s.
+	 * {@link ISchedulingRule} implementation that conflicts with other {@link ProjectSchedulingRule}s for any of the
+	 * same projects.
 	 * <p>
-	 * This rule prevents that at no time more than one job with this scheduling rule attached runs.
-	 * @since 2.0.4
+	 * This rule prevents that at no time more than one job with this scheduling rule attached runs for a project, while
+	 * jobs for independent projects run concurrently.
+	 * @since 3.8.1
 	 */
-	private class BlockingOnSelfSchedulingRule implements ISchedulingRule {
+	private static class ProjectSchedulingRule implements ISchedulingRule {
+
+		private final Set<IProject> projects = new HashSet<IProject>();
+
+		public ProjectSchedulingRule(IProject project, Set<IResource> resources) {
+			if (project != null) {
+				projects.add(project);
+			}
+			if (resources != null) {
+				for (IResource resource : resources) {
+					if (resource.getProject() != null) {
+						projects.add(resource.getProject());
+					}
+				}
+			}
+		}
 
 		/**
 		 * Always returns <code>false</code>.
@@ -519,10 +716,103 @@ public class AopReferenceModelBuilderJob extends Job {
 		}
 
 		/**
-		 * Returns <code>true</code> if <code>rule</code> is of type {@link BlockingOnSelfSchedulingRule}.
+		 * Returns <code>true</code> if <code>rule</code> is a {@link ProjectSchedulingRule} for any of the same
+		 * projects.
 		 */
 		public boolean isConflicting(ISchedulingRule rule) {
-			return rule instanceof BlockingOnSelfSchedulingRule;
+			return rule instanceof ProjectSchedulingRule
+					&& !Collections.disjoint(projects, ((ProjectSchedulingRule) rule).projects);
+		}
+	}
+
+	/**
+	 * Matches one {@link IAspectDefinition} against a chunk of the beans of a config, using its own class loader
+	 * context.
+	 * @since 3.8.1
+	 */
+	private class BeanMatchingTask {
+
+		private final IModelElement context;
+
+		private final IAspectDefinition info;
+
+		private final IResource file;
+
+		private final IAopProject aopProject;
+
+		private final List<IBean> beans;
+
+		public BeanMatchingTask(IModelElement context, IAspectDefinition info, IResource file,
+				IAopProject aopProject, List<IBean> beans) {
+			this.context = context;
+			this.info = info;
+			this.file = file;
+			this.aopProject = aopProject;
+			this.beans = beans;
+		}
+
+		public void run(ReferenceCollector collector) {
+			// the class loader support restores the context class loader of the thread it has been created on
+			IProjectClassLoaderSupport taskClassLoaderSupport = createWeavingClassLoaderSupport();
+			for (IBean bean : beans) {
+				if (canceled) {
+					return;
+				}
+				AopLog.log(AopLog.BUILDER_MESSAGES, Activator.getFormattedMessage(
+						"AopReferenceModelBuilder.buildingAopReferencesForBean", bean.getElementName(), bean
+								.getElementResource().getFullPath()));
+				buildAopReferencesForBean(bean, context, info, file, aopProject, taskClassLoaderSupport, collector);
+			}
+		}
+
+		public Callable<Void> asCallable(final ReferenceCollector collector) {
+			return new Callable<Void>() {
+
+				public Void call() throws Exception {
+					run(collector);
+					return null;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Collects the {@link IAopReference}s found and the exceptions thrown by concurrently running
+	 * {@link BeanMatchingTask}s; they are handed on once all tasks for a file are done.
+	 * @since 3.8.1
+	 */
+	private static class ReferenceCollector {
+
+		private final ConcurrentMap<IAopProject, Queue<IAopReference>> references = new ConcurrentHashMap<IAopProject, Queue<IAopReference>>();
+
+		private final Queue<ThrowableHolder> throwables = new ConcurrentLinkedQueue<ThrowableHolder>();
+
+		public void add(IAopProject aopProject, IAopReference reference) {
+			Queue<IAopReference> projectReferences = references.get(aopProject);
+			if (projectReferences == null) {
+				projectReferences = new ConcurrentLinkedQueue<IAopReference>();
+				Queue<IAopReference> existingReferences = references.putIfAbsent(aopProject, projectReferences);
+				if (existingReferences != null) {
+					projectReferences = existingReferences;
+				}
+			}
+			projectReferences.add(reference);
+		}
+
+		public void addThrowableHolder(ThrowableHolder throwableHolder) {
+			throwables.add(throwableHolder);
+		}
+
+		public Queue<ThrowableHolder> getThrowableHolders() {
+			return throwables;
+		}
+
+		public void addToProjects() {
+			for (Map.Entry<IAopProject, Queue<IAopReference>> entry : references.entrySet()) {
+				for (IAopReference reference : entry.getValue()) {
+					entry.getKey().addAopReference(reference);
+				}
+			}
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,8 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.aop.core.internal.model.builder;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -24,6 +24,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.aopalliance.aop.Advice;
 import org.eclipse.core.resources.IProject;
@@ -35,6 +37,7 @@ import org.springframework.aop.framework.AopInfrastructureBean;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutTypeFilter.TypeHierarchy;
 import org.springframework.ide.eclipse.aop.core.model.IAopReference.ADVICE_TYPE;
 import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
@@ -42,6 +45,8 @@ import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
 import org.springframework.ide.eclipse.core.java.ClassUtils;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.type.asm.CachingClassReaderFactory;
+import org.springframework.ide.eclipse.core.type.asm.ClassReaderFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.ReflectionUtils;
 
@@ -51,13 +56,54 @@ import org.springframework.util.ReflectionUtils;
  * Uses Spring AOP's {@link AspectJExpressionPointcut} infrastructure to determine matches.
  * <p>
  * With Spring 2.5 this class supports the bean pointcut primitive as well.
+ * <p>
+ * Parsed pointcuts are kept in the {@link PointcutExpressionCache} across builds. Before a target class gets loaded,
+ * {@link #couldMatch(String, IAspectDefinition, ClassLoader)} checks the pointcut against the ASM-read type hierarchy
+ * of the class with a {@link PointcutTypeFilter}.
+ * <p>
+ * A matcher is shared by the bean matching tasks of a build that run concurrently. As the AspectJ pointcuts can't be
+ * used by several threads at the same time, every match takes a pointcut out of the {@link PointcutExpressionCache}
+ * for its own use and puts it back afterwards; concurrent tasks never wait for each other's pointcuts.
  * @author Christian Dupuis
  * @since 2.0
  */
 public class AspectDefinitionMatcher {
 
-	/** Internal cache to used with {@link AspectJExpressionPointcut} */
-	private Map<IAspectDefinition, Object> pointcutExpressionCache = new HashMap<IAspectDefinition, Object>();
+	/** The {@link AspectJExpressionPointcut}s used by this matcher; their match results are dropped on close */
+	private Set<Object> usedPointcuts = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+	/** Type filters by pointcut expression */
+	private Map<String, PointcutTypeFilter> typeFilterCache = new ConcurrentHashMap<String, PointcutTypeFilter>();
+
+	/** Class reader factories and type hierarchies read with them, by class loader */
+	private ConcurrentMap<ClassLoader, ClassReaderFactory> classReaderFactories = new ConcurrentHashMap<ClassLoader, ClassReaderFactory>();
+
+	private ConcurrentMap<ClassLoader, Map<String, TypeHierarchy>> typeHierarchyCache = new ConcurrentHashMap<ClassLoader, Map<String, TypeHierarchy>>();
+
+	/**
+	 * Returns <code>false</code> if the pointcut of the given {@link IAspectDefinition} can't match any method of the
+	 * given class; the class is only read with ASM and not loaded.
+	 * @param className the name of the target class
+	 * @param info the {@link IAspectDefinition}
+	 * @param classLoader the class loader that would load the target class
+	 * @since 3.8.1
+	 */
+	public boolean couldMatch(String className, IAspectDefinition info, ClassLoader classLoader) {
+		String expression = info.getPointcutExpression();
+		if (expression == null) {
+			return true;
+		}
+		PointcutTypeFilter typeFilter = typeFilterCache.get(expression);
+		if (typeFilter == null) {
+			typeFilter = PointcutTypeFilter.forExpression(expression);
+			typeFilterCache.put(expression, typeFilter);
+		}
+		if (typeFilter.isMatchingAll()) {
+			return true;
+		}
+		TypeHierarchy typeHierarchy = getTypeHierarchy(className, classLoader);
+		return typeHierarchy == null || typeFilter.couldMatch(typeHierarchy);
+	}
 
 	/**
 	 * Returns all matches on {@link Method} in form of the corresponding {@link IMethod}.
@@ -101,22 +147,49 @@ public class AspectDefinitionMatcher {
 	}
 
 	public void close() {
-		for (Object pce : pointcutExpressionCache.values()) {
-			Field field = ReflectionUtils.findField(pce.getClass(), "shadowMatchCache");
-			field.setAccessible(true);
-			Map<?, ?> shadowMatchCache = (Map<?, ?>) ReflectionUtils.getField(field, pce);
+		// the parsed pointcuts stay in the PointcutExpressionCache, only their match results are dropped
+		PointcutExpressionCache.clearShadowMatches(usedPointcuts);
+		usedPointcuts.clear();
+		typeFilterCache.clear();
+		classReaderFactories.clear();
+		typeHierarchyCache.clear();
+	}
 
-			try {
-				Class<?> resolvedTypeClass = pce.getClass().getClassLoader().loadClass(
-						"org.aspectj.weaver.ResolvedType");
-				Method resetPrimitivesMethod = resolvedTypeClass.getMethod("resetPrimitives");
-				resetPrimitivesMethod.invoke(resolvedTypeClass);
+	private TypeHierarchy getTypeHierarchy(String className, ClassLoader classLoader) {
+		Map<String, TypeHierarchy> typeHierarchies = typeHierarchyCache.get(classLoader);
+		if (typeHierarchies == null) {
+			// unreadable classes are cached as null values
+			typeHierarchies = Collections.synchronizedMap(new HashMap<String, TypeHierarchy>());
+			Map<String, TypeHierarchy> existingTypeHierarchies = typeHierarchyCache.putIfAbsent(classLoader,
+					typeHierarchies);
+			if (existingTypeHierarchies != null) {
+				typeHierarchies = existingTypeHierarchies;
 			}
-			catch (Exception e) {
+		}
+		synchronized (typeHierarchies) {
+			if (typeHierarchies.containsKey(className)) {
+				return typeHierarchies.get(className);
+			}
+		}
+
+		ClassReaderFactory classReaderFactory = classReaderFactories.get(classLoader);
+		if (classReaderFactory == null) {
+			classReaderFactory = new CachingClassReaderFactory(classLoader);
+			ClassReaderFactory existingClassReaderFactory = classReaderFactories.putIfAbsent(classLoader,
+					classReaderFactory);
+			if (existingClassReaderFactory != null) {
+				classReaderFactory = existingClassReaderFactory;
 			}
-			shadowMatchCache.clear();
 		}
-		pointcutExpressionCache.clear();
+		TypeHierarchy typeHierarchy = null;
+		try {
+			typeHierarchy = TypeHierarchy.read(className, classReaderFactory);
+		}
+		catch (IOException e) {
+			// can't tell without loading the class
+		}
+		typeHierarchies.put(className, typeHierarchy);
+		return typeHierarchy;
 	}
 
 	/**
@@ -174,17 +247,22 @@ public class AspectDefinitionMatcher {
 	}
 
 	/**
-	 * Creates {@link AspectJExpressionPointcut} instances based on {@link IAspectDefinition}.
+	 * Returns an {@link AspectJExpressionPointcut} based on the {@link IAspectDefinition} for the exclusive use of the
+	 * calling thread; it has to be given back to the {@link PointcutExpressionCache} after matching.
 	 */
-	private Object createAspectJPointcutExpression(IAspectDefinition info) throws Throwable {
-		try {
-
-			if (pointcutExpressionCache.containsKey(info)) {
-				return pointcutExpressionCache.get(info);
-			}
+	private Object acquireAspectJPointcutExpression(IAspectDefinition info, IProject project, ClassLoader classLoader)
+			throws Throwable {
+		Object pointcut = PointcutExpressionCache.acquire(project, classLoader, info);
+		if (pointcut == null) {
+			pointcut = initAspectJExpressionPointcutWithAdvice(info);
+		}
+		usedPointcuts.add(pointcut);
+		return pointcut;
+	}
 
+	private Object initAspectJExpressionPointcutWithAdvice(IAspectDefinition info) throws Throwable {
+		try {
 			Object pc = initAspectJExpressionPointcut(info);
-			pointcutExpressionCache.put(info, pc);
 
 			Class<?> aspectJAdviceClass = AspectJAdviceClassFactory.getAspectJAdviceClass(info);
 			Class<?> aspectInstanceFactoryClass = ClassUtils
@@ -259,11 +337,22 @@ public class AspectDefinitionMatcher {
 		}
 
 		final Set<IMethod> matchingMethods = new HashSet<IMethod>();
-		final Object aspectJExpressionPointcut = createAspectJPointcutExpression(info);
-
-		if (!((Boolean) ClassUtils.invokeMethod(aspectJExpressionPointcut, "matches", targetClass))) {
-			return matchingMethods;
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		final Object aspectJExpressionPointcut = acquireAspectJPointcutExpression(info, project, classLoader);
+		try {
+			if (!((Boolean) ClassUtils.invokeMethod(aspectJExpressionPointcut, "matches", targetClass))) {
+				return matchingMethods;
+			}
+			addMatchingMethods(targetClass, info, project, aspectJExpressionPointcut, matchingMethods);
 		}
+		finally {
+			PointcutExpressionCache.release(project, classLoader, info, aspectJExpressionPointcut);
+		}
+		return matchingMethods;
+	}
+
+	private void addMatchingMethods(final Class<?> targetClass, final IAspectDefinition info, IProject project,
+			final Object aspectJExpressionPointcut, final Set<IMethod> matchingMethods) {
 
 		final IType jdtTargetType = JdtUtils.getJavaType(project, targetClass.getName());
 
@@ -275,7 +364,7 @@ public class AspectDefinitionMatcher {
 
 				if (checkMethod(targetClass, method, info.isProxyTargetClass()) && !matchingMethods.contains(method)) {
 					try {
-						boolean matches = (Boolean) ClassUtils.invokeMethod(aspectJExpressionPointcut, "matches", method, targetClass);
+						boolean matches = matchesMethod(aspectJExpressionPointcut, method, targetClass);
 						if (matches) {
 							addMatchingJdtMethod(matchingMethods, jdtTargetType, method);
 						}
@@ -291,8 +380,7 @@ public class AspectDefinitionMatcher {
 									for (Method targetInterfaceMethod : targetInterfaceMethods) {
 										Method targetMethodGuess = AopUtils.getMostSpecificMethod(targetInterfaceMethod, targetClass);
 										if (method.equals(targetMethodGuess)) {
-											matches = (Boolean) ClassUtils.invokeMethod(aspectJExpressionPointcut, "matches", targetInterfaceMethod,
-													targetInterface);
+											matches = matchesMethod(aspectJExpressionPointcut, targetInterfaceMethod, targetInterface);
 											if (matches) {
 												addMatchingJdtMethod(matchingMethods, jdtTargetType, method);
 											}
@@ -321,8 +409,11 @@ public class AspectDefinitionMatcher {
 				}
 			}
 		});
-			
-		return matchingMethods;
+	}
+
+	private boolean matchesMethod(Object aspectJExpressionPointcut, Method method, Class<?> targetClass)
+			throws Throwable {
+		return (Boolean) ClassUtils.invokeMethod(aspectJExpressionPointcut, "matches", method, targetClass);
 	}
 
 	private boolean isInfrastructureClass(Class<?> beanClass) throws ClassNotFoundException {
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Per-project cache of the parsed <code>AspectJExpressionPointcut</code>s created by the
+ * {@link AspectDefinitionMatcher}, so that pointcut expressions are not parsed again for every build.
+ * <p>
+ * Pointcuts are keyed by their expression, declaration scope and advice binding. They are loaded by the project's
+ * class loader; when the project gets a new class loader (e.g. because its class path changed), all pointcuts of
+ * the project are dropped.
+ * <p>
+ * The AspectJ pointcuts can't be used by several threads at the same time, so every cached pointcut is used by one
+ * thread at a time: {@link #acquire(IProject, ClassLoader, IAspectDefinition)} takes an idle pointcut out of the
+ * cache and {@link #release(IProject, ClassLoader, IAspectDefinition, Object)} puts it back once the matching is done.
+ * Threads that match the same aspect definition concurrently therefore end up with pointcuts of their own.
+ * @since 3.8.1
+ */
+public class PointcutExpressionCache {
+
+	private static final Map<IProject, ProjectPointcuts> PROJECTS = new ConcurrentHashMap<IProject, ProjectPointcuts>();
+
+	/**
+	 * Takes an idle pointcut for the given aspect definition out of the cache; returns <code>null</code> if there is
+	 * no idle pointcut for the given class loader, in which case the caller creates a new one. Idle pointcuts of
+	 * another class loader of the project are dropped.
+	 */
+	public static Object acquire(IProject project, ClassLoader classLoader, IAspectDefinition info) {
+		ProjectPointcuts pointcuts;
+		synchronized (PROJECTS) {
+			pointcuts = PROJECTS.get(project);
+			if (pointcuts == null || pointcuts.classLoader != classLoader) {
+				// the project has got a new class loader
+				if (pointcuts != null) {
+					dispose(pointcuts.getAll());
+				}
+				pointcuts = new ProjectPointcuts(classLoader);
+				PROJECTS.put(project, pointcuts);
+				return null;
+			}
+		}
+		Queue<Object> idlePointcuts = pointcuts.pointcuts.get(getKey(info));
+		return idlePointcuts != null ? idlePointcuts.poll() : null;
+	}
+
+	/**
+	 * Puts a pointcut that has been acquired or created by the calling thread back into the cache. The pointcut is
+	 * dropped if the project has been removed or has got a new class loader in the meantime.
+	 */
+	public static void release(IProject project, ClassLoader classLoader, IAspectDefinition info, Object pointcut) {
+		ProjectPointcuts pointcuts = PROJECTS.get(project);
+		if (pointcuts == null || pointcuts.classLoader != classLoader) {
+			dispose(Collections.singleton(pointcut));
+			return;
+		}
+		String key = getKey(info);
+		Queue<Object> idlePointcuts = pointcuts.pointcuts.get(key);
+		if (idlePointcuts == null) {
+			idlePointcuts = new ConcurrentLinkedQueue<Object>();
+			Queue<Object> existingPointcuts = pointcuts.pointcuts.putIfAbsent(key, idlePointcuts);
+			if (existingPointcuts != null) {
+				idlePointcuts = existingPointcuts;
+			}
+		}
+		idlePointcuts.add(pointcut);
+	}
+
+	/**
+	 * Drops all cached pointcuts of the given project.
+	 */
+	public static void remove(IProject project) {
+		ProjectPointcuts pointcuts = PROJECTS.remove(project);
+		if (pointcuts != null) {
+			dispose(pointcuts.getAll());
+		}
+	}
+
+	/**
+	 * Clears the shadow match caches of the given pointcuts; these cache the match results per
+	 * {@link java.lang.reflect.Method} and would otherwise keep the matched classes alive.
+	 */
+	public static void clearShadowMatches(Collection<Object> pointcuts) {
+		for (Object pce : pointcuts) {
+			Field field = ReflectionUtils.findField(pce.getClass(), "shadowMatchCache");
+			if (field != null) {
+				field.setAccessible(true);
+				Map<?, ?> shadowMatchCache = (Map<?, ?>) ReflectionUtils.getField(field, pce);
+				shadowMatchCache.clear();
+			}
+		}
+	}
+
+	/**
+	 * Drops the given pointcuts. Note that <code>ResolvedType.resetPrimitives()</code> is deliberately not called: it
+	 * resets static state of the AspectJ weaver that is shared with the builds of other projects which may be
+	 * matching at the same time.
+	 */
+	private static void dispose(Collection<Object> pointcuts) {
+		clearShadowMatches(pointcuts);
+	}
+
+	/**
+	 * Everything that goes into a pointcut: its expression, the declaration scope and the parameter binding of the
+	 * advice method.
+	 */
+	private static String getKey(IAspectDefinition info) {
+		StringBuilder key = new StringBuilder();
+		key.append(info.getPointcutExpression()).append('|');
+		key.append(info.getAspectClassName()).append('|');
+		key.append(info.getType()).append('|');
+		key.append(info.getAdviceMethodName()).append('|');
+		key.append(Arrays.toString(info.getAdviceMethodParameterTypes())).append('|');
+		key.append(info.getReturning()).append('|');
+		key.append(info.getThrowing()).append('|');
+		key.append(Arrays.toString(info.getArgNames()));
+		return key.toString();
+	}
+
+	private static class ProjectPointcuts {
+
+		private final ClassLoader classLoader;
+
+		private final ConcurrentMap<String, Queue<Object>> pointcuts = new ConcurrentHashMap<String, Queue<Object>>();
+
+		public ProjectPointcuts(ClassLoader classLoader) {
+			this.classLoader = classLoader;
+		}
+
+		public Collection<Object> getAll() {
+			List<Object> all = new ArrayList<Object>();
+			for (Queue<Object> idlePointcuts : pointcuts.values()) {
+				all.addAll(idlePointcuts);
+			}
+			return all;
+		}
+	}
+
+}
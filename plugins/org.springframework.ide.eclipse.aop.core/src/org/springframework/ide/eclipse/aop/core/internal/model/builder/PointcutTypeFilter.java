@@ -0,0 +1,496 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.ide.eclipse.core.type.asm.ClassReaderFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Decides from a pointcut expression and the ASM-read {@link TypeHierarchy} of a class whether the pointcut could
+ * match any method of that class, without loading the class.
+ * <p>
+ * The filter is conservative: it only rules out a class if a <code>within</code>, <code>execution</code>,
+ * <code>this</code>, <code>target</code>, <code>@within</code>, <code>@target</code> or <code>@annotation</code>
+ * primitive that the whole expression depends on can't match any type or method in the hierarchy of the class. Every
+ * other primitive, negations and expressions that can't be parsed are assumed to match.
+ * <p>
+ * Type names are resolved by AspectJ against the package and the imports of the aspect, which aren't known here, so
+ * a qualified name like <code>Outer.Inner</code> may name <code>com.foo.Outer.Inner</code>. Names and type patterns
+ * therefore match every type whose name is equal to them or ends with them after a '.'.
+ * @since 3.8.1
+ */
+public class PointcutTypeFilter {
+
+	private static final PointcutTypeFilter MATCH_ALL = new PointcutTypeFilter(null);
+
+	private static final Pattern TYPE_PATTERN = Pattern.compile("[\\w$.*]+\\+?");
+
+	private static final Pattern TYPE_NAME = Pattern.compile("[\\w$]+(\\.[\\w$]+)+");
+
+	private final Node root;
+
+	private PointcutTypeFilter(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Creates a filter for the given pointcut expression.
+	 */
+	public static PointcutTypeFilter forExpression(String expression) {
+		if (expression == null) {
+			return MATCH_ALL;
+		}
+		try {
+			Parser parser = new Parser(expression);
+			Node root = parser.parseOr();
+			if (!parser.isAtEnd()) {
+				return MATCH_ALL;
+			}
+			return new PointcutTypeFilter(root);
+		}
+		catch (IllegalArgumentException e) {
+			return MATCH_ALL;
+		}
+	}
+
+	/**
+	 * Returns <code>false</code> if the pointcut can't match any method of the class with the given hierarchy.
+	 */
+	public boolean couldMatch(TypeHierarchy hierarchy) {
+		return root == null || root.couldMatch(hierarchy);
+	}
+
+	/**
+	 * Returns <code>true</code> if this filter never rules out a class.
+	 */
+	public boolean isMatchingAll() {
+		return root == null || !root.canRuleOut();
+	}
+
+	/**
+	 * Type names and annotations of a class and all its super classes and interfaces, read with ASM.
+	 */
+	public static class TypeHierarchy {
+
+		private final Set<String> typeNames = new HashSet<String>();
+
+		private final Set<String> typeAnnotations = new HashSet<String>();
+
+		private final Set<String> methodAnnotations = new HashSet<String>();
+
+		/**
+		 * Reads the hierarchy of the given class.
+		 * @throws IOException if the class or one of its super types can't be read
+		 */
+		public static TypeHierarchy read(String className, ClassReaderFactory classReaderFactory) throws IOException {
+			TypeHierarchy hierarchy = new TypeHierarchy();
+			LinkedList<String> pending = new LinkedList<String>();
+			Set<String> visited = new HashSet<String>();
+			pending.add(className);
+			while (!pending.isEmpty()) {
+				String typeName = pending.removeFirst();
+				if (visited.add(typeName)) {
+					ClassReader classReader = classReaderFactory.getClassReader(typeName);
+					HierarchyReadingVisitor visitor = new HierarchyReadingVisitor(hierarchy);
+					classReader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+					pending.addAll(visitor.superTypes);
+				}
+			}
+			return hierarchy;
+		}
+
+		private static void addName(Set<String> names, String className) {
+			names.add(className);
+			if (className.indexOf('$') != -1) {
+				names.add(className.replace('$', '.'));
+			}
+		}
+
+		private static boolean containsName(Set<String> names, String name) {
+			if (names.contains(name)) {
+				return true;
+			}
+			String suffix = "." + name;
+			for (String candidate : names) {
+				if (candidate.endsWith(suffix)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean containsMatchingType(Pattern pattern) {
+			for (String typeName : typeNames) {
+				if (pattern.matcher(typeName).matches()) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class HierarchyReadingVisitor extends ClassVisitor {
+
+		private final TypeHierarchy hierarchy;
+
+		private final List<String> superTypes = new ArrayList<String>();
+
+		public HierarchyReadingVisitor(TypeHierarchy hierarchy) {
+			super(SpringAsmInfo.ASM_VERSION);
+			this.hierarchy = hierarchy;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName,
+				String[] interfaces) {
+			TypeHierarchy.addName(hierarchy.typeNames, ClassUtils.convertResourcePathToClassName(name));
+			if (superName != null) {
+				superTypes.add(ClassUtils.convertResourcePathToClassName(superName));
+			}
+			if (interfaces != null) {
+				for (String interfaceName : interfaces) {
+					superTypes.add(ClassUtils.convertResourcePathToClassName(interfaceName));
+				}
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			TypeHierarchy.addName(hierarchy.typeAnnotations, Type.getType(desc).getClassName());
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+			return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+
+				@Override
+				public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+					TypeHierarchy.addName(hierarchy.methodAnnotations, Type.getType(desc).getClassName());
+					return null;
+				}
+			};
+		}
+	}
+
+	private interface Node {
+
+		boolean couldMatch(TypeHierarchy hierarchy);
+
+		boolean canRuleOut();
+	}
+
+	private static class And implements Node {
+
+		private final List<Node> nodes;
+
+		public And(List<Node> nodes) {
+			this.nodes = nodes;
+		}
+
+		public boolean couldMatch(TypeHierarchy hierarchy) {
+			for (Node node : nodes) {
+				if (!node.couldMatch(hierarchy)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public boolean canRuleOut() {
+			for (Node node : nodes) {
+				if (node.canRuleOut()) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class Or implements Node {
+
+		private final List<Node> nodes;
+
+		public Or(List<Node> nodes) {
+			this.nodes = nodes;
+		}
+
+		public boolean couldMatch(TypeHierarchy hierarchy) {
+			for (Node node : nodes) {
+				if (node.couldMatch(hierarchy)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public boolean canRuleOut() {
+			for (Node node : nodes) {
+				if (!node.canRuleOut()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class Primitive implements Node {
+
+		private final String designator;
+
+		private final String argument;
+
+		private final Pattern typePattern;
+
+		public Primitive(String designator, String argument) {
+			this.designator = designator;
+			this.argument = argument.trim();
+			this.typePattern = createTypePattern();
+		}
+
+		public boolean canRuleOut() {
+			return typePattern != null || isAnnotationDesignator() || isTypeDesignator();
+		}
+
+		public boolean couldMatch(TypeHierarchy hierarchy) {
+			if (typePattern != null) {
+				return hierarchy.containsMatchingType(typePattern);
+			}
+			else if (isTypeDesignator()) {
+				return TypeHierarchy.containsName(hierarchy.typeNames, argument);
+			}
+			else if ("@within".equals(designator) || "@target".equals(designator)) {
+				return !isTypeName(argument) || TypeHierarchy.containsName(hierarchy.typeAnnotations, argument);
+			}
+			else if ("@annotation".equals(designator)) {
+				return !isTypeName(argument) || TypeHierarchy.containsName(hierarchy.methodAnnotations, argument);
+			}
+			return true;
+		}
+
+		private boolean isTypeDesignator() {
+			// this() and target() with a parameter name bind the object instead of naming a type
+			return ("this".equals(designator) || "target".equals(designator)) && isTypeName(argument);
+		}
+
+		private boolean isAnnotationDesignator() {
+			return ("@within".equals(designator) || "@target".equals(designator) || "@annotation".equals(designator))
+					&& isTypeName(argument);
+		}
+
+		private Pattern createTypePattern() {
+			if ("within".equals(designator)) {
+				return toRegex(argument);
+			}
+			else if ("execution".equals(designator)) {
+				return toRegex(getDeclaringTypePattern(argument));
+			}
+			return null;
+		}
+
+		/**
+		 * Extracts the declaring type pattern of an execution pointcut, e.g. <code>com.foo..*Service</code> from
+		 * <code>* com.foo..*Service.*(..)</code>. Returns <code>null</code> if the signature has no or a complex
+		 * declaring type pattern.
+		 */
+		private static String getDeclaringTypePattern(String signature) {
+			if (signature.indexOf('@') != -1 || signature.indexOf('<') != -1) {
+				return null;
+			}
+			int parameters = signature.indexOf('(');
+			if (parameters == -1) {
+				return null;
+			}
+			String[] tokens = signature.substring(0, parameters).trim().split("\\s+");
+			if (tokens.length < 2) {
+				return null;
+			}
+			String method = tokens[tokens.length - 1];
+			int separator = method.lastIndexOf('.');
+			if (separator <= 0 || method.charAt(separator - 1) == '.') {
+				return null;
+			}
+			return method.substring(0, separator);
+		}
+
+		/**
+		 * Converts an AspectJ type pattern into a regular expression over the names of the types in a hierarchy,
+		 * matching the names that end with the pattern. Returns <code>null</code> for patterns that match any type or
+		 * that can't be converted.
+		 */
+		private static Pattern toRegex(String typePattern) {
+			if (typePattern == null || !TYPE_PATTERN.matcher(typePattern).matches()) {
+				return null;
+			}
+			// the hierarchy contains all super types, so sub type patterns match like plain ones
+			if (typePattern.endsWith("+")) {
+				typePattern = typePattern.substring(0, typePattern.length() - 1);
+			}
+			// unqualified names are resolved against the imports of the aspect
+			if (typePattern.indexOf('.') == -1 || typePattern.startsWith(".") || typePattern.endsWith(".")) {
+				return null;
+			}
+			// any package including the default package for '*..', the name may be relative to the package or the
+			// imports of the aspect otherwise
+			StringBuilder regex = new StringBuilder("(?:.*\\.)?");
+			int start = typePattern.startsWith("*..") ? 3 : 0;
+			for (int i = start; i < typePattern.length(); i++) {
+				char c = typePattern.charAt(i);
+				if (c == '*') {
+					regex.append("[^.]*");
+				}
+				else if (c == '.' && i + 1 < typePattern.length() && typePattern.charAt(i + 1) == '.') {
+					regex.append("\\.(?:[^.]*\\.)*");
+					i++;
+				}
+				else if (c == '.') {
+					regex.append("\\.");
+				}
+				else if (c == '$') {
+					regex.append("\\$");
+				}
+				else {
+					regex.append(c);
+				}
+			}
+			return Pattern.compile(regex.toString());
+		}
+
+		private static boolean isTypeName(String argument) {
+			return TYPE_NAME.matcher(argument).matches();
+		}
+	}
+
+	/**
+	 * Recursive descent parser for the boolean structure of a pointcut expression; primitives are kept as text.
+	 */
+	private static class Parser {
+
+		private final String expression;
+
+		private int position = 0;
+
+		public Parser(String expression) {
+			this.expression = expression;
+		}
+
+		public boolean isAtEnd() {
+			skipWhitespace();
+			return position == expression.length();
+		}
+
+		public Node parseOr() {
+			List<Node> nodes = new ArrayList<Node>();
+			nodes.add(parseAnd());
+			while (consume("||") || consumeWord("or")) {
+				nodes.add(parseAnd());
+			}
+			return nodes.size() == 1 ? nodes.get(0) : new Or(nodes);
+		}
+
+		private Node parseAnd() {
+			List<Node> nodes = new ArrayList<Node>();
+			nodes.add(parseNot());
+			while (consume("&&") || consumeWord("and")) {
+				nodes.add(parseNot());
+			}
+			return nodes.size() == 1 ? nodes.get(0) : new And(nodes);
+		}
+
+		private Node parseNot() {
+			if (consume("!") || consumeWord("not")) {
+				parseNot();
+				// a negated primitive may match anything
+				return new Primitive("!", "");
+			}
+			if (consume("(")) {
+				Node node = parseOr();
+				if (!consume(")")) {
+					throw new IllegalArgumentException("Missing ')' in " + expression);
+				}
+				return node;
+			}
+			return parsePrimitive();
+		}
+
+		private Node parsePrimitive() {
+			skipWhitespace();
+			int start = position;
+			while (position < expression.length()) {
+				char c = expression.charAt(position);
+				if (!Character.isJavaIdentifierPart(c) && c != '.' && c != '@') {
+					break;
+				}
+				position++;
+			}
+			String designator = expression.substring(start, position);
+			if (designator.length() == 0 || !consume("(")) {
+				throw new IllegalArgumentException("Missing pointcut designator in " + expression);
+			}
+			int argumentStart = position;
+			int depth = 1;
+			while (position < expression.length() && depth > 0) {
+				char c = expression.charAt(position++);
+				if (c == '(') {
+					depth++;
+				}
+				else if (c == ')') {
+					depth--;
+				}
+			}
+			if (depth > 0) {
+				throw new IllegalArgumentException("Missing ')' in " + expression);
+			}
+			return new Primitive(designator, expression.substring(argumentStart, position - 1));
+		}
+
+		private boolean consume(String token) {
+			skipWhitespace();
+			if (expression.startsWith(token, position)) {
+				position += token.length();
+				return true;
+			}
+			return false;
+		}
+
+		private boolean consumeWord(String word) {
+			skipWhitespace();
+			int end = position + word.length();
+			if (expression.startsWith(word, position) && end < expression.length()
+					&& !Character.isJavaIdentifierPart(expression.charAt(end)) && expression.charAt(end) != '(') {
+				position = end;
+				return true;
+			}
+			return false;
+		}
+
+		private void skipWhitespace() {
+			while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+				position++;
+			}
+		}
+	}
+
+}
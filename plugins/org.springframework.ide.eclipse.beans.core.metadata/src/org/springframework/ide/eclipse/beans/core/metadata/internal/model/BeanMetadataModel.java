@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,22 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
+import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataModel;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
@@ -28,6 +36,10 @@ import org.springframework.ide.eclipse.core.SpringCore;
 /**
  * {@link IBeanMetadataModel} implementation that saves and reloads its contents from a backing
  * store.
+ * <p>
+ * The contents are kept in a {@link BeanMetadataStore} with one segment per project. A segment
+ * is loaded on the first access to an element of its project, and only the elements that have
+ * been changed are written back on {@link #stop()}.
  * @author Christian Dupuis
  * @since 2.0.5
  */
@@ -47,11 +59,25 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 
 	private Map<String, BeanPropertyDataHolder> beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
 
+	/** The backing store; <code>null</code> until the model has been started */
+	private volatile BeanMetadataStore store;
+
+	/** Names of the segments that have been loaded from the store */
+	private final Set<String> loadedSegments = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** Ids of the elements whose meta data has been changed since the last store, by segment */
+	private final Map<String, Set<String>> changedMetadata = new HashMap<String, Set<String>>();
+
+	/** Ids of the elements whose properties have been changed since the last store, by segment */
+	private final Map<String, Set<String>> changedProperties = new HashMap<String, Set<String>>();
+
 	public Set<IBeanMetadata> getBeanMetadata(IBean bean) {
+		String elementId = bean.getElementID();
+		ensureLoaded(elementId);
 		try {
 			r.lock();
-			if (beanMetadata.containsKey(bean.getElementID())) {
-				return beanMetadata.get(bean.getElementID()).getBeanMetaData();
+			if (beanMetadata.containsKey(elementId)) {
+				return beanMetadata.get(elementId).getBeanMetaData();
 			}
 			return Collections.emptySet();
 		}
@@ -62,15 +88,18 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 
 	public void setBeanMetadata(IBean bean, Set<IBeanMetadata> bMetaData,
 			Set<IMethodMetadata> methodMetaData) {
+		String elementId = bean.getElementID();
+		ensureLoaded(elementId);
 		try {
 			w.lock();
 			BeanMetadataHolder holder = new BeanMetadataHolder();
-			holder.setElemenetId(bean.getElementID());
+			holder.setElemenetId(elementId);
 			holder.setBeanMetaData(bMetaData);
 			holder.setMethodMetaData(methodMetaData);
 			// safe time so we can purge very old entries after a while
 			holder.setLastModified(System.currentTimeMillis());
-			beanMetadata.put(bean.getElementID(), holder);
+			beanMetadata.put(elementId, holder);
+			markChanged(changedMetadata, elementId);
 		}
 		finally {
 			w.unlock();
@@ -78,9 +107,13 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void clearBeanMetadata(IBean bean) {
+		String elementId = bean.getElementID();
+		ensureLoaded(elementId);
 		try {
 			w.lock();
-			beanMetadata.remove(bean.getElementID());
+			if (beanMetadata.remove(elementId) != null) {
+				markChanged(changedMetadata, elementId);
+			}
 		}
 		finally {
 			w.unlock();
@@ -88,10 +121,12 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public Set<IBeanProperty> getBeanProperties(IBean bean) {
+		String elementId = bean.getElementID();
+		ensureLoaded(elementId);
 		try {
 			r.lock();
-			if (beanPropertyData.containsKey(bean.getElementID())) {
-				return beanPropertyData.get(bean.getElementID()).getBeanProperties();
+			if (beanPropertyData.containsKey(elementId)) {
+				return beanPropertyData.get(elementId).getBeanProperties();
 			}
 			return Collections.emptySet();
 		}
@@ -101,14 +136,17 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void setBeanProperties(IBean bean, Set<IBeanProperty> beanProperties) {
+		String elementId = bean.getElementID();
+		ensureLoaded(elementId);
 		try {
 			w.lock();
 			BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
-			holder.setElemenetId(bean.getElementID());
+			holder.setElemenetId(elementId);
 			holder.setBeanProperties(beanProperties);
 			// safe time so we can purge very old entries after a while
 			holder.setLastModified(System.currentTimeMillis());
-			beanPropertyData.put(bean.getElementID(), holder);
+			beanPropertyData.put(elementId, holder);
+			markChanged(changedProperties, elementId);
 		}
 		finally {
 			w.unlock();
@@ -116,9 +154,13 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void clearBeanProperties(IBean bean) {
+		String elementId = bean.getElementID();
+		ensureLoaded(elementId);
 		try {
 			w.lock();
-			beanPropertyData.remove(bean.getElementID());
+			if (beanPropertyData.remove(elementId) != null) {
+				markChanged(changedProperties, elementId);
+			}
 		}
 		finally {
 			w.unlock();
@@ -126,33 +168,200 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	/**
-	 * Starts and loads the internal model.
+	 * Starts the internal model. The contents of the store are loaded on demand; meta data that has been saved by an
+	 * earlier version gets migrated to the store.
 	 */
 	public void start() {
+		BeanMetadataStore newStore = BeanMetadataPersistence.createStore();
+		if (BeanMetadataPersistence.hasLegacyState()) {
+			if (start(newStore, BeanMetadataPersistence.loadMetadata(), BeanMetadataPersistence.loadProperties())) {
+				BeanMetadataPersistence.deleteLegacyState();
+			}
+		}
+		else {
+			start(newStore, Collections.<String, BeanMetadataHolder> emptyMap(),
+					Collections.<String, BeanPropertyDataHolder> emptyMap());
+		}
+	}
+
+	/**
+	 * Starts the internal model on the given store and migrates the given meta data of an earlier version. Only
+	 * segments that don't exist in the store yet are migrated, as existing segments have been written later.
+	 * <p>
+	 * only for internal testing purposes
+	 * @return <code>true</code> if the migrated meta data has been written to the store
+	 * @since 3.8.1
+	 */
+	public boolean start(BeanMetadataStore newStore, Map<String, BeanMetadataHolder> legacyMetadata,
+			Map<String, BeanPropertyDataHolder> legacyProperties) {
+		boolean migrated = true;
+		if (!legacyMetadata.isEmpty() || !legacyProperties.isEmpty()) {
+			migrated = migrateLegacyState(newStore, legacyMetadata, legacyProperties);
+		}
+		store = newStore;
+		return migrated;
+	}
+
+	/**
+	 * Stops the internal model and saves the changed elements.
+	 */
+	public void stop() {
+		if (store != null) {
+			storeChanges(store);
+		}
+	}
 
-		Map<String, BeanMetadataHolder> storedBeanMetadata = BeanMetadataPersistence.loadMetadata();
-		Map<String, BeanPropertyDataHolder> storedProperties = BeanMetadataPersistence
-				.loadProperties();
+	private boolean migrateLegacyState(BeanMetadataStore newStore, Map<String, BeanMetadataHolder> legacyMetadata,
+			Map<String, BeanPropertyDataHolder> legacyProperties) {
+		Set<String> existingSegments = newStore.getSegmentNames();
 		try {
 			w.lock();
-			beanMetadata = storedBeanMetadata;
-			beanPropertyData = storedProperties;
-		}
-		catch (Exception e) {
-			beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
-			beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+			for (Map.Entry<String, BeanMetadataHolder> entry : legacyMetadata.entrySet()) {
+				String segment = BeanMetadataStore.getSegmentName(entry.getKey());
+				if (!existingSegments.contains(segment) && !beanMetadata.containsKey(entry.getKey())) {
+					beanMetadata.put(entry.getKey(), entry.getValue());
+					markChanged(changedMetadata, entry.getKey());
+					loadedSegments.add(segment);
+				}
+			}
+			for (Map.Entry<String, BeanPropertyDataHolder> entry : legacyProperties.entrySet()) {
+				String segment = BeanMetadataStore.getSegmentName(entry.getKey());
+				if (!existingSegments.contains(segment) && !beanPropertyData.containsKey(entry.getKey())) {
+					beanPropertyData.put(entry.getKey(), entry.getValue());
+					markChanged(changedProperties, entry.getKey());
+					loadedSegments.add(segment);
+				}
+			}
 		}
 		finally {
 			w.unlock();
 		}
+		return storeChanges(newStore);
 	}
 
 	/**
-	 * Stops and saves the internal model.
+	 * Loads the segment of the given element from the store if that hasn't happened yet.
 	 */
-	public void stop() {
-		BeanMetadataPersistence.storeMetadata(beanMetadata);
-		BeanMetadataPersistence.storeProperties(beanPropertyData);
+	private void ensureLoaded(String elementId) {
+		BeanMetadataStore currentStore = store;
+		if (currentStore == null) {
+			return;
+		}
+		String segment = BeanMetadataStore.getSegmentName(elementId);
+		if (!loadedSegments.contains(segment)) {
+			try {
+				w.lock();
+				loadSegment(currentStore, segment);
+			}
+			finally {
+				w.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Loads the given segment; must be called with the write lock held. Elements that have been changed before the
+	 * segment got loaded keep their current state.
+	 */
+	private void loadSegment(BeanMetadataStore currentStore, String segment) {
+		if (loadedSegments.contains(segment)) {
+			return;
+		}
+		Map<String, BeanMetadataHolder> storedBeanMetadata = new HashMap<String, BeanMetadataHolder>();
+		Map<String, BeanPropertyDataHolder> storedProperties = new HashMap<String, BeanPropertyDataHolder>();
+		try {
+			currentStore.load(segment, storedBeanMetadata, storedProperties);
+		}
+		catch (Exception e) {
+			// treat the segment as corrupt; it gets rewritten with the elements that could be read on the next store
+			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
+					"Exception restoring meta data model for project '" + segment + "'", e));
+		}
+		Set<String> changedMetadataIds = getChanged(changedMetadata, segment);
+		for (Map.Entry<String, BeanMetadataHolder> entry : storedBeanMetadata.entrySet()) {
+			if (!changedMetadataIds.contains(entry.getKey())) {
+				beanMetadata.put(entry.getKey(), entry.getValue());
+			}
+		}
+		Set<String> changedPropertyIds = getChanged(changedProperties, segment);
+		for (Map.Entry<String, BeanPropertyDataHolder> entry : storedProperties.entrySet()) {
+			if (!changedPropertyIds.contains(entry.getKey())) {
+				beanPropertyData.put(entry.getKey(), entry.getValue());
+			}
+		}
+		loadedSegments.add(segment);
+	}
+
+	/**
+	 * Writes the changed elements of all segments to the given store.
+	 * @return <code>true</code> if all changes have been written
+	 */
+	private boolean storeChanges(BeanMetadataStore currentStore) {
+		boolean success = true;
+		try {
+			w.lock();
+			Set<String> segments = new HashSet<String>(changedMetadata.keySet());
+			segments.addAll(changedProperties.keySet());
+			if (segments.isEmpty()) {
+				return true;
+			}
+
+			// segments are rewritten from the model, so it needs to know all of their elements
+			for (String segment : segments) {
+				loadSegment(currentStore, segment);
+			}
+
+			Map<String, Map<String, BeanMetadataHolder>> metadataBySegment = groupBySegment(beanMetadata, segments);
+			Map<String, Map<String, BeanPropertyDataHolder>> propertiesBySegment = groupBySegment(beanPropertyData,
+					segments);
+			for (String segment : segments) {
+				try {
+					currentStore.store(segment, metadataBySegment.get(segment), propertiesBySegment.get(segment),
+							getChanged(changedMetadata, segment), getChanged(changedProperties, segment));
+					changedMetadata.remove(segment);
+					changedProperties.remove(segment);
+				}
+				catch (IOException e) {
+					success = false;
+					BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR,
+							BeansMetadataPlugin.PLUGIN_ID, "Exception saving meta data model for project '" + segment
+									+ "'", e));
+				}
+			}
+		}
+		finally {
+			w.unlock();
+		}
+		return success;
+	}
+
+	private static <T> Map<String, Map<String, T>> groupBySegment(Map<String, T> elements, Set<String> segments) {
+		Map<String, Map<String, T>> result = new HashMap<String, Map<String, T>>();
+		for (String segment : segments) {
+			result.put(segment, new LinkedHashMap<String, T>());
+		}
+		for (Map.Entry<String, T> entry : elements.entrySet()) {
+			Map<String, T> segmentElements = result.get(BeanMetadataStore.getSegmentName(entry.getKey()));
+			if (segmentElements != null) {
+				segmentElements.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return result;
+	}
+
+	private static void markChanged(Map<String, Set<String>> changes, String elementId) {
+		String segment = BeanMetadataStore.getSegmentName(elementId);
+		Set<String> ids = changes.get(segment);
+		if (ids == null) {
+			ids = new LinkedHashSet<String>();
+			changes.put(segment, ids);
+		}
+		ids.add(elementId);
+	}
+
+	private static Set<String> getChanged(Map<String, Set<String>> changes, String segment) {
+		Set<String> ids = changes.get(segment);
+		return ids != null ? ids : Collections.<String> emptySet();
 	}
 
 }
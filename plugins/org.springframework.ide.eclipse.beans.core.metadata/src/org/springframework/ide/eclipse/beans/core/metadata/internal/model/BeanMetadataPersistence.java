@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2013 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,10 +12,8 @@ package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -26,6 +24,9 @@ import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
 
 /**
  * Stores and loads the {@link IBeanMetadata}s from the persisted file.
+ * <p>
+ * Since 3.8.1 the meta data is kept in the {@link BeanMetadataStore} returned by {@link #createStore()}. The
+ * serialized <code>.state</code> files of earlier versions are only read once to migrate them to the store.
  * @author Christian Dupuis
  * @author Martin Lippert
  * @since 2.0.5
@@ -38,48 +39,48 @@ public class BeanMetadataPersistence {
 
 	private static final String BEANPROPERTIES_FOLDER_NAME = "/properties/";
 
-	public static void storeMetadata(Map<String, BeanMetadataHolder> metaData) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		store(metaData, file);
+	private static final String STORE_FOLDER_NAME = "/store/";
+
+	/**
+	 * Creates the {@link BeanMetadataStore} that keeps the meta data in the plugin's state location.
+	 * @since 3.8.1
+	 */
+	public static BeanMetadataStore createStore() {
+		return new BeanMetadataStore(BeansMetadataPlugin.getDefault().getStateLocation().append(STORE_FOLDER_NAME)
+				.toFile());
 	}
 
-	public static void storeProperties(Map<String, BeanPropertyDataHolder> properties) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation()
-				.append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME).toFile();
-		store(properties, file);
+	/**
+	 * Returns <code>true</code> if meta data has been saved by an earlier version as serialized <code>.state</code>
+	 * files.
+	 * @since 3.8.1
+	 */
+	public static boolean hasLegacyState() {
+		return getMetadataFile().exists() || getPropertiesFile().exists();
 	}
 
-	private static void store(Object obj, File file) {
-		ObjectOutputStream out = null;
+	/**
+	 * Deletes the <code>.state</code> files of earlier versions once they have been migrated.
+	 * @since 3.8.1
+	 */
+	public static void deleteLegacyState() {
+		getMetadataFile().delete();
+		getPropertiesFile().delete();
+	}
 
-		try {
-			if (!file.exists()) {
-				file.getParentFile().mkdirs();
-				file.createNewFile();
-			}
-			out = new ObjectOutputStream(new FileOutputStream(file));
-			out.writeObject(obj);
-		}
-		catch (IOException e) {
-			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
-					"Exception saving meta data model for class " + obj.getClass(), e));
-		}
-		finally {
-			try {
-				if (out != null)
-					out.close();
-			}
-			catch (IOException e) {
-			}
-		}
+	private static File getMetadataFile() {
+		return BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
+				.toFile();
+	}
+
+	private static File getPropertiesFile() {
+		return BeansMetadataPlugin.getDefault().getStateLocation().append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME)
+				.toFile();
 	}
 
 	@SuppressWarnings("unchecked")
 	public static Map<String, BeanMetadataHolder> loadMetadata() {
-		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		Map<String, BeanMetadataHolder> metaData = load(f, Map.class);
+		Map<String, BeanMetadataHolder> metaData = load(getMetadataFile(), Map.class);
 		if (metaData != null && metaData.size() > 0) {
 			return metaData;
 		}
@@ -89,9 +90,7 @@ public class BeanMetadataPersistence {
 
 	@SuppressWarnings("unchecked")
 	public static Map<String, BeanPropertyDataHolder> loadProperties() {
-		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		Map<String, BeanPropertyDataHolder> metaData = load(f, Map.class);
+		Map<String, BeanPropertyDataHolder> metaData = load(getPropertiesFile(), Map.class);
 		if (metaData != null && metaData.size() > 0) {
 			return metaData;
 		}
@@ -0,0 +1,545 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.ide.eclipse.beans.core.internal.model.SerializableRuntimeBeanReference;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModelElementTypes;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+
+/**
+ * Binary store for {@link BeanMetadataHolder}s and {@link BeanPropertyDataHolder}s that keeps one segment file per
+ * project.
+ * <p>
+ * A segment starts with a magic number and a format version, followed by a log of records. Every record either puts
+ * or removes the meta data or the bean properties of one element. Strings (element ids are split into the id of the
+ * parent element and the element's own name, so that all beans of a config share their parent id) are written only
+ * once per segment and are referenced by number afterwards. Meta data values can be contributed by other plug-ins
+ * and are therefore written with Java serialization, one block per record.
+ * <p>
+ * Storing a segment appends records for the changed elements only. Once a segment contains more outdated than live
+ * records it gets compacted, i.e. rewritten with the live records only; the compacted segment is written to a
+ * temporary file that then atomically replaces the segment. Segments with an unknown format version, or that can't
+ * be read completely, are ignored on load (from the first unreadable record on) and rewritten on the next store.
+ * @since 3.8.1
+ */
+public class BeanMetadataStore {
+
+	private static final int MAGIC = 0x53424d44;
+
+	private static final short VERSION = 1;
+
+	private static final String SEGMENT_FILE_EXTENSION = ".dat";
+
+	private static final String DEFAULT_SEGMENT = "_";
+
+	private static final byte STRING_RECORD = 0;
+
+	private static final byte METADATA_RECORD = 1;
+
+	private static final byte PROPERTIES_RECORD = 2;
+
+	private static final byte REMOVE_METADATA_RECORD = 3;
+
+	private static final byte REMOVE_PROPERTIES_RECORD = 4;
+
+	/** Compaction only kicks in for segments with at least this number of records */
+	private static final int MIN_RECORDS_FOR_COMPACTION = 64;
+
+	private final File directory;
+
+	/** State of the segments that have been loaded or written, by segment name */
+	private final Map<String, SegmentState> segments = new ConcurrentHashMap<String, SegmentState>();
+
+	public BeanMetadataStore(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the name of the segment the given element belongs to, which is the name of the element's project.
+	 */
+	public static String getSegmentName(String elementId) {
+		int start = 0;
+		while (start < elementId.length()) {
+			int end = elementId.indexOf(IModelElement.ID_DELIMITER, start);
+			if (end < 0) {
+				end = elementId.length();
+			}
+			String part = elementId.substring(start, end);
+			String projectPrefix = Integer.toString(IBeansModelElementTypes.PROJECT_TYPE) + IModelElement.ID_SEPARATOR;
+			if (part.startsWith(projectPrefix)) {
+				return part.substring(projectPrefix.length());
+			}
+			start = end + 1;
+		}
+		return DEFAULT_SEGMENT;
+	}
+
+	/**
+	 * Returns the names of all segments that exist in the store.
+	 */
+	public Set<String> getSegmentNames() {
+		Set<String> names = new LinkedHashSet<String>();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String fileName = file.getName();
+				if (fileName.endsWith(SEGMENT_FILE_EXTENSION)) {
+					names.add(decode(fileName.substring(0, fileName.length() - SEGMENT_FILE_EXTENSION.length())));
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Loads the given segment into the given maps. A corrupt segment is read up to the first corrupt record and gets
+	 * rewritten on the next store.
+	 */
+	public void load(String segment, Map<String, BeanMetadataHolder> metadata,
+			Map<String, BeanPropertyDataHolder> properties) throws IOException {
+		SegmentState state = new SegmentState();
+		segments.put(segment, state);
+
+		File file = getFile(segment);
+		if (!file.exists()) {
+			return;
+		}
+
+		// no block or count in the file can be larger than the file itself
+		long limit = file.length();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+				// unknown format; will be rewritten on next store
+				state.needsCompaction = true;
+				return;
+			}
+			while (true) {
+				int kind = in.read();
+				if (kind < 0) {
+					break;
+				}
+				readRecord((byte) kind, in, limit, state, metadata, properties);
+			}
+		}
+		catch (EOFException e) {
+			// incomplete last record (e.g. crash during store); rewrite the segment without it
+			state.needsCompaction = true;
+		}
+		catch (IOException e) {
+			// corrupt record; rewrite the segment with what could be read so far
+			state.needsCompaction = true;
+		}
+		catch (ClassNotFoundException e) {
+			// contributed meta data type is no longer available
+			state.needsCompaction = true;
+		}
+		catch (RuntimeException e) {
+			// deserialization of a corrupt meta data block
+			state.needsCompaction = true;
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Stores the changes of the given segment.
+	 * @param metadata the live meta data of all elements of the segment
+	 * @param properties the live bean properties of all elements of the segment
+	 * @param changedMetadata ids of the elements whose meta data has been changed or removed since the last store
+	 * @param changedProperties ids of the elements whose properties have been changed or removed since the last
+	 * store
+	 */
+	public void store(String segment, Map<String, BeanMetadataHolder> metadata,
+			Map<String, BeanPropertyDataHolder> properties, Set<String> changedMetadata, Set<String> changedProperties)
+			throws IOException {
+		SegmentState state = segments.get(segment);
+		File file = getFile(segment);
+		int liveRecords = metadata.size() + properties.size();
+
+		if (state == null || state.needsCompaction || !file.exists()
+				|| (state.records + changedMetadata.size() + changedProperties.size() > MIN_RECORDS_FOR_COMPACTION
+						&& state.records + changedMetadata.size() + changedProperties.size() > 2 * liveRecords)) {
+			compact(segment, metadata, properties);
+			return;
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		try {
+			for (String elementId : changedMetadata) {
+				BeanMetadataHolder holder = metadata.get(elementId);
+				if (holder != null) {
+					writeMetadata(holder, out, state);
+				}
+				else {
+					writeRemove(REMOVE_METADATA_RECORD, elementId, out, state);
+				}
+			}
+			for (String elementId : changedProperties) {
+				BeanPropertyDataHolder holder = properties.get(elementId);
+				if (holder != null) {
+					writeProperties(holder, out, state);
+				}
+				else {
+					writeRemove(REMOVE_PROPERTIES_RECORD, elementId, out, state);
+				}
+			}
+		}
+		catch (IOException e) {
+			// the string table might no longer match the file
+			state.needsCompaction = true;
+			throw e;
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Deletes all segment files.
+	 */
+	public void clear() {
+		segments.clear();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(SEGMENT_FILE_EXTENSION)) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	private void compact(String segment, Map<String, BeanMetadataHolder> metadata,
+			Map<String, BeanPropertyDataHolder> properties) throws IOException {
+		File file = getFile(segment);
+		if (metadata.isEmpty() && properties.isEmpty()) {
+			file.delete();
+			segments.put(segment, new SegmentState());
+			return;
+		}
+
+		directory.mkdirs();
+		SegmentState state = new SegmentState();
+		File tempFile = new File(directory, file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		boolean written = false;
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			for (BeanMetadataHolder holder : metadata.values()) {
+				writeMetadata(holder, out, state);
+			}
+			for (BeanPropertyDataHolder holder : properties.values()) {
+				writeProperties(holder, out, state);
+			}
+			written = true;
+		}
+		finally {
+			out.close();
+			if (!written) {
+				// keep the current segment
+				tempFile.delete();
+			}
+		}
+
+		try {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		segments.put(segment, state);
+	}
+
+	private void readRecord(byte kind, DataInputStream in, long limit, SegmentState state,
+			Map<String, BeanMetadataHolder> metadata, Map<String, BeanPropertyDataHolder> properties)
+			throws IOException, ClassNotFoundException {
+		if (kind == STRING_RECORD) {
+			state.addString(in.readUTF());
+			return;
+		}
+
+		String elementId = readElementId(in, state);
+		state.records++;
+		switch (kind) {
+		case METADATA_RECORD: {
+			long lastModified = in.readLong();
+			ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(readBlock(in, limit)));
+			BeanMetadataHolder holder = new BeanMetadataHolder();
+			holder.setElemenetId(elementId);
+			holder.setLastModified(lastModified);
+			holder.setBeanMetaData(BeanMetadataStore.<IBeanMetadata> castToSet(objects.readObject()));
+			holder.setMethodMetaData(BeanMetadataStore.<IMethodMetadata> castToSet(objects.readObject()));
+			metadata.put(elementId, holder);
+			break;
+		}
+		case PROPERTIES_RECORD: {
+			long lastModified = in.readLong();
+			int count = readLength(in, limit);
+			String[] names = new String[count];
+			String[] beanNames = new String[count];
+			for (int i = 0; i < count; i++) {
+				names[i] = state.getString(readVarInt(in));
+				beanNames[i] = state.getString(readVarInt(in));
+			}
+			Object sources = new ObjectInputStream(new ByteArrayInputStream(readBlock(in, limit))).readObject();
+			if (!(sources instanceof Object[]) || ((Object[]) sources).length != count) {
+				throw new IOException("Corrupt property sources of '" + elementId + "'");
+			}
+
+			Set<PropertyValue> values = new LinkedHashSet<PropertyValue>();
+			for (int i = 0; i < count; i++) {
+				SerializableRuntimeBeanReference reference = new SerializableRuntimeBeanReference();
+				reference.setBeanName(beanNames[i]);
+				reference.setToParent(false);
+				reference.setSource(((Object[]) sources)[i]);
+				values.add(new PropertyValue(names[i], reference));
+			}
+			BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
+			holder.setElemenetId(elementId);
+			holder.setLastModified(lastModified);
+			holder.setPropertyValues(values);
+			properties.put(elementId, holder);
+			break;
+		}
+		case REMOVE_METADATA_RECORD:
+			metadata.remove(elementId);
+			break;
+		case REMOVE_PROPERTIES_RECORD:
+			properties.remove(elementId);
+			break;
+		default:
+			throw new IOException("Unknown record type " + kind);
+		}
+	}
+
+	private void writeMetadata(BeanMetadataHolder holder, DataOutputStream out, SegmentState state)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objects = new ObjectOutputStream(bytes);
+		objects.writeObject(holder.getBeanMetaData());
+		objects.writeObject(holder.getMethodMetaData());
+		objects.close();
+
+		int[] id = prepareElementId(holder.getElemenetId(), out, state);
+		out.writeByte(METADATA_RECORD);
+		writeElementId(id, out);
+		out.writeLong(holder.getLastModified());
+		writeBlock(bytes.toByteArray(), out);
+		state.records++;
+	}
+
+	private void writeProperties(BeanPropertyDataHolder holder, DataOutputStream out, SegmentState state)
+			throws IOException {
+		List<PropertyValue> values = new ArrayList<PropertyValue>(holder.getPropertyValues());
+		int[] id = prepareElementId(holder.getElemenetId(), out, state);
+		int[] names = new int[values.size()];
+		int[] beanNames = new int[values.size()];
+		Object[] sources = new Object[values.size()];
+		for (int i = 0; i < values.size(); i++) {
+			PropertyValue value = values.get(i);
+			SerializableRuntimeBeanReference reference = (SerializableRuntimeBeanReference) value.getValue();
+			names[i] = prepareString(value.getName(), out, state);
+			beanNames[i] = prepareString(reference.getBeanName(), out, state);
+			sources[i] = reference.getSource();
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objects = new ObjectOutputStream(bytes);
+		objects.writeObject(sources);
+		objects.close();
+
+		out.writeByte(PROPERTIES_RECORD);
+		writeElementId(id, out);
+		out.writeLong(holder.getLastModified());
+		writeVarInt(values.size(), out);
+		for (int i = 0; i < values.size(); i++) {
+			writeVarInt(names[i], out);
+			writeVarInt(beanNames[i], out);
+		}
+		writeBlock(bytes.toByteArray(), out);
+		state.records++;
+	}
+
+	private void writeRemove(byte kind, String elementId, DataOutputStream out, SegmentState state)
+			throws IOException {
+		int[] id = prepareElementId(elementId, out, state);
+		out.writeByte(kind);
+		writeElementId(id, out);
+		state.records++;
+	}
+
+	/**
+	 * Makes sure the parent id and the name of the given element id are defined in the segment and returns their
+	 * numbers.
+	 */
+	private int[] prepareElementId(String elementId, DataOutputStream out, SegmentState state) throws IOException {
+		int delimiter = elementId.lastIndexOf(IModelElement.ID_DELIMITER);
+		String parentId = delimiter < 0 ? "" : elementId.substring(0, delimiter);
+		String name = elementId.substring(delimiter + 1);
+		return new int[] { prepareString(parentId, out, state), prepareString(name, out, state) };
+	}
+
+	private void writeElementId(int[] id, DataOutputStream out) throws IOException {
+		writeVarInt(id[0], out);
+		writeVarInt(id[1], out);
+	}
+
+	private String readElementId(DataInputStream in, SegmentState state) throws IOException {
+		String parentId = state.getString(readVarInt(in));
+		String name = state.getString(readVarInt(in));
+		return parentId.length() == 0 ? name : parentId + IModelElement.ID_DELIMITER + name;
+	}
+
+	private int prepareString(String string, DataOutputStream out, SegmentState state) throws IOException {
+		Integer number = state.stringNumbers.get(string);
+		if (number == null) {
+			out.writeByte(STRING_RECORD);
+			out.writeUTF(string);
+			number = state.addString(string);
+		}
+		return number;
+	}
+
+	private static void writeBlock(byte[] block, DataOutputStream out) throws IOException {
+		writeVarInt(block.length, out);
+		out.write(block);
+	}
+
+	private static byte[] readBlock(DataInputStream in, long limit) throws IOException {
+		byte[] block = new byte[readLength(in, limit)];
+		in.readFully(block);
+		return block;
+	}
+
+	/**
+	 * Reads a length or count that must not be negative and not exceed the given limit.
+	 */
+	private static int readLength(DataInputStream in, long limit) throws IOException {
+		int length = readVarInt(in);
+		if (length < 0 || length > limit) {
+			throw new IOException("Invalid length " + length);
+		}
+		return length;
+	}
+
+	private static void writeVarInt(int value, DataOutputStream out) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed number");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Set<T> castToSet(Object value) throws IOException {
+		if (value != null && !(value instanceof Set)) {
+			throw new IOException("Corrupt meta data of type " + value.getClass().getName());
+		}
+		return (Set<T>) value;
+	}
+
+	private File getFile(String segment) {
+		return new File(directory, encode(segment) + SEGMENT_FILE_EXTENSION);
+	}
+
+	private static String encode(String segment) {
+		try {
+			return URLEncoder.encode(segment, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(String fileName) {
+		try {
+			return URLDecoder.decode(fileName, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The string table and record count of a segment file.
+	 */
+	private static class SegmentState {
+
+		final List<String> strings = new ArrayList<String>();
+
+		final Map<String, Integer> stringNumbers = new HashMap<String, Integer>();
+
+		int records = 0;
+
+		boolean needsCompaction = false;
+
+		int addString(String string) {
+			int number = strings.size();
+			strings.add(string);
+			stringNumbers.put(string, number);
+			return number;
+		}
+
+		String getString(int number) throws IOException {
+			if (number < 0 || number >= strings.size()) {
+				throw new IOException("Undefined string " + number);
+			}
+			return strings.get(number);
+		}
+	}
+
+}
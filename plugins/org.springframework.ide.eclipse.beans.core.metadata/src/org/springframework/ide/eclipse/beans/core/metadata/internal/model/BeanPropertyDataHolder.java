@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -72,6 +72,18 @@ public class BeanPropertyDataHolder implements Serializable {
 		}
 	}
 
+	/**
+	 * Returns the raw property values, as written by the {@link BeanMetadataStore}.
+	 * @since 3.8.1
+	 */
+	public Set<PropertyValue> getPropertyValues() {
+		return beanProperties;
+	}
+
+	void setPropertyValues(Set<PropertyValue> beanProperties) {
+		this.beanProperties = beanProperties;
+	}
+
 	public void setElemenetId(String elemenetId) {
 		this.elemenetId = elemenetId;
 	}
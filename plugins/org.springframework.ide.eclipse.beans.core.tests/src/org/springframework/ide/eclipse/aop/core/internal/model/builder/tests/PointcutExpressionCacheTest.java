@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.internal.model.BeanAspectDefinition;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutExpressionCache;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference.ADVICE_TYPE;
+import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
+
+/**
+ * Test case for the exclusive use of the pointcuts pooled by the {@link PointcutExpressionCache}.
+ * @since 3.8.1
+ */
+public class PointcutExpressionCacheTest {
+
+	private final IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("pointcut-cache-tests");
+
+	private final ClassLoader classLoader = getClass().getClassLoader();
+
+	@After
+	public void removeProject() {
+		PointcutExpressionCache.remove(project);
+	}
+
+	@Test
+	public void testReleasedPointcutReused() throws Exception {
+		IAspectDefinition info = definition("execution(* *(..))");
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+
+		Object pointcut = new Object();
+		PointcutExpressionCache.release(project, classLoader, info, pointcut);
+		assertSame(pointcut, PointcutExpressionCache.acquire(project, classLoader, info));
+
+		// an equal aspect definition shares the pointcut
+		PointcutExpressionCache.release(project, classLoader, info, pointcut);
+		assertSame(pointcut, PointcutExpressionCache.acquire(project, classLoader, definition("execution(* *(..))")));
+	}
+
+	@Test
+	public void testAcquiredPointcutNotShared() throws Exception {
+		IAspectDefinition info = definition("execution(* *(..))");
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+		PointcutExpressionCache.release(project, classLoader, info, new Object());
+
+		assertTrue(PointcutExpressionCache.acquire(project, classLoader, info) != null);
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, definition("within(com.foo..*)")));
+	}
+
+	@Test
+	public void testNewClassLoaderDropsPointcuts() throws Exception {
+		IAspectDefinition info = definition("execution(* *(..))");
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+		Object pointcut = new Object();
+		PointcutExpressionCache.release(project, classLoader, info, pointcut);
+
+		ClassLoader newClassLoader = new URLClassLoader(new URL[0], classLoader);
+		assertNull(PointcutExpressionCache.acquire(project, newClassLoader, info));
+
+		// a pointcut of the old class loader isn't put back
+		PointcutExpressionCache.release(project, classLoader, info, pointcut);
+		assertNull(PointcutExpressionCache.acquire(project, newClassLoader, info));
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+	}
+
+	@Test
+	public void testRemovedProjectDropsPointcuts() throws Exception {
+		IAspectDefinition info = definition("execution(* *(..))");
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+		Object pointcut = new Object();
+		PointcutExpressionCache.release(project, classLoader, info, pointcut);
+		PointcutExpressionCache.remove(project);
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+
+		// a pointcut that was in use while the project was removed isn't put back
+		PointcutExpressionCache.remove(project);
+		PointcutExpressionCache.release(project, classLoader, info, pointcut);
+		assertNull(PointcutExpressionCache.acquire(project, classLoader, info));
+	}
+
+	@Test
+	public void testConcurrentUse() throws Exception {
+		final IAspectDefinition info = definition("execution(* *(..))");
+		final Set<Object> inUse = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger sharedUses = new AtomicInteger();
+		final int threads = 8;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Callable<Void>() {
+
+					public Void call() throws Exception {
+						for (int j = 0; j < 1000; j++) {
+							Object pointcut = PointcutExpressionCache.acquire(project, classLoader, info);
+							if (pointcut == null) {
+								pointcut = new Object();
+								created.incrementAndGet();
+							}
+							if (!inUse.add(pointcut)) {
+								sharedUses.incrementAndGet();
+							}
+							Thread.yield();
+							inUse.remove(pointcut);
+							PointcutExpressionCache.release(project, classLoader, info, pointcut);
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(0, sharedUses.get());
+		// at most one pointcut per thread, plus one for the first acquire of the project
+		assertTrue(created.get() <= threads + 1);
+	}
+
+	private IAspectDefinition definition(String pointcutExpression) {
+		BeanAspectDefinition definition = new BeanAspectDefinition();
+		definition.setType(ADVICE_TYPE.BEFORE);
+		definition.setAspectName("aspect");
+		definition.setAspectClassName("org.test.spring.SimpleBeanClass");
+		definition.setAdviceMethodName("toString");
+		definition.setPointcutExpression(pointcutExpression);
+		return definition;
+	}
+
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutTypeFilter;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutTypeFilter.TypeHierarchy;
+import org.springframework.ide.eclipse.core.type.asm.ClassReaderFactory;
+import org.springframework.ide.eclipse.core.type.asm.SimpleClassReaderFactory;
+
+/**
+ * Test case for the {@link PointcutTypeFilter}. Every row of the tables below names a pointcut expression, a class
+ * and whether the pointcut could match a method of that class.
+ * @since 3.8.1
+ */
+public class PointcutTypeFilterTest {
+
+	private static final String TEST = PointcutTypeFilterTest.class.getName();
+
+	private static final String SERVICE_IMPL = ServiceImpl.class.getName();
+
+	private static final String OTHER = Other.class.getName();
+
+	private static final Object[][] TYPE_PATTERNS = new Object[][] {
+		{ "within(" + TEST + ".ServiceImpl)", SERVICE_IMPL, true },
+		{ "within(" + TEST + ".ServiceImpl)", OTHER, false },
+		{ "within(" + TEST + "$ServiceImpl)", OTHER, false },
+		{ "within(" + TEST + ".Service+)", SERVICE_IMPL, true },
+		{ "within(" + TEST + ".Service+)", OTHER, false },
+		{ "within(org.springframework.ide..*)", OTHER, true },
+		{ "within(com.foo..*)", OTHER, false },
+		{ "within(*..Other)", OTHER, true },
+		{ "within(*..Other)", SERVICE_IMPL, false },
+		{ "within(" + TEST + ".*)", OTHER, true },
+		{ "within(org.springframework.*)", OTHER, false },
+	};
+
+	private static final Object[][] UNQUALIFIED_NAMES = new Object[][] {
+		{ "within(Other)", SERVICE_IMPL, true },
+		{ "within(Service+)", OTHER, true },
+		{ "execution(* Service.*(..))", OTHER, true },
+		{ "this(Service)", OTHER, true },
+		{ "@within(Marker)", OTHER, true },
+		{ "@annotation(MethodMarker)", OTHER, true },
+	};
+
+	// names relative to the package of an aspect in this package
+	private static final Object[][] RELATIVE_NAMES = new Object[][] {
+		{ "execution(* PointcutTypeFilterTest.ServiceImpl.*(..))", SERVICE_IMPL, true },
+		{ "execution(* PointcutTypeFilterTest.ServiceImpl.*(..))", OTHER, false },
+		{ "execution(* PointcutTypeFilterTest.Service+.*(..))", SERVICE_IMPL, true },
+		{ "within(PointcutTypeFilterTest.Other)", OTHER, true },
+		{ "within(PointcutTypeFilterTest.*)", OTHER, true },
+		{ "within(TypeFilterTest.Other)", OTHER, false },
+		{ "this(PointcutTypeFilterTest.Service)", SERVICE_IMPL, true },
+		{ "this(PointcutTypeFilterTest.Service)", OTHER, false },
+		{ "@within(PointcutTypeFilterTest.Marker)", SERVICE_IMPL, true },
+		{ "@annotation(PointcutTypeFilterTest.MethodMarker)", SERVICE_IMPL, true },
+		{ "@annotation(PointcutTypeFilterTest.MethodMarker)", OTHER, false },
+	};
+
+	private static final Object[][] EXECUTION = new Object[][] {
+		{ "execution(* *(..))", OTHER, true },
+		{ "execution(* " + TEST + ".Service.run(..))", SERVICE_IMPL, true },
+		{ "execution(* " + TEST + ".Service.run(..))", OTHER, false },
+		{ "execution(public void " + TEST + ".Service+.*(..))", OTHER, false },
+		{ "execution(* org.springframework.ide..*.*(..))", OTHER, true },
+		{ "execution(public * com.foo..*Service.*(..))", SERVICE_IMPL, false },
+		{ "execution(* com.foo..*(..))", SERVICE_IMPL, true },
+		{ "execution(* run(..))", OTHER, true },
+		{ "execution(java.util.List<String> com.foo.Service.*(..))", OTHER, true },
+		{ "execution(@" + TEST + ".MethodMarker * com.foo.Service.*(..))", OTHER, true },
+	};
+
+	private static final Object[][] ANNOTATIONS = new Object[][] {
+		{ "@annotation(" + TEST + ".MethodMarker)", SERVICE_IMPL, true },
+		{ "@annotation(" + TEST + ".MethodMarker)", OTHER, false },
+		{ "@annotation(transactional)", OTHER, true },
+		{ "@within(" + TEST + ".Marker)", SERVICE_IMPL, true },
+		{ "@within(" + TEST + ".Marker)", OTHER, false },
+		{ "@target(" + TEST + ".Marker)", OTHER, false },
+		{ "@target(marker)", OTHER, true },
+		{ "this(" + TEST + ".Service)", SERVICE_IMPL, true },
+		{ "this(" + TEST + ".Service)", OTHER, false },
+		{ "target(service)", OTHER, true },
+		{ "args(..)", OTHER, true },
+		{ "bean(*Service)", OTHER, true },
+	};
+
+	private static final Object[][] BOOLEAN_OPERATORS = new Object[][] {
+		{ "!within(" + TEST + ".ServiceImpl)", SERVICE_IMPL, true },
+		{ "!within(" + TEST + ".ServiceImpl)", OTHER, true },
+		{ "not within(" + TEST + ".Other)", OTHER, true },
+		{ "!(within(com.foo..*) || within(com.bar..*))", OTHER, true },
+		{ "within(" + TEST + ".Other) && execution(* *(..))", SERVICE_IMPL, false },
+		{ "within(" + TEST + ".Other) and execution(* *(..))", OTHER, true },
+		{ "within(" + TEST + ".Other) || within(" + TEST + ".ServiceImpl)", SERVICE_IMPL, true },
+		{ "within(" + TEST + ".Other) or within(com.foo..*)", SERVICE_IMPL, false },
+		{ "!within(" + TEST + ".Other) && within(com.foo..*)", SERVICE_IMPL, false },
+		{ "(within(" + TEST + ".Other) || within(com.foo..*)) && execution(* *(..))", SERVICE_IMPL, false },
+		{ "(within(" + TEST + ".Other) || within(com.foo..*)) && execution(* *(..))", OTHER, true },
+		{ "execution(* *(..)) && args(name) && bean(other)", OTHER, true },
+	};
+
+	private static final Object[][] NAMED_POINTCUTS = new Object[][] {
+		{ "services()", OTHER, true },
+		{ "com.foo.Pointcuts.services()", OTHER, true },
+		{ "services() || within(com.foo..*)", OTHER, true },
+		{ "services() && within(com.foo..*)", OTHER, false },
+		{ "com.foo.Pointcuts.services() and within(com.foo..*)", OTHER, false },
+		{ "!services()", OTHER, true },
+	};
+
+	private static final Object[][] UNPARSEABLE = new Object[][] {
+		{ "within(", OTHER, true },
+		{ "within(com.foo..*) &&", OTHER, true },
+		{ "(within(com.foo..*)", OTHER, true },
+		{ "within(com.foo..*) within(com.bar..*)", OTHER, true },
+		{ "", OTHER, true },
+		{ null, OTHER, true },
+	};
+
+	private final ClassReaderFactory classReaderFactory = new SimpleClassReaderFactory(getClass().getClassLoader());
+
+	@Test
+	public void testTypePatterns() throws Exception {
+		assertCouldMatch(TYPE_PATTERNS);
+	}
+
+	@Test
+	public void testUnqualifiedNames() throws Exception {
+		assertCouldMatch(UNQUALIFIED_NAMES);
+	}
+
+	@Test
+	public void testRelativeNames() throws Exception {
+		assertCouldMatch(RELATIVE_NAMES);
+	}
+
+	@Test
+	public void testExecution() throws Exception {
+		assertCouldMatch(EXECUTION);
+	}
+
+	@Test
+	public void testAnnotationsAndTypes() throws Exception {
+		assertCouldMatch(ANNOTATIONS);
+	}
+
+	@Test
+	public void testBooleanOperators() throws Exception {
+		assertCouldMatch(BOOLEAN_OPERATORS);
+	}
+
+	@Test
+	public void testNamedPointcuts() throws Exception {
+		assertCouldMatch(NAMED_POINTCUTS);
+	}
+
+	@Test
+	public void testUnparseableExpressions() throws Exception {
+		assertCouldMatch(UNPARSEABLE);
+	}
+
+	@Test
+	public void testMatchingAll() throws Exception {
+		assertEquals(true, PointcutTypeFilter.forExpression("execution(* *(..))").isMatchingAll());
+		assertEquals(true, PointcutTypeFilter.forExpression("bean(x) || within(com.foo..*)").isMatchingAll());
+		assertEquals(true, PointcutTypeFilter.forExpression("!within(com.foo..*)").isMatchingAll());
+		assertEquals(false, PointcutTypeFilter.forExpression("bean(x) && within(com.foo..*)").isMatchingAll());
+		assertEquals(false, PointcutTypeFilter.forExpression("@annotation(com.foo.Marker)").isMatchingAll());
+	}
+
+	private void assertCouldMatch(Object[][] rows) throws Exception {
+		for (Object[] row : rows) {
+			String expression = (String) row[0];
+			TypeHierarchy hierarchy = TypeHierarchy.read((String) row[1], classReaderFactory);
+			assertEquals(expression + " on " + row[1], row[2],
+					PointcutTypeFilter.forExpression(expression).couldMatch(hierarchy));
+		}
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Marker {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface MethodMarker {
+	}
+
+	public interface Service {
+
+		void run();
+	}
+
+	public static class BaseService implements Service {
+
+		@MethodMarker
+		public void run() {
+		}
+	}
+
+	@Marker
+	public static class ServiceImpl extends BaseService {
+	}
+
+	public static class Other {
+
+		public void run() {
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopProject;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopReference;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModel;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModelPeristence;
+import org.springframework.ide.eclipse.aop.core.internal.model.BeanAspectDefinition;
+import org.springframework.ide.eclipse.aop.core.model.IAopProject;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference.ADVICE_TYPE;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Test case for the lazy loading and the change tracking of the persisted {@link AopReferenceModel}.
+ * @since 3.8.1
+ */
+public class AopReferenceModelTest {
+
+	private IProject project;
+	private IProject otherProject;
+	private File stateLocation;
+
+	@Before
+	public void createProjects() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-config-tests", "org.springframework.ide.eclipse.beans.core.tests");
+		otherProject = StsTestUtil.createPredefinedProject("beans-config-tests-2", "org.springframework.ide.eclipse.beans.core.tests");
+		stateLocation = Files.createTempDirectory("aop-model").toFile();
+	}
+
+	@After
+	public void deleteProjects() throws Exception {
+		project.delete(true, null);
+		otherProject.delete(true, null);
+		File[] files = getProjectsFolder().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		getProjectsFolder().delete();
+		stateLocation.delete();
+	}
+
+	@Test
+	public void testModificationCount() throws Exception {
+		AopProject aopProject = new AopProject(JdtUtils.getJavaProject(project));
+		AopReference reference = createReference(project, "org.test.spring.SimpleBeanClass", "basic-bean-config.xml");
+		int modificationCount = aopProject.getModificationCount();
+
+		aopProject.addAopReference(reference);
+		assertEquals(modificationCount + 1, aopProject.getModificationCount());
+
+		// adding the same reference again doesn't change the project
+		aopProject.addAopReference(reference);
+		assertEquals(modificationCount + 1, aopProject.getModificationCount());
+
+		aopProject.clearReferencesForResource(project.getFile("alias-bean-config.xml"));
+		assertEquals(modificationCount + 1, aopProject.getModificationCount());
+
+		aopProject.clearReferencesForResource(project.getFile("basic-bean-config.xml"));
+		assertEquals(modificationCount + 2, aopProject.getModificationCount());
+		assertTrue(aopProject.getAllReferences().isEmpty());
+	}
+
+	@Test
+	public void testOnlyChangedProjectsWritten() throws Exception {
+		AopReferenceModel model = startModel();
+		model.getProject(JdtUtils.getJavaProject(project)).addAopReference(
+				createReference(project, "org.test.spring.SimpleBeanClass", "basic-bean-config.xml"));
+		model.saveChangedProjects();
+		File projectFile = getProjectFile(project);
+		assertTrue(projectFile.exists());
+
+		// an unchanged project isn't written again
+		projectFile.delete();
+		model.saveChangedProjects();
+		assertFalse(projectFile.exists());
+
+		model.getProject(JdtUtils.getJavaProject(project)).addAopReference(
+				createReference(project, "org.test.spring.SimpleConfigurationClass", "basic-bean-config.xml"));
+		model.saveChangedProjects();
+		assertTrue(projectFile.exists());
+		model.shutdown();
+	}
+
+	@Test
+	public void testProjectsLoadedLazily() throws Exception {
+		IJavaProject javaProject = JdtUtils.getJavaProject(project);
+		IJavaProject otherJavaProject = JdtUtils.getJavaProject(otherProject);
+		AopReferenceModel model = startModel();
+		model.getProject(javaProject).addAopReference(
+				createReference(project, "org.test.spring.SimpleBeanClass", "basic-bean-config.xml"));
+		model.getProject(otherJavaProject).addAopReference(
+				createReference(otherProject, "org.test.spring.SimpleBeanClass", "second-bean-config.xml"));
+		model.shutdown();
+
+		AopReferenceModelPeristence persistence = new AopReferenceModelPeristence(stateLocation);
+		model = new AopReferenceModel();
+		model.start(persistence);
+		assertEquals(2, persistence.getUnloadedProjectNames().size());
+
+		// asking for an element only reads the element's project
+		IType advisedType = javaProject.findType("org.test.spring.SimpleBeanClass");
+		assertTrue(model.isAdvised(advisedType));
+		assertFalse(model.isAdvised(javaProject.findType("org.test.spring.SimpleConfigurationClass")));
+		assertFalse(persistence.getUnloadedProjectNames().contains(project.getName()));
+		assertTrue(persistence.getUnloadedProjectNames().contains(otherProject.getName()));
+		assertEquals(1, model.getProject(javaProject).getAllReferences().size());
+
+		// queries that span the workspace read all projects
+		assertEquals(2, model.getAllReferences().size());
+		assertTrue(persistence.getUnloadedProjectNames().isEmpty());
+		model.shutdown();
+	}
+
+	@Test
+	public void testUnloadedProjectReadAgain() throws Exception {
+		IJavaProject javaProject = JdtUtils.getJavaProject(project);
+		AopReferenceModelPeristence persistence = new AopReferenceModelPeristence(stateLocation);
+		AopReferenceModel model = new AopReferenceModel();
+		model.start(persistence);
+		model.getProject(javaProject).addAopReference(
+				createReference(project, "org.test.spring.SimpleBeanClass", "basic-bean-config.xml"));
+
+		model.unloadProject(javaProject);
+		assertTrue(persistence.getUnloadedProjectNames().contains(project.getName()));
+		assertEquals(1, model.getProject(javaProject).getAllReferences().size());
+		model.shutdown();
+	}
+
+	@Test
+	public void testMalformedProjectFile() throws Exception {
+		File projectFile = getProjectFile(project);
+		projectFile.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(projectFile);
+		try {
+			out.write("<aop-project".getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+
+		AopReferenceModel model = startModel();
+		IAopProject aopProject = model.getProject(JdtUtils.getJavaProject(project));
+		assertTrue(aopProject.getAllReferences().isEmpty());
+		assertFalse(projectFile.exists());
+		model.shutdown();
+	}
+
+	private AopReferenceModel startModel() {
+		AopReferenceModel model = new AopReferenceModel();
+		model.start(new AopReferenceModelPeristence(stateLocation));
+		return model;
+	}
+
+	private AopReference createReference(IProject project, String targetClassName, String configFileName)
+			throws Exception {
+		IFile configFile = project.getFile(configFileName);
+		IType type = JdtUtils.getJavaProject(project).findType(targetClassName);
+
+		BeanAspectDefinition definition = new BeanAspectDefinition();
+		definition.setType(ADVICE_TYPE.BEFORE);
+		definition.setAspectName("aspect");
+		definition.setAspectClassName(targetClassName);
+		definition.setAdviceMethodName("toString");
+		definition.setPointcutExpression("execution(* " + targetClassName + ".*(..))");
+		definition.setAspectStartLineNumber(1);
+		definition.setAspectEndLineNumber(1);
+		definition.setResource(configFile);
+
+		return new AopReference(ADVICE_TYPE.BEFORE, type, 1, type, 1, definition, configFile, "bean", configFile, 1);
+	}
+
+	private File getProjectsFolder() {
+		return new File(stateLocation, "projects");
+	}
+
+	private File getProjectFile(IProject project) {
+		return new File(getProjectsFolder(), project.getName() + ".xml");
+	}
+
+}
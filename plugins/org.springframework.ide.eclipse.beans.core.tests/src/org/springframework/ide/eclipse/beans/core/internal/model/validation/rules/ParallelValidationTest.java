@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.validation.rules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinitionFactory;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Test case to test that parallel validation creates the same markers as the sequential validation.
+ * @since 3.8.1
+ */
+public class ParallelValidationTest extends BeansCoreTestCase {
+
+	private static final String BEANS_VALIDATOR_ID = BeansCorePlugin.PLUGIN_ID + ".beansvalidator";
+
+	private IProject project;
+
+	@Before
+	public void setUp() throws Exception {
+		IResource resource = createPredefinedProjectAndGetResource("validation", "src/ide-798.xml");
+		StsTestUtil.waitForResource(resource);
+		project = resource.getProject();
+	}
+
+	@After
+	public void resetPreference() throws Exception {
+		SpringCore.getDefault().getPluginPreferences().setToDefault(SpringCore.USE_PARALLEL_VALIDATION);
+	}
+
+	@Test
+	public void testOnlyAuditedRulesAreThreadSafe() throws Exception {
+		boolean found = false;
+		for (ValidationRuleDefinition ruleDefinition : ValidationRuleDefinitionFactory
+				.getRuleDefinitions(BEANS_VALIDATOR_ID)) {
+			if (ruleDefinition.getId().startsWith(BeansCorePlugin.PLUGIN_ID + ".")) {
+				assertTrue(ruleDefinition.getId(), ruleDefinition.isThreadSafe());
+				found = true;
+			}
+			else {
+				assertFalse(ruleDefinition.getId(), ruleDefinition.isThreadSafe());
+			}
+		}
+		assertTrue(found);
+	}
+
+	@Test
+	public void testParallelValidationCreatesSameMarkers() throws Exception {
+		SpringCore.getDefault().getPluginPreferences().setValue(SpringCore.USE_PARALLEL_VALIDATION, false);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		List<String> sequentialMarkers = getMarkers();
+		assertFalse(sequentialMarkers.isEmpty());
+
+		SpringCore.getDefault().getPluginPreferences().setValue(SpringCore.USE_PARALLEL_VALIDATION, true);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		assertEquals(sequentialMarkers, getMarkers());
+	}
+
+	private List<String> getMarkers() throws Exception {
+		List<String> markers = new ArrayList<String>();
+		for (IMarker marker : project.findMarkers(SpringCore.MARKER_ID, true, IResource.DEPTH_INFINITE)) {
+			markers.add(marker.getResource().getProjectRelativePath() + ":"
+					+ marker.getAttribute(IMarker.LINE_NUMBER, -1) + ":"
+					+ marker.getAttribute(IMarker.SEVERITY, -1) + ":" + marker.getAttribute(IMarker.MESSAGE, ""));
+		}
+		Collections.sort(markers);
+		return markers;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model.tests;
+
+import static org.springframework.ide.eclipse.beans.core.metadata.internal.model.tests.BeanMetadataStoreTest.bean;
+import static org.springframework.ide.eclipse.beans.core.metadata.internal.model.tests.BeanMetadataStoreTest.beanId;
+import static org.springframework.ide.eclipse.beans.core.metadata.internal.model.tests.BeanMetadataStoreTest.metadata;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataHolder;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataModel;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataStore;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanPropertyDataHolder;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+
+/**
+ * Test case for the loading, storing and migration of the {@link BeanMetadataModel}.
+ * @since 3.8.1
+ */
+public class BeanMetadataModelTest {
+
+	private static final Map<String, BeanMetadataHolder> NO_METADATA = Collections.emptyMap();
+
+	private static final Map<String, BeanPropertyDataHolder> NO_PROPERTIES = Collections.emptyMap();
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("metadata-model").toFile();
+	}
+
+	@After
+	public void deleteDirectory() throws Exception {
+		new BeanMetadataStore(directory).clear();
+		directory.delete();
+	}
+
+	@Test
+	public void testStoredOnStop() throws Exception {
+		IBean bean = bean(beanId("a", "bean"));
+		BeanMetadataModel model = startModel(NO_METADATA);
+		model.setBeanMetadata(bean, metadata(bean.getElementID(), "value"), new HashSet<IMethodMetadata>());
+		model.stop();
+
+		assertEquals(metadata(bean.getElementID(), "value"), startModel(NO_METADATA).getBeanMetadata(bean));
+	}
+
+	@Test
+	public void testLegacyMigration() throws Exception {
+		IBean bean = bean(beanId("a", "bean"));
+		BeanMetadataModel model = new BeanMetadataModel();
+		assertTrue(model.start(new BeanMetadataStore(directory), legacyMetadata(bean, "legacy"), NO_PROPERTIES));
+		assertEquals(metadata(bean.getElementID(), "legacy"), model.getBeanMetadata(bean));
+		model.stop();
+
+		// the migrated meta data has been written to the store
+		assertEquals(metadata(bean.getElementID(), "legacy"), startModel(NO_METADATA).getBeanMetadata(bean));
+	}
+
+	@Test
+	public void testLegacyMigrationKeepsExistingSegments() throws Exception {
+		IBean storedBean = bean(beanId("a", "bean"));
+		IBean legacyBean = bean(beanId("b", "bean"));
+		BeanMetadataModel model = startModel(NO_METADATA);
+		model.setBeanMetadata(storedBean, metadata(storedBean.getElementID(), "stored"),
+				new HashSet<IMethodMetadata>());
+		model.stop();
+
+		// e.g. the legacy files could not be deleted after an earlier migration
+		Map<String, BeanMetadataHolder> legacyMetadata = new HashMap<String, BeanMetadataHolder>();
+		legacyMetadata.putAll(legacyMetadata(storedBean, "legacy"));
+		legacyMetadata.putAll(legacyMetadata(legacyBean, "legacy"));
+		model = startModel(legacyMetadata);
+		assertEquals(metadata(storedBean.getElementID(), "stored"), model.getBeanMetadata(storedBean));
+		assertEquals(metadata(legacyBean.getElementID(), "legacy"), model.getBeanMetadata(legacyBean));
+		model.stop();
+
+		model = startModel(NO_METADATA);
+		assertEquals(metadata(storedBean.getElementID(), "stored"), model.getBeanMetadata(storedBean));
+		assertEquals(metadata(legacyBean.getElementID(), "legacy"), model.getBeanMetadata(legacyBean));
+	}
+
+	@Test
+	public void testCorruptSegment() throws Exception {
+		IBean bean = bean(beanId("a", "bean"));
+		FileOutputStream out = new FileOutputStream(new File(directory, "a.dat"));
+		try {
+			out.write(new byte[] { 0x53, 0x42, 0x4d, 0x44, 0x00, 0x01, 0x05, 0x7f, 0x7f });
+		}
+		finally {
+			out.close();
+		}
+
+		BeanMetadataModel model = startModel(NO_METADATA);
+		assertTrue(model.getBeanMetadata(bean).isEmpty());
+
+		// the segment gets rewritten on the next store
+		model.setBeanMetadata(bean, metadata(bean.getElementID(), "value"), new HashSet<IMethodMetadata>());
+		model.stop();
+		assertEquals(metadata(bean.getElementID(), "value"), startModel(NO_METADATA).getBeanMetadata(bean));
+	}
+
+	private BeanMetadataModel startModel(Map<String, BeanMetadataHolder> legacyMetadata) {
+		BeanMetadataModel model = new BeanMetadataModel();
+		model.start(new BeanMetadataStore(directory), legacyMetadata, NO_PROPERTIES);
+		return model;
+	}
+
+	private static Map<String, BeanMetadataHolder> legacyMetadata(IBean bean, String value) {
+		BeanMetadataHolder holder = new BeanMetadataHolder();
+		holder.setElemenetId(bean.getElementID());
+		holder.setBeanMetaData(metadata(bean.getElementID(), value));
+		holder.setMethodMetaData(new HashSet<IMethodMetadata>());
+		return Collections.singletonMap(bean.getElementID(), holder);
+	}
+
+}
@@ -0,0 +1,361 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.PropertyValue;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataHolder;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataStore;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanPropertyDataHolder;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+import org.springframework.ide.eclipse.beans.core.model.IBeanReference;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModelElementTypes;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.metadata.core.StereotypeAnnotationMetadata;
+
+/**
+ * Test case for the {@link BeanMetadataStore}.
+ * @since 3.8.1
+ */
+public class BeanMetadataStoreTest {
+
+	private static final String PROJECT = "store-test";
+
+	private File directory;
+
+	private BeanMetadataStore store;
+
+	@Before
+	public void createStore() throws Exception {
+		directory = Files.createTempDirectory("metadata-store").toFile();
+		store = new BeanMetadataStore(directory);
+	}
+
+	@After
+	public void deleteStore() throws Exception {
+		store.clear();
+		directory.delete();
+	}
+
+	@Test
+	public void testSegmentName() throws Exception {
+		assertEquals(PROJECT, BeanMetadataStore.getSegmentName(beanId(PROJECT, "foo")));
+		assertEquals("_", BeanMetadataStore.getSegmentName("no-project"));
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Map<String, BeanMetadataHolder> metadata = new LinkedHashMap<String, BeanMetadataHolder>();
+		Map<String, BeanPropertyDataHolder> properties = new LinkedHashMap<String, BeanPropertyDataHolder>();
+		for (int i = 0; i < 10; i++) {
+			String id = beanId(PROJECT, "bean" + i);
+			metadata.put(id, metadataHolder(id, "value" + i));
+			properties.put(id, propertiesHolder(id, "property" + i, "other" + i));
+		}
+		store.store(PROJECT, metadata, properties, metadata.keySet(), properties.keySet());
+		assertEquals(Collections.singleton(PROJECT), store.getSegmentNames());
+
+		assertLoaded(new BeanMetadataStore(directory), metadata, properties);
+	}
+
+	@Test
+	public void testIncrementalStore() throws Exception {
+		Map<String, BeanMetadataHolder> metadata = new LinkedHashMap<String, BeanMetadataHolder>();
+		Map<String, BeanPropertyDataHolder> properties = new LinkedHashMap<String, BeanPropertyDataHolder>();
+		String id1 = beanId(PROJECT, "bean1");
+		String id2 = beanId(PROJECT, "bean2");
+		metadata.put(id1, metadataHolder(id1, "a"));
+		metadata.put(id2, metadataHolder(id2, "b"));
+		properties.put(id1, propertiesHolder(id1, "property", "bean2"));
+		store.store(PROJECT, metadata, properties, metadata.keySet(), properties.keySet());
+		long length = getSegmentFile().length();
+
+		// change one element and remove another; only these get appended
+		metadata.put(id1, metadataHolder(id1, "c"));
+		metadata.remove(id2);
+		properties.remove(id1);
+		store.store(PROJECT, metadata, properties, new HashSet<String>(Collections.singleton(id1)),
+				new HashSet<String>(Collections.singleton(id1)));
+		store.store(PROJECT, metadata, properties, new HashSet<String>(Collections.singleton(id2)),
+				Collections.<String> emptySet());
+		assertTrue(getSegmentFile().length() > length);
+
+		assertLoaded(new BeanMetadataStore(directory), metadata, properties);
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		Map<String, BeanMetadataHolder> metadata = new LinkedHashMap<String, BeanMetadataHolder>();
+		Map<String, BeanPropertyDataHolder> properties = new LinkedHashMap<String, BeanPropertyDataHolder>();
+		String id = beanId(PROJECT, "bean");
+		metadata.put(id, metadataHolder(id, "initial"));
+		store.store(PROJECT, metadata, properties, metadata.keySet(), Collections.<String> emptySet());
+		long compactedLength = getSegmentFile().length();
+
+		for (int i = 0; i < 500; i++) {
+			metadata.put(id, metadataHolder(id, "initial"));
+			store.store(PROJECT, metadata, properties, metadata.keySet(), Collections.<String> emptySet());
+		}
+
+		// the outdated records got dropped along the way
+		assertTrue(getSegmentFile().length() < 100 * compactedLength);
+		assertNoTemporaryFiles();
+		assertLoaded(new BeanMetadataStore(directory), metadata, properties);
+
+		// a removed element is gone after loading
+		metadata.clear();
+		store.store(PROJECT, metadata, properties, Collections.singleton(id), Collections.<String> emptySet());
+		assertLoaded(new BeanMetadataStore(directory), metadata, properties);
+	}
+
+	@Test
+	public void testTruncatedSegment() throws Exception {
+		Map<String, BeanMetadataHolder> metadata = new LinkedHashMap<String, BeanMetadataHolder>();
+		Map<String, BeanPropertyDataHolder> properties = new LinkedHashMap<String, BeanPropertyDataHolder>();
+		String id1 = beanId(PROJECT, "bean1");
+		String id2 = beanId(PROJECT, "bean2");
+		metadata.put(id1, metadataHolder(id1, "a"));
+		store.store(PROJECT, metadata, properties, metadata.keySet(), Collections.<String> emptySet());
+		long length = getSegmentFile().length();
+		metadata.put(id2, metadataHolder(id2, "b"));
+		store.store(PROJECT, metadata, properties, Collections.singleton(id2), Collections.<String> emptySet());
+
+		// cut the last record in half
+		RandomAccessFile file = new RandomAccessFile(getSegmentFile(), "rw");
+		try {
+			file.setLength(length + (file.length() - length) / 2);
+		}
+		finally {
+			file.close();
+		}
+
+		BeanMetadataStore newStore = new BeanMetadataStore(directory);
+		Map<String, BeanMetadataHolder> loadedMetadata = new HashMap<String, BeanMetadataHolder>();
+		newStore.load(PROJECT, loadedMetadata, new HashMap<String, BeanPropertyDataHolder>());
+		assertEquals(Collections.singleton(id1), loadedMetadata.keySet());
+
+		// the next store rewrites the segment completely
+		newStore.store(PROJECT, metadata, properties, Collections.<String> emptySet(),
+				Collections.<String> emptySet());
+		assertLoaded(new BeanMetadataStore(directory), metadata, properties);
+	}
+
+	@Test
+	public void testInvalidBlockLength() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = segmentHeader(bytes, "bean");
+		out.writeByte(1); // meta data record
+		out.writeByte(0);
+		out.writeByte(1);
+		out.writeLong(0);
+		// block length of Integer.MAX_VALUE
+		out.write(new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 });
+		out.close();
+		writeSegmentFile(bytes.toByteArray());
+
+		assertLoadsNothing();
+	}
+
+	@Test
+	public void testUnexpectedPropertySources() throws Exception {
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+		ObjectOutputStream objects = new ObjectOutputStream(block);
+		objects.writeObject("not an array");
+		objects.close();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = segmentHeader(bytes, "bean");
+		out.writeByte(2); // properties record
+		out.writeByte(0);
+		out.writeByte(1);
+		out.writeLong(0);
+		out.writeByte(0); // no properties
+		out.writeByte(block.size());
+		out.write(block.toByteArray());
+		out.close();
+		writeSegmentFile(bytes.toByteArray());
+
+		assertLoadsNothing();
+	}
+
+	@Test
+	public void testUnknownVersion() throws Exception {
+		writeSegmentFile(new byte[] { 0x53, 0x42, 0x4d, 0x44, 0x00, 0x7f, 0x01, 0x02 });
+		assertLoadsNothing();
+	}
+
+	private void assertLoadsNothing() throws IOException {
+		Map<String, BeanMetadataHolder> metadata = new HashMap<String, BeanMetadataHolder>();
+		Map<String, BeanPropertyDataHolder> properties = new HashMap<String, BeanPropertyDataHolder>();
+		store.load(PROJECT, metadata, properties);
+		assertTrue(metadata.isEmpty());
+		assertTrue(properties.isEmpty());
+	}
+
+	private void assertLoaded(BeanMetadataStore newStore, Map<String, BeanMetadataHolder> expectedMetadata,
+			Map<String, BeanPropertyDataHolder> expectedProperties) throws IOException {
+		Map<String, BeanMetadataHolder> metadata = new HashMap<String, BeanMetadataHolder>();
+		Map<String, BeanPropertyDataHolder> properties = new HashMap<String, BeanPropertyDataHolder>();
+		newStore.load(PROJECT, metadata, properties);
+
+		assertEquals(expectedMetadata.keySet(), metadata.keySet());
+		for (BeanMetadataHolder expected : expectedMetadata.values()) {
+			BeanMetadataHolder holder = metadata.get(expected.getElemenetId());
+			assertEquals(expected.getElemenetId(), holder.getElemenetId());
+			assertEquals(expected.getLastModified(), holder.getLastModified());
+			assertEquals(expected.getBeanMetaData(), holder.getBeanMetaData());
+			assertEquals(expected.getMethodMetaData(), holder.getMethodMetaData());
+		}
+
+		assertEquals(expectedProperties.keySet(), properties.keySet());
+		for (BeanPropertyDataHolder expected : expectedProperties.values()) {
+			BeanPropertyDataHolder holder = properties.get(expected.getElemenetId());
+			assertEquals(expected.getLastModified(), holder.getLastModified());
+			assertEquals(expected.getPropertyValues().size(), holder.getPropertyValues().size());
+			for (PropertyValue value : expected.getPropertyValues()) {
+				assertTrue(value.getName(), holder.getPropertyValues().contains(value));
+			}
+		}
+	}
+
+	private void assertNoTemporaryFiles() {
+		for (File file : directory.listFiles()) {
+			assertFalse(file.getName(), file.getName().endsWith(".tmp"));
+		}
+	}
+
+	private DataOutputStream segmentHeader(ByteArrayOutputStream bytes, String beanName) throws IOException {
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0x53424d44);
+		out.writeShort(1);
+		// string records for the parent id and the name of the element
+		out.writeByte(0);
+		out.writeUTF(Integer.toString(IBeansModelElementTypes.PROJECT_TYPE) + IModelElement.ID_SEPARATOR + PROJECT);
+		out.writeByte(0);
+		out.writeUTF(Integer.toString(IBeansModelElementTypes.BEAN_TYPE) + IModelElement.ID_SEPARATOR + beanName);
+		return out;
+	}
+
+	private void writeSegmentFile(byte[] bytes) throws IOException {
+		FileOutputStream out = new FileOutputStream(getSegmentFile());
+		try {
+			out.write(bytes);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private File getSegmentFile() {
+		return new File(directory, PROJECT + ".dat");
+	}
+
+	static String beanId(String project, String beanName) {
+		return Integer.toString(IBeansModelElementTypes.PROJECT_TYPE) + IModelElement.ID_SEPARATOR + project
+				+ IModelElement.ID_DELIMITER + Integer.toString(IBeansModelElementTypes.BEAN_TYPE)
+				+ IModelElement.ID_SEPARATOR + beanName;
+	}
+
+	static IBean bean(final String elementId) {
+		return (IBean) Proxy.newProxyInstance(BeanMetadataStoreTest.class.getClassLoader(),
+				new Class<?>[] { IBean.class }, new InvocationHandler() {
+
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if ("getElementID".equals(method.getName())) {
+							return elementId;
+						}
+						if ("hashCode".equals(method.getName())) {
+							return elementId.hashCode();
+						}
+						if ("equals".equals(method.getName())) {
+							return proxy == args[0];
+						}
+						return null;
+					}
+				});
+	}
+
+	static Set<IBeanMetadata> metadata(String elementId, String value) {
+		Set<IBeanMetadata> metadata = new LinkedHashSet<IBeanMetadata>();
+		metadata.add(new StereotypeAnnotationMetadata(bean(elementId), "handle", value, null));
+		return metadata;
+	}
+
+	private static BeanMetadataHolder metadataHolder(String elementId, String value) {
+		BeanMetadataHolder holder = new BeanMetadataHolder();
+		holder.setElemenetId(elementId);
+		holder.setLastModified(System.nanoTime());
+		holder.setBeanMetaData(metadata(elementId, value));
+		holder.setMethodMetaData(new HashSet<IMethodMetadata>());
+		return holder;
+	}
+
+	private static BeanPropertyDataHolder propertiesHolder(String elementId, String propertyName, String beanName) {
+		BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
+		holder.setElemenetId(elementId);
+		holder.setLastModified(System.nanoTime());
+		holder.setBeanProperties(Collections.singleton(property(propertyName, beanName)));
+		return holder;
+	}
+
+	private static IBeanProperty property(final String name, final String beanName) {
+		final IBeanReference reference = (IBeanReference) Proxy.newProxyInstance(
+				BeanMetadataStoreTest.class.getClassLoader(), new Class<?>[] { IBeanReference.class },
+				new InvocationHandler() {
+
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						return "getBeanName".equals(method.getName()) ? beanName : null;
+					}
+				});
+		return (IBeanProperty) Proxy.newProxyInstance(BeanMetadataStoreTest.class.getClassLoader(),
+				new Class<?>[] { IBeanProperty.class }, new InvocationHandler() {
+
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if ("getElementName".equals(method.getName())) {
+							return name;
+						}
+						if ("getValue".equals(method.getName())) {
+							return reference;
+						}
+						return null;
+					}
+				});
+	}
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.model.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeanClassTypeIndex;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Test case for the {@link BeanClassTypeIndex}.
+ * @since 3.8.1
+ */
+public class BeanClassTypeIndexTest {
+
+	private static final String BEAN_CLASS = "org.test.spring.SimpleBeanClass";
+
+	private IProject project;
+	private BeansConfig config;
+	private BeanClassTypeIndex index;
+	private TypeHierarchyEngine typeEngine;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-config-tests", "org.springframework.ide.eclipse.beans.core.tests");
+
+		BeansProject beansProject = new BeansProject(new BeansModel(), project);
+		config = new BeansConfig(beansProject, "basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		index = BeanClassTypeIndex.getDefault();
+		typeEngine = SpringCore.getTypeHierarchyEngine();
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		index.remove(config);
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testConfigIsIndexedOnNextLookup() throws Exception {
+		index.add(config);
+		assertTrue(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+		assertTrue(index.getConfigs(Object.class.getName(), typeEngine).contains(config));
+		assertFalse(index.getConfigs(Runnable.class.getName(), typeEngine).contains(config));
+	}
+
+	@Test
+	public void testLookupDoesNotIndexUnknownConfigs() throws Exception {
+		assertFalse(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+	}
+
+	@Test
+	public void testInvalidatedConfigIsIndexedAgain() throws Exception {
+		index.add(config);
+		assertTrue(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+
+		index.invalidate(config);
+		assertTrue(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+	}
+
+	@Test
+	public void testRemovedConfig() throws Exception {
+		index.add(config);
+		assertTrue(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+
+		index.remove(config);
+		assertFalse(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+	}
+
+	@Test
+	public void testRemovedProject() throws Exception {
+		index.add(config);
+		index.remove(project);
+		assertFalse(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+
+		index.add(config);
+		assertTrue(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+		index.remove(project);
+		assertFalse(index.getConfigs(BEAN_CLASS, typeEngine).contains(config));
+	}
+
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.io.xml.CancelableXercesDocumentLoader;
+import org.springframework.ide.eclipse.core.model.ILazyInitializedModelElement;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * Test case for the {@link BeansCorePlugin#getConfigLoader()}.
+ * @since 3.8.1
+ */
+public class BeansConfigLoaderTest {
+
+	private static final String[] CONFIGS = new String[] { "basic-bean-config.xml", "advanced-bean-config.xml",
+			"alias-bean-config.xml", "importing-bean-config.xml", "importing-bean-config-advanced.xml" };
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><beans><bean id=\"bean\"/></beans>";
+
+	private IProject project;
+	private BeansProject beansProject;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-config-tests", "org.springframework.ide.eclipse.beans.core.tests");
+		beansProject = new BeansProject(new BeansModel(), project);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		BeansCorePlugin.getDefault().getPreferenceStore()
+				.setToDefault(BeansCorePlugin.PARALLEL_CONFIG_LOADING_PREFERENCE_ID);
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testLoadConfigsInParallel() throws Exception {
+		List<IBeansConfig> configs = createConfigs();
+		List<IBeansConfig> loadedConfigs = BeansCorePlugin.getConfigLoader().load(configs).get();
+
+		assertEquals(configs.size(), loadedConfigs.size());
+		for (IBeansConfig config : configs) {
+			assertTrue(loadedConfigs.contains(config));
+			assertTrue(((ILazyInitializedModelElement) config).isInitialized());
+		}
+
+		// the parallel loaded configs contain the same beans as the sequentially loaded ones
+		List<IBeansConfig> sequentialConfigs = createConfigs();
+		for (int i = 0; i < configs.size(); i++) {
+			assertEquals(CONFIGS[i], sequentialConfigs.get(i).getBeans().size(), configs.get(i).getBeans().size());
+		}
+	}
+
+	@Test
+	public void testParallelismPreferenceWithoutRestart() throws Exception {
+		BeansCorePlugin.getDefault().getPreferenceStore().setValue(BeansCorePlugin.PARALLEL_CONFIG_LOADING_PREFERENCE_ID, 1);
+		assertEquals(CONFIGS.length, BeansCorePlugin.getConfigLoader().load(createConfigs()).get().size());
+
+		BeansCorePlugin.getDefault().getPreferenceStore().setValue(BeansCorePlugin.PARALLEL_CONFIG_LOADING_PREFERENCE_ID, 3);
+		assertEquals(CONFIGS.length, BeansCorePlugin.getConfigLoader().load(createConfigs()).get().size());
+	}
+
+	@Test
+	public void testLoadInitializedConfig() throws Exception {
+		BeansConfig config = new BeansConfig(beansProject, "basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		config.getBeans();
+		assertTrue(BeansCorePlugin.getConfigLoader().load(config).isDone());
+	}
+
+	@Test
+	public void testCancelBatch() throws Exception {
+		BeansCorePlugin.getDefault().getPreferenceStore().setValue(BeansCorePlugin.PARALLEL_CONFIG_LOADING_PREFERENCE_ID, 1);
+		List<IBeansConfig> configs = createConfigs();
+		assertTrue(BeansCorePlugin.getConfigLoader().load(configs).cancel(true));
+
+		// the configs can still be loaded afterwards
+		for (IBeansConfig config : configs) {
+			assertNotNull(BeansCorePlugin.getConfigLoader().load(config).get());
+		}
+	}
+
+	@Test
+	public void testDocumentLoader() throws Exception {
+		Document document = loadDocument(new AtomicBoolean());
+		assertEquals("beans", document.getDocumentElement().getNodeName());
+	}
+
+	@Test
+	public void testCanceledDocumentLoaderDoesNotInterruptThread() throws Exception {
+		try {
+			loadDocument(new AtomicBoolean(true));
+			fail("Parsing should have been canceled");
+		}
+		catch (IOException e) {
+			assertFalse(Thread.currentThread().isInterrupted());
+		}
+	}
+
+	private Document loadDocument(AtomicBoolean canceled) throws Exception {
+		InputSource inputSource = new InputSource(new ByteArrayInputStream(XML.getBytes("UTF-8")));
+		return new CancelableXercesDocumentLoader(canceled).loadDocument(inputSource, null, null,
+				XmlBeanDefinitionReader.VALIDATION_NONE, true);
+	}
+
+	private List<IBeansConfig> createConfigs() {
+		List<IBeansConfig> configs = new ArrayList<IBeansConfig>();
+		for (String config : CONFIGS) {
+			configs.add(new BeansConfig(beansProject, config, IBeansConfig.Type.MANUAL));
+		}
+		return configs;
+	}
+
+}
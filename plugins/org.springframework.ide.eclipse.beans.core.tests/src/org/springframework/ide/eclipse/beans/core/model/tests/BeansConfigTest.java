@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,9 @@ package org.springframework.ide.eclipse.beans.core.model.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -24,11 +27,13 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.beans.core.model.IProfileAwareBeansComponent;
@@ -140,6 +145,44 @@ public class BeansConfigTest {
 		assertEquals(0, getProfiles(configClassBean).size());
 	}
 
+	@Test
+	public void testBeanLookupByNameOrAlias() throws Exception {
+		BeansConfig config = new BeansConfig(beansProject, "alias-bean-config.xml", IBeansConfig.Type.MANUAL);
+
+		IBean simpleBean = config.getBeanByNameOrAlias("simpleBean");
+		assertNotNull(simpleBean);
+		assertSame(simpleBean, config.getBeanByNameOrAlias("aliasedBean"));
+		assertSame(simpleBean, BeansModelUtils.getBean("aliasedBean", config));
+
+		IBean scannedBean = config.getBeanByNameOrAlias("simpleScannedBean");
+		assertNotNull(scannedBean);
+
+		assertNull(config.getBeanByNameOrAlias("unknownBean"));
+
+		config.reload();
+		IBean reloadedBean = config.getBeanByNameOrAlias("aliasedBean");
+		assertNotNull(reloadedBean);
+		assertNotSame(simpleBean, reloadedBean);
+		assertEquals("simpleBean", reloadedBean.getElementName());
+	}
+
+	@Test
+	public void testConfigSetBeanLookupAfterConfigReset() throws Exception {
+		beansProject.addConfig("alias-bean-config.xml", IBeansConfig.Type.MANUAL);
+		BeansConfigSet configSet = new BeansConfigSet(beansProject, "test-set", IBeansConfigSet.Type.MANUAL);
+		configSet.addConfig("alias-bean-config.xml");
+
+		IBean simpleBean = configSet.getBeanByNameOrAlias("aliasedBean");
+		assertNotNull(simpleBean);
+
+		// only the config is reset, the config set has to notice it by itself
+		((BeansConfig) beansProject.getConfig("alias-bean-config.xml")).reload();
+		IBean reloadedBean = configSet.getBeanByNameOrAlias("aliasedBean");
+		assertNotNull(reloadedBean);
+		assertNotSame(simpleBean, reloadedBean);
+		assertEquals("simpleBean", reloadedBean.getElementName());
+	}
+
 	protected Set<String> getProfiles(IModelElement element) {
 		Set<String> profiles = new HashSet<String>();
 		while (element != null) {
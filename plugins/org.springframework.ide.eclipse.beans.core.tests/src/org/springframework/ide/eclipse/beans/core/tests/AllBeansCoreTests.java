@@ -14,6 +14,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 import org.springframework.ide.core.classreading.tests.JdtAnnotationMetadataTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.tests.PointcutExpressionCacheTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.tests.PointcutTypeFilterTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.tests.AopReferenceModelTest;
 import org.springframework.ide.core.classreading.tests.JdtBasedAnnotationMetadataTest;
 import org.springframework.ide.core.classreading.tests.JdtClassMetadataTest;
 import org.springframework.ide.eclipse.beans.core.autowire.AutowireDependencyProviderTest;
@@ -29,7 +32,12 @@ import org.springframework.ide.eclipse.beans.core.internal.model.validation.rule
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanReferenceRuleWithConfigSetAndProfileTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanReferenceRuleWithConfigSetTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.NamespaceElementsRuleTest;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.ParallelValidationTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.RequiredPropertyRuleTest;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.tests.BeanMetadataModelTest;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.tests.BeanMetadataStoreTest;
+import org.springframework.ide.eclipse.beans.core.model.tests.BeanClassTypeIndexTest;
+import org.springframework.ide.eclipse.beans.core.model.tests.BeansConfigLoaderTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansProjectAutoConfigTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansProjectDescriptionWriterTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansConfigFactoryTest;
@@ -37,10 +45,20 @@ import org.springframework.ide.eclipse.beans.core.model.tests.BeansConfigTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansJavaConfigTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansModelUtilsTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansProjectTest;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.tests.LiveBeansJsonReaderTest;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.tests.LiveBeansModelDiffTest;
 import org.springframework.ide.eclipse.beans.ui.refactoring.tests.BeansJavaConfigRenameTypeRefactoringParticipantTest;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.tests.BeansSearchIndexTest;
+import org.springframework.ide.eclipse.core.java.ClassReadingCacheTest;
+import org.springframework.ide.eclipse.core.java.ClasspathElementMappedJarTest;
 import org.springframework.ide.eclipse.core.java.IntrospectorTest;
 import org.springframework.ide.eclipse.core.java.JdtUtilsTest;
+import org.springframework.ide.eclipse.core.java.TypeHierarchyElementCacheTest;
 import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
+import org.springframework.ide.eclipse.core.java.ProjectClassLoaderCacheWeightTest;
+import org.springframework.ide.eclipse.core.java.SharedJarFilesTest;
+import org.springframework.ide.eclipse.core.java.TypeHierarchyIndexTest;
+import org.springframework.ide.eclipse.core.java.TypeStructureTest;
 
 /**
  * Test suite for <code>beans.core</code> plugin.
@@ -64,6 +82,7 @@ import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
 	BeanReferenceRuleWithConfigSetTest.class,
 	BeanReferenceRuleWithConfigSetAndProfileTest.class,
 	NamespaceElementsRuleTest.class,
+	ParallelValidationTest.class,
 	IntrospectorTest.class,
 	JdtUtilsTest.class,
 	AutowireDependencyProviderTest.class,
@@ -72,14 +91,31 @@ import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
 	JdtBasedAnnotationMetadataTest.class,
 	JdtClassMetadataTest.class,
 	BeansConfigTest.class,
+	BeanClassTypeIndexTest.class,
+	BeansConfigLoaderTest.class,
+	BeanMetadataStoreTest.class,
+	BeanMetadataModelTest.class,
+	AopReferenceModelTest.class,
+	PointcutTypeFilterTest.class,
+	PointcutExpressionCacheTest.class,
 	BeansJavaConfigTest.class,
 	BeansConfigFactoryTest.class,
 	BeansProjectTest.class,
 	BeansProjectAutoConfigTest.class,
 	BeansProjectDescriptionWriterTest.class,
 	BeansJavaConfigRenameTypeRefactoringParticipantTest.class,
+	BeansSearchIndexTest.class,
+	LiveBeansJsonReaderTest.class,
+	LiveBeansModelDiffTest.class,
 	ResourceChangeEventHandlerTest.class,
 	TypeHierarchyEngineTest.class,
+	TypeHierarchyElementCacheTest.class,
+	ClasspathElementMappedJarTest.class,
+	ClassReadingCacheTest.class,
+	TypeHierarchyIndexTest.class,
+	SharedJarFilesTest.class,
+	ProjectClassLoaderCacheWeightTest.class,
+	TypeStructureTest.class,
 	BeansModelUtilsTest.class
 })
 public class AllBeansCoreTests {
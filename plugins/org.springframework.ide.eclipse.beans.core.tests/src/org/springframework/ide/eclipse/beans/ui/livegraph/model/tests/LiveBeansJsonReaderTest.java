@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBean;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansContext;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansGroup;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansJsonParser;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansJsonReader;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansJsonReader.Token;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansSession;
+
+/**
+ * Test case for the {@link LiveBeansJsonReader} and the {@link LiveBeansJsonParser} reading the Live Beans snapshot
+ * with it.
+ * @since 3.8.1
+ */
+public class LiveBeansJsonReaderTest {
+
+	private final LiveBeansSession session = new LiveBeansSession("service:jmx:rmi://", null, null, null, null);
+
+	@Test
+	public void testEscapes() throws Exception {
+		LiveBeansJsonReader reader = new LiveBeansJsonReader(
+				"[\"a\\\"b\", \"back\\\\slash\", \"\\/\\b\\t\\n\\f\\r\", \"\\u0041\\u00e9x\", \"plain\", \"\"]");
+		reader.beginArray();
+		assertEquals("a\"b", reader.nextString());
+		assertEquals("back\\slash", reader.nextString());
+		assertEquals("/\b\t\n\f\r", reader.nextString());
+		assertEquals("A\u00e9x", reader.nextString());
+		assertEquals("plain", reader.nextString());
+		assertEquals("", reader.nextString());
+		assertFalse(reader.hasNext());
+		reader.endArray();
+		assertEquals(Token.END_DOCUMENT, reader.peek());
+	}
+
+	@Test
+	public void testEscapedNames() throws Exception {
+		LiveBeansJsonReader reader = new LiveBeansJsonReader("{\"na\\\"me\" : \"va\\\"lue\"}");
+		reader.beginObject();
+		assertEquals(Token.NAME, reader.peek());
+		assertEquals("na\"me", reader.nextName());
+		assertEquals(Token.STRING, reader.peek());
+		assertEquals("va\"lue", reader.nextString());
+		reader.endObject();
+	}
+
+	@Test
+	public void testIllegalEscapes() throws Exception {
+		assertSyntaxError("[\"\\u00\"]");
+		assertSyntaxError("[\"\\u00zz\"]");
+		assertSyntaxError("[\"abc\\");
+		assertSyntaxError("[\"abc");
+	}
+
+	@Test
+	public void testLiterals() throws Exception {
+		LiveBeansJsonReader reader = new LiveBeansJsonReader("{\"a\":null,\"b\":true,\"c\":-1.5e3,\"d\":\"null\"}");
+		reader.beginObject();
+		assertEquals("a", reader.nextName());
+		assertEquals(Token.LITERAL, reader.peek());
+		assertNull(reader.nextString());
+		assertEquals("b", reader.nextName());
+		assertEquals("true", reader.nextString());
+		assertEquals("c", reader.nextName());
+		assertEquals("-1.5e3", reader.nextString());
+		assertEquals("d", reader.nextName());
+		assertEquals(Token.STRING, reader.peek());
+		assertEquals("null", reader.nextString());
+		assertFalse(reader.hasNext());
+		reader.endObject();
+	}
+
+	@Test
+	public void testNestedSkips() throws Exception {
+		LiveBeansJsonReader reader = new LiveBeansJsonReader("{\"skipped\": {\"a\": [1, [2, {\"b\": \"]}\"}], {}],"
+				+ " \"c\": {\"d\": null, \"e\": \"\\\"{\"}}, \"empty\": [], \"kept\": \"value\"}");
+		reader.beginObject();
+		assertEquals("skipped", reader.nextName());
+		reader.skipValue();
+		assertEquals("empty", reader.nextName());
+		reader.skipValue();
+		assertEquals("kept", reader.nextName());
+		assertEquals("value", reader.nextString());
+		assertFalse(reader.hasNext());
+		reader.endObject();
+		assertEquals(Token.END_DOCUMENT, reader.peek());
+	}
+
+	@Test
+	public void testSyntaxErrors() throws Exception {
+		assertSyntaxError("{\"a\" \"b\"}");
+		assertSyntaxError("{\"a\": ]");
+		assertSyntaxError("[}");
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		// single quotes are replaced with double quotes, so the bean id contains an escaped quote
+		LiveBeansModel model = parse("[{'context':'app','parent':null,'beans':[{'bean':'a\\'s','aliases':['x'],"
+				+ "'scope':'singleton','type':'com.A','resource':'file [a.xml]','dependencies':[]}]}]");
+		assertEquals(1, model.getBeans().size());
+		LiveBean bean = model.getBeans().get(0);
+		assertEquals("a\"s", bean.getId());
+		assertEquals("singleton", bean.getScope());
+		assertEquals("com.A", bean.getBeanType());
+		assertEquals("file [a.xml]", bean.getResource());
+		assertEquals("app", bean.getAttributes().get(LiveBeansContext.ATTR_CONTEXT));
+
+		LiveBeansContext context = (LiveBeansContext) model.getBeansByContext().get(0);
+		assertNull(context.getParent());
+		assertEquals(1, model.getBeansByResource().size());
+		assertEquals("file [a.xml]", model.getBeansByResource().get(0).getLabel());
+	}
+
+	@Test
+	public void testForwardReferences() throws Exception {
+		// the first bean depends on a bean which follows it, the first context has a parent which follows it and
+		// the beans of the child context are listed before the context's label
+		LiveBeansModel model = parse("[{'beans':[{'bean':'a','dependencies':['b','c','inner#1']}],'context':'child',"
+				+ "'parent':'root'},{'context':'root','parent':null,'beans':[{'bean':'c','dependencies':[]}]},"
+				+ "{'context':'other','beans':[{'bean':'b','dependencies':['a']}]}]");
+		Map<String, LiveBean> beans = getBeans(model.getBeans());
+		assertEquals(3, beans.size());
+
+		LiveBean a = beans.get("a");
+		assertEquals("child", a.getAttributes().get(LiveBeansContext.ATTR_CONTEXT));
+		Map<String, LiveBean> dependencies = getBeans(a.getDependencies());
+		assertEquals(3, dependencies.size());
+		assertSame(beans.get("b"), dependencies.get("b"));
+		assertSame(beans.get("c"), dependencies.get("c"));
+		assertTrue(dependencies.get("inner#1").isInnerBean());
+		assertTrue(beans.get("b").getDependencies().contains(a));
+		assertTrue(beans.get("b").getInjectedInto().contains(a));
+
+		Map<String, LiveBeansContext> contexts = getContexts(model.getBeansByContext());
+		assertEquals(3, contexts.size());
+		assertSame(contexts.get("root"), contexts.get("child").getParent());
+		assertNull(contexts.get("root").getParent());
+		assertNull(contexts.get("other").getParent());
+	}
+
+	@Test
+	public void testUnknownMembersSkipped() throws Exception {
+		LiveBeansModel model = parse("[{'context':'app','startup':{'date':1,'nested':[{'x':[]}]},'beans':["
+				+ "{'bean':'a','aliases':['x','y'],'extra':{'z':['{']},'dependencies':[]},'unexpected',"
+				+ "{'scope':'singleton'}]}, 42]");
+		assertEquals(1, model.getBeans().size());
+		assertEquals("a", model.getBeans().get(0).getId());
+	}
+
+	@Test(expected = JSONException.class)
+	public void testMissingContextLabel() throws Exception {
+		parse("[{'beans':[]}]");
+	}
+
+	private LiveBeansModel parse(String json) throws JSONException {
+		return new LiveBeansJsonParser(session, json.replace('\'', '"')).parse();
+	}
+
+	private void assertSyntaxError(String json) {
+		LiveBeansJsonReader reader = new LiveBeansJsonReader(json);
+		try {
+			reader.skipValue();
+			fail("Expected a syntax error reading " + json);
+		}
+		catch (JSONException e) {
+			// expected
+		}
+	}
+
+	private Map<String, LiveBean> getBeans(Iterable<LiveBean> beans) {
+		Map<String, LiveBean> result = new HashMap<String, LiveBean>();
+		for (LiveBean bean : beans) {
+			result.put(bean.getId(), bean);
+		}
+		return result;
+	}
+
+	private Map<String, LiveBeansContext> getContexts(List<LiveBeansGroup> groups) {
+		Map<String, LiveBeansContext> result = new HashMap<String, LiveBeansContext>();
+		for (LiveBeansGroup group : groups) {
+			result.put(group.getLabel(), (LiveBeansContext) group);
+		}
+		return result;
+	}
+
+}
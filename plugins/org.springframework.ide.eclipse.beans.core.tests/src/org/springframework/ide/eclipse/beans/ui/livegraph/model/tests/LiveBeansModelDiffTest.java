@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBean;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansContext;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansGroup;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansJsonParser;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansSession;
+
+/**
+ * Test case for updating a {@link LiveBeansModel} in place with the {@link LiveBeansModelDiff}.
+ * @since 3.8.1
+ */
+public class LiveBeansModelDiffTest {
+
+	private static final String ROOT = "{'context':'root','parent':null,'beans':[%s]}";
+
+	private static final String APP = "{'context':'app','parent':%s,'beans':[%s]}";
+
+	private final LiveBeansSession session = new LiveBeansSession("service:jmx:rmi://", null, null, null, null);
+
+	@Test
+	public void testUnchangedModel() throws Exception {
+		LiveBeansModel model = parse(snapshot("'root'", bean("a", "com.A", "b"), bean("b", "com.B")));
+		LiveBean a = getBeans(model).get("a");
+		LiveBeansContext app = getContexts(model).get("app");
+
+		LiveBeansModelDiff diff = LiveBeansModelDiff.update(model,
+				parse(snapshot("'root'", bean("a", "com.A", "b"), bean("b", "com.B"))));
+		assertTrue(diff.isEmpty());
+		assertFalse(diff.hasStructuralChanges());
+		assertSame(a, getBeans(model).get("a"));
+		assertSame(app, getContexts(model).get("app"));
+		assertSame(getBeans(model).get("b"), a.getDependencies().iterator().next());
+	}
+
+	@Test
+	public void testAddedBeans() throws Exception {
+		LiveBeansModel model = parse(snapshot("null", bean("a", "com.A")));
+		LiveBean a = getBeans(model).get("a");
+
+		LiveBeansModelDiff diff = LiveBeansModelDiff.update(model,
+				parse(snapshot("null", bean("a", "com.A", "b"), bean("b", "com.B"))));
+		assertEquals(1, diff.getAddedBeans().size());
+		LiveBean b = diff.getAddedBeans().get(0);
+		assertEquals("b", b.getId());
+		assertTrue(diff.getRemovedBeans().isEmpty());
+		assertEquals(Collections.singletonList(a), diff.getChangedBeans());
+		assertTrue(diff.hasStructuralChanges());
+
+		// the root context always contains bean 'r'
+		assertEquals(3, model.getBeans().size());
+		assertSame(a, getBeans(model).get("a"));
+		assertSame(b, getBeans(model).get("b"));
+		assertEquals(Collections.singleton(b), a.getDependencies());
+		assertEquals(Collections.singleton(a), b.getInjectedInto());
+		assertTrue(getContexts(model).get("app").getBeans().contains(b));
+	}
+
+	@Test
+	public void testRemovedBeans() throws Exception {
+		LiveBeansModel model = parse(snapshot("null", bean("a", "com.A", "b"), bean("b", "com.B")));
+		LiveBean a = getBeans(model).get("a");
+		LiveBean b = getBeans(model).get("b");
+
+		LiveBeansModelDiff diff = LiveBeansModelDiff.update(model, parse(snapshot("null", bean("a", "com.A"))));
+		assertEquals(Collections.singletonList(b), diff.getRemovedBeans());
+		assertTrue(diff.getAddedBeans().isEmpty());
+		assertEquals(Collections.singletonList(a), diff.getChangedBeans());
+		assertTrue(diff.hasStructuralChanges());
+
+		assertEquals(2, model.getBeans().size());
+		assertFalse(model.getBeans().contains(b));
+		assertTrue(a.getDependencies().isEmpty());
+		assertFalse(getContexts(model).get("app").getBeans().contains(b));
+	}
+
+	@Test
+	public void testChangedBeans() throws Exception {
+		LiveBeansModel model = parse(snapshot("null", bean("a", "com.A", "b"), bean("b", "com.B")));
+		LiveBean a = getBeans(model).get("a");
+		LiveBean b = getBeans(model).get("b");
+
+		// only the type of a bean changes, which doesn't change the graph
+		LiveBeansModelDiff diff = LiveBeansModelDiff.update(model,
+				parse(snapshot("null", bean("a", "com.A", "b"), bean("b", "com.B2"))));
+		assertEquals(Collections.singletonList(b), diff.getChangedBeans());
+		assertTrue(diff.getAddedBeans().isEmpty());
+		assertTrue(diff.getRemovedBeans().isEmpty());
+		assertFalse(diff.hasStructuralChanges());
+		assertFalse(diff.isEmpty());
+		assertSame(b, getBeans(model).get("b"));
+		assertEquals("com.B2", b.getBeanType());
+		assertEquals(Collections.singleton(b), a.getDependencies());
+		assertEquals(Collections.singleton(a), b.getInjectedInto());
+	}
+
+	@Test
+	public void testChangedDependencies() throws Exception {
+		LiveBeansModel model = parse(snapshot("null", bean("a", "com.A", "b"), bean("b", "com.B"), bean("c", "com.C")));
+		LiveBean a = getBeans(model).get("a");
+		LiveBean b = getBeans(model).get("b");
+		LiveBean c = getBeans(model).get("c");
+
+		LiveBeansModelDiff diff = LiveBeansModelDiff.update(model,
+				parse(snapshot("null", bean("a", "com.A", "c"), bean("b", "com.B"), bean("c", "com.C"))));
+		assertEquals(Collections.singletonList(a), diff.getChangedBeans());
+		assertTrue(diff.hasStructuralChanges());
+		assertEquals(Collections.singleton(c), a.getDependencies());
+		assertTrue(b.getInjectedInto().isEmpty());
+		assertEquals(Collections.singleton(a), c.getInjectedInto());
+	}
+
+	@Test
+	public void testChangedParent() throws Exception {
+		LiveBeansModel model = parse(snapshot("'root'", bean("a", "com.A")));
+		LiveBean a = getBeans(model).get("a");
+		LiveBeansContext root = getContexts(model).get("root");
+		LiveBeansContext app = getContexts(model).get("app");
+		assertSame(root, app.getParent());
+
+		// removing the parent changes the contexts but none of the beans
+		LiveBeansModelDiff diff = LiveBeansModelDiff.update(model, parse(snapshot("null", bean("a", "com.A"))));
+		assertTrue(diff.getChangedBeans().isEmpty());
+		assertFalse(diff.hasStructuralChanges());
+		assertFalse(diff.isEmpty());
+		assertSame(app, getContexts(model).get("app"));
+		assertNull(app.getParent());
+		assertSame(a, getBeans(model).get("a"));
+
+		// setting it again points to the existing root context
+		diff = LiveBeansModelDiff.update(model, parse(snapshot("'root'", bean("a", "com.A"))));
+		assertFalse(diff.isEmpty());
+		assertSame(root, getContexts(model).get("root"));
+		assertSame(root, app.getParent());
+
+		diff = LiveBeansModelDiff.update(model, parse(snapshot("'root'", bean("a", "com.A"))));
+		assertTrue(diff.isEmpty());
+		assertSame(root, app.getParent());
+	}
+
+	private String snapshot(String parent, String... appBeans) {
+		StringBuilder beans = new StringBuilder();
+		for (String bean : appBeans) {
+			if (beans.length() > 0) {
+				beans.append(',');
+			}
+			beans.append(bean);
+		}
+		return "[" + String.format(APP, parent, beans) + "," + String.format(ROOT, bean("r", "com.R")) + "]";
+	}
+
+	private String bean(String id, String type, String... dependencies) {
+		StringBuilder bean = new StringBuilder();
+		bean.append("{'bean':'").append(id).append("','scope':'singleton','type':'").append(type);
+		bean.append("','resource':'file [").append(id).append(".xml]','dependencies':[");
+		for (int i = 0; i < dependencies.length; i++) {
+			if (i > 0) {
+				bean.append(',');
+			}
+			bean.append('\'').append(dependencies[i]).append('\'');
+		}
+		return bean.append("]}").toString();
+	}
+
+	private LiveBeansModel parse(String json) throws JSONException {
+		return new LiveBeansJsonParser(session, json.replace('\'', '"')).parse();
+	}
+
+	private Map<String, LiveBean> getBeans(LiveBeansModel model) {
+		Map<String, LiveBean> beans = new HashMap<String, LiveBean>();
+		for (LiveBean bean : model.getBeans()) {
+			beans.put(bean.getId(), bean);
+		}
+		return beans;
+	}
+
+	private Map<String, LiveBeansContext> getContexts(LiveBeansModel model) {
+		Map<String, LiveBeansContext> contexts = new HashMap<String, LiveBeansContext>();
+		List<LiveBeansGroup> groups = model.getBeansByContext();
+		for (LiveBeansGroup group : groups) {
+			contexts.put(group.getLabel(), (LiveBeansContext) group);
+		}
+		return contexts;
+	}
+
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.search.internal.queries.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchScope;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.BeanNameQuery;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.BeansSearchIndex;
+import org.springframework.ide.eclipse.core.PatternUtils;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Test case for the {@link BeansSearchIndex}. Every pattern is searched for with the index and by visiting all
+ * elements of the config, which is how the queries worked before the index; both have to find the same beans.
+ * @since 3.8.1
+ */
+public class BeansSearchIndexTest {
+
+	private static final String CONFIG_FILE = "search-bean-config.xml";
+
+	private static final String[] BEAN_NAMES = new String[] { "simpleBean", "SimpleBeanTwo", "otherBean",
+			"star*Bean", "question?", "back\\slash", "SIMPLE" };
+
+	private static final String[] EXACT = new String[] { "simpleBean", "simplebean", "SimpleBeanTwo", "simpleAlias",
+			"noSuchBean", "" };
+
+	private static final String[] PREFIX = new String[] { "simple*", "Simple*", "s*", "*", "noSuch*" };
+
+	private static final String[] WILDCARD = new String[] { "*Bean", "*bean*", "s?mple*", "?", "*Be?n*Two",
+			"simple*Alias", "*a*" };
+
+	private static final String[] ESCAPED = new String[] { "star\\*Bean", "star\\*", "star\\**", "question\\?",
+			"question?", "back\\\\slash", "back\\slash", "back\\s*", "\\simpleBean", "simpleBean\\" };
+
+	private IProject project;
+	private IBeansConfig config;
+	private final IProgressMonitor monitor = new NullProgressMonitor();
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-config-tests", "org.springframework.ide.eclipse.beans.core.tests");
+		StringBuilder xml = new StringBuilder();
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n");
+		xml.append("\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+		xml.append("\txsi:schemaLocation=\"http://www.springframework.org/schema/beans ");
+		xml.append("http://www.springframework.org/schema/beans/spring-beans.xsd\">\n");
+		for (String beanName : BEAN_NAMES) {
+			xml.append("\t<bean id=\"").append(beanName).append('"');
+			if (beanName.equals("simpleBean")) {
+				xml.append(" name=\"simpleAlias\"");
+			}
+			xml.append(" class=\"org.test.spring.SimpleBeanClass\"/>\n");
+		}
+		xml.append("</beans>\n");
+		project.getFile(CONFIG_FILE).create(new ByteArrayInputStream(xml.toString().getBytes("UTF-8")), true, null);
+
+		BeansProject beansProject = new BeansProject(new BeansModel(), project);
+		config = new BeansConfig(beansProject, CONFIG_FILE, IBeansConfig.Type.MANUAL);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		BeansSearchIndex.dispose();
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testExactPatterns() throws Exception {
+		assertSameMatches(EXACT);
+	}
+
+	@Test
+	public void testPrefixPatterns() throws Exception {
+		assertSameMatches(PREFIX);
+	}
+
+	@Test
+	public void testWildcardPatterns() throws Exception {
+		assertSameMatches(WILDCARD);
+	}
+
+	@Test
+	public void testEscapedPatterns() throws Exception {
+		assertSameMatches(ESCAPED);
+	}
+
+	@Test
+	public void testAllBeansFound() throws Exception {
+		assertEquals(BEAN_NAMES.length, findWithIndex("*", true).size());
+		assertEquals(1, findWithIndex("simpleBean", true).size());
+		assertEquals(1, findWithIndex("simple", false).size());
+	}
+
+	private void assertSameMatches(String[] patterns) {
+		for (String pattern : patterns) {
+			for (boolean isCaseSensitive : new boolean[] { true, false }) {
+				List<IModelElement> found = findWithIndex(pattern, isCaseSensitive);
+				Set<IModelElement> expected = findWithVisitor(pattern, isCaseSensitive);
+				String message = "'" + pattern + "'" + (isCaseSensitive ? "" : " ignoring case");
+				assertEquals(message, expected, new HashSet<IModelElement>(found));
+				assertEquals(message + " found beans more than once", expected.size(), found.size());
+			}
+		}
+	}
+
+	private List<IModelElement> findWithIndex(String pattern, boolean isCaseSensitive) {
+		BeanNameQuery query = new BeanNameQuery(BeansSearchScope.newSearchScope(), pattern, isCaseSensitive, false);
+		return BeansSearchIndex.getInstance().findMatches(config, query, monitor);
+	}
+
+	/**
+	 * Matches the names and aliases of all beans with the pattern like the {@link BeanNameQuery} does if the
+	 * index isn't used.
+	 */
+	private Set<IModelElement> findWithVisitor(String pattern, boolean isCaseSensitive) {
+		final Pattern compiledPattern = PatternUtils.createPattern(pattern, isCaseSensitive, false);
+		final Set<IModelElement> matches = new HashSet<IModelElement>();
+		config.accept(new IModelElementVisitor() {
+
+			public boolean visit(IModelElement element, IProgressMonitor monitor) {
+				if (element instanceof IBean) {
+					IBean bean = (IBean) element;
+					boolean matched = compiledPattern.matcher(bean.getElementName()).matches();
+					if (bean.getAliases() != null) {
+						for (String alias : bean.getAliases()) {
+							matched |= compiledPattern.matcher(alias).matches();
+						}
+					}
+					if (matched) {
+						matches.add(element);
+					}
+				}
+				return true;
+			}
+		}, monitor);
+		return matches;
+	}
+
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.type.asm.ClassReadingCache;
+
+/**
+ * @since 3.8.1
+ */
+public class ClassReadingCacheTest {
+
+	@Test
+	public void testHitsAndMisses() throws Exception {
+		CountingLoader loader = new CountingLoader(1);
+		ClassReadingCache<Integer, String> cache = new ClassReadingCache<Integer, String>(loader, 1000);
+
+		String value = cache.get(1);
+		assertEquals("value1", value);
+		assertSame(value, cache.get(1));
+		assertSame(value, cache.get(1));
+		cache.get(2);
+
+		assertEquals(2, loader.loads.get());
+		ClassReadingCache.Statistics statistics = cache.getStatistics();
+		assertEquals(2, statistics.getHitCount());
+		assertEquals(2, statistics.getMissCount());
+		assertEquals(0, statistics.getEvictionCount());
+		assertEquals(2, statistics.getSize());
+		assertEquals(2, statistics.getWeight());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+		// 16 segments with a weight of 2 each; keys 0, 16 and 32 end up in the same segment
+		CountingLoader loader = new CountingLoader(1);
+		ClassReadingCache<Integer, String> cache = new ClassReadingCache<Integer, String>(loader, 32);
+
+		cache.get(0);
+		cache.get(16);
+		cache.get(0);
+		cache.get(32);
+
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+		assertEquals(2, cache.size());
+
+		cache.get(0);
+		assertEquals(3, loader.loads.get());
+		cache.get(16);
+		assertEquals(4, loader.loads.get());
+	}
+
+	@Test
+	public void testTooHeavyEntriesAreNotCached() throws Exception {
+		CountingLoader loader = new CountingLoader(100);
+		ClassReadingCache<Integer, String> cache = new ClassReadingCache<Integer, String>(loader, 160);
+
+		cache.get(1);
+		cache.get(1);
+		assertEquals(2, loader.loads.get());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testInvalidateLocations() throws Exception {
+		CountingLoader loader = new CountingLoader(1);
+		ClassReadingCache<Integer, String> cache = new ClassReadingCache<Integer, String>(loader, 1000);
+
+		cache.get(1);
+		cache.get(2);
+		cache.invalidateLocations(Collections.singleton(new File("/tmp/classes/Class1.class").getAbsolutePath()), false);
+		assertEquals(1, cache.size());
+
+		cache.invalidateLocations(Collections.singleton(new File("/tmp/classes").getAbsolutePath()), false);
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void testMissingValuesAreCached() throws Exception {
+		CountingLoader loader = new CountingLoader(1);
+		ClassReadingCache<Integer, String> cache = new ClassReadingCache<Integer, String>(loader, 1000);
+
+		assertNull(cache.get(-1));
+		assertNull(cache.get(-1));
+		assertEquals(1, loader.loads.get());
+		assertEquals(1, cache.getStatistics().getHitCount());
+
+		// changed files don't affect missing values, added files do
+		cache.get(1);
+		cache.invalidateLocations(Collections.singleton(new File("/tmp/classes").getAbsolutePath()), false);
+		assertEquals(1, cache.size());
+		cache.invalidateLocations(Collections.<String> emptySet(), true);
+		assertEquals(0, cache.size());
+
+		assertNull(cache.get(-1));
+		assertEquals(3, loader.loads.get());
+	}
+
+	@Test
+	public void testDispose() throws Exception {
+		CountingLoader loader = new CountingLoader(1);
+		ClassReadingCache<Integer, String> cache = new ClassReadingCache<Integer, String>(loader, 1000);
+
+		cache.get(1);
+		cache.dispose();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		CountingLoader loader = new CountingLoader(1);
+		final ClassReadingCache<Integer, String> cache = new ClassReadingCache<Integer, String>(loader, 100000);
+
+		Thread[] threads = new Thread[8];
+		final AtomicInteger failures = new AtomicInteger();
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						for (int j = 0; j < 1000; j++) {
+							if (!("value" + j).equals(cache.get(j))) {
+								failures.incrementAndGet();
+							}
+						}
+					}
+					catch (IOException e) {
+						failures.incrementAndGet();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(0, failures.get());
+		assertEquals(1000, cache.size());
+		ClassReadingCache.Statistics statistics = cache.getStatistics();
+		assertEquals(8000, statistics.getHitCount() + statistics.getMissCount());
+	}
+
+	private static class CountingLoader implements ClassReadingCache.EntryLoader<Integer, String> {
+
+		private final long weight;
+		private final AtomicInteger loads = new AtomicInteger();
+
+		public CountingLoader(long weight) {
+			this.weight = weight;
+		}
+
+		public String load(Integer key) throws IOException {
+			loads.incrementAndGet();
+			return key >= 0 ? "value" + key : null;
+		}
+
+		public long getWeight(Integer key, String value) {
+			return weight;
+		}
+
+		public File[] getLocations(Integer key, String value) {
+			return new File[] { new File("/tmp/classes/Class" + key + ".class") };
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.typehierarchy.ClasspathElementMappedJar;
+import org.springframework.ide.eclipse.core.java.typehierarchy.ClasspathLookupDirect;
+
+/**
+ * @since 3.8.1
+ */
+public class ClasspathElementMappedJarTest {
+
+	private static final byte[] DEFLATED_CONTENT = new byte[5000];
+	private static final byte[] STORED_CONTENT = new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE };
+
+	private File jarFile;
+	private ClasspathElementMappedJar element;
+
+	@Before
+	public void createJar() throws Exception {
+		for (int i = 0; i < DEFLATED_CONTENT.length; i++) {
+			DEFLATED_CONTENT[i] = (byte) (i % 7);
+		}
+
+		jarFile = File.createTempFile("classpath-element", ".jar");
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile));
+		try {
+			out.putNextEntry(new ZipEntry("org/DeflatedClass.class"));
+			out.write(DEFLATED_CONTENT);
+			out.closeEntry();
+
+			ZipEntry storedEntry = new ZipEntry("org/sub/StoredClass.class");
+			storedEntry.setMethod(ZipEntry.STORED);
+			storedEntry.setSize(STORED_CONTENT.length);
+			storedEntry.setCompressedSize(STORED_CONTENT.length);
+			CRC32 crc = new CRC32();
+			crc.update(STORED_CONTENT);
+			storedEntry.setCrc(crc.getValue());
+			out.putNextEntry(storedEntry);
+			out.write(STORED_CONTENT);
+			out.closeEntry();
+		}
+		finally {
+			out.close();
+		}
+
+		element = new ClasspathElementMappedJar(jarFile.getPath());
+	}
+
+	@After
+	public void deleteJar() throws Exception {
+		element.cleanup();
+		jarFile.delete();
+	}
+
+	@Test
+	public void testDeflatedEntry() throws Exception {
+		ByteBuffer buffer = element.getBuffer("org/DeflatedClass.class", "org", "DeflatedClass.class");
+		assertNotNull(buffer);
+		byte[] content = new byte[buffer.remaining()];
+		buffer.get(content);
+		assertArrayEquals(DEFLATED_CONTENT, content);
+	}
+
+	@Test
+	public void testStoredEntry() throws Exception {
+		InputStream stream = element.getStream("org/sub/StoredClass.class", "org/sub", "StoredClass.class");
+		assertNotNull(stream);
+		for (byte expected : STORED_CONTENT) {
+			assertEquals(expected & 0xff, stream.read());
+		}
+		assertEquals(-1, stream.read());
+	}
+
+	@Test
+	public void testMissingEntry() throws Exception {
+		assertNull(element.getStream("org/MissingClass.class", "org", "MissingClass.class"));
+		assertNull(element.getBuffer("MissingClass.class", "", "MissingClass.class"));
+	}
+
+	@Test
+	public void testLookupAfterCleanup() throws Exception {
+		assertNotNull(element.getBuffer("org/sub/StoredClass.class", "org/sub", "StoredClass.class"));
+		element.cleanup();
+		assertNotNull(element.getBuffer("org/sub/StoredClass.class", "org/sub", "StoredClass.class"));
+	}
+
+	@Test
+	public void testCleanupKeepsMapping() throws Exception {
+		assertNotNull(element.getBuffer("org/sub/StoredClass.class", "org/sub", "StoredClass.class"));
+		element.cleanup();
+
+		// the jar is not mapped again after a cleanup, so the entries stay readable from the existing mapping
+		// (jar files that are mapped can't be deleted on Windows)
+		if (jarFile.delete()) {
+			assertNotNull(element.getBuffer("org/DeflatedClass.class", "org", "DeflatedClass.class"));
+		}
+	}
+
+	@Test
+	public void testMappedClasspathLookup() throws Exception {
+		ClasspathLookupDirect lookup = new ClasspathLookupDirect(new URL[] { jarFile.toURI().toURL() }, true);
+		try {
+			InputStream stream = lookup.getStream("org/sub/StoredClass.class", "org/sub", "StoredClass.class");
+			assertNotNull(stream);
+			assertEquals(STORED_CONTENT[0] & 0xff, stream.read());
+			assertNull(lookup.getStream("org/MissingClass.class", "org", "MissingClass.class"));
+		}
+		finally {
+			lookup.close();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 Spring IDE Developers
+ * Copyright (c) 2005, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -241,6 +241,16 @@ public class IntrospectorTest {
 		assertTrue(Introspector.hasWritableProperty(propTestClass, "uPPERCaseProp"));
 	}
 
+	@Test
+	public void testPropertyChecksAfterChange() throws Exception {
+		project = StsTestUtil.createPredefinedProject("validation", "org.springframework.ide.eclipse.beans.core.tests");
+		IType propTestClass = JdtUtils.getJavaType(project, "org.springframework.PropertyTestClass");
+
+		assertFalse(Introspector.hasWritableProperty(propTestClass, "newProp"));
+		propTestClass.createMethod("public void setNewProp(String newProp) {}", null, false, null);
+		assertTrue(Introspector.hasWritableProperty(propTestClass, "newProp"));
+	}
+
 	private void checkResult(Set<IMethod> methods, int expectedSize) {
 		assertTrue("Expected " + expectedSize + " methods to be found. actual is: "
 				+ methods.toArray().length, methods.toArray().length == expectedSize);
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Test case for the weight accounting and the jars of the {@link ProjectClassLoaderCache}.
+ * @since 3.8.1
+ */
+public class ProjectClassLoaderCacheWeightTest {
+
+	private static final String CLASS_NAME = "org.springframework.transaction.TransactionDefinition";
+
+	private static final String OTHER_CLASS_NAME = "org.springframework.transaction.PlatformTransactionManager";
+
+	private IProject project;
+
+	private File jarFile;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("jdt-annotation-tests", "org.springframework.ide.eclipse.beans.core.tests");
+		jarFile = project.getFile("lib/org.springframework.transaction_3.1.1.RELEASE.jar").getLocation().toFile();
+		JdtUtils.removeClassLoaderEntryFromCache(project);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		JdtUtils.removeClassLoaderEntryFromCache(project);
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testChargedJarWeightGivenBack() throws Exception {
+		long jarWeight = ProjectClassLoaderCache.getStatistics().getJarWeight();
+		JdtUtils.getClassLoader(project, null);
+		assertTrue(ProjectClassLoaderCache.getStatistics().getJarWeight() - jarWeight >= jarFile.length());
+
+		// the jar grows while it is cached
+		FileOutputStream out = new FileOutputStream(jarFile, true);
+		try {
+			out.write(new byte[64 * 1024]);
+		}
+		finally {
+			out.close();
+		}
+
+		JdtUtils.removeClassLoaderEntryFromCache(project);
+		assertEquals(jarWeight, ProjectClassLoaderCache.getStatistics().getJarWeight());
+	}
+
+	@Test
+	public void testLoadedClassesWeighed() throws Exception {
+		ClassLoader classLoader = JdtUtils.getClassLoader(project, null);
+		ProjectClassLoaderCache.Statistics statistics = ProjectClassLoaderCache.getStatistics();
+
+		classLoader.loadClass(CLASS_NAME);
+		ProjectClassLoaderCache.Statistics newStatistics = ProjectClassLoaderCache.getStatistics();
+		assertTrue(newStatistics.getLoadedClassCount() > statistics.getLoadedClassCount());
+		assertTrue(newStatistics.getWeight() > statistics.getWeight());
+	}
+
+	@Test
+	public void testRemovedClassLoaderStillLoadsClasses() throws Exception {
+		ClassLoader classLoader = JdtUtils.getClassLoader(project, null);
+		classLoader.loadClass(CLASS_NAME);
+		assertEquals(1, SharedJarFiles.getReferenceCount(jarFile));
+
+		// a class loader handed out before keeps its jars until it has been garbage collected
+		JdtUtils.removeClassLoaderEntryFromCache(project);
+		assertEquals(1, SharedJarFiles.getReferenceCount(jarFile));
+		classLoader.loadClass(OTHER_CLASS_NAME);
+	}
+
+}
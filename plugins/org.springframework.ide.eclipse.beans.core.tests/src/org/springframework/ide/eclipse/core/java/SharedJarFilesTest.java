@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test case for the reference counting of the {@link SharedJarFiles}.
+ * @since 3.8.1
+ */
+public class SharedJarFilesTest {
+
+	private static final String RESOURCE = "shared.txt";
+
+	private File jarFile;
+
+	@Before
+	public void createJar() throws Exception {
+		jarFile = File.createTempFile("shared", ".jar");
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile));
+		try {
+			out.putNextEntry(new ZipEntry(RESOURCE));
+			out.write("content".getBytes("UTF-8"));
+			out.closeEntry();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	@After
+	public void deleteJar() {
+		jarFile.delete();
+	}
+
+	@Test
+	public void testJarSharedByClassLoaders() throws Exception {
+		ClassLoader first = new FilteringJarFileClassLoader("first", getUrls(), getClass().getClassLoader());
+		ClassLoader second = new FilteringJarFileClassLoader("second", getUrls(), getClass().getClassLoader());
+		assertEquals("content", read(first));
+		assertEquals("content", read(second));
+		assertEquals(2, SharedJarFiles.getReferenceCount(jarFile));
+
+		// the jar is released once the class loader has been garbage collected
+		first = null;
+		awaitReferenceCount(1);
+		assertEquals("content", read(second));
+
+		second = null;
+		awaitReferenceCount(0);
+	}
+
+	@Test
+	public void testLockingAndNonLockingJarsNotShared() throws Exception {
+		ClassLoader locking = new FilteringJarFileClassLoader("locking", getUrls(), getClass().getClassLoader());
+		ClassLoader nonLocking = new FilteringNonLockingJarFileClassLoader("non-locking", getUrls(), getClass()
+				.getClassLoader());
+		assertEquals("content", read(locking));
+		assertEquals("content", read(nonLocking));
+		assertEquals(2, SharedJarFiles.getReferenceCount(jarFile));
+
+		locking = null;
+		nonLocking = null;
+		awaitReferenceCount(0);
+	}
+
+	private void awaitReferenceCount(int references) throws Exception {
+		for (int i = 0; i < 50 && SharedJarFiles.getReferenceCount(jarFile) != references; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertEquals(references, SharedJarFiles.getReferenceCount(jarFile));
+	}
+
+	private URL[] getUrls() throws Exception {
+		return new URL[] { jarFile.toURI().toURL() };
+	}
+
+	private String read(ClassLoader classLoader) throws Exception {
+		InputStream in = classLoader.getResourceAsStream(RESOURCE);
+		assertNotNull(in);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toString("UTF-8");
+		}
+		finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElement;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElementCache;
+
+/**
+ * @since 3.8.1
+ */
+public class TypeHierarchyElementCacheTest {
+
+	@Test
+	public void testCollidingHashCodes() throws Exception {
+		// "Aa" and "BB" have the same 31-based hash code
+		char[] first = "org/Aa".toCharArray();
+		char[] second = "org/BB".toCharArray();
+		assertEquals(new String(first).hashCode(), new String(second).hashCode());
+
+		TypeHierarchyElement firstElement = new TypeHierarchyElement(first, null, null);
+		TypeHierarchyElement secondElement = new TypeHierarchyElement(second, null, null);
+
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		cache.put(first, firstElement);
+		cache.put(second, secondElement);
+
+		assertSame(firstElement, cache.get("org/Aa".toCharArray()));
+		assertSame(secondElement, cache.get("org/BB".toCharArray()));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testManyElements() throws Exception {
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		for (int i = 0; i < 1000; i++) {
+			char[] name = ("org/Class" + i).toCharArray();
+			cache.put(name, new TypeHierarchyElement(name, null, null));
+		}
+
+		assertEquals(1000, cache.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("org/Class" + i, new String(cache.get(("org/Class" + i).toCharArray()).className));
+		}
+		assertNull(cache.get("org/Class1000".toCharArray()));
+	}
+
+	@Test
+	public void testReplaceExistingElement() throws Exception {
+		char[] name = "org/SimpleClass".toCharArray();
+		TypeHierarchyElement replacement = new TypeHierarchyElement(name, "java/lang/Object".toCharArray(), null);
+
+		TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		cache.put(name, new TypeHierarchyElement(name, null, null));
+		cache.put("org/SimpleClass".toCharArray(), replacement);
+
+		assertSame(replacement, cache.get(name));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		final TypeHierarchyElementCache cache = new TypeHierarchyElementCache();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t * 1000;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = offset; i < offset + 1000; i++) {
+						char[] name = ("org/Class" + i).toCharArray();
+						cache.put(name, new TypeHierarchyElement(name, null, null));
+						cache.get(("org/Class" + (i - offset)).toCharArray());
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(4000, cache.size());
+		for (int i = 0; i < 4000; i++) {
+			assertEquals("org/Class" + i, new String(cache.get(("org/Class" + i).toCharArray()).className));
+		}
+	}
+
+}
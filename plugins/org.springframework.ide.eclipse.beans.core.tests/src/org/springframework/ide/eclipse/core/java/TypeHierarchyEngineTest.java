@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,12 +35,14 @@ import org.junit.Test;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.java.typehierarchy.BytecodeTypeHierarchyClassReaderFactory;
 import org.springframework.ide.eclipse.core.java.typehierarchy.DirectTypeHierarchyElementCacheFactory;
+import org.springframework.ide.eclipse.core.java.typehierarchy.IndexedTypeHierarchyClassReader;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyClassReader;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyClassReaderFactory;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElement;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElementCache;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElementCacheFactory;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyIndex;
 import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
 
 /**
@@ -237,6 +243,35 @@ public class TypeHierarchyEngineTest {
 		assertEquals("java.lang.Object", engine.getSupertype(type));
 	}
 	
+	@Test
+	public void testIndexedClassShadowedByOutputFolder() throws Exception {
+		File bin = project.getLocation().append("bin").toFile();
+		List<URL> urls = new ArrayList<URL>();
+		urls.add(bin.toURI().toURL());
+		urls.addAll(ProjectClassLoaderCache.getClassPathUrls(project, null));
+		URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[urls.size()]), null);
+
+		File indexFile = File.createTempFile("typehierarchy", ".index");
+		File shadowingClass = new File(bin, "org/springframework/beans/factory/config/AbstractFactoryBean.class");
+		try {
+			TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+			IndexedTypeHierarchyClassReader reader = new IndexedTypeHierarchyClassReader(loader, index, project);
+			char[] className = "org/springframework/beans/factory/config/AbstractFactoryBean".toCharArray();
+			assertEquals("java/lang/Object", new String(reader.readTypeHierarchyInformation(className, project).superclassName));
+
+			// the location of the class in the jar is recorded now, but a class of the same name in the output folder
+			// comes first on the class path
+			shadowingClass.getParentFile().mkdirs();
+			Files.copy(new File(bin, "org/Subclass.class").toPath(), shadowingClass.toPath());
+			assertEquals("org/SimpleClass", new String(reader.readTypeHierarchyInformation(className, project).superclassName));
+		}
+		finally {
+			shadowingClass.delete();
+			indexFile.delete();
+			loader.close();
+		}
+	}
+
 	@Test
 	public void testUseCachedElementsFirst() throws Exception {
 		AccessLoggingClassReaderFactory readerFactory = new AccessLoggingClassReaderFactory(classReaderFactory);
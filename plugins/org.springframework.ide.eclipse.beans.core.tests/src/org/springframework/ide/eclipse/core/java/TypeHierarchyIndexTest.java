@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyElement;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyIndex;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyIndex.JarStamp;
+
+/**
+ * @since 3.8.1
+ */
+public class TypeHierarchyIndexTest {
+
+	private File indexFile;
+	private File jarFile;
+
+	@Before
+	public void createFiles() throws Exception {
+		indexFile = File.createTempFile("typehierarchy", ".index");
+		indexFile.delete();
+		jarFile = File.createTempFile("library", ".jar");
+		write(jarFile, 10);
+	}
+
+	@After
+	public void deleteFiles() throws Exception {
+		indexFile.delete();
+		jarFile.delete();
+	}
+
+	@Test
+	public void testStoreAndLoad() throws Exception {
+		TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+		index.put(jarFile, new TypeHierarchyElement("org/Subclass".toCharArray(), "org/SimpleClass".toCharArray(),
+				new char[][] { "org/SimpleInterface".toCharArray(), "java/io/Serializable".toCharArray() }));
+		index.put(jarFile, new TypeHierarchyElement("org/SimpleClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+		index.save();
+
+		TypeHierarchyIndex loadedIndex = new TypeHierarchyIndex(indexFile);
+		TypeHierarchyElement subclass = loadedIndex.get(jarFile, "org/Subclass".toCharArray());
+		assertNotNull(subclass);
+		assertEquals("org/SimpleClass", new String(subclass.superclassName));
+		assertEquals(2, subclass.interfaces.length);
+		assertArrayEquals("org/SimpleInterface".toCharArray(), subclass.interfaces[0]);
+		assertArrayEquals("java/io/Serializable".toCharArray(), subclass.interfaces[1]);
+
+		TypeHierarchyElement simpleClass = loadedIndex.get(jarFile, "org/SimpleClass".toCharArray());
+		assertNotNull(simpleClass);
+		assertEquals("java/lang/Object", new String(simpleClass.superclassName));
+		assertNull(simpleClass.interfaces);
+
+		assertNull(loadedIndex.get(jarFile, "org/UnknownClass".toCharArray()));
+	}
+
+	@Test
+	public void testChangedJarInvalidatesEntries() throws Exception {
+		TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+		index.put(jarFile, new TypeHierarchyElement("org/SimpleClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+		assertNotNull(index.get(jarFile, "org/SimpleClass".toCharArray()));
+
+		write(jarFile, 20);
+		assertNull(index.get(jarFile, "org/SimpleClass".toCharArray()));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+		index.put(jarFile, new TypeHierarchyElement("org/SimpleClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+		index.invalidate(jarFile);
+		assertNull(index.get(jarFile, "org/SimpleClass".toCharArray()));
+	}
+
+	@Test
+	public void testStampIsReadOnce() throws Exception {
+		TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+		JarStamp stamp = index.stamp(jarFile);
+		index.put(stamp, new TypeHierarchyElement("org/SimpleClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+		assertNotNull(index.get(stamp, "org/SimpleClass"));
+
+		// a stamp taken before the jar changed doesn't match the entries recorded for the new version
+		write(jarFile, 20);
+		JarStamp newStamp = index.stamp(jarFile);
+		assertNull(index.get(newStamp, "org/SimpleClass"));
+		index.put(newStamp, new TypeHierarchyElement("org/OtherClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+		assertNull(index.get(stamp, "org/OtherClass"));
+		assertNotNull(index.get(newStamp, "org/OtherClass"));
+	}
+
+	@Test
+	public void testLocations() throws Exception {
+		TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+		index.put(jarFile, new TypeHierarchyElement("org/SimpleClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+		index.putLocation("project", 42L, "org/SimpleClass", jarFile.getPath());
+
+		assertEquals(jarFile.getPath(), index.getLocation("project", 42L, "org/SimpleClass"));
+		assertNull(index.getLocation("project", 42L, "org/UnknownClass"));
+		assertNull(index.getLocation("otherProject", 42L, "org/SimpleClass"));
+
+		// a different class path drops the locations recorded for the previous one
+		assertNull(index.getLocation("project", 43L, "org/SimpleClass"));
+		index.putLocation("project", 43L, "org/OtherClass", jarFile.getPath());
+		assertNull(index.getLocation("project", 42L, "org/SimpleClass"));
+	}
+
+	@Test
+	public void testStoreAndLoadLocations() throws Exception {
+		File otherJarFile = File.createTempFile("other", ".jar");
+		try {
+			write(otherJarFile, 10);
+
+			TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+			index.put(jarFile, new TypeHierarchyElement("org/SimpleClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+			index.put(otherJarFile, new TypeHierarchyElement("org/OtherClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+			index.putLocation("project", 42L, "org/SimpleClass", jarFile.getPath());
+			index.putLocation("project", 42L, "org/OtherClass", otherJarFile.getPath());
+			otherJarFile.delete();
+			index.shutdown();
+
+			// locations in jars that don't exist anymore are not written
+			TypeHierarchyIndex loadedIndex = new TypeHierarchyIndex(indexFile);
+			assertEquals(jarFile.getPath(), loadedIndex.getLocation("project", 42L, "org/SimpleClass"));
+			assertNull(loadedIndex.getLocation("project", 42L, "org/OtherClass"));
+			assertNotNull(loadedIndex.get(jarFile, "org/SimpleClass".toCharArray()));
+		}
+		finally {
+			otherJarFile.delete();
+		}
+	}
+
+	@Test
+	public void testCorruptIndexFile() throws Exception {
+		write(indexFile, 7);
+		TypeHierarchyIndex index = new TypeHierarchyIndex(indexFile);
+		assertNull(index.get(jarFile, "org/SimpleClass".toCharArray()));
+
+		index.put(jarFile, new TypeHierarchyElement("org/SimpleClass".toCharArray(), "java/lang/Object".toCharArray(), null));
+		index.save();
+		assertNotNull(new TypeHierarchyIndex(indexFile).get(jarFile, "org/SimpleClass".toCharArray()));
+	}
+
+	private void write(File file, int size) throws Exception {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(new byte[size]);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,494 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.compiler.batch.BatchCompiler;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.env.ClassSignature;
+import org.eclipse.jdt.internal.compiler.env.EnumConstantSignature;
+import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
+import org.eclipse.jdt.internal.compiler.env.IBinaryElementValuePair;
+import org.eclipse.jdt.internal.compiler.env.IBinaryField;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.compiler.impl.Constant;
+import org.eclipse.jdt.internal.compiler.lookup.ExtraCompilerModifiers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Test case for the fingerprints of the {@link TypeStructure}. Every variant of the sample class is compared to the
+ * original with the fingerprints and with the field-by-field comparison the {@link TypeStructureCache} used before,
+ * on every level of detail. The changes of a whole delta are checked against a workspace project.
+ * @since 3.8.1
+ */
+@SuppressWarnings("restriction")
+public class TypeStructureTest {
+
+	private static final String ANNOTATION = "package p; import java.lang.annotation.*; "
+			+ "@Retention(RetentionPolicy.RUNTIME) public @interface A { String value() default \"\"; } ";
+
+	private static final String SAMPLE = "package p; "
+			+ "@A(\"type\") public class Sample extends Object implements Runnable, java.io.Serializable { "
+			+ "@A(\"field\") public String name; "
+			+ "public void run() {} "
+			+ "@A(\"method\") public void process(@A(\"parameter\") String value) {} "
+			+ "} ";
+
+	private static final int[] FLAGS = new int[] { 0, ITypeStructureCache.FLAG_ANNOTATION,
+			ITypeStructureCache.FLAG_ANNOTATION | ITypeStructureCache.FLAG_ANNOTATION_VALUE,
+			ITypeStructureCache.FLAG_ANNOTATION_VALUE };
+
+	private static final String[][] VARIANTS = new String[][] {
+		{ "same", SAMPLE },
+		{ "method body", SAMPLE.replace("run() {}", "run() { toString(); }") },
+		{ "interface order", SAMPLE.replace("Runnable, java.io.Serializable", "java.io.Serializable, Runnable") },
+		{ "interface removed", SAMPLE.replace("Runnable, java.io.Serializable", "Runnable") },
+		{ "super class", SAMPLE.replace("extends Object", "extends Thread") },
+		{ "method added", SAMPLE.replace("run() {}", "run() {} public void stop() {}") },
+		{ "method modifier", SAMPLE.replace("public void run()", "public synchronized void run()") },
+		{ "field type", SAMPLE.replace("String name", "Object name") },
+		{ "type annotation value", SAMPLE.replace("@A(\"type\")", "@A(\"other\")") },
+		{ "type annotation removed", SAMPLE.replace("@A(\"type\") ", "") },
+		{ "field annotation value", SAMPLE.replace("@A(\"field\")", "@A(\"other\")") },
+		{ "field annotation type", SAMPLE.replace("@A(\"field\")", "@Deprecated") },
+		{ "method annotation removed", SAMPLE.replace("@A(\"method\") ", "") },
+		{ "parameter annotation value", SAMPLE.replace("@A(\"parameter\")", "@A(\"other\")") },
+		{ "parameter annotation removed", SAMPLE.replace("@A(\"parameter\") ", "") },
+	};
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("type-structure").toFile();
+	}
+
+	@After
+	public void deleteDirectory() throws Exception {
+		delete(directory);
+	}
+
+	@Test
+	public void testUnchangedStructure() throws Exception {
+		ClassFileReader sample = compile("sample", SAMPLE);
+		for (int flags : FLAGS) {
+			assertEquals(false, new TypeStructure(sample).hasStructuralChanges(new TypeStructure(sample), flags));
+			assertEquals(true, new TypeStructure(sample).hasStructuralChanges(null, flags));
+		}
+	}
+
+	@Test
+	public void testSameResultAsFieldComparison() throws Exception {
+		ClassFileReader sample = compile("sample", SAMPLE);
+		TypeStructure sampleStructure = new TypeStructure(sample);
+		for (int i = 0; i < VARIANTS.length; i++) {
+			ClassFileReader variant = compile("variant" + i, VARIANTS[i][1]);
+			TypeStructure variantStructure = new TypeStructure(variant);
+			for (int flags : FLAGS) {
+				assertEquals(VARIANTS[i][0] + " with flags " + flags, hasStructuralChanges(variant, sample, flags),
+						variantStructure.hasStructuralChanges(sampleStructure, flags));
+			}
+		}
+	}
+
+	@Test
+	public void testLevelsOfDetail() throws Exception {
+		TypeStructure sample = new TypeStructure(compile("sample", SAMPLE));
+		int annotations = ITypeStructureCache.FLAG_ANNOTATION;
+		int values = ITypeStructureCache.FLAG_ANNOTATION | ITypeStructureCache.FLAG_ANNOTATION_VALUE;
+
+		TypeStructure changedValue = new TypeStructure(compile("value", SAMPLE.replace("@A(\"type\")", "@A(\"other\")")));
+		assertEquals(false, changedValue.hasStructuralChanges(sample, 0));
+		assertEquals(false, changedValue.hasStructuralChanges(sample, annotations));
+		assertEquals(true, changedValue.hasStructuralChanges(sample, values));
+
+		TypeStructure removedAnnotation = new TypeStructure(compile("annotation", SAMPLE.replace("@A(\"method\") ", "")));
+		assertEquals(false, removedAnnotation.hasStructuralChanges(sample, 0));
+		assertEquals(true, removedAnnotation.hasStructuralChanges(sample, annotations));
+		assertEquals(true, removedAnnotation.hasStructuralChanges(sample, values));
+
+		TypeStructure addedMethod = new TypeStructure(compile("method", SAMPLE.replace("run() {}",
+				"run() {} public void stop() {}")));
+		assertEquals(true, addedMethod.hasStructuralChanges(sample, 0));
+		assertEquals(true, addedMethod.hasStructuralChanges(sample, annotations));
+		assertEquals(true, addedMethod.hasStructuralChanges(sample, values));
+	}
+
+	@Test
+	public void testStructuralChangesOfDelta() throws Exception {
+		IProject project = StsTestUtil.createPredefinedProject("type-hierarchy-engine-testcases",
+				"org.springframework.ide.eclipse.beans.core.tests");
+		try {
+			final List<IResource> classFiles = new ArrayList<IResource>();
+			project.getFolder("bin").accept(new IResourceVisitor() {
+
+				public boolean visit(IResource resource) throws CoreException {
+					if ("class".equals(resource.getFileExtension())) {
+						classFiles.add(resource);
+					}
+					return true;
+				}
+			});
+			TypeStructureCache cache = new TypeStructureCache();
+			cache.recordTypeStructures(project, classFiles.toArray(new IResource[classFiles.size()]));
+
+			// the class file of Subclass is written again with the same structure, SimpleClass gets a new method
+			IFile subclass = project.getFile("src/org/Subclass.java");
+			IFile simpleClass = project.getFile("src/org/SimpleClass.java");
+			setContents(subclass, "package org;\n\npublic class Subclass extends SimpleClass {\n\n}\n");
+			setContents(simpleClass, "package org;\n\npublic class SimpleClass {\n\tpublic void run() {\n\t}\n}\n");
+			project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+			JavaCore.createCompilationUnitFrom(subclass).open(null);
+			JavaCore.createCompilationUnitFrom(simpleClass).open(null);
+
+			IResourceDelta delta = delta(project, subclass, simpleClass, project.getFile(".classpath"));
+			Map<IResource, Boolean> results = cache.hasStructuralChanges(delta, 0);
+			assertEquals(2, results.size());
+			assertEquals(false, results.get(subclass));
+			assertEquals(true, results.get(simpleClass));
+			for (Map.Entry<IResource, Boolean> result : results.entrySet()) {
+				assertEquals(result.getKey().getName(), cache.hasStructuralChanges(result.getKey(), 0), result.getValue());
+			}
+
+			// without recorded type structures every java file has changes
+			cache.clearStateForProject(project);
+			results = cache.hasStructuralChanges(delta, 0);
+			assertEquals(true, results.get(subclass));
+			assertEquals(true, results.get(simpleClass));
+		}
+		finally {
+			project.delete(true, null);
+		}
+	}
+
+	private static void setContents(IFile file, String content) throws Exception {
+		file.setContents(new ByteArrayInputStream(content.getBytes("UTF-8")), true, false, null);
+	}
+
+	/**
+	 * Creates a delta for the given resource that has a child delta for each of the given children.
+	 */
+	private static IResourceDelta delta(final IResource resource, final IResource... children) {
+		return (IResourceDelta) Proxy.newProxyInstance(TypeStructureTest.class.getClassLoader(),
+				new Class<?>[] { IResourceDelta.class }, new InvocationHandler() {
+
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if ("getResource".equals(method.getName())) {
+							return resource;
+						}
+						if ("accept".equals(method.getName()) && args.length == 1
+								&& args[0] instanceof IResourceDeltaVisitor) {
+							IResourceDeltaVisitor visitor = (IResourceDeltaVisitor) args[0];
+							if (visitor.visit((IResourceDelta) proxy)) {
+								for (IResource child : children) {
+									delta(child).accept(visitor);
+								}
+							}
+							return null;
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	private ClassFileReader compile(String name, String source) throws Exception {
+		File sourceDirectory = new File(directory, name + "/src");
+		File outputDirectory = new File(directory, name + "/bin");
+		write(new File(sourceDirectory, "p/A.java"), ANNOTATION);
+		write(new File(sourceDirectory, "p/Sample.java"), source);
+		outputDirectory.mkdirs();
+
+		StringWriter errors = new StringWriter();
+		boolean compiled = BatchCompiler.compile(new String[] { "-1.6", "-g", "-nowarn", "-proc:none", "-d",
+				outputDirectory.getAbsolutePath(), sourceDirectory.getAbsolutePath() },
+				new PrintWriter(new StringWriter()), new PrintWriter(errors), null);
+		assertTrue(errors.toString(), compiled);
+		return ClassFileReader.read(new File(outputDirectory, "p/Sample.class"));
+	}
+
+	private static void write(File file, String content) throws Exception {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	// the field-by-field comparison the TypeStructureCache used before the fingerprints
+
+	private static boolean hasStructuralChanges(ClassFileReader reader, ClassFileReader existingType, int flags) {
+		if (!modifiersEqual(reader.getModifiers(), existingType.getModifiers())) {
+			return true;
+		}
+		if (!CharOperation.equals(reader.getGenericSignature(), existingType.getGenericSignature())) {
+			return true;
+		}
+		if (!CharOperation.equals(reader.getSuperclassName(), existingType.getSuperclassName())) {
+			return true;
+		}
+		if ((flags & ITypeStructureCache.FLAG_ANNOTATION) != 0) {
+			if (!annotationsEqual(existingType.getAnnotations(), reader.getAnnotations(), flags)) {
+				return true;
+			}
+		}
+		if (reader.getTagBits() != existingType.getTagBits()) {
+			return true;
+		}
+
+		char[][] existingIfs = existingType.getInterfaceNames();
+		char[][] newIfsAsChars = reader.getInterfaceNames();
+		if (newIfsAsChars == null) {
+			newIfsAsChars = CharOperation.NO_CHAR_CHAR;
+		}
+		if (existingIfs == null) {
+			existingIfs = CharOperation.NO_CHAR_CHAR;
+		}
+		if (existingIfs.length != newIfsAsChars.length)
+			return true;
+		new_interface_loop: for (int i = 0; i < newIfsAsChars.length; i++) {
+			for (int j = 0; j < existingIfs.length; j++) {
+				if (CharOperation.equals(existingIfs[j], newIfsAsChars[i])) {
+					continue new_interface_loop;
+				}
+			}
+			return true;
+		}
+
+		IBinaryField[] newFields = reader.getFields();
+		if (newFields == null) {
+			newFields = new IBinaryField[0];
+		}
+		IBinaryField[] existingFs = existingType.getFields();
+		if (existingFs == null) {
+			existingFs = new IBinaryField[0];
+		}
+		if (newFields.length != existingFs.length)
+			return true;
+		new_field_loop: for (int i = 0; i < newFields.length; i++) {
+			IBinaryField field = newFields[i];
+			for (int j = 0; j < existingFs.length; j++) {
+				if (CharOperation.equals(existingFs[j].getName(), field.getName())) {
+					if (!modifiersEqual(field.getModifiers(), existingFs[j].getModifiers())) {
+						return true;
+					}
+					if (!CharOperation.equals(existingFs[j].getTypeName(), field.getTypeName())) {
+						return true;
+					}
+					if ((flags & ITypeStructureCache.FLAG_ANNOTATION) != 0) {
+						if (!annotationsEqual(field.getAnnotations(), existingFs[j].getAnnotations(), flags)) {
+							return true;
+						}
+					}
+					continue new_field_loop;
+				}
+			}
+			return true;
+		}
+
+		IBinaryMethod[] newMethods = reader.getMethods();
+		if (newMethods == null) {
+			newMethods = new IBinaryMethod[0];
+		}
+		IBinaryMethod[] existingMs = existingType.getMethods();
+		if (existingMs == null) {
+			existingMs = new IBinaryMethod[0];
+		}
+		char[] fileName = reader.getFileName();
+		if (newMethods.length != existingMs.length)
+			return true;
+		new_method_loop: for (int i = 0; i < newMethods.length; i++) {
+			IBinaryMethod method = newMethods[i];
+			for (int j = 0; j < existingMs.length; j++) {
+				if (CharOperation.equals(existingMs[j].getSelector(), method.getSelector())) {
+					if (!CharOperation.equals(method.getMethodDescriptor(), existingMs[j].getMethodDescriptor())) {
+						continue;
+					}
+					if (!modifiersEqual(method.getModifiers(), existingMs[j].getModifiers())) {
+						return true;
+					}
+					if ((flags & ITypeStructureCache.FLAG_ANNOTATION) != 0) {
+						if (!annotationsEqual(method.getAnnotations(), existingMs[j].getAnnotations(), flags)) {
+							return true;
+						}
+						if (!parameterAnnotationsEquals(method, existingMs[j], fileName, flags)) {
+							return true;
+						}
+					}
+					continue new_method_loop;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean parameterAnnotationsEquals(IBinaryMethod newMethod, IBinaryMethod existingMethod,
+			char[] fileName, int flags) throws Exception {
+		char[][] argumentNames = newMethod.getArgumentNames();
+		char[][] existingArgumentNames = existingMethod.getArgumentNames();
+		if (argumentNames == null && existingArgumentNames == null)
+			return true;
+
+		int argumentCount = argumentNames != null ? argumentNames.length : 0;
+		int existingArgumentCount = existingArgumentNames != null ? existingArgumentNames.length : 0;
+		if (argumentCount != existingArgumentCount)
+			return false;
+
+		for (int i = 0; i < argumentCount; i++) {
+			if (!annotationsEqual(getParameterAnnotations(newMethod, i, fileName),
+					getParameterAnnotations(existingMethod, i, fileName), flags)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static IBinaryAnnotation[] getParameterAnnotations(IBinaryMethod method, int index, char[] fileName)
+			throws Exception {
+		try {
+			Method getParameterAnnotations = method.getClass().getMethod("getParameterAnnotations", int.class);
+			getParameterAnnotations.setAccessible(true);
+			return (IBinaryAnnotation[]) getParameterAnnotations.invoke(method, index);
+		}
+		catch (NoSuchMethodException e) {
+			Method getParameterAnnotations = method.getClass().getMethod("getParameterAnnotations", int.class,
+					char[].class);
+			getParameterAnnotations.setAccessible(true);
+			return (IBinaryAnnotation[]) getParameterAnnotations.invoke(method, index, fileName);
+		}
+	}
+
+	private static boolean annotationsEqual(IBinaryAnnotation[] existingAnnotations,
+			IBinaryAnnotation[] newAnnotations, int flags) {
+		if (existingAnnotations == null) {
+			existingAnnotations = new IBinaryAnnotation[0];
+		}
+		if (newAnnotations == null) {
+			newAnnotations = new IBinaryAnnotation[0];
+		}
+		if (existingAnnotations.length != newAnnotations.length) {
+			return false;
+		}
+		new_annotation_loop: for (int i = 0; i < newAnnotations.length; i++) {
+			for (int j = 0; j < existingAnnotations.length; j++) {
+				if (CharOperation.equals(newAnnotations[j].getTypeName(), existingAnnotations[i].getTypeName())) {
+					if ((flags & ITypeStructureCache.FLAG_ANNOTATION_VALUE) != 0) {
+						IBinaryElementValuePair[] newParameters = newAnnotations[j].getElementValuePairs();
+						IBinaryElementValuePair[] existingParameters = existingAnnotations[j].getElementValuePairs();
+						if (newParameters == null) {
+							newParameters = new IBinaryElementValuePair[0];
+						}
+						if (existingParameters == null) {
+							existingParameters = new IBinaryElementValuePair[0];
+						}
+						if (existingParameters.length != newParameters.length) {
+							return false;
+						}
+						for (int l = 0; l < existingParameters.length; l++) {
+							if (!CharOperation.equals(newParameters[l].getName(), existingParameters[l].getName())) {
+								return false;
+							}
+							if (!parameterValuesEquals(flags, newParameters[l].getValue(),
+									existingParameters[l].getValue())) {
+								return false;
+							}
+						}
+					}
+					continue new_annotation_loop;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean parameterValuesEquals(int flags, Object newValue, Object existingValue) {
+		if (newValue.getClass().isArray() && existingValue.getClass().isArray()) {
+			Object[] newValueArray = (Object[]) newValue;
+			Object[] existingValueArray = (Object[]) existingValue;
+			if (newValueArray.length != existingValueArray.length) {
+				return false;
+			}
+			for (int i = 0; i < newValueArray.length; i++) {
+				if (!parameterValuesEquals(flags, newValueArray[i], existingValueArray[i])) {
+					return false;
+				}
+			}
+		}
+		else if (newValue instanceof ClassSignature) {
+			return existingValue instanceof ClassSignature && CharOperation.equals(
+					((ClassSignature) newValue).getTypeName(), ((ClassSignature) existingValue).getTypeName());
+		}
+		else if (newValue instanceof Constant) {
+			return existingValue instanceof Constant && ((Constant) newValue).hasSameValue((Constant) existingValue);
+		}
+		else if (newValue instanceof EnumConstantSignature) {
+			return existingValue instanceof EnumConstantSignature
+					&& CharOperation.equals(((EnumConstantSignature) newValue).getTypeName(),
+							((EnumConstantSignature) existingValue).getTypeName())
+					&& CharOperation.equals(((EnumConstantSignature) newValue).getEnumConstantName(),
+							((EnumConstantSignature) existingValue).getEnumConstantName());
+		}
+		else if (newValue instanceof IBinaryAnnotation) {
+			return existingValue instanceof IBinaryAnnotation && annotationsEqual(
+					new IBinaryAnnotation[] { (IBinaryAnnotation) newValue },
+					new IBinaryAnnotation[] { (IBinaryAnnotation) existingValue }, flags);
+		}
+		return true;
+	}
+
+	private static boolean modifiersEqual(int eclipseModifiers, int resolvedTypeModifiers) {
+		return (eclipseModifiers & ExtraCompilerModifiers.AccJustFlag) == (resolvedTypeModifiers
+				& ExtraCompilerModifiers.AccJustFlag);
+	}
+
+}
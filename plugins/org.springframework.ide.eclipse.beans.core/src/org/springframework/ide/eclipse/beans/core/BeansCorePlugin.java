@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 Spring IDE Developers
+ * Copyright (c) 2004, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -45,9 +45,12 @@ import org.osgi.framework.Version;
 import org.osgi.service.url.URLConstants;
 import org.osgi.service.url.URLStreamHandlerService;
 import org.springframework.beans.factory.xml.NamespaceHandlerResolver;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfigLoader;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
 import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.NamespaceManager;
 import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.ProjectClasspathNamespaceDefinitionResolverCache;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigLoader;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
 import org.springframework.ide.eclipse.beans.core.model.INamespaceDefinitionListener;
 import org.springframework.ide.eclipse.beans.core.model.INamespaceDefinitionResolver;
@@ -85,6 +88,9 @@ public class BeansCorePlugin extends AbstractUIPlugin {
 	/** preference key for defining the parsing timeout */
 	public static final String TIMEOUT_CONFIG_LOADING_PREFERENCE_ID = PLUGIN_ID + ".timeoutConfigLoading";
 
+	/** preference key for defining the number of configs that are loaded in parallel (0 = number of processors) */
+	public static final String PARALLEL_CONFIG_LOADING_PREFERENCE_ID = PLUGIN_ID + ".parallelConfigLoading";
+
 	/** preference key to enable namespace versions per namespace */
 	public static final String PROJECT_PROPERTY_ID = "enable.project.preferences";
 
@@ -183,6 +189,7 @@ public class BeansCorePlugin extends AbstractUIPlugin {
 		
 		nsManager = new NamespaceManager(context);
 		getPreferenceStore().setDefault(TIMEOUT_CONFIG_LOADING_PREFERENCE_ID, 60);
+		getPreferenceStore().setDefault(PARALLEL_CONFIG_LOADING_PREFERENCE_ID, 0);
 		getPreferenceStore().setDefault(NAMESPACE_DEFAULT_FROM_CLASSPATH_ID, true);
 		getPreferenceStore().setDefault(LOAD_NAMESPACEHANDLER_FROM_CLASSPATH_ID, true);
 
@@ -211,6 +218,7 @@ public class BeansCorePlugin extends AbstractUIPlugin {
 			isClosed = true;
 		}
 		model.stop();
+		BeansConfigLoader.shutdown();
 		if (projectAwareUrlService != null) {
 			projectAwareUrlService.unregister();
 		}
@@ -257,6 +265,14 @@ public class BeansCorePlugin extends AbstractUIPlugin {
 		return getDefault().executorService;
 	}
 
+	/**
+	 * Returns the {@link IBeansConfigLoader} that loads {@link IBeansConfig}s in parallel.
+	 * @since 3.8.1
+	 */
+	public static IBeansConfigLoader getConfigLoader() {
+		return BeansConfigLoader.getDefault();
+	}
+
 	public static void notifyNamespaceDefinitionListeners(IProject project) {
 		for (INamespaceDefinitionListener listener : getDefault().namespaceDefinitionListeners) {
 			listener.onNamespaceDefinitionRegistered(new INamespaceDefinitionListener.NamespaceDefinitionChangeEvent(
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2013 Spring IDE Developers
+ * Copyright (c) 2008, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -70,6 +70,9 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 	/** List of bean names mapped beans (in registration order) */
 	protected volatile Map<String, IBean> beans = new LinkedHashMap<String, IBean>();
 
+	/** Bean names and aliases (including the ones from components and imports) mapped to beans */
+	protected volatile Map<String, IBean> beanNamesMap = new HashMap<String, IBean>();
+
 	/** List of components (in registration order) */
 	protected volatile Set<IBeansComponent> components = new LinkedHashSet<IBeansComponent>();
 
@@ -87,6 +90,16 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 
 	protected volatile boolean isBeanClassesMapPopulated = false;
 
+	protected volatile boolean isBeanNamesMapPopulated = false;
+
+	/** Drops the bean names map if one of the imported configs that contributed to it is reset */
+	private final BeanNameIndexDependencies beanNamesMapDependencies = new BeanNameIndexDependencies() {
+		@Override
+		protected void invalidate() {
+			isBeanNamesMapPopulated = false;
+		}
+	};
+
 	protected volatile boolean isModelPopulated = false;
 
 	/** This bean config file's timestamp of last modification */
@@ -103,7 +116,7 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 
 	protected final Lock w = rwl.writeLock();
 
-	protected volatile Set<IBeansConfigEventListener> eventListeners = new LinkedHashSet<IBeansConfigEventListener>();
+	protected volatile Set<IBeansConfigEventListener> eventListeners = new CopyOnWriteArraySet<IBeansConfigEventListener>();
 
 	public AbstractBeansConfig(IBeansModelElement project, String name, Type type) {
 		super(project, name);
@@ -265,6 +278,16 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public IBean getBeanByNameOrAlias(String name) {
+		if (name != null) {
+			return getBeanNamesMap().get(name);
+		}
+		return null;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -708,6 +731,33 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 		return beanClassesMap;
 	}
 
+	/**
+	 * Returns lazily initialized map with all bean names and aliases used in this config.
+	 */
+	protected Map<String, IBean> getBeanNamesMap() {
+		if (!this.isBeanNamesMapPopulated) {
+			try {
+				w.lock();
+				if (this.isBeanNamesMapPopulated) {
+					return beanNamesMap;
+				}
+				beanNamesMap = BeansModelUtils.createBeanNameIndex(getBeans(), getAliases(), getComponents());
+				beanNamesMapDependencies.track(Collections.singleton(this));
+			}
+			finally {
+				this.isBeanNamesMapPopulated = true;
+				w.unlock();
+			}
+		}
+		try {
+			r.lock();
+			return beanNamesMap;
+		}
+		finally {
+			r.unlock();
+		}
+	}
+
 	public boolean doesAnnotationScanning() {
 		for (IBeansComponent component : this.getComponents()) {
 			boolean result = doesAnnotationScanning(component);
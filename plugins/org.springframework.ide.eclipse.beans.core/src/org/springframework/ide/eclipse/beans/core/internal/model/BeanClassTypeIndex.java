@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+
+/**
+ * Reverse index from fully qualified type names to the {@link IBeansConfig}s that define beans whose bean class
+ * is that type or extends/implements it (directly or indirectly).
+ * <p>
+ * The index is kept up to date by the beans model: configs are {@link #add(IBeansConfig) added} when they become
+ * part of a project, {@link #invalidate(IBeansConfig) invalidated} when they are reset or one of the types in
+ * their bean class hierarchies changes and {@link #remove(IBeansConfig) removed} when they are no longer part of
+ * a project. The entries of added and invalidated configs are calculated with the {@link TypeHierarchyEngine} on
+ * the next lookup; a lookup never walks the whole model.
+ *
+ * @since 3.8.1
+ */
+public class BeanClassTypeIndex {
+
+	private static final BeanClassTypeIndex INSTANCE = new BeanClassTypeIndex();
+
+	/**
+	 * All types (bean classes and their super types) per indexed config; configs are compared by identity since
+	 * a re-created config is equal to the one it replaces
+	 */
+	private final Map<IBeansConfig, Set<String>> typesByConfig = new IdentityHashMap<IBeansConfig, Set<String>>();
+
+	/**
+	 * Configs whose entries need to be (re-)calculated, together with the modification stamp of the change that
+	 * made them pending
+	 */
+	private final Map<IBeansConfig, Long> pendingConfigs = new IdentityHashMap<IBeansConfig, Long>();
+
+	/** The reverse index: indexed configs by type name */
+	private final Map<String, Set<IBeansConfig>> configsByType = new HashMap<String, Set<IBeansConfig>>();
+
+	/** Guards all the maps above */
+	private final Object lock = new Object();
+
+	private long modificationStamp = 0;
+
+	public static BeanClassTypeIndex getDefault() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns all configs that contain a bean whose bean class is the given type or a sub type of it.
+	 * Configs that have been added or invalidated since the last lookup are indexed using the given
+	 * <code>typeEngine</code> first.
+	 */
+	public Set<IBeansConfig> getConfigs(String typeName, TypeHierarchyEngine typeEngine) {
+		Map<IBeansConfig, Long> configsToIndex;
+		synchronized (lock) {
+			configsToIndex = new IdentityHashMap<IBeansConfig, Long>(pendingConfigs);
+		}
+		if (!configsToIndex.isEmpty()) {
+			index(configsToIndex, typeEngine);
+		}
+
+		synchronized (lock) {
+			Set<IBeansConfig> result = configsByType.get(typeName);
+			if (result == null) {
+				return Collections.emptySet();
+			}
+			return newIdentitySet(result);
+		}
+	}
+
+	/**
+	 * Adds the given config to the index; its entries will be calculated on the next lookup.
+	 */
+	public void add(IBeansConfig config) {
+		invalidate(config);
+	}
+
+	/**
+	 * Drops the entries of the given config; they will be re-calculated on the next lookup.
+	 */
+	public void invalidate(IBeansConfig config) {
+		synchronized (lock) {
+			removeEntries(config);
+			pendingConfigs.put(config, ++modificationStamp);
+		}
+	}
+
+	/**
+	 * Removes the given config from the index.
+	 */
+	public void remove(IBeansConfig config) {
+		synchronized (lock) {
+			removeEntries(config);
+			pendingConfigs.remove(config);
+		}
+	}
+
+	/**
+	 * Removes all configs of the given project from the index.
+	 */
+	public void remove(IProject project) {
+		synchronized (lock) {
+			Set<IBeansConfig> configs = newIdentitySet(typesByConfig.keySet());
+			configs.addAll(pendingConfigs.keySet());
+			for (IBeansConfig config : configs) {
+				IBeansProject beansProject = BeansModelUtils.getProject(config);
+				if (beansProject == null || project.equals(beansProject.getProject())) {
+					remove(config);
+				}
+			}
+		}
+	}
+
+	public void clear() {
+		synchronized (lock) {
+			typesByConfig.clear();
+			pendingConfigs.clear();
+			configsByType.clear();
+		}
+	}
+
+	private void removeEntries(IBeansConfig config) {
+		Set<String> types = typesByConfig.remove(config);
+		if (types != null) {
+			for (String type : types) {
+				Set<IBeansConfig> configs = configsByType.get(type);
+				if (configs != null) {
+					configs.remove(config);
+					if (configs.isEmpty()) {
+						configsByType.remove(type);
+					}
+				}
+			}
+		}
+	}
+
+	private void index(Map<IBeansConfig, Long> configs, TypeHierarchyEngine typeEngine) {
+		// type hierarchies are shared between the configs of the same project during one update
+		Map<IProject, Map<String, Set<String>>> hierarchies = new HashMap<IProject, Map<String, Set<String>>>();
+		for (Map.Entry<IBeansConfig, Long> entry : configs.entrySet()) {
+			IBeansConfig config = entry.getKey();
+			IBeansProject beansProject = BeansModelUtils.getProject(config);
+			if (beansProject == null) {
+				continue;
+			}
+			IProject project = beansProject.getProject();
+			Map<String, Set<String>> projectHierarchies = hierarchies.get(project);
+			if (projectHierarchies == null) {
+				projectHierarchies = new HashMap<String, Set<String>>();
+				hierarchies.put(project, projectHierarchies);
+			}
+
+			Set<String> types = new HashSet<String>();
+			for (String className : config.getBeanClasses()) {
+				types.addAll(getHierarchy(className, project, typeEngine, projectHierarchies));
+			}
+			addEntries(config, entry.getValue(), types);
+		}
+	}
+
+	/**
+	 * Stores the calculated entries unless the config has been invalidated or removed in the meantime.
+	 */
+	private void addEntries(IBeansConfig config, Long stamp, Set<String> types) {
+		synchronized (lock) {
+			if (!stamp.equals(pendingConfigs.get(config))) {
+				return;
+			}
+			pendingConfigs.remove(config);
+			typesByConfig.put(config, types);
+			for (String type : types) {
+				Set<IBeansConfig> configs = configsByType.get(type);
+				if (configs == null) {
+					configs = newIdentitySet(null);
+					configsByType.put(type, configs);
+				}
+				configs.add(config);
+			}
+		}
+	}
+
+	private static Set<IBeansConfig> newIdentitySet(Set<IBeansConfig> configs) {
+		Set<IBeansConfig> result = Collections.newSetFromMap(new IdentityHashMap<IBeansConfig, Boolean>());
+		if (configs != null) {
+			result.addAll(configs);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the given class name together with the names of all its super classes and implemented interfaces.
+	 */
+	private Set<String> getHierarchy(String className, IProject project, TypeHierarchyEngine typeEngine,
+			Map<String, Set<String>> hierarchies) {
+		Set<String> hierarchy = hierarchies.get(className);
+		if (hierarchy != null) {
+			return hierarchy;
+		}
+
+		hierarchy = new HashSet<String>();
+		Deque<String> typesToVisit = new ArrayDeque<String>();
+		typesToVisit.add(className);
+		while (!typesToVisit.isEmpty()) {
+			String type = typesToVisit.pop();
+			if (!hierarchy.add(type)) {
+				continue;
+			}
+
+			Set<String> knownHierarchy = hierarchies.get(type);
+			if (knownHierarchy != null) {
+				hierarchy.addAll(knownHierarchy);
+				continue;
+			}
+
+			String superType = typeEngine.getSupertype(project, type);
+			if (superType != null) {
+				typesToVisit.add(superType);
+			}
+			String[] interfaces = typeEngine.getInterfaces(project, type);
+			if (interfaces != null) {
+				Collections.addAll(typesToVisit, interfaces);
+			}
+		}
+
+		hierarchies.put(className, hierarchy);
+		return hierarchy;
+	}
+
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigEventListener;
+import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
+import org.springframework.ide.eclipse.beans.core.model.process.IBeansConfigPostProcessor;
+
+/**
+ * Keeps track of the configs (including the imported ones) whose beans and aliases went into a bean name index
+ * and calls {@link #invalidate()} as soon as one of them is reset.
+ *
+ * @since 3.8.1
+ */
+abstract class BeanNameIndexDependencies implements IBeansConfigEventListener {
+
+	private Set<IBeansConfig> configs = Collections.emptySet();
+
+	/**
+	 * Starts listening to the given configs and all configs imported by them; stops listening to the configs
+	 * tracked before.
+	 */
+	public synchronized void track(Collection<? extends IBeansConfig> rootConfigs) {
+		Set<IBeansConfig> newConfigs = Collections.newSetFromMap(new IdentityHashMap<IBeansConfig, Boolean>());
+		for (IBeansConfig config : rootConfigs) {
+			addWithImports(config, newConfigs);
+		}
+		for (IBeansConfig config : configs) {
+			if (!newConfigs.contains(config)) {
+				config.unregisterEventListener(this);
+			}
+		}
+		for (IBeansConfig config : newConfigs) {
+			if (!configs.contains(config)) {
+				config.registerEventListener(this);
+			}
+		}
+		configs = newConfigs;
+	}
+
+	/**
+	 * Stops listening to all tracked configs.
+	 */
+	public synchronized void untrack() {
+		for (IBeansConfig config : configs) {
+			config.unregisterEventListener(this);
+		}
+		configs = Collections.emptySet();
+	}
+
+	/**
+	 * Called when one of the tracked configs has been reset.
+	 */
+	protected abstract void invalidate();
+
+	private void addWithImports(IBeansConfig config, Set<IBeansConfig> result) {
+		if (result.add(config)) {
+			for (IBeansImport beansImport : config.getImports()) {
+				for (IBeansConfig importedConfig : beansImport.getImportedBeansConfigs()) {
+					addWithImports(importedConfig, result);
+				}
+			}
+		}
+	}
+
+	public void onReset(IBeansConfig config) {
+		invalidate();
+	}
+
+	public void onReadStart(IBeansConfig config) {
+	}
+
+	public void onReadEnd(IBeansConfig config) {
+	}
+
+	public void onPostProcessorDetected(IBeansConfig config, IBeansConfigPostProcessor configPostProcessor) {
+	}
+
+	public void onPostProcessorRemoved(IBeansConfig config, IBeansConfigPostProcessor configPostProcessor) {
+	}
+
+}
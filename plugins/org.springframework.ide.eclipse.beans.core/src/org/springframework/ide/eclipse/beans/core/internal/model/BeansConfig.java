@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 Spring IDE Developers
+ * Copyright (c) 2004, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,9 +24,9 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -107,8 +107,8 @@ import org.springframework.ide.eclipse.core.io.ExternalFile;
 import org.springframework.ide.eclipse.core.io.FileResource;
 import org.springframework.ide.eclipse.core.io.StorageResource;
 import org.springframework.ide.eclipse.core.io.ZipEntryStorage;
+import org.springframework.ide.eclipse.core.io.xml.CancelableXercesDocumentLoader;
 import org.springframework.ide.eclipse.core.io.xml.LineNumberPreservingDOMParser;
-import org.springframework.ide.eclipse.core.io.xml.XercesDocumentLoader;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.ide.eclipse.core.model.DefaultModelSourceLocation;
 import org.springframework.ide.eclipse.core.model.ILazyInitializedModelElement;
@@ -120,6 +120,7 @@ import org.springframework.ide.eclipse.core.model.validation.ValidationProblem;
 import org.springframework.ide.eclipse.core.model.xml.XmlSourceLocation;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.util.concurrent.ListenableFuture;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -229,6 +230,8 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 				components.clear();
 				isBeanClassesMapPopulated = false;
 				beanClassesMap.clear();
+				isBeanNamesMapPopulated = false;
+				beanNamesMap = new HashMap<String, IBean>();
 				problems.clear();
 				children = null;
 
@@ -374,6 +377,9 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 					problemReporter = new BeansConfigProblemReporter();
 					beanNameGenerator = new UniqueBeanNameGenerator(this);
 
+					// set when the deadline of the loading is exceeded
+					final AtomicBoolean canceled = BeansConfigLoader.getCancelFlag();
+
 					final XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(registry) {
 
 						@Override
@@ -405,6 +411,7 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 						@Override
 						public int registerBeanDefinitions(Document doc, Resource resource)
 								throws BeanDefinitionStoreException {
+							BeansConfigLoader.checkCanceled(canceled, resource.getDescription());
 							try {
 								documentAccessor.pushDocument(doc);
 								return super.registerBeanDefinitions(doc, resource);
@@ -426,7 +433,7 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 						}
 					};
 
-					reader.setDocumentLoader(new XercesDocumentLoader());
+					reader.setDocumentLoader(new CancelableXercesDocumentLoader(canceled));
 					reader.setResourceLoader(resourceLoader);
 
 					reader.setEntityResolver(resolver);
@@ -453,9 +460,11 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 									int count = reader.loadBeanDefinitions(resource);
 
 									// Finally register post processed beans and components
+									BeansConfigLoader.checkCanceled(canceled, resource.getDescription());
 									eventListener.registerComponents();
 
 									// Post process beans config if required
+									BeansConfigLoader.checkCanceled(canceled, resource.getDescription());
 									postProcess(resourceLoader.getClassLoader());
 
 									return count;
@@ -473,11 +482,15 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 
 						};
 
+						// Runs directly if this config is loaded by the BeansConfigLoader, otherwise in the background
+						ListenableFuture<Integer> task = BeansConfigLoader.submit(loadBeanDefinitionOperation);
 						try {
-							FutureTask<Integer> task = new FutureTask<Integer>(loadBeanDefinitionOperation);
-							BeansCorePlugin.getExecutorService().submit(task);
-							count = task.get(BeansCorePlugin.getDefault().getPreferenceStore().getInt(BeansCorePlugin.TIMEOUT_CONFIG_LOADING_PREFERENCE_ID),
-									TimeUnit.SECONDS);
+							count = task.get(BeansConfigLoader.getTimeout(), TimeUnit.SECONDS);
+
+							// the deadline of the BeansConfigLoader has been exceeded
+							if (canceled.get()) {
+								throw new TimeoutException();
+							}
 
 							// if we recored an exception use this instead of stupid concurrent exception
 							if (throwables.size() > 0) {
@@ -485,6 +498,9 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 							}
 						}
 						catch (TimeoutException e) {
+							// stop the parsing instead of letting it block a thread in the background
+							canceled.set(true);
+							task.cancel(false);
 							problems.add(new ValidationProblem(IMarker.SEVERITY_ERROR, "Loading of resource '"
 									+ resource.getFile().getAbsolutePath() + "' took more than "
 									+ BeansCorePlugin.getDefault().getPreferenceStore()
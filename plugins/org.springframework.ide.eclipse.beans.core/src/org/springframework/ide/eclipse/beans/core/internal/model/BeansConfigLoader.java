@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigLoader;
+import org.springframework.ide.eclipse.core.io.xml.CancelableXercesDocumentLoader;
+import org.springframework.ide.eclipse.core.model.ILazyInitializedModelElement;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+/**
+ * Loads {@link IBeansConfig}s in the background and returns {@link ListenableFuture}s for the results.
+ * <p>
+ * Configs are loaded on up to {@link BeansCorePlugin#PARALLEL_CONFIG_LOADING_PREFERENCE_ID} threads; the
+ * preference is read again for every load, so changing it does not require a restart. Every load gets a deadline
+ * (see {@link BeansCorePlugin#TIMEOUT_CONFIG_LOADING_PREFERENCE_ID}) once it starts running, so time spent waiting
+ * for a free loader thread doesn't count against it; when it is exceeded the cancel flag of the
+ * load is set, which stops the XML parsing of the config (see {@link CancelableXercesDocumentLoader}), and the
+ * config reports a timeout problem. Loader threads are never interrupted, as an interrupt would close the file
+ * channels and jar files the thread is reading from.
+ * <p>
+ * Bean definitions of a config that is loaded by this loader are read directly on the loader thread instead of
+ * being handed over to yet another thread.
+ * @since 3.8.1
+ */
+public class BeansConfigLoader implements IBeansConfigLoader {
+
+	/** The cancel flag of the load that runs on the current thread */
+	private static final ThreadLocal<AtomicBoolean> CURRENT_LOAD = new ThreadLocal<AtomicBoolean>();
+
+	private static BeansConfigLoader instance;
+
+	private final ThreadPoolExecutor executor;
+
+	private final ScheduledExecutorService deadlines;
+
+	private final Set<LoadTask> runningLoads = Collections.newSetFromMap(new ConcurrentHashMap<LoadTask, Boolean>());
+
+	private BeansConfigLoader() {
+		int parallelism = getParallelism();
+		this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new LoaderThreadFactory("Spring Config Loader"));
+		this.executor.allowCoreThreadTimeOut(true);
+		this.deadlines = Executors.newSingleThreadScheduledExecutor(new LoaderThreadFactory("Spring Config Loader Deadlines"));
+	}
+
+	public static synchronized BeansConfigLoader getDefault() {
+		if (instance == null) {
+			instance = new BeansConfigLoader();
+		}
+		return instance;
+	}
+
+	/**
+	 * Cancels all running loads and shuts down the loader threads.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			for (LoadTask load : instance.runningLoads) {
+				load.cancel(true);
+			}
+			instance.executor.shutdown();
+			instance.deadlines.shutdown();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Loads the given config in the background. The returned future completes with the config once it is loaded;
+	 * canceling the future cancels the loading.
+	 */
+	public ListenableFuture<IBeansConfig> load(final IBeansConfig config) {
+		if (config instanceof ILazyInitializedModelElement && ((ILazyInitializedModelElement) config).isInitialized()) {
+			LoadTask task = new LoadTask(config, false);
+			task.run();
+			return task;
+		}
+
+		final LoadTask task = new LoadTask(config, true);
+
+		runningLoads.add(task);
+		task.addCallback(new ListenableFutureCallback<IBeansConfig>() {
+
+			public void onSuccess(IBeansConfig result) {
+				runningLoads.remove(task);
+			}
+
+			public void onFailure(Throwable t) {
+				runningLoads.remove(task);
+			}
+		});
+
+		updateParallelism();
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * Loads all given configs with the configured parallelism. The returned future completes with the list of
+	 * configs once all of them are loaded (or failed to load); canceling it cancels all pending loads.
+	 */
+	public ListenableFuture<List<IBeansConfig>> load(Collection<? extends IBeansConfig> configs) {
+		final List<IBeansConfig> loadedConfigs = Collections.synchronizedList(new ArrayList<IBeansConfig>());
+		final List<ListenableFuture<IBeansConfig>> loads = new ArrayList<ListenableFuture<IBeansConfig>>();
+
+		final ListenableFutureTask<List<IBeansConfig>> result = new ListenableFutureTask<List<IBeansConfig>>(
+				new Callable<List<IBeansConfig>>() {
+
+					public List<IBeansConfig> call() throws Exception {
+						synchronized (loadedConfigs) {
+							return new ArrayList<IBeansConfig>(loadedConfigs);
+						}
+					}
+				}) {
+
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				synchronized (loads) {
+					for (ListenableFuture<IBeansConfig> load : loads) {
+						load.cancel(mayInterruptIfRunning);
+					}
+				}
+				return super.cancel(mayInterruptIfRunning);
+			}
+		};
+
+		if (configs.isEmpty()) {
+			result.run();
+			return result;
+		}
+
+		final AtomicInteger pending = new AtomicInteger(configs.size());
+		ListenableFutureCallback<IBeansConfig> callback = new ListenableFutureCallback<IBeansConfig>() {
+
+			public void onSuccess(IBeansConfig config) {
+				loadedConfigs.add(config);
+				done();
+			}
+
+			public void onFailure(Throwable t) {
+				done();
+			}
+
+			private void done() {
+				if (pending.decrementAndGet() == 0) {
+					// completes the result on the thread that finished the last load
+					result.run();
+				}
+			}
+		};
+
+		synchronized (loads) {
+			for (IBeansConfig config : configs) {
+				ListenableFuture<IBeansConfig> load = load(config);
+				loads.add(load);
+				load.addCallback(callback);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cancel flag of the load that runs on the current thread, or a new flag if the current thread
+	 * is not loading a config for this loader.
+	 */
+	static AtomicBoolean getCancelFlag() {
+		AtomicBoolean canceled = CURRENT_LOAD.get();
+		return canceled != null ? canceled : new AtomicBoolean();
+	}
+
+	/**
+	 * Runs the given bean definition loading operation. While this loader loads a config on the current thread
+	 * the operation runs directly (the loader takes care of the deadline), otherwise it is submitted to the
+	 * {@link BeansCorePlugin#getExecutorService()}.
+	 */
+	static <T> ListenableFuture<T> submit(Callable<T> operation) {
+		ListenableFutureTask<T> task = new ListenableFutureTask<T>(operation);
+		if (CURRENT_LOAD.get() != null) {
+			task.run();
+		}
+		else {
+			BeansCorePlugin.getExecutorService().submit(task);
+		}
+		return task;
+	}
+
+	/**
+	 * Fails with a {@link BeanDefinitionStoreException} if the given cancel flag is set, used to stop loading
+	 * between the different stages of the loading.
+	 */
+	static void checkCanceled(AtomicBoolean canceled, String resourceDescription) {
+		if (canceled.get()) {
+			throw new BeanDefinitionStoreException(resourceDescription, "Loading canceled");
+		}
+	}
+
+	static int getTimeout() {
+		return BeansCorePlugin.getDefault().getPreferenceStore()
+				.getInt(BeansCorePlugin.TIMEOUT_CONFIG_LOADING_PREFERENCE_ID);
+	}
+
+	private static int getParallelism() {
+		int parallelism = BeansCorePlugin.getDefault().getPreferenceStore()
+				.getInt(BeansCorePlugin.PARALLEL_CONFIG_LOADING_PREFERENCE_ID);
+		return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Applies the current value of the parallelism preference to the thread pool.
+	 */
+	private void updateParallelism() {
+		int parallelism = getParallelism();
+		synchronized (executor) {
+			if (parallelism > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(parallelism);
+				executor.setCorePoolSize(parallelism);
+			}
+			else if (parallelism < executor.getMaximumPoolSize()) {
+				executor.setCorePoolSize(parallelism);
+				executor.setMaximumPoolSize(parallelism);
+			}
+		}
+	}
+
+	private void scheduleDeadline(final LoadTask task) {
+		if (deadlines.isShutdown()) {
+			return;
+		}
+		final ScheduledFuture<?> deadline = deadlines.schedule(new Runnable() {
+
+			public void run() {
+				task.cancel(true);
+			}
+		}, getTimeout(), TimeUnit.SECONDS);
+
+		task.addCallback(new ListenableFutureCallback<IBeansConfig>() {
+
+			public void onSuccess(IBeansConfig config) {
+				deadline.cancel(false);
+			}
+
+			public void onFailure(Throwable t) {
+				deadline.cancel(false);
+			}
+		});
+	}
+
+	/**
+	 * Loads a config with its own cancel flag. Canceling the task sets the flag (if
+	 * <code>mayInterruptIfRunning</code> is set) but never interrupts the loading thread. The deadline of the load
+	 * is scheduled when the task starts running.
+	 */
+	private class LoadTask extends ListenableFutureTask<IBeansConfig> {
+
+		private final AtomicBoolean canceled;
+
+		private final boolean withDeadline;
+
+		public LoadTask(IBeansConfig config, boolean withDeadline) {
+			this(config, withDeadline, new AtomicBoolean());
+		}
+
+		private LoadTask(final IBeansConfig config, boolean withDeadline, final AtomicBoolean canceled) {
+			super(new Callable<IBeansConfig>() {
+
+				public IBeansConfig call() throws Exception {
+					AtomicBoolean outerLoad = CURRENT_LOAD.get();
+					CURRENT_LOAD.set(canceled);
+					try {
+						// accessing the beans triggers the lazy loading of the config
+						config.getBeans();
+						return config;
+					}
+					finally {
+						if (outerLoad != null) {
+							CURRENT_LOAD.set(outerLoad);
+						}
+						else {
+							CURRENT_LOAD.remove();
+						}
+					}
+				}
+			});
+			this.canceled = canceled;
+			this.withDeadline = withDeadline;
+		}
+
+		@Override
+		public void run() {
+			if (withDeadline && !isDone()) {
+				scheduleDeadline(this);
+			}
+			super.run();
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (mayInterruptIfRunning) {
+				canceled.set(true);
+			}
+			return super.cancel(false);
+		}
+	}
+
+	private static class LoaderThreadFactory implements ThreadFactory {
+
+		private final String name;
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public LoaderThreadFactory(String name) {
+			this.name = name;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + " " + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 Spring IDE Developers
+ * Copyright (c) 2004, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -70,6 +70,18 @@ public class BeansConfigSet extends AbstractResourceModelElement implements IBea
 
 	private volatile boolean isBeanClassesMapPopulated = false;
 
+	private volatile Map<String, IBean> beanNamesMap;
+
+	private volatile boolean isBeanNamesMapPopulated = false;
+
+	/** Drops the bean names map if one of the configs (or their imports) that contributed to it is reset */
+	private final BeanNameIndexDependencies beanNamesMapDependencies = new BeanNameIndexDependencies() {
+		@Override
+		protected void invalidate() {
+			isBeanNamesMapPopulated = false;
+		}
+	};
+
 	private volatile Type type;
 
 	private volatile Set<String> profiles;
@@ -101,6 +113,9 @@ public class BeansConfigSet extends AbstractResourceModelElement implements IBea
 			isBeansMapPopulated = false;
 			beanClassesMap = null;
 			isBeanClassesMapPopulated = false;
+			beanNamesMap = null;
+			isBeanNamesMapPopulated = false;
+			beanNamesMapDependencies.untrack();
 		}
 		finally {
 			w.unlock();
@@ -244,6 +259,10 @@ public class BeansConfigSet extends AbstractResourceModelElement implements IBea
 		return getBeansMap().get(name);
 	}
 
+	public IBean getBeanByNameOrAlias(String name) {
+		return getBeanNamesMap().get(name);
+	}
+
 	public Set<IBean> getBeans() {
 		return new LinkedHashSet<IBean>(getBeansMap().values());
 	}
@@ -432,6 +451,33 @@ public class BeansConfigSet extends AbstractResourceModelElement implements IBea
 		}
 	}
 
+	/**
+	 * Returns lazily initialized map with all bean names and aliases used in this config set.
+	 */
+	private Map<String, IBean> getBeanNamesMap() {
+		if (!this.isBeanNamesMapPopulated) {
+			try {
+				w.lock();
+				if (this.isBeanNamesMapPopulated) {
+					return beanNamesMap;
+				}
+				beanNamesMap = BeansModelUtils.createBeanNameIndex(getBeans(), getAliases(), getComponents());
+				beanNamesMapDependencies.track(getConfigs());
+			}
+			finally {
+				this.isBeanNamesMapPopulated = true;
+				w.unlock();
+			}
+		}
+		try {
+			r.lock();
+			return beanNamesMap;
+		}
+		finally {
+			r.unlock();
+		}
+	}
+
 	private void addBeanClassToMap(IBean bean) {
 
 		// Get name of bean class - strip name of any inner class
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 Spring IDE Developers
+ * Copyright (c) 2004, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -142,6 +142,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		try {
 			w.lock();
 			projects.clear();
+			BeanClassTypeIndex.getDefault().clear();
 			for (IProject project : SpringCoreUtils.getSpringProjects()) {
 				BeansProject beansProject = new BeansProject(BeansModel.this, project);
 				addProject(beansProject);
@@ -196,6 +197,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 			w.lock();
 			// Remove all projects
 			projects.clear();
+			BeanClassTypeIndex.getDefault().clear();
 		}
 		finally {
 			w.unlock();
@@ -493,6 +495,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 				finally {
 					w.unlock();
 				}
+				BeanClassTypeIndex.getDefault().remove(project);
 				if (proj != null) {
 					notifyListeners(proj, Type.CHANGED);
 				}
@@ -547,6 +550,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 			finally {
 				w.unlock();
 			}
+			BeanClassTypeIndex.getDefault().remove(project);
 			if (proj != null) {
 				notifyListeners(proj, Type.REMOVED);
 			}
@@ -564,6 +568,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 			finally {
 				w.unlock();
 			}
+			BeanClassTypeIndex.getDefault().remove(project);
 			if (proj != null) {
 				notifyListeners(proj, Type.REMOVED);
 			}
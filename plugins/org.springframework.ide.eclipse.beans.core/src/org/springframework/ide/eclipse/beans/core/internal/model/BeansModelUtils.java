@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 Spring IDE Developers
+ * Copyright (c) 2005, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,9 +12,11 @@ package org.springframework.ide.eclipse.beans.core.internal.model;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
@@ -97,49 +99,18 @@ public abstract class BeansModelUtils {
 	/**
 	 * Returns the <code>IBean</code> for a given bean name from specified context ( <code>IBeansConfig</code> or
 	 * <code>IBeansConfigSet</code>). If the corresponding bean is not found then the context's list of
-	 * <code>IBeanAlias</code>es is checked too.
+	 * <code>IBeanAlias</code>es and finally the beans nested in the context's <code>IBeansComponent</code>s are checked
+	 * too.
 	 * @param context the context (<code>IBeanConfig</code> or <code>IBeanConfigSet</code>) the beans are looked-up
 	 * @return <code>IBean</code> or <code>null</code> if bean not found
 	 * @throws IllegalArgumentException if unsupported context specified
 	 */
 	public static IBean getBean(String name, IModelElement context) {
 		if (context instanceof IBeansConfig) {
-			IBeansConfig config = (IBeansConfig) context;
-			IBean bean = config.getBean(name);
-			if (bean == null) {
-				IBeanAlias alias = config.getAlias(name);
-				if (alias != null) {
-					bean = config.getBean(alias.getBeanName());
-				}
-			}
-			if (bean == null) {
-				for (IBeansComponent component : config.getComponents()) {
-					bean = getBean(name, component);
-					if (bean != null) {
-						return bean;
-					}
-				}
-			}
-			return bean;
+			return ((IBeansConfig) context).getBeanByNameOrAlias(name);
 		}
 		else if (context instanceof IBeansConfigSet) {
-			IBeansConfigSet configSet = (IBeansConfigSet) context;
-			IBean bean = configSet.getBean(name);
-			if (bean == null) {
-				IBeanAlias alias = configSet.getAlias(name);
-				if (alias != null) {
-					bean = configSet.getBean(alias.getBeanName());
-				}
-			}
-			if (bean == null) {
-				for (IBeansComponent component : configSet.getComponents()) {
-					bean = getBean(name, component);
-					if (bean != null) {
-						return bean;
-					}
-				}
-			}
-			return bean;
+			return ((IBeansConfigSet) context).getBeanByNameOrAlias(name);
 		}
 		else {
 			throw new IllegalArgumentException("Unsupported context " + context);
@@ -147,21 +118,47 @@ public abstract class BeansModelUtils {
 	}
 
 	/**
-	 * Return's the {@link IBean} for the given name by recursively looking into the {@link IBeansComponent}.
+	 * Creates the index behind {@link IBeansConfig#getBeanByNameOrAlias(String)} and
+	 * {@link IBeansConfigSet#getBeanByNameOrAlias(String)}. Bean names take precedence over aliases (which are
+	 * resolved against the given beans only) and both take precedence over the names of beans that are nested in
+	 * the given components. Within each of these groups the first occurrence of a name wins.
+	 * @since 3.8.1
 	 */
-	private static IBean getBean(String name, IBeansComponent component) {
-		for (IBean componentBean : component.getBeans()) {
-			if (componentBean.getElementName().equals(name)) {
-				return componentBean;
+	static Map<String, IBean> createBeanNameIndex(Set<IBean> beans, Set<IBeanAlias> aliases,
+			Set<IBeansComponent> components) {
+		Map<String, IBean> beansByName = new HashMap<String, IBean>();
+		for (IBean bean : beans) {
+			if (!beansByName.containsKey(bean.getElementName())) {
+				beansByName.put(bean.getElementName(), bean);
+			}
+		}
+
+		Map<String, IBean> index = new HashMap<String, IBean>(beansByName);
+		Set<String> aliasNames = new HashSet<String>();
+		for (IBeanAlias alias : aliases) {
+			if (aliasNames.add(alias.getElementName())) {
+				IBean bean = beansByName.get(alias.getBeanName());
+				if (bean != null && !index.containsKey(alias.getElementName())) {
+					index.put(alias.getElementName(), bean);
+				}
 			}
 		}
-		for (IBeansComponent nestedComponent : component.getComponents()) {
-			IBean bean = getBean(name, nestedComponent);
-			if (bean != null) {
-				return bean;
+
+		for (IBeansComponent component : components) {
+			addComponentBeanNames(component, index);
+		}
+		return index;
+	}
+
+	private static void addComponentBeanNames(IBeansComponent component, Map<String, IBean> index) {
+		for (IBean bean : component.getBeans()) {
+			if (!index.containsKey(bean.getElementName())) {
+				index.put(bean.getElementName(), bean);
 			}
 		}
-		return null;
+		for (IBeansComponent nestedComponent : component.getComponents()) {
+			addComponentBeanNames(nestedComponent, index);
+		}
 	}
 
 	/**
@@ -1295,58 +1292,33 @@ public abstract class BeansModelUtils {
 
 		if (resource != null && resource.isAccessible() && resource.isSynchronized(IResource.DEPTH_ZERO)
 				&& resource.getName().endsWith(".java")) {
-			Set<IBeansProject> projects = BeansCorePlugin.getModel().getProjects();
-			if (projects != null) {
 
-				IJavaElement element = JavaCore.create(resource);
-				if (element instanceof ICompilationUnit && element.getJavaProject().isOnClasspath(element)) {
-					
-					try {
-						IType[] types = ((ICompilationUnit) element).getAllTypes();
-						String[] changedTypeNames = new String[types.length];
-						boolean[] changedTypeIsInterface = new boolean[types.length];
-						for (int i = 0; i < types.length; i++) {
-							changedTypeNames[i] = types[i].getFullyQualifiedName();
-							changedTypeIsInterface[i] = types[i].isInterface();
-						}
-						
-						for (IBeansProject project : projects) {
-							if (project != null) {
+			IJavaElement element = JavaCore.create(resource);
+			if (element instanceof ICompilationUnit && element.getJavaProject().isOnClasspath(element)) {
 
-								// don't look at projects that do not have the java element on their classpath
-								if (JdtUtils.isJavaProject(project.getProject()) && !JdtUtils.getJavaProject(project.getProject()).isOnClasspath(element)) {
-									continue;
-								}
-								
-								Set<IBeansConfig> configs = project.getConfigs();
-								for (IBeansConfig config : configs) {
-									boolean configAdded = false;
-									Set<String> allBeanClasses = config.getBeanClasses();
-									for (int i = 0; i < changedTypeNames.length; i++) {
-										for (String className : allBeanClasses) {
-											if (changedTypeIsInterface[i] && typeEngine.doesImplement(className, changedTypeNames[i], project.getProject())) {
-												files.add(config);
-												configAdded = true;
-												break;
-											}
-											else if (!changedTypeIsInterface[i] && typeEngine.doesExtend(className, changedTypeNames[i], project.getProject())) {
-												files.add(config);
-												configAdded = true;
-												break;
-											}
-										}
-										if (configAdded) break;
-									}
-								}
-								
-//								typeHierarchyEngine.cleanup(project.getProject());
+				try {
+					BeanClassTypeIndex typeIndex = BeanClassTypeIndex.getDefault();
+					for (IType type : ((ICompilationUnit) element).getAllTypes()) {
+						for (IBeansConfig config : typeIndex.getConfigs(type.getFullyQualifiedName(), typeEngine)) {
+							IBeansProject project = getProject(config);
+
+							// don't look at projects that do not have the java element on their classpath
+							if (project != null && JdtUtils.isJavaProject(project.getProject())
+									&& !JdtUtils.getJavaProject(project.getProject()).isOnClasspath(element)) {
+								continue;
 							}
+							files.add(config);
 						}
 					}
-					catch (JavaModelException e) {
-						BeansCorePlugin.log(e);
+
+					// the hierarchy of the changed types might have changed, so re-index the affected configs
+					for (IBeansConfig config : files) {
+						typeIndex.invalidate(config);
 					}
 				}
+				catch (JavaModelException e) {
+					BeansCorePlugin.log(e);
+				}
 			}
 		}
 		return files;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 Spring IDE Developers
+ * Copyright (c) 2004, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -296,9 +296,14 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 			}
 
 			// Create new list of configs
+			for (IBeansConfig config : configs.values()) {
+				BeanClassTypeIndex.getDefault().remove(config);
+			}
 			configs.clear();
 			for (String configName : configNames) {
-				configs.put(configName, BeansConfigFactory.create(this, configName, Type.MANUAL));
+				IBeansConfig config = BeansConfigFactory.create(this, configName, Type.MANUAL);
+				configs.put(configName, config);
+				BeanClassTypeIndex.getDefault().add(config);
 			}
 		} finally {
 			updateAllConfigsCache();
@@ -379,6 +384,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 
 		configs.put(configName, config);
 		config.registerEventListener(eventListener);
+		BeanClassTypeIndex.getDefault().add(config);
 
 		if (autoDetectedConfigs.containsKey(configName)) {
 			autoDetectedConfigs.remove(configName);
@@ -429,9 +435,11 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 				IBeansConfig autoDetectedConfig = autoDetectedConfigs.remove(configName);
 				if (config != null) {
 					config.unregisterEventListener(eventListener);
+					BeanClassTypeIndex.getDefault().remove(config);
 				}
 				if (autoDetectedConfig != null) {
 					autoDetectedConfig.unregisterEventListener(eventListener);
+					BeanClassTypeIndex.getDefault().remove(autoDetectedConfig);
 				}
 				String locatorId = locatorByAutoDetectedConfig.remove(configName);
 				if (locatorId != null && autoDetectedConfigsByLocator.containsKey(locatorId)) {
@@ -870,6 +878,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 			updateAllConfigsCache();
 			w.unlock();
 		}
+		BeanClassTypeIndex.getDefault().remove(project);
 	}
 
 	/**
@@ -1056,6 +1065,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 
 			for (IBeansConfig config : configs.values()) {
 				config.registerEventListener(eventListener);
+				BeanClassTypeIndex.getDefault().add(config);
 			}
 		} finally {
 			updateAllConfigsCache();
@@ -1167,6 +1177,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 
 			for (IBeansConfig config : autoDetectedConfigs.values()) {
 				config.unregisterEventListener(eventListener);
+				BeanClassTypeIndex.getDefault().remove(config);
 			}
 
 			autoDetectedConfigs.clear();
@@ -1191,6 +1202,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 
 						autoDetectedConfigs.put(configName, detectedConfig.getValue());
 						detectedConfig.getValue().registerEventListener(eventListener);
+						BeanClassTypeIndex.getDefault().add(detectedConfig.getValue());
 
 						configNamesByLocator.add(configName);
 						locatorByAutoDetectedConfig.put(configName, locator.getNamespaceUri() + "." + locator.getId());
@@ -1308,6 +1320,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 		 * {@inheritDoc}
 		 */
 		public void onReset(IBeansConfig config) {
+			BeanClassTypeIndex.getDefault().invalidate(config);
 			for (IBeansProject project : BeansCorePlugin.getModel().getProjects()) {
 				for (IBeansConfigSet configSet : project.getConfigSets()) {
 					if (configSet.hasConfig((IFile) config.getElementResource())) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,7 +12,11 @@ package org.springframework.ide.eclipse.beans.core.internal.model.validation;
 
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
@@ -45,6 +49,7 @@ import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationElementLifecycleManager;
 import org.springframework.ide.eclipse.core.model.validation.IValidationElementLifecycleManagerExtension;
 import org.springframework.ide.eclipse.core.model.validation.IValidator;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * {@link IValidator} implementation that is responsible for validating the {@link IBeansModelElement}s.
@@ -55,6 +60,9 @@ import org.springframework.ide.eclipse.core.model.validation.IValidator;
  */
 public class BeansConfigValidator extends AbstractValidator {
 
+	/** Milliseconds between checks for a canceled build while waiting for configs to be loaded */
+	private static final long LOAD_POLLING_INTERVAL = 100;
+
 	private Set<String> affectedBeans = new LinkedHashSet<String>();
 
 	public Set<IResource> deriveResources(Object object) {
@@ -185,6 +193,8 @@ public class BeansConfigValidator extends AbstractValidator {
 	private void propagateChangedResourceToProject(IResource resource, Set<IResource> resources) {
 		IBeansProject beansProject = BeansCorePlugin.getModel().getProject(resource.getProject());
 		if (beansProject != null) {
+			// load all configs of the project in parallel before collecting their beans one by one
+			loadConfigs(beansProject.getConfigs());
 			for (IBeansConfig beansConfig : beansProject.getConfigs()) {
 				resources.add(beansConfig.getElementResource());
 				addBeans(beansConfig);
@@ -261,6 +271,35 @@ public class BeansConfigValidator extends AbstractValidator {
 		return !BeansModelUtils.isProfileDisabled(contextElement, element);
 	}
 
+	/**
+	 * Waits for the configs to be loaded; stops waiting and cancels the loading if the build is canceled.
+	 */
+	private void loadConfigs(Set<IBeansConfig> configs) {
+		IProgressMonitor monitor = getProjectContributorState().get(IProgressMonitor.class);
+		ListenableFuture<List<IBeansConfig>> loads = BeansCorePlugin.getConfigLoader().load(configs);
+		try {
+			while (true) {
+				try {
+					loads.get(LOAD_POLLING_INTERVAL, TimeUnit.MILLISECONDS);
+					return;
+				}
+				catch (TimeoutException e) {
+					if (monitor != null && monitor.isCanceled()) {
+						loads.cancel(true);
+						return;
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			loads.cancel(true);
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e) {
+			// configs that failed to load report their problems themselves
+		}
+	}
+
 	private void addBeans(IBeansConfig beansConfig) {
 		for (IBean bean : BeansModelUtils.getBeans(beansConfig)) {
 			affectedBeans.add(bean.getElementID());
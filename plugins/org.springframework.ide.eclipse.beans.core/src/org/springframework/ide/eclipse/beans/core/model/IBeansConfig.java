@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 Spring IDE Developers
+ * Copyright (c) 2004, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -71,6 +71,15 @@ public interface IBeansConfig extends IBeansModelElement, IResourceModelElement,
 
 	IBean getBean(String name);
 
+	/**
+	 * Returns the bean with the given name or alias. In contrast to {@link #getBean(String)} beans that are nested
+	 * in {@link IBeansComponent}s are found too. The lookup uses an index that is rebuilt with the next access after
+	 * the config has been reset.
+	 * @return the bean or <code>null</code> if no bean with the given name or alias exists
+	 * @since 3.8.1
+	 */
+	IBean getBeanByNameOrAlias(String name);
+
 	boolean hasBean(String name);
 
 	/**
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.model;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Loads {@link IBeansConfig}s in the background, using up to
+ * {@link BeansCorePlugin#PARALLEL_CONFIG_LOADING_PREFERENCE_ID} threads.
+ * <p>
+ * Canceling a returned future with <code>mayInterruptIfRunning</code> set stops a running load at the next
+ * check point; the thread loading the config is never interrupted.
+ * @since 3.8.1
+ * @see BeansCorePlugin#getConfigLoader()
+ */
+public interface IBeansConfigLoader {
+
+	/**
+	 * Loads the given config. The returned future completes with the config once it is loaded.
+	 */
+	ListenableFuture<IBeansConfig> load(IBeansConfig config);
+
+	/**
+	 * Loads all given configs in parallel. The returned future completes with the configs that have been loaded
+	 * once all loads are finished (or failed); canceling it cancels all pending loads.
+	 */
+	ListenableFuture<List<IBeansConfig>> load(Collection<? extends IBeansConfig> configs);
+
+}
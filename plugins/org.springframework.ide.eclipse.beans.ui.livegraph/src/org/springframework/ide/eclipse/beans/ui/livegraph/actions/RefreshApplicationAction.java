@@ -17,6 +17,7 @@ import org.eclipse.jface.action.Action;
 import org.springframework.ide.eclipse.beans.ui.livegraph.LiveGraphUIImages;
 import org.springframework.ide.eclipse.beans.ui.livegraph.LiveGraphUiPlugin;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelGenerator;
 import org.springframework.ide.eclipse.beans.ui.livegraph.views.LiveBeansGraphView;
 import org.springsource.ide.eclipse.commons.core.StatusHandler;
@@ -38,7 +39,10 @@ public class RefreshApplicationAction extends Action {
 		try {
 			LiveBeansModel model = view.getInput();
 			if (model != null) {
-				view.setInput(LiveBeansModelGenerator.refreshModel(model));
+				LiveBeansModelDiff diff = LiveBeansModelGenerator.updateModel(model);
+				if (diff != null) {
+					view.refreshInput(diff);
+				}
 			}
 		}
 		catch (CoreException e) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2016 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.springframework.ide.eclipse.beans.ui.livegraph.model;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
@@ -108,6 +109,25 @@ public class LiveBean extends AbstractLiveBeansModelElement {
 		return attributes.get(ATTR_SCOPE);
 	}
 
+	/**
+	 * Replaces all attributes of this bean, used when updating an existing
+	 * model in place.
+	 */
+	void updateAttributes(Map<String, String> newAttributes) {
+		attributes.clear();
+		attributes.putAll(newAttributes);
+		displayName = null;
+	}
+
+	/**
+	 * Removes all dependencies of this bean and all beans it is injected
+	 * into, used when updating an existing model in place.
+	 */
+	void resetDependencies() {
+		dependencies.clear();
+		injectedInto.clear();
+	}
+
 	private void injectInto(LiveBean bean) {
 		injectedInto.add(bean);
 	}
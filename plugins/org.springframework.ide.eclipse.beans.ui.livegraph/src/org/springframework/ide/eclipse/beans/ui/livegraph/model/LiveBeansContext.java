@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2016 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -52,7 +52,12 @@ public class LiveBeansContext extends LiveBeansGroup {
 
 	public void setParent(LiveBeansContext parent) {
 		this.parent = parent;
-		attributes.put(ATTR_PARENT, parent.getLabel());
+		if (parent != null) {
+			attributes.put(ATTR_PARENT, parent.getLabel());
+		}
+		else {
+			attributes.remove(ATTR_PARENT);
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2016 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -32,6 +32,15 @@ public class LiveBeansGroup extends AbstractLiveBeansModelElement {
 		beans.add(bean);
 	}
 
+	/**
+	 * Replaces the beans of this group, used when updating an existing model
+	 * in place.
+	 */
+	void setBeans(List<LiveBean> newBeans) {
+		beans.clear();
+		beans.addAll(newBeans);
+	}
+
 	public List<LiveBean> getBeans() {
 		return beans;
 	}
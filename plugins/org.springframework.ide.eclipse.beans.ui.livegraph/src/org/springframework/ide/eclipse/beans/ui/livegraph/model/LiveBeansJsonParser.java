@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 - 2013 VMware, Inc.
+ *  Copyright (c) 2012 - 2016 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,14 +10,20 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.livegraph.model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansJsonReader.Token;
 
 /**
+ * Builds a {@link LiveBeansModel} from the JSON snapshot of the Live Beans
+ * MBean. The snapshot is read in a single pass with a
+ * {@link LiveBeansJsonReader}. Bean dependencies and parent contexts are
+ * recorded by name while reading and resolved once all beans are known.
+ *
  * @author Leo Dos Santos
  */
 public class LiveBeansJsonParser {
@@ -32,6 +38,10 @@ public class LiveBeansJsonParser {
 
 	private Map<String, LiveBeansGroup> resourceMap;
 
+	private Map<LiveBean, List<String>> beanDependencies;
+
+	private Map<LiveBeansContext, String> contextParents;
+
 	public LiveBeansJsonParser(LiveBeansSession session, String jsonInput) {
 		this.jsonInput = jsonInput;
 		this.session = session;
@@ -56,12 +66,15 @@ public class LiveBeansJsonParser {
 		beansMap = new HashMap<String, LiveBean>();
 		contextMap = new HashMap<String, LiveBeansContext>();
 		resourceMap = new HashMap<String, LiveBeansGroup>();
+		beanDependencies = new HashMap<LiveBean, List<String>>();
+		contextParents = new HashMap<LiveBeansContext, String>();
 
 		// JSON structure is an array of context descriptions, each containing
 		// an array of beans
-		JSONArray contextsArray = new JSONArray(jsonInput);
-		parseContexts(contextsArray);
-		populateContextDependencies(contextsArray);
+		LiveBeansJsonReader reader = new LiveBeansJsonReader(jsonInput);
+		parseContexts(reader);
+		populateContextDependencies();
+		populateBeanDependencies();
 		groupByResource();
 
 		LiveBeansModel model = new LiveBeansModel(session);
@@ -71,91 +84,152 @@ public class LiveBeansJsonParser {
 		return model;
 	}
 
-	private void parseBeans(LiveBeansContext context, JSONArray beansArray) throws JSONException {
-		// construct LiveBeans
-		for (int i = 0; i < beansArray.length(); i++) {
-			JSONObject beanJson = beansArray.getJSONObject(i);
-			if (beanJson != null && beanJson.has(LiveBean.ATTR_BEAN)) {
-				LiveBean bean = new LiveBean(session, beanJson.getString(LiveBean.ATTR_BEAN));
-				bean.addAttribute(LiveBeansContext.ATTR_CONTEXT, context.getLabel());
-				if (beanJson.has(LiveBean.ATTR_SCOPE)) {
-					bean.addAttribute(LiveBean.ATTR_SCOPE, beanJson.getString(LiveBean.ATTR_SCOPE));
-				}
-				if (beanJson.has(LiveBean.ATTR_TYPE)) {
-					bean.addAttribute(LiveBean.ATTR_TYPE, beanJson.getString(LiveBean.ATTR_TYPE));
-				}
-				if (beanJson.has(LiveBean.ATTR_RESOURCE)) {
-					bean.addAttribute(LiveBean.ATTR_RESOURCE, beanJson.getString(LiveBean.ATTR_RESOURCE));
-				}
-				if (session.getApplicationName() != null) {
-					bean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
+	private LiveBean parseBean(LiveBeansJsonReader reader, List<String> dependencies) throws JSONException {
+		// construct LiveBean from the scalar attributes
+		Map<String, String> attributes = new HashMap<String, String>();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			Token token = reader.peek();
+			if (LiveBean.ATTR_DEPENDENCIES.equals(name) && token == Token.BEGIN_ARRAY) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					dependencies.add(reader.nextString());
 				}
-				context.addBean(bean);
-				beansMap.put(bean.getId(), bean);
+				reader.endArray();
 			}
+			else if (token == Token.STRING || token == Token.LITERAL) {
+				attributes.put(name, reader.nextString());
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		String id = attributes.get(LiveBean.ATTR_BEAN);
+		if (id == null) {
+			return null;
 		}
+		LiveBean bean = new LiveBean(session, id);
+		if (attributes.get(LiveBean.ATTR_SCOPE) != null) {
+			bean.addAttribute(LiveBean.ATTR_SCOPE, attributes.get(LiveBean.ATTR_SCOPE));
+		}
+		if (attributes.get(LiveBean.ATTR_TYPE) != null) {
+			bean.addAttribute(LiveBean.ATTR_TYPE, attributes.get(LiveBean.ATTR_TYPE));
+		}
+		if (attributes.get(LiveBean.ATTR_RESOURCE) != null) {
+			bean.addAttribute(LiveBean.ATTR_RESOURCE, attributes.get(LiveBean.ATTR_RESOURCE));
+		}
+		if (session.getApplicationName() != null) {
+			bean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
+		}
+		return bean;
 	}
 
-	private void parseContexts(JSONArray contextsArray) throws JSONException {
-		// construct LiveBeansContexts
-		for (int i = 0; i < contextsArray.length(); i++) {
-			JSONObject contextJson = contextsArray.optJSONObject(i);
-			if (contextJson != null) {
-				LiveBeansContext context = new LiveBeansContext(contextJson.getString(LiveBeansContext.ATTR_CONTEXT));
-				JSONArray beansArray = contextJson.optJSONArray(LiveBeansContext.ATTR_BEANS);
-				if (beansArray != null) {
-					parseBeans(context, beansArray);
+	private void parseBeans(LiveBeansJsonReader reader, List<LiveBean> beans, Map<LiveBean, List<String>> dependencies)
+			throws JSONException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (reader.peek() == Token.BEGIN_OBJECT) {
+				List<String> beanDependencies = new ArrayList<String>();
+				LiveBean bean = parseBean(reader, beanDependencies);
+				if (bean != null) {
+					beans.add(bean);
+					dependencies.put(bean, beanDependencies);
 				}
-				contextMap.put(context.getLabel(), context);
+			}
+			else {
+				reader.skipValue();
 			}
 		}
+		reader.endArray();
 	}
 
-	private void populateBeanDependencies(JSONArray beansArray) throws JSONException {
+	private void parseContext(LiveBeansJsonReader reader) throws JSONException {
+		// the context's label isn't necessarily known before its beans are read
+		String label = null;
+		String parent = null;
+		List<LiveBean> beans = new ArrayList<LiveBean>();
+		Map<LiveBean, List<String>> dependencies = new HashMap<LiveBean, List<String>>();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			Token token = reader.peek();
+			if (LiveBeansContext.ATTR_BEANS.equals(name) && token == Token.BEGIN_ARRAY) {
+				parseBeans(reader, beans, dependencies);
+			}
+			else if (LiveBeansContext.ATTR_CONTEXT.equals(name) && (token == Token.STRING || token == Token.LITERAL)) {
+				label = reader.nextString();
+			}
+			else if (LiveBeansContext.ATTR_PARENT.equals(name) && (token == Token.STRING || token == Token.LITERAL)) {
+				parent = reader.nextString();
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (label == null) {
+			throw new JSONException("JSONObject[\"" + LiveBeansContext.ATTR_CONTEXT + "\"] not found.");
+		}
+
+		// construct LiveBeansContext
+		LiveBeansContext context = new LiveBeansContext(label);
+		for (LiveBean bean : beans) {
+			bean.addAttribute(LiveBeansContext.ATTR_CONTEXT, label);
+			context.addBean(bean);
+			beansMap.put(bean.getId(), bean);
+		}
+		beanDependencies.putAll(dependencies);
+		contextMap.put(label, context);
+		if (parent != null) {
+			contextParents.put(context, parent);
+		}
+	}
+
+	private void parseContexts(LiveBeansJsonReader reader) throws JSONException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (reader.peek() == Token.BEGIN_OBJECT) {
+				parseContext(reader);
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endArray();
+	}
+
+	private void populateBeanDependencies() {
 		// populate LiveBean dependencies
-		for (int i = 0; i < beansArray.length(); i++) {
-			JSONObject beanJson = beansArray.optJSONObject(i);
-			if (beanJson != null && beanJson.has(LiveBean.ATTR_BEAN)) {
-				LiveBean bean = beansMap.get(beanJson.getString(LiveBean.ATTR_BEAN));
-				JSONArray dependencies = beanJson.optJSONArray(LiveBean.ATTR_DEPENDENCIES);
-				if (dependencies != null) {
-					for (int j = 0; j < dependencies.length(); j++) {
-						String dependency = dependencies.getString(j);
-						LiveBean dependencyBean = beansMap.get(dependency);
-						if (dependencyBean != null) {
-							bean.addDependency(dependencyBean);
-						}
-						else {
-							LiveBean dependentBean = new LiveBean(session, dependency, true);
-							if (session.getApplicationName() != null) {
-								dependentBean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
-							}
-							bean.addDependency(dependentBean);
-						}
+		for (Map.Entry<LiveBean, List<String>> entry : beanDependencies.entrySet()) {
+			// beans with duplicate ids resolve to the one registered last
+			LiveBean bean = beansMap.get(entry.getKey().getId());
+			for (String dependency : entry.getValue()) {
+				LiveBean dependencyBean = beansMap.get(dependency);
+				if (dependencyBean != null) {
+					bean.addDependency(dependencyBean);
+				}
+				else {
+					LiveBean dependentBean = new LiveBean(session, dependency, true);
+					if (session.getApplicationName() != null) {
+						dependentBean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
 					}
+					bean.addDependency(dependentBean);
 				}
 			}
 		}
 	}
 
-	private void populateContextDependencies(JSONArray contextsArray) throws JSONException {
+	private void populateContextDependencies() {
 		// populate LiveBeanContext dependencies
-		for (int i = 0; i < contextsArray.length(); i++) {
-			JSONObject contextJson = contextsArray.optJSONObject(i);
-			if (contextJson != null) {
-				LiveBeansContext context = contextMap.get(contextJson.getString(LiveBeansContext.ATTR_CONTEXT));
-				if (!contextJson.isNull(LiveBeansContext.ATTR_PARENT)) {
-					String parent = contextJson.getString(LiveBeansContext.ATTR_PARENT);
-					LiveBeansContext parentContext = contextMap.get(parent);
-					if (parentContext != null) {
-						context.setParent(parentContext);
-					}
-				}
-
-				JSONArray beansArray = contextJson.optJSONArray(LiveBeansContext.ATTR_BEANS);
-				if (beansArray != null) {
-					populateBeanDependencies(beansArray);
-				}
+		for (Map.Entry<LiveBeansContext, String> entry : contextParents.entrySet()) {
+			LiveBeansContext context = contextMap.get(entry.getKey().getLabel());
+			LiveBeansContext parentContext = contextMap.get(entry.getValue());
+			if (parentContext != null) {
+				context.setParent(parentContext);
 			}
 		}
 	}
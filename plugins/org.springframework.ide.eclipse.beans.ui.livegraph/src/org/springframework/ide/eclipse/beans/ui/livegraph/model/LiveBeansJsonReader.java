@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.json.JSONException;
+
+/**
+ * A minimal pull reader for the JSON snapshot of the Live Beans MBean. Unlike
+ * {@link org.json.JSONArray} it doesn't build an object tree of the whole
+ * snapshot, the caller consumes the values one by one in document order.
+ *
+ * @since 3.8.1
+ */
+public class LiveBeansJsonReader {
+
+	public enum Token {
+		BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, LITERAL, END_DOCUMENT
+	}
+
+	private final String input;
+
+	private int pos;
+
+	/** One entry per open array (<code>false</code>) or object (<code>true</code>) */
+	private final Deque<Boolean> scopes = new ArrayDeque<Boolean>();
+
+	/** Set after a member name has been read and its value is expected next */
+	private boolean afterName;
+
+	public LiveBeansJsonReader(String input) {
+		this.input = input;
+		this.pos = 0;
+	}
+
+	public void beginArray() throws JSONException {
+		expect('[');
+		scopes.push(Boolean.FALSE);
+	}
+
+	public void endArray() throws JSONException {
+		expect(']');
+		scopes.pop();
+	}
+
+	public void beginObject() throws JSONException {
+		expect('{');
+		scopes.push(Boolean.TRUE);
+	}
+
+	public void endObject() throws JSONException {
+		expect('}');
+		scopes.pop();
+	}
+
+	/**
+	 * Returns <code>true</code> if the current array or object has another
+	 * element.
+	 */
+	public boolean hasNext() throws JSONException {
+		Token token = peek();
+		return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+	}
+
+	/**
+	 * Returns the type of the next value without consuming it.
+	 */
+	public Token peek() throws JSONException {
+		skipSeparators();
+		if (pos >= input.length()) {
+			return Token.END_DOCUMENT;
+		}
+		char c = input.charAt(pos);
+		switch (c) {
+		case '[':
+			return Token.BEGIN_ARRAY;
+		case ']':
+			return Token.END_ARRAY;
+		case '{':
+			return Token.BEGIN_OBJECT;
+		case '}':
+			return Token.END_OBJECT;
+		case '"':
+			return (afterName || !isInObject() ? Token.STRING : Token.NAME);
+		default:
+			return Token.LITERAL;
+		}
+	}
+
+	public String nextName() throws JSONException {
+		if (peek() != Token.NAME) {
+			throw syntaxError("Expected a member name");
+		}
+		String name = readString();
+		skipWhitespace();
+		if (pos >= input.length() || input.charAt(pos) != ':') {
+			throw syntaxError("Expected ':' after member name");
+		}
+		pos++;
+		afterName = true;
+		return name;
+	}
+
+	/**
+	 * Returns the next string value or the text of the next literal value
+	 * (number or boolean). Returns <code>null</code> for a JSON
+	 * <code>null</code>.
+	 */
+	public String nextString() throws JSONException {
+		Token token = peek();
+		if (token == Token.STRING) {
+			afterName = false;
+			return readString();
+		}
+		else if (token == Token.LITERAL) {
+			afterName = false;
+			String literal = readLiteral();
+			return ("null".equals(literal) ? null : literal);
+		}
+		throw syntaxError("Expected a string value");
+	}
+
+	/**
+	 * Skips the next value including all of its nested values.
+	 */
+	public void skipValue() throws JSONException {
+		Token token = peek();
+		switch (token) {
+		case BEGIN_ARRAY:
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+			break;
+		case BEGIN_OBJECT:
+			beginObject();
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+			break;
+		case STRING:
+		case LITERAL:
+			nextString();
+			break;
+		default:
+			throw syntaxError("Expected a value");
+		}
+	}
+
+	private void expect(char c) throws JSONException {
+		skipSeparators();
+		if (pos >= input.length() || input.charAt(pos) != c) {
+			throw syntaxError("Expected '" + c + "'");
+		}
+		pos++;
+		afterName = false;
+	}
+
+	private boolean isInObject() {
+		return !scopes.isEmpty() && scopes.peek().booleanValue();
+	}
+
+	private String readString() throws JSONException {
+		// opening quote
+		pos++;
+		StringBuilder result = null;
+		int start = pos;
+		while (pos < input.length()) {
+			char c = input.charAt(pos);
+			if (c == '"') {
+				String value;
+				if (result == null) {
+					value = input.substring(start, pos);
+				}
+				else {
+					result.append(input, start, pos);
+					value = result.toString();
+				}
+				pos++;
+				return value;
+			}
+			else if (c == '\\') {
+				if (result == null) {
+					result = new StringBuilder();
+				}
+				result.append(input, start, pos);
+				pos++;
+				result.append(readEscape());
+				start = pos;
+			}
+			else {
+				pos++;
+			}
+		}
+		throw syntaxError("Unterminated string");
+	}
+
+	private char readEscape() throws JSONException {
+		if (pos >= input.length()) {
+			throw syntaxError("Unterminated escape sequence");
+		}
+		char c = input.charAt(pos++);
+		switch (c) {
+		case 'b':
+			return '\b';
+		case 't':
+			return '\t';
+		case 'n':
+			return '\n';
+		case 'f':
+			return '\f';
+		case 'r':
+			return '\r';
+		case 'u':
+			if (pos + 4 > input.length()) {
+				throw syntaxError("Illegal unicode escape sequence");
+			}
+			try {
+				char unicode = (char) Integer.parseInt(input.substring(pos, pos + 4), 16);
+				pos += 4;
+				return unicode;
+			}
+			catch (NumberFormatException e) {
+				throw syntaxError("Illegal unicode escape sequence");
+			}
+		default:
+			return c;
+		}
+	}
+
+	private String readLiteral() throws JSONException {
+		int start = pos;
+		while (pos < input.length()) {
+			char c = input.charAt(pos);
+			if (c == ',' || c == ':' || c == ']' || c == '}' || Character.isWhitespace(c)) {
+				break;
+			}
+			pos++;
+		}
+		if (start == pos) {
+			throw syntaxError("Expected a value");
+		}
+		return input.substring(start, pos);
+	}
+
+	private void skipWhitespace() {
+		while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	private void skipSeparators() {
+		skipWhitespace();
+		if (!afterName && pos < input.length() && input.charAt(pos) == ',') {
+			pos++;
+			skipWhitespace();
+		}
+	}
+
+	private JSONException syntaxError(String message) {
+		return new JSONException(message + " at character " + pos);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2016 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -48,6 +48,20 @@ public class LiveBeansModel implements Comparable<LiveBeansModel> {
 		resources.addAll(resourcesToAdd);
 	}
 
+	/**
+	 * Replaces the beans and groups of this model, used when updating the
+	 * model in place.
+	 * @see LiveBeansModelDiff
+	 */
+	void setContent(List<LiveBean> newBeans, List<LiveBeansGroup> newContexts, List<LiveBeansGroup> newResources) {
+		beans.clear();
+		beans.addAll(newBeans);
+		contexts.clear();
+		contexts.addAll(newContexts);
+		resources.clear();
+		resources.addAll(newResources);
+	}
+
 	public int compareTo(LiveBeansModel o) {
 		return getApplicationName().compareTo(o.getApplicationName());
 	}
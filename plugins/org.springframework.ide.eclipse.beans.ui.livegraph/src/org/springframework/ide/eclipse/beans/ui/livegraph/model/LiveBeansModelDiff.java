@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Updates an existing {@link LiveBeansModel} in place from a freshly loaded
+ * one and describes the differences. Beans, contexts and resources which are
+ * still present keep their identity, so viewers showing the model only need
+ * to update the elements which actually changed.
+ *
+ * @since 3.8.1
+ */
+public class LiveBeansModelDiff {
+
+	private final List<LiveBean> addedBeans = new ArrayList<LiveBean>();
+
+	private final List<LiveBean> removedBeans = new ArrayList<LiveBean>();
+
+	private final List<LiveBean> changedBeans = new ArrayList<LiveBean>();
+
+	private boolean dependenciesChanged;
+
+	private boolean groupsChanged;
+
+	private LiveBeansModelDiff() {
+	}
+
+	/**
+	 * Merges the content of the given new model into the given model and
+	 * returns the differences between the two.
+	 */
+	public static LiveBeansModelDiff update(LiveBeansModel model, LiveBeansModel newModel) {
+		LiveBeansModelDiff diff = new LiveBeansModelDiff();
+		diff.merge(model, newModel);
+		return diff;
+	}
+
+	private void merge(LiveBeansModel model, LiveBeansModel newModel) {
+		Map<String, LiveBean> oldBeans = new HashMap<String, LiveBean>();
+		Map<String, LiveBean> oldInnerBeans = new HashMap<String, LiveBean>();
+		for (LiveBean bean : model.getBeans()) {
+			oldBeans.put(bean.getId(), bean);
+			for (LiveBean dependency : bean.getDependencies()) {
+				if (dependency.isInnerBean()) {
+					oldInnerBeans.put(dependency.getId(), dependency);
+				}
+			}
+		}
+
+		// match beans by id and keep the existing instances
+		Map<LiveBean, LiveBean> mapping = new IdentityHashMap<LiveBean, LiveBean>();
+		List<LiveBean> beans = new ArrayList<LiveBean>();
+		for (LiveBean newBean : newModel.getBeans()) {
+			LiveBean bean = oldBeans.remove(newBean.getId());
+			if (bean == null) {
+				bean = newBean;
+				addedBeans.add(bean);
+			}
+			else {
+				boolean isChanged = false;
+				if (!bean.getAttributes().equals(newBean.getAttributes())) {
+					bean.updateAttributes(newBean.getAttributes());
+					isChanged = true;
+				}
+				if (!getIds(bean.getDependencies()).equals(getIds(newBean.getDependencies()))) {
+					dependenciesChanged = true;
+					isChanged = true;
+				}
+				if (isChanged) {
+					changedBeans.add(bean);
+				}
+			}
+			mapping.put(newBean, bean);
+			beans.add(bean);
+		}
+		removedBeans.addAll(oldBeans.values());
+
+		// re-wire dependencies between the resulting instances
+		Map<LiveBean, List<LiveBean>> dependencies = new IdentityHashMap<LiveBean, List<LiveBean>>();
+		for (LiveBean newBean : newModel.getBeans()) {
+			List<LiveBean> mappedDependencies = new ArrayList<LiveBean>();
+			for (LiveBean dependency : newBean.getDependencies()) {
+				LiveBean mappedDependency = mapping.get(dependency);
+				if (mappedDependency == null && dependency.isInnerBean()) {
+					mappedDependency = oldInnerBeans.get(dependency.getId());
+					if (mappedDependency == null) {
+						mappedDependency = dependency;
+						dependency.resetDependencies();
+					}
+				}
+				mappedDependencies.add(mappedDependency != null ? mappedDependency : dependency);
+			}
+			dependencies.put(mapping.get(newBean), mappedDependencies);
+		}
+		for (LiveBean bean : beans) {
+			bean.resetDependencies();
+		}
+		for (LiveBean innerBean : oldInnerBeans.values()) {
+			innerBean.resetDependencies();
+		}
+		for (Map.Entry<LiveBean, List<LiveBean>> entry : dependencies.entrySet()) {
+			for (LiveBean dependency : entry.getValue()) {
+				entry.getKey().addDependency(dependency);
+			}
+		}
+
+		List<LiveBeansGroup> contexts = mergeGroups(model.getBeansByContext(), newModel.getBeansByContext(), mapping);
+		List<LiveBeansGroup> resources = mergeGroups(model.getBeansByResource(), newModel.getBeansByResource(),
+				mapping);
+		model.setContent(beans, contexts, resources);
+	}
+
+	private List<LiveBeansGroup> mergeGroups(List<LiveBeansGroup> oldGroups, List<LiveBeansGroup> newGroups,
+			Map<LiveBean, LiveBean> beanMapping) {
+		Map<String, LiveBeansGroup> oldGroupsByLabel = new HashMap<String, LiveBeansGroup>();
+		for (LiveBeansGroup group : oldGroups) {
+			oldGroupsByLabel.put(group.getLabel(), group);
+		}
+
+		Map<LiveBeansGroup, LiveBeansGroup> mapping = new IdentityHashMap<LiveBeansGroup, LiveBeansGroup>();
+		List<LiveBeansGroup> groups = new ArrayList<LiveBeansGroup>();
+		for (LiveBeansGroup newGroup : newGroups) {
+			LiveBeansGroup group = oldGroupsByLabel.remove(newGroup.getLabel());
+			List<LiveBean> beans = new ArrayList<LiveBean>();
+			for (LiveBean bean : newGroup.getBeans()) {
+				LiveBean mappedBean = beanMapping.get(bean);
+				beans.add(mappedBean != null ? mappedBean : bean);
+			}
+			if (group == null) {
+				group = newGroup;
+				groupsChanged = true;
+			}
+			else if (!beans.equals(group.getBeans())) {
+				groupsChanged = true;
+			}
+			group.setBeans(beans);
+			mapping.put(newGroup, group);
+			groups.add(group);
+		}
+		if (!oldGroupsByLabel.isEmpty()) {
+			groupsChanged = true;
+		}
+
+		// re-wire parent contexts between the resulting instances
+		for (LiveBeansGroup newGroup : newGroups) {
+			if (newGroup instanceof LiveBeansContext) {
+				LiveBeansContext context = (LiveBeansContext) mapping.get(newGroup);
+				LiveBeansContext newParent = ((LiveBeansContext) newGroup).getParent();
+				LiveBeansContext parent = (newParent != null ? (LiveBeansContext) mapping.get(newParent) : null);
+				if (context.getParent() != parent) {
+					context.setParent(parent);
+					groupsChanged = true;
+				}
+			}
+		}
+		return groups;
+	}
+
+	private static Set<String> getIds(Set<LiveBean> beans) {
+		Set<String> ids = new HashSet<String>();
+		for (LiveBean bean : beans) {
+			ids.add(bean.getId());
+		}
+		return ids;
+	}
+
+	public List<LiveBean> getAddedBeans() {
+		return addedBeans;
+	}
+
+	public List<LiveBean> getChangedBeans() {
+		return changedBeans;
+	}
+
+	public List<LiveBean> getRemovedBeans() {
+		return removedBeans;
+	}
+
+	/**
+	 * Returns <code>true</code> if beans have been added or removed or the
+	 * dependencies between beans changed, which requires a new graph layout.
+	 */
+	public boolean hasStructuralChanges() {
+		return !addedBeans.isEmpty() || !removedBeans.isEmpty() || dependenciesChanged;
+	}
+
+	public boolean isEmpty() {
+		return !hasStructuralChanges() && changedBeans.isEmpty() && !groupsChanged;
+	}
+
+}
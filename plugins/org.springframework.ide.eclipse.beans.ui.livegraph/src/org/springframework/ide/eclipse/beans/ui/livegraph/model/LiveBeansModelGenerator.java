@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2016 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -202,24 +202,42 @@ public class LiveBeansModelGenerator {
 	}
 
 	/**
-	 * This method will attempt to produce an up to date {@link LiveBeansModel}
-	 * from the connection information in the given model. Will return the
-	 * original model if there is a failure.
+	 * This method will attempt to bring the given {@link LiveBeansModel} up to
+	 * date from the connection information in the model. The model is updated
+	 * in place and returned, also if there is a failure.
 	 * 
 	 * @param originalModel
 	 * @return {@link LiveBeansModel}
 	 * @throws CoreException
 	 */
 	public static LiveBeansModel refreshModel(LiveBeansModel originalModel) throws CoreException {
-		LiveBeansSession session = originalModel.getSession();
+		updateModel(originalModel);
+		return originalModel;
+	}
+
+	/**
+	 * This method will attempt to update the given {@link LiveBeansModel} in
+	 * place from the connection information in the model. Beans which are
+	 * still present in the running application keep their identity.
+	 * 
+	 * @param model
+	 * @return the {@link LiveBeansModelDiff} describing the changes applied
+	 * to the model, or <code>null</code> if the connection has failed
+	 * @throws CoreException
+	 */
+	public static LiveBeansModelDiff updateModel(LiveBeansModel model) throws CoreException {
+		LiveBeansSession session = model.getSession();
 		if (session != null) {
-			LiveBeansModel model = connectToModel(session.getServiceUrl(), session.getUsername(),
+			LiveBeansModel newModel = connectToModel(session.getServiceUrl(), session.getUsername(),
 					session.getPassword(), session.getApplicationName(), session.getProject());
-			if (model != null) {
-				return model;
+			if (newModel != null) {
+				LiveBeansModelDiff diff = LiveBeansModelDiff.update(model, newModel);
+				// keep the updated model in the collection
+				LiveBeansModelCollection.getInstance().addModel(model);
+				return diff;
 			}
 		}
-		return originalModel;
+		return null;
 	}
 
 	private static JMXConnector setupConnector(String serviceUrl, String username, String password)
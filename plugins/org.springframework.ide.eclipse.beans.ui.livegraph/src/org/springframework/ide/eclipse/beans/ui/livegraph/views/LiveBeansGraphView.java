@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 - 2013 VMware, Inc.
+ *  Copyright (c) 2012, 2016 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -47,6 +47,7 @@ import org.springframework.ide.eclipse.beans.ui.livegraph.actions.ToggleGroupByA
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.ToggleViewModeAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelCollection;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff;
 
 /**
  * A simple view to host our graph
@@ -306,6 +307,29 @@ public class LiveBeansGraphView extends ViewPart {
 		}
 	}
 
+	/**
+	 * Updates the viewers after the active input has been updated in place.
+	 * Only a structural change of the graph triggers a new layout, changed
+	 * beans are merely updated.
+	 */
+	public void refreshInput(LiveBeansModelDiff diff) {
+		if (diff.isEmpty()) {
+			return;
+		}
+		if (graphViewer != null) {
+			if (diff.hasStructuralChanges()) {
+				graphViewer.refresh();
+				graphViewer.applyLayout();
+			}
+			else if (!diff.getChangedBeans().isEmpty()) {
+				graphViewer.update(diff.getChangedBeans().toArray(), null);
+			}
+		}
+		if (treeViewer != null) {
+			treeViewer.refresh();
+		}
+	}
+
 	public void setFilterInnerBeans(boolean filtered) {
 		if (graphViewer != null) {
 			if (filtered) {
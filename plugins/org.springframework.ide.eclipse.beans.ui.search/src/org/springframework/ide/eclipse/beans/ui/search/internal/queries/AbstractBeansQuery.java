@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 Spring IDE Developers
+ * Copyright (c) 2006, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,12 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.search.internal.queries;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -20,6 +26,7 @@ import org.eclipse.jface.util.Assert;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.text.Match;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.ui.search.BeansSearchPlugin;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchMessages;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchResult;
@@ -38,6 +45,8 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 
 	private BeansSearchScope scope;
 	private String pattern;
+	private boolean isCaseSensitive;
+	private boolean isRegexSearch;
 	private Pattern compiledPattern;
 	private ISearchResult result;
 
@@ -46,6 +55,8 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 		Assert.isNotNull(scope);
 		this.scope = scope;
 		this.pattern = pattern;
+		this.isCaseSensitive = isCaseSensitive;
+		this.isRegexSearch = isRegexSearch;
 		this.compiledPattern = PatternUtils.createPattern(pattern,
 				isCaseSensitive, isRegexSearch);
 	}
@@ -80,30 +91,37 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 			if (monitor.isCanceled()) {
 				throw new OperationCanceledException();
 			}
-			IModelElementVisitor visitor = new IModelElementVisitor() {
-				public boolean visit(IModelElement element,
-						IProgressMonitor monitor) {
-					if (doesMatch(element, compiledPattern, monitor)) {
-						int startLine;
-						int lines;
-						if (element instanceof ISourceModelElement) {
-							ISourceModelElement sourceElement =
-								(ISourceModelElement) element;
-							startLine = sourceElement.getElementStartLine();
-							lines = sourceElement.getElementEndLine()
-									- startLine + 1;
-						} else {
-							startLine = -1;
-							lines = -1;
+
+			// Arbitrary reg-ex searches can't be answered from the index
+			Set<IBeansConfig> configs = (isRegexSearch ? null
+					: BeansSearchIndex.getInstance().getConfigs(element));
+			if (configs != null) {
+				Map<IModelElement, IModelElement> matched =
+						new IdentityHashMap<IModelElement, IModelElement>();
+				for (IBeansConfig config : configs) {
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					for (IModelElement match : BeansSearchIndex.getInstance()
+							.findMatches(config, this, monitor)) {
+						if (matched.put(match, match) == null) {
+							addMatch(result, match);
 						}
-						Match match = new Match(element, Match.UNIT_LINE,
-								startLine, lines);
-						result.addMatch(match);
 					}
-					return true;
 				}
-			};
-			element.accept(visitor, monitor);
+			}
+			else {
+				IModelElementVisitor visitor = new IModelElementVisitor() {
+					public boolean visit(IModelElement element,
+							IProgressMonitor monitor) {
+						if (doesMatch(element, compiledPattern, monitor)) {
+							addMatch(result, element);
+						}
+						return true;
+					}
+				};
+				element.accept(visitor, monitor);
+			}
 		}
 		Object[] args = new Object[] { new Integer(result.getMatchCount()) };
 		String message = MessageUtils.format(
@@ -112,10 +130,57 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 				null);
 	}
 
+	private void addMatch(BeansSearchResult result, IModelElement element) {
+		int startLine;
+		int lines;
+		if (element instanceof ISourceModelElement) {
+			ISourceModelElement sourceElement = (ISourceModelElement) element;
+			startLine = sourceElement.getElementStartLine();
+			lines = sourceElement.getElementEndLine() - startLine + 1;
+		} else {
+			startLine = -1;
+			lines = -1;
+		}
+		result.addMatch(new Match(element, Match.UNIT_LINE, startLine, lines));
+	}
+
+	/**
+	 * Returns <code>true</code> if the search pattern is case sensitive.
+	 */
+	protected boolean isCaseSensitive() {
+		return isCaseSensitive;
+	}
+
+	/**
+	 * Returns the compiled search pattern.
+	 */
+	protected Pattern getCompiledPattern() {
+		return compiledPattern;
+	}
+
 	/**
 	 * Returns <code>true</code> if given {@link IModelElement} matches
-	 * this query. 
+	 * this query. By default one of the names provided by
+	 * {@link #collectSearchableNames(IModelElement, Collection)} has to
+	 * match the given pattern.
+	 */
+	protected boolean doesMatch(IModelElement element, Pattern pattern,
+			IProgressMonitor monitor) {
+		List<String> names = new ArrayList<String>();
+		collectSearchableNames(element, names);
+		for (String name : names) {
+			if (name != null && pattern.matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds all names of the given {@link IModelElement} this query is
+	 * searching for to the given collection. These names are used to build
+	 * the {@link BeansSearchIndex}.
 	 */
-	protected abstract boolean doesMatch(IModelElement element,
-			Pattern pattern, IProgressMonitor monitor);
+	protected abstract void collectSearchableNames(IModelElement element,
+			Collection<String> names);
 }
@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.search.internal.queries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigEventListener;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.beans.core.model.process.IBeansConfigPostProcessor;
+import org.springframework.ide.eclipse.core.PatternUtils;
+import org.springframework.ide.eclipse.core.model.IModelChangeListener;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
+
+/**
+ * Inverted index from the names searched for by the {@link AbstractBeansQuery}
+ * implementations (bean names, aliases, classes, property names and
+ * referenced bean names) to the {@link IModelElement}s providing them.
+ * <p>
+ * The index is built lazily per {@link IBeansConfig} and query type and is
+ * dropped for a config as soon as it is reset or re-read, or the beans model
+ * reports a change of it. Wildcard searches are narrowed to the literal
+ * prefix of the pattern; arbitrary reg-ex searches are not supported.
+ * @since 3.8.1
+ */
+public class BeansSearchIndex implements IModelChangeListener,
+		IBeansConfigEventListener {
+
+	private static BeansSearchIndex instance;
+
+	private final ConcurrentMap<IBeansConfig, ConfigEntry> entries =
+			new ConcurrentHashMap<IBeansConfig, ConfigEntry>();
+
+	/** The configs this index is registered with as event listener */
+	private final Set<IBeansConfig> listenedConfigs = Collections
+			.newSetFromMap(new ConcurrentHashMap<IBeansConfig, Boolean>());
+
+	/** Incremented on every invalidation to detect stale index builds */
+	private final AtomicLong modificationCount = new AtomicLong();
+
+	public static synchronized BeansSearchIndex getInstance() {
+		if (instance == null) {
+			instance = new BeansSearchIndex();
+			BeansCorePlugin.getModel().addChangeListener(instance);
+		}
+		return instance;
+	}
+
+	public static synchronized void dispose() {
+		if (instance != null) {
+			BeansCorePlugin.getModel().removeChangeListener(instance);
+			instance.clear();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Returns all {@link IBeansConfig}s contained in the given scope element
+	 * or <code>null</code> if the element can't be searched via the index.
+	 */
+	public Set<IBeansConfig> getConfigs(IModelElement element) {
+		final Set<IBeansConfig> configs = new LinkedHashSet<IBeansConfig>();
+		final boolean[] isSupported = new boolean[] { true };
+		element.accept(new IModelElementVisitor() {
+			public boolean visit(IModelElement element,
+					IProgressMonitor monitor) {
+				if (element instanceof IBeansConfig) {
+					configs.add((IBeansConfig) element);
+					return false;
+				}
+				else if (element instanceof IBeansModel
+						|| element instanceof IBeansProject
+						|| element instanceof IBeansConfigSet) {
+					return true;
+				}
+				isSupported[0] = false;
+				return false;
+			}
+		}, new NullProgressMonitor());
+		return (isSupported[0] ? configs : null);
+	}
+
+	/**
+	 * Returns all {@link IModelElement}s of the given {@link IBeansConfig}
+	 * (including its imports) matching the given non-reg-ex query.
+	 */
+	public List<IModelElement> findMatches(IBeansConfig config,
+			AbstractBeansQuery query, IProgressMonitor monitor) {
+		NameIndex index = getNameIndex(config, query, monitor);
+		return index.find(query.getPattern(), query.isCaseSensitive(),
+				query.getCompiledPattern());
+	}
+
+	private NameIndex getNameIndex(IBeansConfig config,
+			AbstractBeansQuery query, IProgressMonitor monitor) {
+		long count = modificationCount.get();
+		ConfigEntry entry = entries.get(config);
+		if (entry == null) {
+			entry = new ConfigEntry();
+			listenTo(config);
+		}
+		NameIndex index = entry.indexes.get(query.getClass());
+		if (index == null) {
+			index = new NameIndex();
+			index.build(config, query, entry.configs, monitor);
+
+			// Only keep the index if nothing changed while it was built
+			if (count == modificationCount.get()) {
+				entry.indexes.put(query.getClass(), index);
+				entries.putIfAbsent(config, entry);
+				for (IBeansConfig importedConfig : entry.configs) {
+					listenTo(importedConfig);
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Removes all index entries which cover the given {@link IBeansConfig}.
+	 */
+	private void invalidate(IBeansConfig config) {
+		modificationCount.incrementAndGet();
+		entries.remove(config);
+		for (Map.Entry<IBeansConfig, ConfigEntry> entry : entries.entrySet()) {
+			if (entry.getValue().configs.contains(config)) {
+				entries.remove(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Removes all index entries and unregisters from all configs. The
+	 * configs get registered with again when they are indexed the next time.
+	 */
+	private void clear() {
+		modificationCount.incrementAndGet();
+		entries.clear();
+		for (IBeansConfig config : listenedConfigs) {
+			stopListeningTo(config);
+		}
+	}
+
+	private void listenTo(IBeansConfig config) {
+		if (listenedConfigs.add(config)) {
+			config.registerEventListener(this);
+		}
+	}
+
+	private void stopListeningTo(IBeansConfig config) {
+		if (listenedConfigs.remove(config)) {
+			config.unregisterEventListener(this);
+		}
+	}
+
+	public void elementChanged(ModelChangeEvent event) {
+		IModelElement element = event.getElement();
+		if (element instanceof IBeansConfig) {
+			invalidate((IBeansConfig) element);
+			if (event.getType() == ModelChangeEvent.Type.REMOVED) {
+				stopListeningTo((IBeansConfig) element);
+			}
+		}
+		else {
+			clear();
+		}
+	}
+
+	public void onReadStart(IBeansConfig config) {
+		// Nothing to do
+	}
+
+	public void onReadEnd(IBeansConfig config) {
+		invalidate(config);
+	}
+
+	public void onReset(IBeansConfig config) {
+		invalidate(config);
+	}
+
+	public void onPostProcessorDetected(IBeansConfig config,
+			IBeansConfigPostProcessor configPostProcessor) {
+		invalidate(config);
+	}
+
+	public void onPostProcessorRemoved(IBeansConfig config,
+			IBeansConfigPostProcessor configPostProcessor) {
+		invalidate(config);
+	}
+
+	/**
+	 * The name indexes of a single {@link IBeansConfig} (one per query type)
+	 * together with all the configs (the config itself and its imports)
+	 * covered by them.
+	 */
+	private static class ConfigEntry {
+
+		private final ConcurrentMap<Class<?>, NameIndex> indexes =
+				new ConcurrentHashMap<Class<?>, NameIndex>();
+
+		private final Set<IBeansConfig> configs = Collections
+				.newSetFromMap(new ConcurrentHashMap<IBeansConfig, Boolean>());
+	}
+
+	/**
+	 * Sorted mappings from searchable names to model elements. The lower case
+	 * mapping is used for case insensitive searches.
+	 */
+	private static class NameIndex {
+
+		private final TreeMap<String, List<IModelElement>> names =
+				new TreeMap<String, List<IModelElement>>();
+
+		private final TreeMap<String, List<IModelElement>> lowerCaseNames =
+				new TreeMap<String, List<IModelElement>>();
+
+		public void build(IBeansConfig config, final AbstractBeansQuery query,
+				final Set<IBeansConfig> configs, IProgressMonitor monitor) {
+			final List<String> elementNames = new ArrayList<String>();
+			config.accept(new IModelElementVisitor() {
+				public boolean visit(IModelElement element,
+						IProgressMonitor monitor) {
+					if (element instanceof IBeansConfig) {
+						configs.add((IBeansConfig) element);
+					}
+					elementNames.clear();
+					query.collectSearchableNames(element, elementNames);
+					for (String name : elementNames) {
+						if (name != null) {
+							add(names, name, element);
+							add(lowerCaseNames, toLowerCase(name), element);
+						}
+					}
+					return true;
+				}
+			}, monitor);
+		}
+
+		public List<IModelElement> find(String pattern,
+				boolean isCaseSensitive, Pattern compiledPattern) {
+			String prefix = getLiteralPrefix(pattern);
+			boolean isExactSearch = prefix.length() == pattern.length();
+			boolean isPrefixSearch = pattern.equals(prefix + "*");
+			TreeMap<String, List<IModelElement>> map;
+			if (isCaseSensitive) {
+				map = names;
+			}
+			else {
+				map = lowerCaseNames;
+				prefix = toLowerCase(prefix);
+			}
+
+			// Exact match
+			if (isExactSearch) {
+				List<IModelElement> elements = map.get(prefix);
+				return (elements != null ? elements
+						: Collections.<IModelElement> emptyList());
+			}
+
+			// Prefix or wildcard match - verify candidates with the pattern
+			SortedMap<String, List<IModelElement>> candidates = (prefix
+					.length() > 0 ? map.subMap(prefix, prefix
+					+ Character.MAX_VALUE) : map);
+			Map<IModelElement, IModelElement> matches =
+					new IdentityHashMap<IModelElement, IModelElement>();
+			List<IModelElement> result = new ArrayList<IModelElement>();
+			for (Map.Entry<String, List<IModelElement>> entry : candidates
+					.entrySet()) {
+				if (isPrefixSearch
+						|| compiledPattern.matcher(entry.getKey()).matches()) {
+					for (IModelElement element : entry.getValue()) {
+						if (matches.put(element, element) == null) {
+							result.add(element);
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		private static void add(Map<String, List<IModelElement>> map,
+				String name, IModelElement element) {
+			List<IModelElement> elements = map.get(name);
+			if (elements == null) {
+				elements = new ArrayList<IModelElement>();
+				map.put(name, elements);
+			}
+			if (!elements.contains(element)) {
+				elements.add(element);
+			}
+		}
+
+		/**
+		 * Returns the text matched by the leading part of the given wildcard
+		 * pattern which doesn't contain any wildcard characters ('*' or '?').
+		 * Escapes are handled like {@link PatternUtils} does: '\*', '\?' and
+		 * '\\' stand for the escaped character, while a backslash in front of
+		 * any other character is kept.
+		 */
+		private static String getLiteralPrefix(String pattern) {
+			StringBuilder prefix = new StringBuilder();
+			boolean escaped = false;
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+				if (escaped) {
+					if (c != '*' && c != '?' && c != '\\') {
+						prefix.append('\\');
+					}
+					prefix.append(c);
+					escaped = false;
+				}
+				else if (c == '\\') {
+					escaped = true;
+				}
+				else if (c == '*' || c == '?') {
+					break;
+				}
+				else {
+					prefix.append(c);
+				}
+			}
+			return prefix.toString();
+		}
+
+		private static String toLowerCase(String name) {
+			return name.toLowerCase(Locale.ENGLISH);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,14 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.navigator;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -46,6 +52,7 @@ import org.springframework.ide.eclipse.core.model.ISourceModelElement;
 import org.springframework.ide.eclipse.core.model.ISpringProject;
 import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
 import org.springframework.ide.eclipse.ui.SpringUIUtils;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * This class is a content provider for the {@link CommonNavigator} which knows about the beans core model's
@@ -264,9 +271,18 @@ public class BeansNavigatorContentProvider extends BeansModelContentProvider imp
 				monitor.beginTask("Initializing Spring Project '"
 						+ ((IResourceModelElement) config).getElementResource().getFullPath().toString() + "'", bp
 						.getConfigs().size());
+				// load the configs in parallel and report progress as they complete
+				List<ListenableFuture<IBeansConfig>> loads = new ArrayList<ListenableFuture<IBeansConfig>>();
 				for (IBeansConfig beansConfig : bp.getConfigs()) {
-					monitor.setTaskName("Loading '" + beansConfig.getElementName() + "'");
-					beansConfig.getBeans();
+					loads.add(BeansCorePlugin.getConfigLoader().load(beansConfig));
+				}
+				for (ListenableFuture<IBeansConfig> load : loads) {
+					if (!waitFor(load, monitor)) {
+						for (ListenableFuture<IBeansConfig> pendingLoad : loads) {
+							pendingLoad.cancel(false);
+						}
+						return Status.CANCEL_STATUS;
+					}
 					monitor.worked(1);
 				}
 			}
@@ -295,6 +311,33 @@ public class BeansNavigatorContentProvider extends BeansModelContentProvider imp
 			return Status.OK_STATUS;
 		}
 
+		/**
+		 * Waits for the given load to complete; returns <code>false</code> if the job gets canceled in the meantime.
+		 */
+		private boolean waitFor(ListenableFuture<IBeansConfig> load, IProgressMonitor monitor) {
+			while (!monitor.isCanceled()) {
+				try {
+					load.get(100, TimeUnit.MILLISECONDS);
+					return true;
+				}
+				catch (TimeoutException e) {
+					// check for cancellation and wait again
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+				catch (ExecutionException e) {
+					// the config reports its loading problems itself
+					return true;
+				}
+				catch (CancellationException e) {
+					return true;
+				}
+			}
+			return false;
+		}
+
 		public boolean isCoveredBy(ModelJob other) {
 			return other.parent.equals(parent) && other.config.equals(config);
 		}
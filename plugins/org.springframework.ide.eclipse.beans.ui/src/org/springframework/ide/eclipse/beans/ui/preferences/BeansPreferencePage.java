@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,6 +48,8 @@ public class BeansPreferencePage extends PreferencePage implements IWorkbenchPre
 
 	private IntegerFieldEditor configTimeout;
 
+	private IntegerFieldEditor parallelConfigLoading;
+
 	private FieldEditor graphEditorExtendedContent;
 
 	protected Control createContents(Composite parent) {
@@ -92,6 +94,12 @@ public class BeansPreferencePage extends PreferencePage implements IWorkbenchPre
 		configTimeout.setPreferenceStore(BeansCorePlugin.getDefault().getPreferenceStore());
 		configTimeout.load();
 
+		parallelConfigLoading = new IntegerFieldEditor(BeansCorePlugin.PARALLEL_CONFIG_LOADING_PREFERENCE_ID,
+				"Parallel loads (0 = number of processors)", timoutComposite1);
+		parallelConfigLoading.setPage(this);
+		parallelConfigLoading.setPreferenceStore(BeansCorePlugin.getDefault().getPreferenceStore());
+		parallelConfigLoading.load();
+
 		Composite radioComposite = new Composite(entryTable, SWT.NONE);
 		radioComposite.setLayout(new GridLayout());
 
@@ -162,12 +170,14 @@ public class BeansPreferencePage extends PreferencePage implements IWorkbenchPre
 		graphEditorInnerBeans.loadDefault();
 		graphEditorInfrastructureBeans.loadDefault();
 		configTimeout.loadDefault();
+		parallelConfigLoading.loadDefault();
 		disableAutoDetection.loadDefault();
 	}
 
 	public boolean performOk() {
 		radioEditor.store();
 		configTimeout.store();
+		parallelConfigLoading.store();
 		graphEditorInnerBeans.store();
 		graphEditorInfrastructureBeans.store();
 		graphEditorExtendedContent.store();
@@ -40,6 +40,7 @@ import org.springframework.ide.eclipse.boot.dash.test.yaml.Yaml2DeploymentProper
 
 	//Medium length (less than 30 seconds):
 	JarNameGeneratorTest.class,
+	SpringApplicationReadyStateTrackerTest.class,
 	BootJarPackagingTest.class,
 	BootDashViewModelTest.class,
 	DeploymentPropertiesDialogModelTests.class,
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.dash.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.AttributeChangeNotification;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.StandardEmitterMBean;
+import javax.management.StandardMBean;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.boot.dash.util.ReadyStateMonitor;
+import org.springframework.ide.eclipse.boot.dash.util.SpringApplicationReadyStateMonitor;
+import org.springframework.ide.eclipse.boot.dash.util.SpringApplicationReadyStateTracker;
+import org.springsource.ide.eclipse.commons.frameworks.test.util.ACondition;
+
+public class SpringApplicationReadyStateTrackerTest {
+
+	private static final String ADMIN_OBJECT_NAME = "org.springframework.boot:type=Admin,name=SpringApplication";
+
+	public interface FakeAdminMBean {
+		boolean isReady();
+	}
+
+	public static class FakeAdmin implements FakeAdminMBean {
+		volatile boolean ready;
+		public boolean isReady() {
+			return ready;
+		}
+	}
+
+	public static class NotifyingFakeAdmin extends NotificationBroadcasterSupport implements FakeAdminMBean {
+		volatile boolean ready;
+		final AtomicInteger listeners = new AtomicInteger();
+		final AtomicInteger readyChecks = new AtomicInteger();
+		public boolean isReady() {
+			readyChecks.incrementAndGet();
+			return ready;
+		}
+		@Override
+		public void addNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) {
+			super.addNotificationListener(listener, filter, handback);
+			listeners.incrementAndGet();
+		}
+		void setReady(boolean ready) throws Exception {
+			this.ready = ready;
+			//The source has to be serializable to reach remote listeners
+			sendNotification(new AttributeChangeNotification(new ObjectName(ADMIN_OBJECT_NAME), 1, System.currentTimeMillis(),
+					"Ready changed", "Ready", "boolean", !ready, ready));
+		}
+	}
+
+	private int port;
+	private Registry registry;
+	private MBeanServer mbeanServer;
+	private JMXConnectorServer connectorServer;
+	private ReadyStateMonitor monitor;
+	private ReadyStateMonitor otherMonitor;
+	private SpringApplicationReadyStateTracker tracker;
+	private final CountDownLatch hangingConnect = new CountDownLatch(1);
+
+	@Before
+	public void setup() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		mbeanServer = MBeanServerFactory.newMBeanServer();
+	}
+
+	@After
+	public void teardown() throws Exception {
+		hangingConnect.countDown();
+		if (monitor!=null) {
+			monitor.dispose();
+		}
+		if (otherMonitor!=null) {
+			otherMonitor.dispose();
+		}
+		if (tracker!=null) {
+			tracker.dispose();
+		}
+		if (connectorServer!=null) {
+			connectorServer.stop();
+		}
+		if (registry!=null) {
+			UnicastRemoteObject.unexportObject(registry, true);
+		}
+	}
+
+	private void startJmxServer() throws Exception {
+		registry = LocateRegistry.createRegistry(port);
+		JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + port + "/jmxrmi");
+		connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(url, null, mbeanServer);
+		connectorServer.start();
+	}
+
+	private void assertBecomesReady(long timeout) throws Exception {
+		new ACondition("Wait for ready state", timeout) {
+			public boolean test() throws Exception {
+				assertTrue(monitor.getReady().getValue());
+				return true;
+			}
+		};
+	}
+
+	@Test
+	public void readyByPolling() throws Exception {
+		monitor = new SpringApplicationReadyStateMonitor(() -> port);
+
+		//App not started yet, tracker must keep trying to connect
+		Thread.sleep(300);
+		assertFalse(monitor.getReady().getValue());
+
+		startJmxServer();
+		Thread.sleep(300);
+		assertFalse(monitor.getReady().getValue());
+
+		FakeAdmin admin = new FakeAdmin();
+		admin.ready = true;
+		mbeanServer.registerMBean(new StandardMBean(admin, FakeAdminMBean.class), new ObjectName(ADMIN_OBJECT_NAME));
+		assertBecomesReady(3000);
+	}
+
+	@Test
+	public void readyByNotification() throws Exception {
+		startJmxServer();
+		NotifyingFakeAdmin admin = new NotifyingFakeAdmin();
+		mbeanServer.registerMBean(new StandardEmitterMBean(admin, FakeAdminMBean.class, admin), new ObjectName(ADMIN_OBJECT_NAME));
+
+		//Polls are too far apart to notice the ready state in time, only the notification can
+		long pollingInterval = 60000;
+		tracker = new SpringApplicationReadyStateTracker(pollingInterval);
+		monitor = tracker.track(() -> port);
+		new ACondition("Wait for subscription and first check", 3000) {
+			public boolean test() throws Exception {
+				assertTrue(admin.listeners.get() > 0);
+				assertTrue(admin.readyChecks.get() > 0);
+				return true;
+			}
+		};
+		assertFalse(monitor.getReady().getValue());
+		int readyChecks = admin.readyChecks.get();
+
+		admin.setReady(true);
+		assertBecomesReady(3000);
+		//Only the check triggered by the notification asked for the ready state
+		assertEquals(readyChecks + 1, admin.readyChecks.get());
+	}
+
+	@Test
+	public void hangingConnectDoesNotBlockOtherApps() throws Exception {
+		startJmxServer();
+		FakeAdmin admin = new FakeAdmin();
+		admin.ready = true;
+		mbeanServer.registerMBean(new StandardMBean(admin, FakeAdminMBean.class), new ObjectName(ADMIN_OBJECT_NAME));
+
+		tracker = new SpringApplicationReadyStateTracker(SpringApplicationReadyStateTracker.NOTIFIED_POLLING_INTERVAL);
+		//The port is resolved while connecting, on the thread doing the check
+		otherMonitor = tracker.track(() -> {
+			try {
+				hangingConnect.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return port;
+		});
+		Thread.sleep(300);
+		monitor = tracker.track(() -> port);
+		assertBecomesReady(3000);
+		assertFalse(otherMonitor.getReady().getValue());
+	}
+
+	@Test
+	public void disposedMonitorStopsTracking() throws Exception {
+		startJmxServer();
+		monitor = new SpringApplicationReadyStateMonitor(() -> port);
+		monitor.dispose();
+
+		FakeAdmin admin = new FakeAdmin();
+		admin.ready = true;
+		mbeanServer.registerMBean(new StandardMBean(admin, FakeAdminMBean.class), new ObjectName(ADMIN_OBJECT_NAME));
+		Thread.sleep(1000);
+		assertFalse(monitor.getReady().getValue());
+	}
+
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.dash.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Provider;
+import javax.management.NotificationListener;
+
+import org.springframework.ide.eclipse.boot.launch.util.SpringApplicationLifeCycleClientManager;
+import org.springframework.ide.eclipse.boot.launch.util.SpringApplicationLifecycleClient;
+import org.springsource.ide.eclipse.commons.livexp.core.LiveExpression;
+import org.springsource.ide.eclipse.commons.livexp.core.LiveVariable;
+
+/**
+ * Tracks the 'ready' state of any number of spring applications using the
+ * JMX lifecycle bean protocol. A single scheduler thread times the checks of all
+ * tracked applications, and each tracked application keeps a single JMX connection
+ * until it becomes ready.
+ * <p>
+ * The checks themselves run on separate threads. Connecting to an application
+ * which is still starting up, or hangs, can block for a long time and must not
+ * hold up the checks of the other applications.
+ * <p>
+ * Where the application supports it, the tracker subscribes to JMX notifications
+ * (registration of the lifecycle bean and changes of its 'Ready' attribute) and
+ * checks the state as soon as one arrives. Polling is only used as a fallback,
+ * with a delay that starts short and backs off while the application keeps
+ * starting.
+ */
+public class SpringApplicationReadyStateTracker {
+
+	/**
+	 * Delay before the first check and after a notification was received.
+	 */
+	public static final long MIN_POLLING_INTERVAL = 100/*ms*/;
+
+	/**
+	 * Maximum polling delay while no connection to the application could be made yet.
+	 */
+	public static final long MAX_CONNECT_INTERVAL = 1000/*ms*/;
+
+	/**
+	 * Maximum polling delay once connected but without 'Ready' change notifications.
+	 */
+	public static final long MAX_POLLING_INTERVAL = SpringApplicationReadyStateMonitor.POLLING_INTERVAL;
+
+	/**
+	 * Polling delay when 'Ready' change notifications are received. Polling then
+	 * only serves as a safety net for lost notifications.
+	 */
+	public static final long NOTIFIED_POLLING_INTERVAL = 5000/*ms*/;
+
+	private static SpringApplicationReadyStateTracker instance;
+
+	public static synchronized SpringApplicationReadyStateTracker getInstance() {
+		if (instance==null) {
+			instance = new SpringApplicationReadyStateTracker(NOTIFIED_POLLING_INTERVAL);
+		}
+		return instance;
+	}
+
+	private final long notifiedPollingInterval;
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+			daemonThreads("Spring Boot ready state tracker"));
+
+	private final ExecutorService checker = Executors.newCachedThreadPool(
+			daemonThreads("Spring Boot ready state check"));
+
+	/**
+	 * Creates a tracker with its own threads. Use the shared {@link #getInstance()}
+	 * unless a test needs a different polling delay.
+	 *
+	 * @param notifiedPollingInterval polling delay once 'Ready' change notifications are received
+	 */
+	public SpringApplicationReadyStateTracker(long notifiedPollingInterval) {
+		this.notifiedPollingInterval = notifiedPollingInterval;
+	}
+
+	private static ThreadFactory daemonThreads(String name) {
+		return runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Start tracking the ready state of the application listening for JMX connections
+	 * on the given port.
+	 */
+	public ReadyStateMonitor track(Provider<Integer> jmxPort) {
+		TrackedApp app = new TrackedApp(new SpringApplicationLifeCycleClientManager(jmxPort));
+		app.schedule(MIN_POLLING_INTERVAL);
+		return app;
+	}
+
+	/**
+	 * Stops the threads of this tracker. Applications which are still tracked
+	 * won't be checked anymore. Not meant to be called on the shared instance.
+	 */
+	public void dispose() {
+		scheduler.shutdownNow();
+		checker.shutdownNow();
+	}
+
+	private class TrackedApp implements ReadyStateMonitor {
+
+		private final SpringApplicationLifeCycleClientManager clientManager;
+		private final LiveVariable<Boolean> ready = new LiveVariable<>(false);
+		private final NotificationListener listener = (notification, handback) -> checkNow();
+
+		// The fields below are only accessed by the running check, checks of an app never overlap
+		private SpringApplicationLifecycleClient subscribedClient;
+		private boolean readyNotifications;
+
+		// The fields below are guarded by this
+		private long interval = MIN_POLLING_INTERVAL;
+		private boolean checking;
+		private boolean checkAgain;
+		private ScheduledFuture<?> nextCheck;
+
+		private volatile boolean disposed;
+
+		TrackedApp(SpringApplicationLifeCycleClientManager clientManager) {
+			this.clientManager = clientManager;
+		}
+
+		@Override
+		public LiveExpression<Boolean> getReady() {
+			return ready;
+		}
+
+		@Override
+		public void dispose() {
+			disposed = true;
+			cancel();
+			clientManager.disposeClient();
+		}
+
+		private synchronized void schedule(long delay) {
+			// at most one pending check per app, also when notifications interleave with polls
+			cancel();
+			if (!disposed && !scheduler.isShutdown()) {
+				nextCheck = scheduler.schedule(this::start, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		private synchronized void cancel() {
+			if (nextCheck!=null) {
+				nextCheck.cancel(false);
+				nextCheck = null;
+			}
+		}
+
+		/**
+		 * Hands a check over to a checker thread, so that the scheduler thread never
+		 * waits for a JMX connection.
+		 */
+		private synchronized void start() {
+			nextCheck = null;
+			if (!disposed && !ready.getValue() && !checking && !checker.isShutdown()) {
+				checking = true;
+				checker.execute(this::check);
+			}
+		}
+
+		/**
+		 * Called when a notification arrives, replaces the pending poll with an
+		 * immediate check. A check which is running already is repeated once it is done,
+		 * as it may have read the state before the notification was sent.
+		 */
+		private synchronized void checkNow() {
+			cancel();
+			interval = MIN_POLLING_INTERVAL;
+			if (checking) {
+				checkAgain = true;
+			} else {
+				start();
+			}
+		}
+
+		private void check() {
+			boolean isReady = false;
+			SpringApplicationLifecycleClient client = null;
+			try {
+				client = clientManager.getLifeCycleClient();
+				if (client!=null) {
+					subscribe(client);
+					isReady = client.isReady();
+				}
+			} catch (Exception e) {
+				//Something went wrong asking client for ready state.
+				// most likely process died.
+				clientManager.disposeClient();
+				client = null;
+			}
+			if (client==null) {
+				subscribedClient = null;
+				readyNotifications = false;
+			}
+			if (isReady) {
+				ready.setValue(true);
+			}
+			synchronized (this) {
+				checking = false;
+				if (isReady || disposed) {
+					// the connection isn't needed anymore once the app is ready, and a
+					// connection made while the app was disposed must not leak
+					cancel();
+					clientManager.disposeClient();
+				} else if (checkAgain) {
+					checkAgain = false;
+					start();
+				} else if (client!=null && readyNotifications) {
+					schedule(notifiedPollingInterval);
+				} else {
+					long delay = interval;
+					long maxInterval = client==null ? MAX_CONNECT_INTERVAL : MAX_POLLING_INTERVAL;
+					interval = Math.min(interval * 2, maxInterval);
+					schedule(Math.min(delay, maxInterval));
+				}
+			}
+		}
+
+		/**
+		 * Subscribe to the notifications supported by the application, at most once
+		 * per connection.
+		 */
+		private void subscribe(SpringApplicationLifecycleClient client) throws Exception {
+			if (subscribedClient!=client) {
+				subscribedClient = client;
+				readyNotifications = false;
+				try {
+					client.addRegistrationListener(listener);
+				} catch (Exception e) {
+					//Notifications not supported, rely on polling only.
+				}
+			}
+			if (!readyNotifications) {
+				readyNotifications = client.addReadyListener(listener);
+			}
+		}
+	}
+
+}
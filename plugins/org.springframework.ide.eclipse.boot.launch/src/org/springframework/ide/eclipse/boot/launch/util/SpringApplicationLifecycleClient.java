@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013-2015 Pivotal Software, Inc.
+ * Copyright (c) 2013-2016 Pivotal Software, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,13 +12,19 @@ package org.springframework.ide.eclipse.boot.launch.util;
 
 import java.io.IOException;
 
+import javax.management.AttributeChangeNotificationFilter;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanException;
 import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
 import javax.management.MalformedObjectNameException;
+import javax.management.NotificationBroadcaster;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
+import javax.management.relation.MBeanServerNotificationFilter;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
@@ -87,6 +93,44 @@ public class SpringApplicationLifecycleClient {
 		}
 	}
 
+	/**
+	 * Register a listener that is notified when the lifecycle mbean gets registered
+	 * with the mbean server. This typically happens shortly before the application
+	 * becomes ready.
+	 * @throws Exception if the JMX service could not be contacted
+	 */
+	public void addRegistrationListener(NotificationListener listener) throws Exception {
+		MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+		filter.disableAllObjectNames();
+		filter.enableObjectName(this.objectName);
+		filter.disableAllTypes();
+		filter.enableType(MBeanServerNotification.REGISTRATION_NOTIFICATION);
+		this.connection.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener, filter, null);
+	}
+
+	/**
+	 * Register a listener that is notified when the 'Ready' attribute of the lifecycle
+	 * mbean changes. Only applications whose mbean emits attribute change notifications
+	 * support this.
+	 * @return {@code true} if the listener was registered, {@code false} if the mbean
+	 * is not (yet) available or doesn't emit notifications.
+	 * @throws Exception if the JMX service could not be contacted
+	 */
+	public boolean addReadyListener(NotificationListener listener) throws Exception {
+		try {
+			if (this.connection.isInstanceOf(this.objectName, NotificationBroadcaster.class.getName())) {
+				AttributeChangeNotificationFilter filter = new AttributeChangeNotificationFilter();
+				filter.enableAttribute("Ready");
+				this.connection.addNotificationListener(this.objectName, listener, filter, null);
+				return true;
+			}
+			return false;
+		}
+		catch (InstanceNotFoundException ex) {
+			return false; // Instance not available yet
+		}
+	}
+
 	public int getProperty(String prop, int defaultValue) throws InstanceNotFoundException, MBeanException, ReflectionException, IOException {
 		Object o = this.connection.invoke(this.objectName,"getProperty",
 				new String[] {prop},
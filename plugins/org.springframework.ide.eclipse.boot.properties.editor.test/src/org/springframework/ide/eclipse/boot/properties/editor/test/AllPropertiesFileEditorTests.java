@@ -28,6 +28,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	SpringPropertiesEditorTests.class,
 	TypeUtilTests.class,
 	FuzzyMapTests.class,
+	ConfigurationMetadataFragmentCacheTest.class,
 	TypeParserTest.class,
 
 	YamlASTTests.class,
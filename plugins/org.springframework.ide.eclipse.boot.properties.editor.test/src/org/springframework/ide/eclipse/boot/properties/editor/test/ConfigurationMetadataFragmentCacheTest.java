@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.properties.editor.test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.RawConfigurationMetadata;
+import org.springframework.ide.eclipse.boot.properties.editor.ConfigurationMetadataFragmentCache;
+
+import junit.framework.TestCase;
+
+/**
+ * Note: this test doesn't need to run as "JUnit plugin test". Can be run
+ * as simple JUnit test (no dependencies on Eclipse).
+ */
+public class ConfigurationMetadataFragmentCacheTest extends TestCase {
+
+	private static final String JSON =
+			"{\"groups\": [{\"name\": \"server\", \"type\": \"demo.ServerProperties\"}],\n" +
+			" \"properties\": [\n" +
+			"   {\"name\": \"server.port\", \"type\": \"java.lang.Integer\", \"sourceType\": \"demo.ServerProperties\"},\n" +
+			"   {\"name\": \"server.mode\", \"type\": \"java.lang.String\", \"sourceType\": \"demo.ServerProperties\"}\n" +
+			" ],\n" +
+			" \"hints\": [{\"name\": \"server.mode\", \"values\": [{\"value\": \"fast\"}, {\"value\": \"slow\"}],\n" +
+			"              \"providers\": [{\"name\": \"any\"}]}]\n" +
+			"}";
+
+	public void testParsedOnlyOnceForSameStamp() throws Exception {
+		ConfigurationMetadataFragmentCache cache = new ConfigurationMetadataFragmentCache();
+		CountingParser parser = new CountingParser();
+
+		cache.get("/some/file.jar", 100, 10, parser);
+		cache.get("/some/file.jar", 100, 10, parser);
+		assertEquals(1, parser.count.get());
+
+		cache.get("/some/file.jar", 101, 10, parser);
+		assertEquals(2, parser.count.get());
+		cache.get("/some/file.jar", 101, 11, parser);
+		assertEquals(3, parser.count.get());
+
+		cache.get("/other/file.jar", 101, 11, parser);
+		assertEquals(4, parser.count.get());
+		assertEquals(2, cache.size());
+
+		cache.remove("/some/file.jar");
+		assertEquals(1, cache.size());
+		cache.get("/some/file.jar", 101, 11, parser);
+		assertEquals(5, parser.count.get());
+	}
+
+	public void testLeastRecentlyUsedFragmentDropped() throws Exception {
+		ConfigurationMetadataFragmentCache cache = new ConfigurationMetadataFragmentCache(2);
+		CountingParser parser = new CountingParser();
+
+		cache.get("/a.jar", 1, 1, parser);
+		cache.get("/b.jar", 1, 1, parser);
+		cache.get("/a.jar", 1, 1, parser);
+		assertEquals(2, parser.count.get());
+
+		//Adding a third fragment drops '/b.jar' which was used least recently.
+		cache.get("/c.jar", 1, 1, parser);
+		assertEquals(2, cache.size());
+		cache.get("/a.jar", 1, 1, parser);
+		assertEquals(3, parser.count.get());
+		cache.get("/b.jar", 1, 1, parser);
+		assertEquals(4, parser.count.get());
+	}
+
+	public void testParsedMetadataReusable() throws Exception {
+		RawConfigurationMetadata parsed = parse(JSON);
+		for (int i = 0; i < 3; i++) {
+			ConfigurationMetadataRepository repo = ConfigurationMetadataRepositoryJsonBuilder.create()
+					.withRawMetadata(parsed)
+					.build();
+			assertEquals(2, repo.getAllProperties().size());
+			ConfigurationMetadataProperty mode = repo.getAllProperties().get("server.mode");
+			//Hints should not accumulate when the same parsed metadata is used repeatedly
+			assertEquals(2, mode.getValueHints().size());
+			assertEquals(1, mode.getValueProviders().size());
+			assertEquals(2, repo.getAllGroups().get("server").getSources().get("demo.ServerProperties").getProperties().size());
+		}
+	}
+
+	public void testRepositoriesDontShareProperties() throws Exception {
+		RawConfigurationMetadata parsed = parse(JSON);
+		ConfigurationMetadataRepository repo1 = ConfigurationMetadataRepositoryJsonBuilder.create().withRawMetadata(parsed).build();
+		ConfigurationMetadataRepository repo2 = ConfigurationMetadataRepositoryJsonBuilder.create().withRawMetadata(parsed).build();
+		assertNotSame(repo1.getAllProperties().get("server.port"), repo2.getAllProperties().get("server.port"));
+		assertEquals("port", repo1.getAllProperties().get("server.port").getName());
+		assertEquals("port", repo2.getAllProperties().get("server.port").getName());
+	}
+
+	private static RawConfigurationMetadata parse(String json) throws Exception {
+		return ConfigurationMetadataRepositoryJsonBuilder.create().parse("test", new ByteArrayInputStream(json.getBytes("UTF-8")));
+	}
+
+	private static class CountingParser implements Callable<List<RawConfigurationMetadata>> {
+		final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public List<RawConfigurationMetadata> call() throws Exception {
+			count.incrementAndGet();
+			return Collections.singletonList(parse(JSON));
+		}
+	}
+
+}
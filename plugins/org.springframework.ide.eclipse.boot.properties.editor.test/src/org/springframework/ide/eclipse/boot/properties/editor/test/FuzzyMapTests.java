@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Pivotal, Inc.
+ * Copyright (c) 2015, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -65,6 +65,80 @@ public class FuzzyMapTests extends TestCase {
 		);
 	}
 
+	public void testIndexedFindSameAsScanning() {
+		String[] keys = {
+				"server.port",
+				"server.address",
+				"spring.datasource.url",
+				"spring.datasource.username",
+				"spring.aop.proxy-target-class",
+				"spring.jpa.hibernate.ddl-auto",
+				"logging.level",
+				"aaa",
+				"piano.sorting",
+				"zspring",
+				"asprouting"
+		};
+		String[] patterns = {
+				"s", "a", "aa", "aaa", "aaaa", "port", "sport", "spox", "sdu", "spring.data",
+				"ddl", "zz", "level", "x", "\u00e9", "s.p", "server.port.more"
+		};
+		TestMap map = new TestMap(keys);
+		for (String pattern : patterns) {
+			List<Match<String>> found = map.find(pattern);
+			int expectedCount = 0;
+			for (String key : keys) {
+				double score = FuzzyMatcher.matchScore(pattern, key);
+				if (score!=0.0) {
+					expectedCount++;
+					Match<String> match = findMatch(found, key);
+					assertNotNull("'"+key+"' should match '"+pattern+"'", match);
+					assertEquals(score, match.score);
+				}
+			}
+			assertEquals(pattern, expectedCount, found.size());
+		}
+	}
+
+	public void testFindAfterAdd() {
+		TestMap map = new TestMap("server.port");
+		assertEquals(0, map.find("spring").size());
+		map.add("spring.boot");
+		assertEquals(1, map.find("spring").size());
+		assertEquals("spring.boot", map.find("spring").get(0).data);
+	}
+
+	public void testFindTopK() {
+		String[] datas = {
+				"port",
+				"server.port",
+				"server.port-mapping",
+				"piano.sorting"
+		};
+		TestMap map = new TestMap(datas);
+		for (int limit = 0; limit <= datas.length+1; limit++) {
+			List<Match<String>> found = map.find("port", limit);
+			assertEquals(Math.min(limit, datas.length), found.size());
+			for (int i = 0; i < found.size(); i++) {
+				assertEquals(datas[i], found.get(i).data);
+			}
+		}
+		//ties are broken alphabetically, as with a stable sort of 'find(String)'
+		List<Match<String>> found = map.find("", 2);
+		assertEquals(2, found.size());
+		assertEquals("piano.sorting", found.get(0).data);
+		assertEquals("port", found.get(1).data);
+	}
+
+	private Match<String> findMatch(List<Match<String>> matches, String data) {
+		for (Match<String> match : matches) {
+			if (match.data.equals(data)) {
+				return match;
+			}
+		}
+		return null;
+	}
+
 	public class TestMap extends FuzzyMap<String> {
 		public TestMap(String... entries) {
 			for (String e : entries) {
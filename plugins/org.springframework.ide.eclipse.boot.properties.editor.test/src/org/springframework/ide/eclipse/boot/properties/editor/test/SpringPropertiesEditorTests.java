@@ -28,6 +28,7 @@ import org.springframework.ide.eclipse.boot.properties.editor.reconciling.Spring
 import org.springframework.ide.eclipse.boot.properties.editor.test.ApplicationYamlEditorTestHarness.YamlEditor;
 import org.springframework.ide.eclipse.boot.properties.editor.util.AptUtils;
 import org.springframework.ide.eclipse.boot.util.JavaProjectUtil;
+import org.springframework.ide.eclipse.editor.support.reconcile.IReconcileEngine;
 import org.springframework.ide.eclipse.editor.support.reconcile.ReconcileProblem;
 
 import com.google.common.collect.ImmutableList;
@@ -1432,6 +1433,41 @@ public class SpringPropertiesEditorTests extends SpringPropertiesEditorTestHarne
 		assertProblems(editor, " |demo.Color");
 	}
 
+	public void testIncrementalReconcile() throws Exception {
+		data("some.property", "java.lang.Integer", null, "yada");
+		data("some.other.property", "java.lang.String", null, "yada");
+
+		MockEditor editor = newEditor(
+				"some.property=not-a-number\n" +
+				"some.other.property=stuff\n"
+		);
+		IReconcileEngine reconciler = createReconcileEngine();
+		assertProblems(reconciler, editor,
+				"not-a-number|Expecting 'int'"
+		);
+
+		//Problems of unchanged entries move along with the text
+		editor.getDocument().replace(0, 0, "bogus=stuff\n");
+		assertProblems(reconciler, editor,
+				"bogus|unknown property",
+				"not-a-number|Expecting 'int'"
+		);
+
+		//An edit can make unchanged entries duplicates
+		editor.getDocument().replace(0, "bogus".length(), "some.other.property");
+		assertProblems(reconciler, editor,
+				"some.other.property|Duplicate",
+				"not-a-number|Expecting 'int'",
+				"some.other.property|Duplicate"
+		);
+
+		editor.getDocument().replace(editor.startOf("not-a-number"), "not-a-number".length(), "123");
+		assertProblems(reconciler, editor,
+				"some.other.property|Duplicate",
+				"some.other.property|Duplicate"
+		);
+	}
+
 	public void testReconcileDuplicateKey() throws Exception {
 		MockEditor editor;
 		data("some.property", "java.lang.String", null, "yada");
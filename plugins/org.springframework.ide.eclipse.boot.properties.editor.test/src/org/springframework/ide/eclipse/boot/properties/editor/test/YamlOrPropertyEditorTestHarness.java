@@ -674,7 +674,10 @@ public abstract class YamlOrPropertyEditorTestHarness extends TestCase {
 	}
 
 	public List<ReconcileProblem> reconcile(MockEditor editor) {
-		IReconcileEngine reconciler = createReconcileEngine();
+		return reconcile(createReconcileEngine(), editor);
+	}
+
+	public List<ReconcileProblem> reconcile(IReconcileEngine reconciler, MockEditor editor) {
 		MockProblemCollector problems=new MockProblemCollector(ignoredTypes);
 		reconciler.reconcile(editor.document, problems, new NullProgressMonitor());
 		return problems.getAllProblems();
@@ -729,7 +732,16 @@ public abstract class YamlOrPropertyEditorTestHarness extends TestCase {
 	 */
 	public void assertProblems(MockEditor editor, String... expectedProblems)
 			throws BadLocationException {
-		List<ReconcileProblem> actualProblems = reconcile(editor);
+		assertProblems(createReconcileEngine(), editor, expectedProblems);
+	}
+
+	/**
+	 * Like {@link #assertProblems(MockEditor, String...)} but uses a given reconciler, so that
+	 * a reconciler can be checked over a sequence of edits.
+	 */
+	public void assertProblems(IReconcileEngine reconciler, MockEditor editor, String... expectedProblems)
+			throws BadLocationException {
+		List<ReconcileProblem> actualProblems = reconcile(reconciler, editor);
 		Collections.sort(actualProblems, PROBLEM_COMPARATOR);
 		String bad = null;
 		if (actualProblems.size()!=expectedProblems.length) {
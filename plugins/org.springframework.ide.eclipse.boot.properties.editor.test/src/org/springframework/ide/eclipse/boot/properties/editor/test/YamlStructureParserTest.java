@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Pivotal, Inc.
+ * Copyright (c) 2015, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,18 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.boot.properties.editor.test;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.regex.Pattern;
 
+import org.eclipse.jface.text.IDocument;
 import org.springframework.ide.eclipse.editor.support.util.DocumentUtil;
+import org.springframework.ide.eclipse.editor.support.yaml.YamlDocument;
+import org.springframework.ide.eclipse.editor.support.yaml.ast.NodeRef;
+import org.springframework.ide.eclipse.editor.support.yaml.ast.NodeUtil;
+import org.springframework.ide.eclipse.editor.support.yaml.ast.YamlASTProvider;
+import org.springframework.ide.eclipse.editor.support.yaml.ast.YamlFileAST;
+import org.springframework.ide.eclipse.editor.support.yaml.path.KeyAliases;
 import org.springframework.ide.eclipse.editor.support.yaml.path.YamlPath;
 import org.springframework.ide.eclipse.editor.support.yaml.path.YamlPathSegment;
 import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureParser;
@@ -22,6 +30,10 @@ import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructu
 import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureParser.SKeyNode;
 import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureParser.SNode;
 import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureParser.SRootNode;
+import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureProvider;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.nodes.Node;
 
 public class YamlStructureParserTest extends ApplicationYamlEditorTestHarness {
 
@@ -155,6 +167,141 @@ public class YamlStructureParserTest extends ApplicationYamlEditorTestHarness {
 		);
 	}
 
+	public void testIncrementalParse() throws Exception {
+		MockYamlEditor editor = new YamlEditor(
+				"world:\n" +
+				"  europe:\n" +
+				"    france: cheese\n" +
+				"---\n"+
+				"spring:\n" +
+				"  profiles: canada\n" +
+				"  - montreal\n" +
+				"---\n" +
+				"moon:\n" +
+				"  moonbase-alfa:\n" +
+				"    moonstone\n"
+		);
+		IDocument doc = editor.getDocument();
+		YamlStructureProvider provider = YamlStructureProvider.incremental(KeyAliases.NONE);
+		assertIncrementalParse(provider, doc);
+
+		//edit in the middle: the first document is reused as is, the last one is moved
+		doc.replace(doc.get().indexOf("montreal"), 0, "- toronto\n  ");
+		assertIncrementalParse(provider, doc);
+
+		//edit in front: everything after it moves
+		doc.replace(doc.get().indexOf("cheese"), 0, "brie and ");
+		assertIncrementalParse(provider, doc);
+
+		//add and remove documents
+		doc.replace(doc.get().indexOf("moon:"), 0, "sun:\n  hot: true\n---\n");
+		assertIncrementalParse(provider, doc);
+		doc.replace(0, doc.get().indexOf("spring:"), "");
+		assertIncrementalParse(provider, doc);
+	}
+
+	public void testIncrementalAST() throws Exception {
+		MockYamlEditor editor = new YamlEditor(
+				"world:\n" +
+				"  europe:\n" +
+				"    france: cheese\n" +
+				"---\n"+
+				"spring:\n" +
+				"  profiles: [canada, montreal]\n" +
+				"---\n" +
+				"moon: &moon\n" +
+				"  moonbase-alfa: moonstone\n" +
+				"base: *moon\n"
+		);
+		IDocument doc = editor.getDocument();
+		YamlASTProvider provider = new YamlASTProvider(yaml);
+		assertIncrementalAST(provider, doc);
+
+		//edit in the middle: the first document is reused as is, the last one is moved
+		doc.replace(doc.get().indexOf("montreal"), 0, "toronto, ");
+		assertIncrementalAST(provider, doc);
+
+		//edit that adds lines in front: everything after it moves
+		doc.replace(doc.get().indexOf("cheese"), 0, "\n      brie and ");
+		assertIncrementalAST(provider, doc);
+
+		//add and remove documents
+		doc.replace(doc.get().indexOf("moon:"), 0, "sun:\n  hot: true\n---\n");
+		assertIncrementalAST(provider, doc);
+		doc.replace(0, doc.get().indexOf("spring:"), "");
+		assertIncrementalAST(provider, doc);
+	}
+
+	public void testIncrementalASTSyntaxError() throws Exception {
+		MockYamlEditor editor = new YamlEditor(
+				"world:\n" +
+				"  europe:\n" +
+				"    france: cheese\n" +
+				"---\n"+
+				"spring:\n" +
+				"  profiles: [canada, montreal]\n" +
+				"---\n" +
+				"moon:\n" +
+				"  moonbase-alfa: moonstone\n"
+		);
+		IDocument doc = editor.getDocument();
+		YamlASTProvider provider = new YamlASTProvider(yaml);
+		assertIncrementalAST(provider, doc);
+
+		//a syntax error in the last document is reported at its position in the whole document
+		doc.replace(doc.get().indexOf("  moonbase-alfa"), 0, "  base: here\n    crater: deep\n");
+		MarkedYAMLException expected = null;
+		try {
+			for (Node node : yaml.composeAll(new StringReader(doc.get()))) {
+				assertNotNull(node);
+			}
+			fail("Expected a syntax error");
+		} catch (MarkedYAMLException e) {
+			expected = e;
+		}
+		try {
+			provider.getAST(doc);
+			fail("Expected a syntax error");
+		} catch (MarkedYAMLException e) {
+			assertEquals(mark(expected.getProblemMark()), mark(e.getProblemMark()));
+			assertTrue(e.getProblemMark().getIndex() > doc.get().indexOf("moon:"));
+		}
+
+		//fixing the error parses incrementally again
+		doc.replace(doc.get().indexOf("    crater"), 2, "");
+		assertIncrementalAST(provider, doc);
+	}
+
+	private void assertIncrementalAST(YamlASTProvider provider, IDocument doc) throws Exception {
+		StringBuilder full = new StringBuilder();
+		for (Node node : yaml.composeAll(new StringReader(doc.get()))) {
+			dump(node, full);
+		}
+		StringBuilder incremental = new StringBuilder();
+		for (Node node : provider.getAST(doc).getNodes()) {
+			dump(node, incremental);
+		}
+		assertEquals(full.toString(), incremental.toString());
+	}
+
+	private void dump(Node node, StringBuilder out) {
+		out.append(node.getNodeId()).append(' ').append(NodeUtil.asScalar(node)).append(' ')
+			.append(mark(node.getStartMark())).append('-').append(mark(node.getEndMark())).append('\n');
+		for (NodeRef<?> child : YamlFileAST.getChildren(node)) {
+			dump(child.get(), out);
+		}
+	}
+
+	private String mark(Mark mark) {
+		return mark.getIndex()+"("+mark.getLine()+":"+mark.getColumn()+")";
+	}
+
+	private void assertIncrementalParse(YamlStructureProvider provider, IDocument doc) throws Exception {
+		SRootNode incremental = provider.getStructure(new YamlDocument(doc, provider));
+		SRootNode full = new YamlStructureParser(new YamlDocument(doc, provider), KeyAliases.NONE).parse();
+		assertEquals(full.toString(), incremental.toString());
+		assertSame(incremental, provider.getStructure(new YamlDocument(doc, provider)));
+	}
 
 	public void testSequenceBasic() throws Exception {
 		MockYamlEditor editor;
@@ -31,4 +31,11 @@ public class ApplicationYamlStructureProvider {
 
 	public static final YamlStructureProvider INSTANCE = YamlStructureProvider.withAliases(KEY_ALIASES);
 
+	/**
+	 * Create a provider that parses the document of a single editor incrementally.
+	 */
+	public static YamlStructureProvider incremental() {
+		return YamlStructureProvider.incremental(KEY_ALIASES);
+	}
+
 }
@@ -89,6 +89,39 @@ public final class ConfigurationMetadataRepositoryJsonBuilder {
 		return this;
 	}
 
+	/**
+	 * Parse the specified {@link InputStream} json document using the default charset,
+	 * without adding it to this builder. The result can be added to any number of
+	 * builders with {@link #withRawMetadata(RawConfigurationMetadata)}, so that a
+	 * document that is used for several repositories only needs to be parsed once.
+	 * <p>
+	 * Leaves the stream open when done.
+	 * @param origin optional information object to help identify where the inputstream came from
+	 * @param inputStream the source input stream
+	 * @return the parsed metadata
+	 * @throws IOException in case of I/O errors
+	 */
+	public RawConfigurationMetadata parse(Object origin, InputStream inputStream)
+			throws IOException {
+		if (inputStream == null) {
+			throw new IllegalArgumentException("InputStream must not be null.");
+		}
+		return parseRaw(origin, inputStream, this.defaultCharset);
+	}
+
+	/**
+	 * Add the content of previously {@link #parse(Object, InputStream) parsed} metadata.
+	 * If this metadata repository holds items that were loaded previously, these are
+	 * ignored. The given metadata itself is not modified.
+	 * @param metadata the parsed metadata
+	 * @return this builder
+	 */
+	public ConfigurationMetadataRepositoryJsonBuilder withRawMetadata(
+			RawConfigurationMetadata metadata) {
+		this.rawDatas.add(metadata.copy());
+		return this;
+	}
+
 	/**
 	 * Build a {@link ConfigurationMetadataRepository} with the current state of this
 	 * builder.
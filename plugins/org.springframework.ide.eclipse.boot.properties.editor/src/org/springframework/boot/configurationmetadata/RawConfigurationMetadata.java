@@ -25,7 +25,7 @@ import java.util.List;
  * @author Stephane Nicoll
  * @since 1.3.0
  */
-class RawConfigurationMetadata {
+public class RawConfigurationMetadata {
 
 	private final Object origin;
 
@@ -91,6 +91,41 @@ class RawConfigurationMetadata {
 		}
 	}
 
+	/**
+	 * Create a copy of this instance that can be used to initialize a repository. Building
+	 * a repository modifies the sources and items it is built from, so a parsed instance
+	 * that is reused for several repositories must never be used directly.
+	 * @return a copy with fresh sources and items
+	 */
+	RawConfigurationMetadata copy() {
+		List<ConfigurationMetadataSource> sources = new ArrayList<ConfigurationMetadataSource>(this.sources.size());
+		for (ConfigurationMetadataSource source : this.sources) {
+			ConfigurationMetadataSource copy = new ConfigurationMetadataSource();
+			copy.setGroupId(source.getGroupId());
+			copy.setType(source.getType());
+			copy.setDescription(source.getDescription());
+			copy.setShortDescription(source.getShortDescription());
+			copy.setSourceType(source.getSourceType());
+			copy.setSourceMethod(source.getSourceMethod());
+			sources.add(copy);
+		}
+		List<ConfigurationMetadataItem> items = new ArrayList<ConfigurationMetadataItem>(this.items.size());
+		for (ConfigurationMetadataItem item : this.items) {
+			ConfigurationMetadataItem copy = new ConfigurationMetadataItem();
+			copy.setId(item.getId());
+			copy.setType(item.getType());
+			copy.setDescription(item.getDescription());
+			copy.setShortDescription(item.getShortDescription());
+			copy.setDefaultValue(item.getDefaultValue());
+			copy.setDeprecation(item.getDeprecation());
+			copy.setSourceType(item.getSourceType());
+			copy.setSourceMethod(item.getSourceMethod());
+			items.add(copy);
+		}
+		// hints are only read when building a repository, so they can be shared
+		return new RawConfigurationMetadata(this.origin, sources, items, this.hints);
+	}
+
 	private static boolean hasLength(String string) {
 		return (string != null && string.length() > 0);
 	}
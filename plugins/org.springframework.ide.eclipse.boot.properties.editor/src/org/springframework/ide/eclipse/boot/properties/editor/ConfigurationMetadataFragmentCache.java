@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.properties.editor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.RawConfigurationMetadata;
+
+/**
+ * Keeps the parsed metadata 'fragments' read from jar files and project output folders,
+ * so that rebuilding the metadata of a project only parses the metadata files that
+ * changed since they were read last. Fragments are shared between all projects, so a
+ * jar that is on the classpath of many projects is only parsed once.
+ * <p>
+ * A fragment is identified by the path of the file it was read from together with
+ * a timestamp and size of that file. When either of these changes, the fragment is
+ * parsed again.
+ * <p>
+ * The cache holds at most a fixed number of fragments; when it is full the least recently
+ * used fragment is dropped, so fragments of jars that are no longer on any classpath
+ * (e.g. after a dependency upgrade) don't pile up.
+ * <p>
+ * Fragments must be added to a builder with
+ * {@link ConfigurationMetadataRepositoryJsonBuilder#withRawMetadata(RawConfigurationMetadata)}
+ * which leaves the cached fragment untouched.
+ */
+public class ConfigurationMetadataFragmentCache {
+
+	private static class Fragment {
+		final long timestamp;
+		final long size;
+		final List<RawConfigurationMetadata> metadata;
+
+		Fragment(long timestamp, long size, List<RawConfigurationMetadata> metadata) {
+			this.timestamp = timestamp;
+			this.size = size;
+			this.metadata = metadata;
+		}
+	}
+
+	/**
+	 * Default maximum number of fragments, enough for the classpaths of a large workspace.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 2000;
+
+	private final Map<String, Fragment> fragments;
+
+	public ConfigurationMetadataFragmentCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	public ConfigurationMetadataFragmentCache(final int maxSize) {
+		//Access ordered, so that the eldest entry is the least recently used one.
+		this.fragments = new LinkedHashMap<String, Fragment>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Fragment> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Get the metadata parsed from given file. The metadata is parsed by calling the
+	 * 'parser' unless it is already cached for the same timestamp and size of the file.
+	 * <p>
+	 * A file that contains no metadata (e.g. a jar without 'spring-configuration-metadata.json')
+	 * should be represented by an empty list, so that it doesn't need to be opened again.
+	 */
+	public List<RawConfigurationMetadata> get(String path, long timestamp, long size,
+			Callable<List<RawConfigurationMetadata>> parser) throws Exception {
+		synchronized (fragments) {
+			Fragment fragment = fragments.get(path);
+			if (fragment!=null && fragment.timestamp==timestamp && fragment.size==size) {
+				return fragment.metadata;
+			}
+		}
+		//Parsing the same file in two threads at the same time is harmless (and rare), so
+		// parse without holding any lock.
+		List<RawConfigurationMetadata> metadata = parser.call();
+		synchronized (fragments) {
+			fragments.put(path, new Fragment(timestamp, size, metadata));
+		}
+		return metadata;
+	}
+
+	public void remove(String path) {
+		synchronized (fragments) {
+			fragments.remove(path);
+		}
+	}
+
+	public void clear() {
+		synchronized (fragments) {
+			fragments.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (fragments) {
+			return fragments.size();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Pivotal, Inc.
+ * Copyright (c) 2014, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,10 +11,16 @@
 package org.springframework.ide.eclipse.boot.properties.editor;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.TreeMap;
 
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
@@ -28,6 +34,12 @@ import org.springframework.ide.eclipse.editor.support.util.StringUtil;
  * <p>
  * The collection can then be searched for items who's key matches
  * simple 'fuzzy' patterns.
+ * <p>
+ * To avoid scoring every entry on every search, the keys are indexed by the
+ * (ordered) pairs of characters they contain as a subsequence. A key can only
+ * match a pattern if it contains every pair of consecutive pattern characters,
+ * so only keys that contain all of these pairs get scored. The index is built
+ * on the first search after entries have been added.
  */
 public abstract class FuzzyMap<E> implements Iterable<E> {
 
@@ -69,14 +81,20 @@ public abstract class FuzzyMap<E> implements Iterable<E> {
 
 	private TreeMap<String,E> entries = new TreeMap<String, E>();
 
+	/**
+	 * Index of the current entries, null if it needs to be (re)built.
+	 */
+	private SubsequenceIndex<E> index = null;
+
 	protected abstract String getKey(E entry);
 
-	public void add(E value) {
+	public synchronized void add(E value) {
 		//This assumes no two entries have the same id.
 		String key = getKey(value);
 		E existing = entries.get(key);
 		if (existing==null) {
 			entries.put(getKey(value), value);
+			index = null;
 		} else {
 			SpringPropertiesEditorPlugin.warning(FuzzyMap.class.getName()+": Multiple entries for key "+key+" some entries discarded");
 		}
@@ -100,19 +118,74 @@ public abstract class FuzzyMap<E> implements Iterable<E> {
 			}
 			return matches;
 		} else {
-			//TODO: optimize somehow with a smarter index? (right now searches all map entries sequentially)
+			SubsequenceIndex<E> index = getIndex();
+			BitSet candidates = index.getCandidates(pattern);
 			ArrayList<Match<E>> matches = new ArrayList<Match<E>>();
-			for (Entry<String, E> e : entries.entrySet()) {
-				String key = e.getKey();
-				double score = FuzzyMatcher.matchScore(pattern, key);
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i+1)) {
+				double score = FuzzyMatcher.matchScore(pattern, index.keys[i]);
 				if (score!=0.0) {
-					matches.add(new Match<E>(pattern, score, e.getValue()));
+					matches.add(new Match<E>(pattern, score, index.values[i]));
 				}
 			}
 			return matches;
 		}
 	}
 
+	/**
+	 * Search for pattern and only return the (at most) 'limit' best matches.
+	 * <p>
+	 * Unlike {@link #find(String)} the returned list is sorted, best score first.
+	 * Matches with the same score are sorted lexicographically, so the result is the
+	 * same as taking the first 'limit' elements of the result of {@link #find(String)}
+	 * after sorting it with a stable sort.
+	 */
+	public List<Match<E>> find(String pattern, int limit) {
+		if (limit<=0) {
+			return Collections.emptyList();
+		}
+		SubsequenceIndex<E> index = getIndex();
+		//Heap of the best matches found so far, the worst of them on top.
+		PriorityQueue<RankedMatch<E>> best = new PriorityQueue<RankedMatch<E>>(Math.max(1, Math.min(limit, index.keys.length)), WORST_FIRST);
+		if ("".equals(pattern)) {
+			for (int i = 0; i < index.keys.length && i < limit; i++) {
+				best.add(new RankedMatch<E>(i, new Match<E>(pattern, 1.0, index.values[i])));
+			}
+		} else {
+			BitSet candidates = index.getCandidates(pattern);
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i+1)) {
+				double score = FuzzyMatcher.matchScore(pattern, index.keys[i]);
+				if (score!=0.0) {
+					if (best.size()<limit) {
+						best.add(new RankedMatch<E>(i, new Match<E>(pattern, score, index.values[i])));
+					} else if (score>best.peek().match.score) {
+						//Candidates are visited in key order, so on equal score the match already in the heap wins.
+						best.poll();
+						best.add(new RankedMatch<E>(i, new Match<E>(pattern, score, index.values[i])));
+					}
+				}
+			}
+		}
+		Match<E>[] sorted = newMatchArray(best.size());
+		for (int i = sorted.length-1; i >= 0; i--) {
+			sorted[i] = best.poll().match;
+		}
+		List<Match<E>> matches = new ArrayList<Match<E>>(sorted.length);
+		Collections.addAll(matches, sorted);
+		return matches;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> Match<E>[] newMatchArray(int size) {
+		return new Match[size];
+	}
+
+	private synchronized SubsequenceIndex<E> getIndex() {
+		if (index==null) {
+			index = new SubsequenceIndex<E>(entries);
+		}
+		return index;
+	}
+
 	/**
 	 * Searches the index for the longest string which is both
 	 *  - a prefix of propertyName
@@ -165,4 +238,141 @@ public abstract class FuzzyMap<E> implements Iterable<E> {
 		return entries.size();
 	}
 
+	private static final Comparator<RankedMatch<?>> WORST_FIRST = new Comparator<RankedMatch<?>>() {
+		public int compare(RankedMatch<?> m1, RankedMatch<?> m2) {
+			int byScore = Double.compare(m1.match.score, m2.match.score);
+			if (byScore!=0) {
+				return byScore;
+			}
+			//Same score: the one that comes later in key order is worse
+			return m2.position - m1.position;
+		}
+	};
+
+	private static class RankedMatch<E> {
+		final int position;
+		final Match<E> match;
+
+		RankedMatch(int position, Match<E> match) {
+			this.position = position;
+			this.match = match;
+		}
+	}
+
+	/**
+	 * Immutable snapshot of the entries of a FuzzyMap, sorted by key, together with
+	 * an index of the ordered character pairs each key contains.
+	 * <p>
+	 * A key contains the pair (a,b) if 'a' occurs somewhere before 'b' in the key.
+	 * For every pair (and every single character) the index keeps a bitset of the
+	 * positions of the keys that contain it.
+	 */
+	private static class SubsequenceIndex<E> {
+
+		final String[] keys;
+		final E[] values;
+
+		/**
+		 * Maps each character occurring in any of the keys to a small number.
+		 */
+		private final Map<Character, Integer> alphabet = new HashMap<Character, Integer>();
+
+		/**
+		 * Keys containing a given character, indexed by alphabet number.
+		 */
+		private final BitSet[] chars;
+
+		/**
+		 * Keys containing a given ordered character pair, indexed by
+		 * 'first * alphabet size + second'. Null if no key contains the pair.
+		 */
+		private final BitSet[] pairs;
+
+		@SuppressWarnings("unchecked")
+		SubsequenceIndex(TreeMap<String, E> entries) {
+			int size = entries.size();
+			keys = new String[size];
+			values = (E[]) new Object[size];
+			int i = 0;
+			for (Entry<String, E> e : entries.entrySet()) {
+				keys[i] = e.getKey();
+				values[i] = e.getValue();
+				for (int j = 0; j < keys[i].length(); j++) {
+					char c = keys[i].charAt(j);
+					if (!alphabet.containsKey(c)) {
+						alphabet.put(c, alphabet.size());
+					}
+				}
+				i++;
+			}
+
+			int alphabetSize = alphabet.size();
+			chars = new BitSet[alphabetSize];
+			pairs = new BitSet[alphabetSize * alphabetSize];
+			int[] seen = new int[alphabetSize]; //distinct characters seen so far in the current key
+			boolean[] isSeen = new boolean[alphabetSize];
+			for (int k = 0; k < size; k++) {
+				String key = keys[k];
+				int seenCount = 0;
+				for (int j = 0; j < key.length(); j++) {
+					int c = alphabet.get(key.charAt(j));
+					for (int s = 0; s < seenCount; s++) {
+						bits(pairs, seen[s] * alphabetSize + c).set(k);
+					}
+					if (!isSeen[c]) {
+						isSeen[c] = true;
+						seen[seenCount++] = c;
+						bits(chars, c).set(k);
+					}
+				}
+				for (int s = 0; s < seenCount; s++) {
+					isSeen[seen[s]] = false;
+				}
+			}
+		}
+
+		private static BitSet bits(BitSet[] sets, int i) {
+			BitSet bits = sets[i];
+			if (bits==null) {
+				bits = sets[i] = new BitSet();
+			}
+			return bits;
+		}
+
+		/**
+		 * Returns the positions of all keys that may match the given (non empty) pattern.
+		 * Keys that are not returned are guaranteed not to match.
+		 */
+		BitSet getCandidates(String pattern) {
+			int[] codes = new int[pattern.length()];
+			for (int i = 0; i < codes.length; i++) {
+				Integer code = alphabet.get(pattern.charAt(i));
+				if (code==null) {
+					return new BitSet();
+				}
+				codes[i] = code;
+			}
+			if (codes.length==1) {
+				BitSet bits = chars[codes[0]];
+				return bits==null ? new BitSet() : (BitSet) bits.clone();
+			}
+			BitSet candidates = null;
+			for (int i = 1; i < codes.length; i++) {
+				BitSet bits = pairs[codes[i-1] * chars.length + codes[i]];
+				if (bits==null) {
+					return new BitSet();
+				}
+				if (candidates==null) {
+					candidates = (BitSet) bits.clone();
+				} else {
+					candidates.and(bits);
+					if (candidates.isEmpty()) {
+						break;
+					}
+				}
+			}
+			return candidates;
+		}
+	}
+
 }
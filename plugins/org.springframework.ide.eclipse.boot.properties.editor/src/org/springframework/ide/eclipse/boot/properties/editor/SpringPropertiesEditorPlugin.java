@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Pivotal, Inc.
+ * Copyright (c) 2014, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -53,6 +53,12 @@ public class SpringPropertiesEditorPlugin extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		synchronized (SpringPropertiesEditorPlugin.class) {
+			if (indexManager!=null) {
+				indexManager.stop();
+				indexManager = null;
+			}
+		}
 		plugin = null;
 		super.stop(context);
 	}
@@ -85,7 +91,7 @@ public class SpringPropertiesEditorPlugin extends AbstractUIPlugin {
 
 	private static SpringPropertiesIndexManager indexManager;
 
-	public static SpringPropertiesIndexManager getIndexManager() {
+	public static synchronized SpringPropertiesIndexManager getIndexManager() {
 		if (indexManager==null) {
 			indexManager = new SpringPropertiesIndexManager(ValueProviderRegistry.getDefault());
 		}
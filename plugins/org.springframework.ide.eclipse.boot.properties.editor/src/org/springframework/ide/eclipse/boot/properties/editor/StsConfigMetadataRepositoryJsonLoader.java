@@ -15,6 +15,10 @@ import static org.springframework.ide.eclipse.boot.properties.editor.SpringPrope
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
@@ -30,11 +34,15 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepository;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.configurationmetadata.RawConfigurationMetadata;
 import org.springframework.ide.eclipse.boot.util.FileUtil;
 
 /**
  * Load a {@link ConfigMetadataRepository} from the content of an eclipse
  * projects classpath.
+ * <p>
+ * The metadata parsed from each jar and output folder is kept in a {@link ConfigurationMetadataFragmentCache},
+ * so that loading the metadata again only parses those files that changed since.
  *
  * @author Kris De Volder
  */
@@ -60,8 +68,20 @@ public class StsConfigMetadataRepositoryJsonLoader {
 		ADDITIONAL_SPRING_CONFIGURATION_METADATA_JSON
 	};
 
+	/**
+	 * Parsed metadata of jars and project output folders, shared by all loaders.
+	 */
+	private static final ConfigurationMetadataFragmentCache FRAGMENTS = new ConfigurationMetadataFragmentCache();
+
 	private ConfigurationMetadataRepositoryJsonBuilder builder = ConfigurationMetadataRepositoryJsonBuilder.create();
 
+	/**
+	 * Drop all cached metadata fragments.
+	 */
+	public static void clearCache() {
+		FRAGMENTS.clear();
+	}
+
 	/**
 	 * Load the {@link ConfigMetadataRepository} with the metadata of the current
 	 * classpath using the {@link #DEFAULT_LOCATION_PATTERN}. If the same config
@@ -122,56 +142,78 @@ public class StsConfigMetadataRepositoryJsonLoader {
 		}
 	}
 
-	private void loadFromJsonFile(IFile mdf) {
+	private void loadFromJsonFile(final IFile mdf) {
 		if (mdf.exists()) {
-			InputStream is = null;
 			try {
-				is = mdf.getContents(true);
-				loadFromInputStream(mdf, is);
+				IPath location = mdf.getLocation();
+				long size = location==null ? -1 : location.toFile().length();
+				List<RawConfigurationMetadata> metadata = FRAGMENTS.get(mdf.getFullPath().toString(), mdf.getModificationStamp(), size,
+						new Callable<List<RawConfigurationMetadata>>() {
+							public List<RawConfigurationMetadata> call() throws Exception {
+								InputStream is = mdf.getContents(true);
+								try {
+									return Collections.singletonList(parse(mdf, is));
+								} finally {
+									try {
+										is.close();
+									} catch (IOException e) {
+										//ignore
+									}
+								}
+							}
+						}
+				);
+				addAll(metadata);
 			} catch (Exception e) {
 				SpringPropertiesEditorPlugin.log(e);
-			} finally {
-				if (is!=null) {
-					try {
-						is.close();
-					} catch (IOException e) {
-						//ignore
-					}
-				}
 			}
 		}
 	}
 
-	private void loadFromJar(File f) {
+	private void loadFromJar(final File f) {
+		try {
+			List<RawConfigurationMetadata> metadata = FRAGMENTS.get(f.getAbsolutePath(), f.lastModified(), f.length(),
+					new Callable<List<RawConfigurationMetadata>>() {
+						public List<RawConfigurationMetadata> call() throws Exception {
+							return parseJar(f);
+						}
+					}
+			);
+			addAll(metadata);
+		} catch (Throwable e) {
+			SpringPropertiesEditorPlugin.log(e);
+		}
+	}
+
+	private List<RawConfigurationMetadata> parseJar(File f) throws IOException {
 		debug("load from jar: "+f);
-		JarFile jarFile = null;
+		List<RawConfigurationMetadata> metadata = new ArrayList<>();
+		JarFile jarFile = new JarFile(f);
 		try {
-			jarFile = new JarFile(f);
 			//jarDump(jarFile);
 			for (String loc : JAR_META_DATA_LOCATIONS) {
 				ZipEntry e = jarFile.getEntry(loc);
 				if (e!=null) {
-					loadFrom(jarFile, e);
+					RawConfigurationMetadata md = parseFrom(jarFile, e);
+					if (md!=null) {
+						metadata.add(md);
+					}
 				}
 			}
-		} catch (Throwable e) {
-			SpringPropertiesEditorPlugin.log(e);
 		} finally {
-			if (jarFile!=null) {
-				try {
-					jarFile.close();
-				} catch (IOException e) {
-				}
+			try {
+				jarFile.close();
+			} catch (IOException e) {
 			}
 		}
+		return metadata;
 	}
 
-
-	private void loadFrom(JarFile jarFile, ZipEntry ze) {
+	private RawConfigurationMetadata parseFrom(JarFile jarFile, ZipEntry ze) {
 		InputStream is = null;
 		try {
 			is = jarFile.getInputStream(ze);
-			loadFromInputStream(jarFile.getName()+"["+ze.getName()+"]", is);
+			return parse(jarFile.getName()+"["+ze.getName()+"]", is);
 		} catch (Throwable e) {
 			SpringPropertiesEditorPlugin.log(e);
 		} finally {
@@ -182,10 +224,17 @@ public class StsConfigMetadataRepositoryJsonLoader {
 				}
 			}
 		}
+		return null;
 	}
 
-	private void loadFromInputStream(Object origin, InputStream is) throws IOException {
-		builder.withJsonResource(origin, is);
+	private RawConfigurationMetadata parse(Object origin, InputStream is) throws IOException {
+		return builder.parse(origin, is);
+	}
+
+	private void addAll(List<RawConfigurationMetadata> metadata) {
+		for (RawConfigurationMetadata md : metadata) {
+			builder.withRawMetadata(md);
+		}
 	}
 
 	/// Debug utils
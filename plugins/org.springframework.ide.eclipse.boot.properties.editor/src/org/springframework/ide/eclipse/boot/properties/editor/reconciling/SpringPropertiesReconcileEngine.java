@@ -16,13 +16,20 @@ import static org.springframework.ide.eclipse.boot.properties.editor.reconciling
 import static org.springframework.ide.eclipse.boot.properties.editor.reconciling.SpringPropertyProblem.problem;
 import static org.springframework.ide.eclipse.editor.support.util.StringUtil.commonPrefix;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import javax.inject.Provider;
 import javax.print.Doc;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.internal.ui.propertiesfileeditor.IPropertiesFilePartitions;
 import org.eclipse.jdt.internal.ui.propertiesfileeditor.PropertiesFileEscapes;
 import org.eclipse.jface.text.BadLocationException;
@@ -40,6 +47,7 @@ import org.springframework.ide.eclipse.boot.properties.editor.util.TypeParser;
 import org.springframework.ide.eclipse.boot.properties.editor.util.TypeUtil;
 import org.springframework.ide.eclipse.editor.support.reconcile.IProblemCollector;
 import org.springframework.ide.eclipse.editor.support.reconcile.IReconcileEngine;
+import org.springframework.ide.eclipse.editor.support.reconcile.ReconcileProblem;
 import org.springframework.ide.eclipse.editor.support.util.DocumentRegion;
 import org.springframework.ide.eclipse.editor.support.util.DocumentUtil;
 import org.springframework.ide.eclipse.editor.support.util.ValueParser;
@@ -76,6 +84,97 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 	private TypeUtil typeUtil;
 	private final DelimitedListReconciler commaListReconciler = new DelimitedListReconciler(COMMA, this::reconcileType);
 
+	/**
+	 * Problems found in the last run, by the text of the property entry they were found in
+	 * (see {@link #getEntryText}). Entries of which the text didn't change since the last run
+	 * don't need to be checked again, their problems are simply reported again (moved to
+	 * the entry's new position). This makes reconciling large files while typing much cheaper,
+	 * since typically only one entry has changed.
+	 */
+	private Map<String, EntryResult> entryCache = new HashMap<>();
+	private FuzzyMap<PropertyInfo> cachedIndex;
+	private long cachedJavaChanges;
+
+	/**
+	 * Problems found in a property entry, with their offsets as they were when the entry started at 'start'.
+	 */
+	private static class EntryResult {
+		private final int start;
+		private final List<SpringPropertyProblem> problems;
+
+		EntryResult(int start, List<SpringPropertyProblem> problems) {
+			this.start = start;
+			this.problems = problems;
+		}
+
+		void replay(int newStart, IProblemCollector problemCollector) {
+			int delta = newStart - start;
+			for (SpringPropertyProblem p : problems) {
+				problemCollector.accept(delta==0 ? p : p.moveBy(delta));
+			}
+		}
+	}
+
+	/**
+	 * Passes problems on to another collector, and keeps a copy of them so they can be reported again later.
+	 */
+	private static class RecordingProblemCollector implements IProblemCollector {
+		private final IProblemCollector delegate;
+		private final List<SpringPropertyProblem> problems = new ArrayList<>();
+		private boolean cacheable = true;
+
+		RecordingProblemCollector(IProblemCollector delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void beginCollecting() {
+		}
+
+		@Override
+		public void accept(ReconcileProblem problem) {
+			if (problem instanceof SpringPropertyProblem) {
+				problems.add((SpringPropertyProblem) problem);
+			} else {
+				cacheable = false;
+			}
+			delegate.accept(problem);
+		}
+
+		@Override
+		public void endCollecting() {
+		}
+
+		/**
+		 * @return The recorded problems or null if they can't be reported again.
+		 */
+		EntryResult getResult(int start) {
+			return cacheable ? new EntryResult(start, problems) : null;
+		}
+	}
+
+	/**
+	 * Counts changes to java elements. Properties are checked against java types (e.g. enums and
+	 * bean properties), so results computed before a change to java code can not be reused.
+	 */
+	private static class JavaChangeTracker implements IElementChangedListener {
+		private static final AtomicLong changeCount = new AtomicLong();
+		private static boolean installed = false;
+
+		static synchronized long getChangeCount() {
+			if (!installed) {
+				JavaCore.addElementChangedListener(new JavaChangeTracker(), ElementChangedEvent.POST_CHANGE);
+				installed = true;
+			}
+			return changeCount.get();
+		}
+
+		@Override
+		public void elementChanged(ElementChangedEvent event) {
+			changeCount.incrementAndGet();
+		}
+	}
+
 	public SpringPropertiesReconcileEngine(Provider<FuzzyMap<PropertyInfo>> provider, TypeUtil typeUtil) {
 		this.fIndexProvider = provider;
 		this.typeUtil = typeUtil;
@@ -89,6 +188,14 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 			// some problem putting information about properties into the index.
 			return;
 		}
+		long javaChanges = JavaChangeTracker.getChangeCount();
+		if (index!=cachedIndex || javaChanges!=cachedJavaChanges) {
+			//Results of the previous run were computed against different metadata or java types.
+			entryCache.clear();
+			cachedIndex = index;
+			cachedJavaChanges = javaChanges;
+		}
+		Map<String, EntryResult> newEntryCache = new HashMap<>();
 		problemCollector.beginCollecting();
 		try {
 			DuplicateNameChecker duplicateNameChecker = new DuplicateNameChecker(problemCollector);
@@ -108,28 +215,21 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 									continue;
 								}
 							}
+							//Duplicates depend on all the other names in the file, so they are always checked
+							// (this is cheap, unlike the checks below).
 							duplicateNameChecker.check(fullName);
-							PropertyInfo validProperty = SpringPropertiesCompletionEngine.findLongestValidProperty(index, fullName.toString());
-							if (validProperty!=null) {
-								//TODO: Remove last remnants of 'IRegion trimmedRegion' here and replace
-								// it all with just passing around 'fullName' DocumentRegion. This may require changes
-								// in PropertyNavigator (probably these changes are also for the better making it simpler as well)
-								IRegion trimmedRegion = fullName.asRegion();
-								if (validProperty.isDeprecated()) {
-									problemCollector.accept(problemDeprecated(fullName, validProperty));
-								}
-								int offset = validProperty.getId().length() + trimmedRegion.getOffset();
-								PropertyNavigator navigator = new PropertyNavigator(doc, problemCollector, typeUtil, trimmedRegion);
-								Type valueType = navigator.navigate(offset, TypeParser.parse(validProperty.getType()));
-								if (valueType!=null) {
-									reconcileType(doc, valueType, regions, i, problemCollector);
-								}
-							} else { //validProperty==null
-								//The name is invalid, with no 'prefix' of the name being a valid property name.
-								PropertyInfo similarEntry = index.findLongestCommonPrefixEntry(fullName.toString());
-								CharSequence validPrefix = commonPrefix(similarEntry.getId(), fullName);
-								problemCollector.accept(problemUnkownProperty(fullName, similarEntry, validPrefix));
-							} //end: validProperty==null
+							String entryText = getEntryText(doc, regions, i);
+							EntryResult result = entryCache.get(entryText);
+							if (result!=null) {
+								result.replay(r.getOffset(), problemCollector);
+							} else {
+								RecordingProblemCollector recorder = new RecordingProblemCollector(problemCollector);
+								reconcileEntry(doc, index, fullName, regions, i, recorder);
+								result = recorder.getResult(r.getOffset());
+							}
+							if (result!=null) {
+								newEntryCache.put(entryText, result);
+							}
 						}
 					} catch (Exception e) {
 						SpringPropertiesEditorPlugin.log(e);
@@ -139,10 +239,56 @@ public class SpringPropertiesReconcileEngine implements IReconcileEngine {
 		} catch (Throwable e2) {
 			SpringPropertiesEditorPlugin.log(e2);
 		} finally {
+			//Only keep the results for the entries that are still in the document.
+			entryCache = newEntryCache;
 			problemCollector.endCollecting();
 		}
 	}
 
+	/**
+	 * Checks the name and value of a single property entry, the name of which is in regions[i].
+	 */
+	private void reconcileEntry(IDocument doc, FuzzyMap<PropertyInfo> index, DocumentRegion fullName, ITypedRegion[] regions, int i, IProblemCollector problemCollector) throws Exception {
+		PropertyInfo validProperty = SpringPropertiesCompletionEngine.findLongestValidProperty(index, fullName.toString());
+		if (validProperty!=null) {
+			//TODO: Remove last remnants of 'IRegion trimmedRegion' here and replace
+			// it all with just passing around 'fullName' DocumentRegion. This may require changes
+			// in PropertyNavigator (probably these changes are also for the better making it simpler as well)
+			IRegion trimmedRegion = fullName.asRegion();
+			if (validProperty.isDeprecated()) {
+				problemCollector.accept(problemDeprecated(fullName, validProperty));
+			}
+			int offset = validProperty.getId().length() + trimmedRegion.getOffset();
+			PropertyNavigator navigator = new PropertyNavigator(doc, problemCollector, typeUtil, trimmedRegion);
+			Type valueType = navigator.navigate(offset, TypeParser.parse(validProperty.getType()));
+			if (valueType!=null) {
+				reconcileType(doc, valueType, regions, i, problemCollector);
+			}
+		} else { //validProperty==null
+			//The name is invalid, with no 'prefix' of the name being a valid property name.
+			PropertyInfo similarEntry = index.findLongestCommonPrefixEntry(fullName.toString());
+			CharSequence validPrefix = commonPrefix(similarEntry.getId(), fullName);
+			problemCollector.accept(problemUnkownProperty(fullName, similarEntry, validPrefix));
+		} //end: validProperty==null
+	}
+
+	/**
+	 * Get the text that determines the problems of the property entry, the name of which is in regions[i].
+	 * This is the text of the name and value regions, plus one character on either side (problems
+	 * for empty regions may be moved onto an adjacent character, and whether a name is assigned
+	 * to depends on the character after it).
+	 */
+	private String getEntryText(IDocument doc, ITypedRegion[] regions, int i) throws BadLocationException {
+		int start = regions[i].getOffset();
+		int end = start + regions[i].getLength();
+		if (i+1<regions.length && IPropertiesFilePartitions.PROPERTY_VALUE.equals(regions[i+1].getType())) {
+			end = regions[i+1].getOffset() + regions[i+1].getLength();
+		}
+		start = Math.max(0, start-1);
+		end = Math.min(doc.getLength(), end+1);
+		return doc.get(start, end-start);
+	}
+
 	protected SpringPropertyProblem problemDeprecated(DocumentRegion trimmedRegion, PropertyInfo property) {
 		SpringPropertyProblem p = problem(PROP_DEPRECATED,
 				TypeUtil.deprecatedPropertyMessage(
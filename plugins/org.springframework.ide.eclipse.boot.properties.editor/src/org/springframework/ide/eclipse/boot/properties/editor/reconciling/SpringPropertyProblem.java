@@ -131,6 +131,18 @@ public class SpringPropertyProblem implements ReconcileProblem, FixableProblem {
 		return new SpringPropertyProblem(problemType, message , offset, len);
 	}
 
+	/**
+	 * Create a copy of this problem, moved by a given number of characters. Used to re-report
+	 * problems of text that has moved since the problem was found.
+	 */
+	public SpringPropertyProblem moveBy(int delta) {
+		SpringPropertyProblem moved = new SpringPropertyProblem(type, msg, offset+delta, length);
+		moved.propertyName = propertyName;
+		moved.metadata = metadata;
+		moved.problemFixer = problemFixer;
+		return moved;
+	}
+
 	public List<ICompletionProposal> getQuickfixes(QuickfixContext context) {
 		List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>(2);
 
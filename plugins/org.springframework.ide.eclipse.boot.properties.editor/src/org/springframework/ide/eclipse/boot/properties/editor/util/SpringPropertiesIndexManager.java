@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014 Pivotal, Inc.
+ * Copyright (c) 2014, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,14 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.boot.properties.editor.util;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -23,6 +29,10 @@ import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.springframework.ide.eclipse.boot.properties.editor.FuzzyMap;
@@ -37,23 +47,63 @@ import org.springframework.ide.eclipse.boot.properties.editor.metadata.ValueProv
  * file all make use of a per-project index of spring properties metadata extracted
  * from project's classpath. This Index manager is responsible for keeping at most
  * one index per-project and to keep the index up-to-date.
+ * <p>
+ * A detected change only invalidates the indexes of the projects it may affect. Invalidated
+ * indexes are rebuilt in a background job, meanwhile the last index built for a project
+ * continues to be served. Listeners are notified when the rebuilt indexes are available.
+ * The metadata parsed from jars and output folders is cached by the
+ * {@link StsConfigMetadataRepositoryJsonLoader}, so a rebuild only parses the metadata
+ * files that actually changed.
  *
  * @author Kris De Volder
  */
 public class SpringPropertiesIndexManager extends ListenerManager<Listener<SpringPropertiesIndexManager>> implements ClasspathListener {
 
-	//TODO: More precise cache flushing?
-	// right now, any detected change that may affect the cached metadata results.
-	// in clearing the entire cache.
-	// Probably this is okay, since reading the data is pretty fast.
-
 	private Map<String, SpringPropertyIndex> indexes = null;
 	final private ValueProviderRegistry valueProviders;
 
+	/**
+	 * Names of the projects who's index needs to be rebuilt.
+	 */
+	private final Set<String> staleProjects = new LinkedHashSet<>();
+
+	private final Job rebuildJob = new Job("Update Spring Boot properties metadata") {
+
+		{
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			return rebuildStaleIndexes(monitor);
+		}
+	};
+
+	private final LiveMetadataListener liveMetadataListener = new LiveMetadataListener();
+
+	private boolean stopped = false;
+
 	public SpringPropertiesIndexManager(ValueProviderRegistry valueProviders) {
 		this.valueProviders = valueProviders;
 		SpringPropertiesEditorPlugin.getClasspathListeners().addListener(this);
-		ResourcesPlugin.getWorkspace().addResourceChangeListener(new LiveMetadataListener(), IResourceChangeEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(liveMetadataListener, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Stop listening for changes, cancel the rebuild of stale indexes and drop all indexes
+	 * and cached metadata.
+	 */
+	public void stop() {
+		SpringPropertiesEditorPlugin.getClasspathListeners().removeListener(this);
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(liveMetadataListener);
+		synchronized (this) {
+			stopped = true;
+			staleProjects.clear();
+			indexes = null;
+		}
+		//An index that is being built when the job is canceled is discarded since 'indexes' is null.
+		rebuildJob.cancel();
+		StsConfigMetadataRepositoryJsonLoader.clearCache();
 	}
 
 	public synchronized FuzzyMap<PropertyInfo> get(IJavaProject jp) {
@@ -66,24 +116,15 @@ public class SpringPropertiesIndexManager extends ListenerManager<Listener<Sprin
 			index = new SpringPropertyIndex(valueProviders, jp);
 			indexes.put(key, index);
 		}
+		//Note: if the index is stale, it is returned anyway. A fresh one is being built in the background.
 		return index;
 	}
 
 	@Override
 	public synchronized void classpathChanged(IJavaProject jp) {
-		clear();
-	}
-
-	private void clear() {
-		if (indexes!=null) {
-			indexes.clear();
-			for (Listener<SpringPropertiesIndexManager> l : getListeners()) {
-				l.changed(this);
-			}
-		}
+		invalidate(Collections.singleton(jp.getElementName()));
 	}
 
-
 	/**
 	 * Called by LiveMetadataListener when a change to live json metadata file in the
 	 * output folder of a IJavaProject is detected.
@@ -92,7 +133,99 @@ public class SpringPropertiesIndexManager extends ListenerManager<Listener<Sprin
 	 * @param jsonFile The IFile in project's output folder that was changed.
 	 */
 	public synchronized void liveMetadataChanged(IJavaProject jp, IFile jsonFile) {
-		clear();
+		//The metadata in the output folder of a project is also read by all projects that depend on it.
+		invalidate(getProjectAndDependents(jp));
+	}
+
+	private Set<String> getProjectAndDependents(IJavaProject jp) {
+		String name = jp.getElementName();
+		Set<String> affected = new LinkedHashSet<>();
+		affected.add(name);
+		if (indexes!=null) {
+			for (String other : indexes.keySet()) {
+				if (!affected.contains(other)) {
+					try {
+						IJavaProject otherJp = JavaCore.create(ResourcesPlugin.getWorkspace().getRoot().getProject(other));
+						if (otherJp.exists() && Arrays.asList(otherJp.getRequiredProjectNames()).contains(name)) {
+							affected.add(other);
+						}
+					} catch (Exception e) {
+						SpringPropertiesEditorPlugin.log(e);
+					}
+				}
+			}
+		}
+		return affected;
+	}
+
+	/**
+	 * Mark indexes of given projects as stale and schedule rebuilding them. Projects that don't
+	 * have an index yet are ignored; their index will be built when it is first requested.
+	 */
+	private void invalidate(Collection<String> projectNames) {
+		if (indexes!=null && !stopped) {
+			boolean scheduleRebuild = false;
+			for (String name : projectNames) {
+				if (indexes.containsKey(name)) {
+					staleProjects.add(name);
+					scheduleRebuild = true;
+				}
+			}
+			if (scheduleRebuild) {
+				rebuildJob.schedule();
+			}
+		}
+	}
+
+	private synchronized void projectRemoved(IProject p) {
+		invalidate(Collections.singleton(p.getName()));
+	}
+
+	private IStatus rebuildStaleIndexes(IProgressMonitor monitor) {
+		boolean changed = false;
+		String name;
+		while ((name = nextStaleProject())!=null) {
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+			SpringPropertyIndex index = null;
+			try {
+				if (project.isAccessible() && project.hasNature(JavaCore.NATURE_ID)) {
+					//Built without holding the lock, so requests for the current index are not blocked.
+					index = new SpringPropertyIndex(valueProviders, JavaCore.create(project));
+				}
+			} catch (Exception e) {
+				SpringPropertiesEditorPlugin.log(e);
+			}
+			synchronized (this) {
+				if (indexes!=null && !staleProjects.contains(name)) {
+					//Not invalidated again while we were building it.
+					if (index!=null) {
+						indexes.put(name, index);
+					} else {
+						indexes.remove(name);
+					}
+				}
+			}
+			changed = true;
+		}
+		if (changed) {
+			for (Listener<SpringPropertiesIndexManager> l : getListeners()) {
+				l.changed(this);
+			}
+		}
+		return Status.OK_STATUS;
+	}
+
+	private synchronized String nextStaleProject() {
+		Iterator<String> iter = staleProjects.iterator();
+		if (iter.hasNext()) {
+			String name = iter.next();
+			iter.remove();
+			return name;
+		}
+		return null;
 	}
 
 	private class LiveMetadataListener implements IResourceChangeListener, IResourceDeltaVisitor {
@@ -124,8 +257,8 @@ public class SpringPropertiesIndexManager extends ListenerManager<Listener<Sprin
 						}
 					}
 				} else {
-					//TODO: not accessible (closed or deleted?)
-					//  Do we need to do something with these?
+					//Not accessible (closed or deleted?). Let the rebuild job drop its index.
+					projectRemoved(p);
 				}
 				return false;
 			default:
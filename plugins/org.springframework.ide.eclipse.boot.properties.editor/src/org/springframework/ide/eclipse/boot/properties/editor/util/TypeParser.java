@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Pivotal, Inc.
+ * Copyright (c) 2015, 2016 Pivotal, Inc.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,8 @@ package org.springframework.ide.eclipse.boot.properties.editor.util;
 
 import java.util.ArrayList;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.ide.eclipse.editor.support.util.StringUtil;
 
@@ -24,6 +26,13 @@ public class TypeParser {
 
 	private static final String DELIM = "<>,";
 
+	/**
+	 * Parsed types by their string notation. {@link Type}s are immutable and the
+	 * notations come from the (finite) set of types used in the metadata, so they
+	 * can be shared safely.
+	 */
+	private static final ConcurrentMap<String, Type> CACHE = new ConcurrentHashMap<>();
+
 	/**
 	 * Wrapper around StringTokenizer that manages a single lookahead token.
 	 * So it can implement 'peekToken()' method.
@@ -73,7 +82,12 @@ public class TypeParser {
 
 	public static Type parse(String str) {
 		if (StringUtil.hasText(str)) {
-			return new TypeParser(str).parseType();
+			Type type = CACHE.get(str);
+			if (type==null) {
+				type = new TypeParser(str).parseType();
+				CACHE.putIfAbsent(str, type);
+			}
+			return type;
 		}
 		return null;
 	}
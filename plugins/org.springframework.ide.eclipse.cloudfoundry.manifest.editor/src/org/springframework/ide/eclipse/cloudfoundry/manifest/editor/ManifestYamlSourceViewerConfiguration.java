@@ -22,6 +22,7 @@ import org.springframework.ide.eclipse.editor.support.reconcile.ReconcileStrateg
 import org.springframework.ide.eclipse.editor.support.yaml.AbstractYamlSourceViewerConfiguration;
 import org.springframework.ide.eclipse.editor.support.yaml.YamlAssistContextProvider;
 import org.springframework.ide.eclipse.editor.support.yaml.completions.SchemaBasedYamlAssistContextProvider;
+import org.springframework.ide.eclipse.editor.support.yaml.path.KeyAliases;
 import org.springframework.ide.eclipse.editor.support.yaml.reconcile.YamlSchemaBasedReconcileEngine;
 import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureProvider;
 
@@ -32,6 +33,7 @@ public class ManifestYamlSourceViewerConfiguration extends AbstractYamlSourceVie
 
 	private ManifestYmlSchema schema = new ManifestYmlSchema(ManifestEditorActivator.getDefault().getBuildpackProvider());
 	private YamlAssistContextProvider assistContextProvider = new SchemaBasedYamlAssistContextProvider(schema);
+	private YamlStructureProvider structureProvider = YamlStructureProvider.incremental(KeyAliases.NONE);
 
 	public ManifestYamlSourceViewerConfiguration(Provider<Shell> shellProvider) {
 		super(shellProvider);
@@ -44,7 +46,7 @@ public class ManifestYamlSourceViewerConfiguration extends AbstractYamlSourceVie
 
 	@Override
 	protected YamlStructureProvider getStructureProvider() {
-		return YamlStructureProvider.DEFAULT;
+		return structureProvider;
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 Spring IDE Developers
+ * Copyright (c) 2005, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,8 +28,10 @@ import org.springframework.ide.eclipse.core.java.TypeStructureCache;
 import org.springframework.ide.eclipse.core.java.typehierarchy.BytecodeTypeHierarchyClassReaderFactory;
 import org.springframework.ide.eclipse.core.java.typehierarchy.DirectTypeHierarchyElementCacheFactory;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyIndex;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyResourceChangeListener;
 import org.springframework.ide.eclipse.core.model.ISpringModel;
+import org.springframework.ide.eclipse.core.type.asm.ClassReadingCache;
 
 /**
  * Central access point for the Spring IDE core plug-in (id <code>"org.springframework.ide.eclipse.core"</code>).
@@ -65,6 +67,8 @@ public class SpringCore extends Plugin {
 
 	private static final String RESOURCE_NAME = PLUGIN_ID + ".messages";
 
+	private static final String TYPE_HIERARCHY_INDEX_FILE_NAME = "typehierarchy.index";
+
 	/** The identifier for enablement of project versus workspace settings */
 	public static final String PROJECT_PROPERTY_ID = "enable.project.preferences";
 
@@ -74,6 +78,9 @@ public class SpringCore extends Plugin {
 	/** Temporally setting to enable or disable the use of XBean's non-locking classloader infrastructure */
 	public static final String USE_NON_LOCKING_CLASSLOADER = PLUGIN_ID + ".useNonLockingClassLoader";
 
+	/** Setting to enable or disable the concurrent execution of thread-safe validation rules */
+	public static final String USE_PARALLEL_VALIDATION = PLUGIN_ID + ".useParallelValidation";
+
 	/** The shared instance */
 	private static SpringCore plugin;
 
@@ -87,6 +94,8 @@ public class SpringCore extends Plugin {
 	
 	private static TypeHierarchyEngine typeHierarchyEngine;
 
+	private static volatile TypeHierarchyIndex typeHierarchyIndex;
+
 	/**
 	 * Creates the Spring core plug-in.
 	 * <p>
@@ -117,16 +126,23 @@ public class SpringCore extends Plugin {
 		super.start(context);
 		model.startup();
 		typeStructureCache.startup();
+		ClassReadingCache.startListening();
 		// install default for incremtal compilation
 		plugin.getPluginPreferences().setDefault(USE_CHANGE_DETECTION_IN_JAVA_FILES, true);
 		// non.locking classloader is not enabled by default
 		plugin.getPluginPreferences().setDefault(USE_NON_LOCKING_CLASSLOADER, false);
+		// parallel validation is not enabled by default
+		plugin.getPluginPreferences().setDefault(USE_PARALLEL_VALIDATION, false);
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
 		model.shutdown();
 		typeStructureCache.shutdown();
+		ClassReadingCache.stopListening();
+		if (typeHierarchyIndex != null) {
+			typeHierarchyIndex.shutdown();
+		}
 		super.stop(context);
 	}
 
@@ -152,6 +168,23 @@ public class SpringCore extends Plugin {
 		return typeHierarchyEngine;
 	}
 
+	/**
+	 * Returns the persistent index of type hierarchy information for classes from jar files. The index is
+	 * stored in the state location of this plug-in and loaded lazily on first access.
+	 * @since 3.8.1
+	 */
+	public static final TypeHierarchyIndex getTypeHierarchyIndex() {
+		if (typeHierarchyIndex == null) {
+			synchronized (SpringCore.class) {
+				if (typeHierarchyIndex == null) {
+					typeHierarchyIndex = new TypeHierarchyIndex(getDefault().getStateLocation()
+							.append(TYPE_HIERARCHY_INDEX_FILE_NAME).toFile());
+				}
+			}
+		}
+		return typeHierarchyIndex;
+	}
+
 	/**
 	 * Returns the workspace instance.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -63,6 +63,8 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 
 	private static final String SEVERITY_ATTRIBUTE = "severity";
 
+	private static final String THREAD_SAFE_ATTRIBUTE = "threadSafe";
+
 	private String description;
 
 	private String id;
@@ -87,6 +89,8 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 
 	private boolean rulePropertiesInitialized;
 
+	private boolean threadSafe = false;
+
 	public ValidationRuleDefinition(String validatorID, IConfigurationElement element) throws CoreException {
 		this.validatorId = validatorID;
 		init(element);
@@ -136,6 +140,16 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 		return validatorId;
 	}
 
+	/**
+	 * Returns <code>true</code> if the rule can be executed concurrently for different model elements. Only rules
+	 * that are declared with <code>threadSafe="true"</code> are executed on the validation pool; all other rules
+	 * are executed on the builder thread.
+	 * @since 3.8.1
+	 */
+	public boolean isThreadSafe() {
+		return threadSafe;
+	}
+
 	private void init(IConfigurationElement element) throws CoreException {
 		Object executable = element.createExecutableExtension(CLASS_ATTRIBUTE);
 		if (executable instanceof IValidationRule) {
@@ -151,6 +165,10 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 		else {
 			setEnabledByDefault(true);
 		}
+		String threadSafe = element.getAttribute(THREAD_SAFE_ATTRIBUTE);
+		if (threadSafe != null) {
+			this.threadSafe = Boolean.valueOf(threadSafe);
+		}
 
 		// get configuration data
 		propertyValues = new HashMap<String, String>();
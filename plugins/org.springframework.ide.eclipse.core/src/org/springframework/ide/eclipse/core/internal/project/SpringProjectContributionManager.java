@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -99,7 +99,7 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 				.getProjectContributionEventListeners();
 
 		// Set up the state object
-		final IProjectContributorState state = prepareState(project, builderDefinitions, validatorDefinitions);
+		final IProjectContributorState state = prepareState(project, monitor, builderDefinitions, validatorDefinitions);
 		
 		// check for classpath changes (that require a full build)
 		Object removed = classpathChanged.remove(project.getName());
@@ -170,11 +170,13 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 	 * <p>
 	 * This implementation creates an instance of {@link DefaultProjectContributorState}.
 	 */
-	private IProjectContributorState prepareState(IProject project, List<ProjectBuilderDefinition> builderDefinitions,
-			List<ValidatorDefinition> validatorDefinitions) {
+	private IProjectContributorState prepareState(IProject project, IProgressMonitor monitor,
+			List<ProjectBuilderDefinition> builderDefinitions, List<ValidatorDefinition> validatorDefinitions) {
 
 		IProjectContributorState context = new DefaultProjectContributorState();
 		context.hold(project);
+		// lets contributors check for cancellation while collecting the affected resources
+		context.hold(monitor);
 		
 		for (ProjectBuilderDefinition builderDefinition : builderDefinitions) {
 			if (builderDefinition.isEnabled(project)
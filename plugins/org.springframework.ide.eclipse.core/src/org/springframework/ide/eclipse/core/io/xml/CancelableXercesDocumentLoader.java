@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.io.xml;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.w3c.dom.Document;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link XercesDocumentLoader} that stops parsing as soon as its cancel flag is set. The document stream and all
+ * resolved entity streams check the flag with every read and fail with an {@link IOException}.
+ * <p>
+ * A flag is used instead of the interrupted state of the parsing thread, as interrupting a thread closes any
+ * {@link java.nio.channels.InterruptibleChannel} it is reading from (e.g. the jar files of a class loader).
+ * @since 3.8.1
+ */
+public class CancelableXercesDocumentLoader extends XercesDocumentLoader {
+
+	private final AtomicBoolean canceled;
+
+	public CancelableXercesDocumentLoader(AtomicBoolean canceled) {
+		this.canceled = canceled;
+	}
+
+	@Override
+	public Document loadDocument(InputSource inputSource, EntityResolver entityResolver, ErrorHandler errorHandler,
+			int validationMode, boolean namespaceAware) throws Exception {
+		checkCanceled();
+		wrapByteStream(inputSource);
+		EntityResolver resolver = entityResolver != null ? new CancelableEntityResolver(entityResolver) : null;
+		Document document = super.loadDocument(inputSource, resolver, errorHandler, validationMode, namespaceAware);
+		checkCanceled();
+		return document;
+	}
+
+	private void wrapByteStream(InputSource inputSource) {
+		if (inputSource != null && inputSource.getByteStream() != null
+				&& !(inputSource.getByteStream() instanceof CancelableInputStream)) {
+			inputSource.setByteStream(new CancelableInputStream(inputSource.getByteStream()));
+		}
+	}
+
+	private void checkCanceled() throws IOException {
+		if (canceled.get()) {
+			throw new IOException("Parsing of XML document canceled");
+		}
+	}
+
+	private class CancelableEntityResolver implements EntityResolver {
+
+		private final EntityResolver delegate;
+
+		public CancelableEntityResolver(EntityResolver delegate) {
+			this.delegate = delegate;
+		}
+
+		public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+			checkCanceled();
+			InputSource inputSource = delegate.resolveEntity(publicId, systemId);
+			wrapByteStream(inputSource);
+			return inputSource;
+		}
+	}
+
+	private class CancelableInputStream extends FilterInputStream {
+
+		public CancelableInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			checkCanceled();
+			return super.read();
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			checkCanceled();
+			return super.read(bytes, offset, length);
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			checkCanceled();
+			return super.skip(n);
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.xbean.classloader.JarFileClassLoader;
+import org.apache.xbean.classloader.UrlResourceFinder;
+
+/**
+ * Extension to {@link JarFileClassLoader} that filters resource loading attempts by
+ * calling {@link ProjectClassLoaderCache#shouldFilter(String)} before delegating to the super
+ * implementation.
+ * <p>
+ * Used instead of a {@link FilteringURLClassLoader} for the jars of a project, as the jar files
+ * are shared with the class loaders of other projects through {@link SharedJarFiles}. Like with
+ * a {@link java.net.URLClassLoader}, the jar files stay open while they are in use.
+ * 
+ * @since 3.8.1
+ */
+public class FilteringJarFileClassLoader extends JarFileClassLoader {
+
+	private static final Enumeration<URL> EMPTY_ENUMERATION = Collections.enumeration(new ArrayList<URL>());
+
+	private final AtomicInteger loadedClasses = new AtomicInteger();
+
+	public FilteringJarFileClassLoader(String name, URL[] urls, ClassLoader parent) {
+		super(name, urls, parent);
+	}
+
+	@Override
+	protected UrlResourceFinder newResourceFinder() {
+		return new UrlResourceFinder(SharedJarFiles.createJarFileFactory(this, false));
+	}
+
+	@Override
+	protected Class<?> findClass(String className) throws ClassNotFoundException {
+		Class<?> clazz = super.findClass(className);
+		loadedClasses.incrementAndGet();
+		return clazz;
+	}
+
+	/**
+	 * Returns the number of classes this class loader has loaded itself.
+	 */
+	public int getLoadedClassCount() {
+		return loadedClasses.get();
+	}
+	
+	@Override
+	public URL findResource(String resourceName) {
+		if (ProjectClassLoaderCache.shouldFilter(resourceName)) return null;
+		return super.findResource(resourceName);
+	}
+	
+	@Override
+	public Enumeration<URL> findResources(String resourceName) throws IOException {
+		if (ProjectClassLoaderCache.shouldFilter(resourceName)) return EMPTY_ENUMERATION;
+		return super.findResources(resourceName);
+	}
+	
+	@Override
+	public URL getResource(String name) {
+		if (ProjectClassLoaderCache.shouldFilter(name)) return null;
+		return super.getResource(name);
+	}
+	
+	@Override
+	public InputStream getResourceAsStream(String name) {
+		if (ProjectClassLoaderCache.shouldFilter(name)) return null;
+		return super.getResourceAsStream(name);
+	}
+	
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		if (ProjectClassLoaderCache.shouldFilter(name)) return EMPTY_ENUMERATION;
+		return super.getResources(name);
+	}
+}
\ No newline at end of file
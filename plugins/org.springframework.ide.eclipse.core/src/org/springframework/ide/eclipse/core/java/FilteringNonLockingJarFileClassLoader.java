@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,13 +16,17 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.xbean.classloader.NonLockingJarFileClassLoader;
+import org.apache.xbean.classloader.UrlResourceFinder;
 
 /**
  * Extension to {@link NonLockingJarFileClassLoader} that filters resource loading attempts by
  * calling {@link ProjectClassLoaderCache#shouldFilter(String)} before delegating to the super
  * implementation.
+ * <p>
+ * Jar files are shared with the class loaders of other projects through {@link SharedJarFiles}.
  * 
  * @since 2.7.0
  */
@@ -30,9 +34,31 @@ public class FilteringNonLockingJarFileClassLoader extends NonLockingJarFileClas
 
 	private static final Enumeration<URL> EMPTY_ENUMERATION = Collections.enumeration(new ArrayList<URL>());
 
+	private final AtomicInteger loadedClasses = new AtomicInteger();
+
 	public FilteringNonLockingJarFileClassLoader(String name, URL[] urls, ClassLoader parent) {
 		super(name, urls, parent);
 	}
+
+	@Override
+	protected UrlResourceFinder newResourceFinder() {
+		return new UrlResourceFinder(SharedJarFiles.createJarFileFactory(this, true));
+	}
+
+	@Override
+	protected Class<?> findClass(String className) throws ClassNotFoundException {
+		Class<?> clazz = super.findClass(className);
+		loadedClasses.incrementAndGet();
+		return clazz;
+	}
+
+	/**
+	 * Returns the number of classes this class loader has loaded itself.
+	 * @since 3.8.1
+	 */
+	public int getLoadedClassCount() {
+		return loadedClasses.get();
+	}
 	
 	@Override
 	public URL findResource(String resourceName) {
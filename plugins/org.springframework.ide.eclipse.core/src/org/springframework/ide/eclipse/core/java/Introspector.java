@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,9 +11,11 @@
 package org.springframework.ide.eclipse.core.java;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,10 +26,14 @@ import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.IntrospectorCache.MethodEntry;
 import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
 
 /**
  * Helper methods for examining a Java {@link IType}.
+ * <p>
+ * The methods of a type hierarchy, super types and implemented interfaces are memoized per project by the
+ * {@link IntrospectorCache}.
  * @author Christian Dupuis
  * @author Torsten Juergeleit
  * @author Pierre-Antoine Gregoire
@@ -94,14 +100,10 @@ public final class Introspector {
 	 */
 	public static Set<IMethod> findAllConstructors(IType type) throws JavaModelException {
 		Map<String, IMethod> allConstructors = new HashMap<String, IMethod>();
-		while (type != null) {
-			for (IMethod method : getMethods(type)) {
-				String key = method.getElementName() + method.getSignature();
-				if (!allConstructors.containsKey(key) && method.isConstructor()) {
-					allConstructors.put(key, method);
-				}
+		for (MethodEntry entry : getMethodTable(type)) {
+			if (!allConstructors.containsKey(entry.getKey()) && entry.isConstructor()) {
+				allConstructors.put(entry.getKey(), entry.getMethod());
 			}
-			type = getSuperType(type);
 		}
 		return new HashSet<IMethod>(allConstructors.values());
 	}
@@ -124,25 +126,24 @@ public final class Introspector {
 	public static Set<IMethod> findAllMethods(IType type, String prefix, IMethodFilter filter) {
 		Set<IMethod> methods = new LinkedHashSet<IMethod>();
 		try {
+			List<MethodEntry> methodTable = getMethodTable(type);
 			if (type != null && type.isInterface()) {
-				Set<IType> types = new HashSet<IType>();
-				types.add(type);
-				for (IMethod method : getMethods(type)) {
-					if (!method.isConstructor() && filter.matches(method, prefix)) {
-						methods.add(method);
+				for (MethodEntry entry : methodTable) {
+					if (!type.equals(entry.getType())) {
+						break;
+					}
+					if (!entry.isConstructor() && filter.matches(entry.getMethod(), prefix)) {
+						methods.add(entry.getMethod());
 					}
 				}
 				for (IType interfaceType : getAllImplementedInterfaces(type)) {
 					methods.addAll(findAllMethods(interfaceType, prefix, filter));
 				}
 			}
-			while (type != null) {
-				for (IMethod method : getMethods(type)) {
-					if (!method.isConstructor() && filter.matches(method, prefix)) {
-						methods.add(method);
-					}
+			for (MethodEntry entry : methodTable) {
+				if (!entry.isConstructor() && filter.matches(entry.getMethod(), prefix)) {
+					methods.add(entry.getMethod());
 				}
-				type = getSuperType(type);
 			}
 		}
 		catch (JavaModelException e) {
@@ -174,44 +175,62 @@ public final class Introspector {
 	public static Set<IMethod> findAllMethods(IType type, String methodPrefix, int argCount, Public publics,
 			Static statics, boolean ignoreCase) throws JavaModelException {
 		Map<String, IMethod> allMethods = new HashMap<String, IMethod>();
-		while (type != null) {
-			for (IMethod method : getMethods(type)) {
-				checkMethod(type, methodPrefix, argCount, publics, statics, ignoreCase, allMethods, method);
-			}
-
-			type = getSuperType(type);
+		for (MethodEntry entry : getMethodTable(type)) {
+			checkMethod(methodPrefix, argCount, publics, statics, ignoreCase, allMethods, entry);
 		}
 		return new HashSet<IMethod>(allMethods.values());
 	}
 
-	private static void checkMethod(IType type, String methodPrefix, int argCount, Public publics, Static statics,
-			boolean ignoreCase, Map<String, IMethod> allMethods, IMethod method) throws JavaModelException {
-		int flags = method.getFlags();
-		String key = method.getElementName() + method.getSignature();
-		if (!allMethods.containsKey(key)
-				&& !method.isConstructor()
-				&& (publics == Public.DONT_CARE
-						|| (publics == Public.YES && (Flags.isPublic(flags) || Flags.isInterface(type.getFlags()))) || (publics == Public.NO && (!Flags
-						.isPublic(flags) && !Flags.isInterface(type.getFlags()))))
-				&& (statics == Static.DONT_CARE || (statics == Static.YES && Flags.isStatic(flags)) || (statics == Static.NO && !Flags
-						.isStatic(flags))) && (argCount == -1 || method.getNumberOfParameters() == argCount)
-				&& checkMethodNamePrefix(method, type, methodPrefix, ignoreCase)) {
-			allMethods.put(key, method);
+	private static void checkMethod(String methodPrefix, int argCount, Public publics, Static statics,
+			boolean ignoreCase, Map<String, IMethod> allMethods, MethodEntry entry) {
+		if (!allMethods.containsKey(entry.getKey()) && !entry.isConstructor()
+				&& checkModifiers(entry, argCount, publics, statics)
+				&& checkMethodNamePrefix(entry, methodPrefix, ignoreCase)) {
+			allMethods.put(entry.getKey(), entry.getMethod());
 		}
 	}
 
-	private static boolean checkMethodNamePrefix(IMethod method, IType type, String methodPrefix, boolean ignoreCase) {
-		String methodName = JdtUtils.getMethodName(method);
+	private static boolean checkModifiers(MethodEntry entry, int argCount, Public publics, Static statics) {
+		int flags = entry.getFlags();
+		return (publics == Public.DONT_CARE
+				|| (publics == Public.YES && (Flags.isPublic(flags) || entry.isDeclaredByInterface())) || (publics == Public.NO && (!Flags
+				.isPublic(flags) && !entry.isDeclaredByInterface())))
+				&& (statics == Static.DONT_CARE || (statics == Static.YES && Flags.isStatic(flags)) || (statics == Static.NO && !Flags
+						.isStatic(flags))) && (argCount == -1 || entry.getNumberOfParameters() == argCount);
+	}
+
+	private static boolean checkMethodNamePrefix(MethodEntry entry, String methodPrefix, boolean ignoreCase) {
+		String methodName = entry.getName();
 		return ((!ignoreCase && methodName.startsWith(methodPrefix)))
 				|| (ignoreCase && methodName.toLowerCase().startsWith(methodPrefix.toLowerCase()));
 	}
 
-	private static boolean checkMethodName(IMethod method, IType type, String methodName, boolean ignoreCase) {
-		String realMethodName = JdtUtils.getMethodName(method);
+	private static boolean checkMethodName(MethodEntry entry, String methodName, boolean ignoreCase) {
+		String realMethodName = entry.getName();
 		return ((!ignoreCase && realMethodName.equals(methodName)))
 				|| (ignoreCase && realMethodName.toLowerCase().startsWith(methodName.toLowerCase()));
 	}
 
+	/**
+	 * Returns the methods of the given type and all its super classes from the {@link IntrospectorCache}.
+	 */
+	private static List<MethodEntry> getMethodTable(IType type) throws JavaModelException {
+		return getMethodTable(type, getTypeHierarchyEngine());
+	}
+
+	private static List<MethodEntry> getMethodTable(IType type, TypeHierarchyEngine typeHierarchyEngine)
+			throws JavaModelException {
+		if (type == null) {
+			return Collections.emptyList();
+		}
+		return IntrospectorCache.getMethodTable(type, typeHierarchyEngine);
+	}
+
+	private static TypeHierarchyEngine getTypeHierarchyEngine() {
+		return System.getProperty(TypeHierarchyEngine.ENABLE_PROPERTY, "true").equals("true") ? SpringCore
+				.getTypeHierarchyEngine() : null;
+	}
+
 	/**
 	 * Returns a list of all methods from given type with given prefix and no arguments.
 	 */
@@ -253,10 +272,9 @@ public final class Introspector {
 	public static IMethod findMethod(IType type, String methodName, int argCount, Public publics, Static statics,
 			TypeHierarchyEngine typeHierarchyEngine) throws JavaModelException {
 
-		for (IType itrType = type; itrType != null; itrType = getSuperType(itrType, typeHierarchyEngine)) {
-			IMethod method = findMethodOnType(itrType, methodName, argCount, publics, statics);
-			if (method != null) {
-				return method;
+		for (MethodEntry entry : getMethodTable(type, typeHierarchyEngine)) {
+			if (checkModifiers(entry, argCount, publics, statics) && checkMethodName(entry, methodName, false)) {
+				return entry.getMethod();
 			}
 		}
 		for (IType interfaceType : getAllImplementedInterfaces(type, typeHierarchyEngine)) {
@@ -268,24 +286,6 @@ public final class Introspector {
 		return null;
 	}
 
-	private static IMethod findMethodOnType(IType type, String methodName, int argCount, Public publics, Static statics)
-			throws JavaModelException {
-		for (IMethod method : getMethods(type)) {
-			int flags = method.getFlags();
-			if ((publics == Public.DONT_CARE
-					|| (publics == Public.YES && (Flags.isPublic(flags) || Flags.isInterface(type.getFlags()))) || (publics == Public.NO && (!Flags
-					.isPublic(flags) && !Flags.isInterface(type.getFlags()))))
-					&& (statics == Static.DONT_CARE || (statics == Static.YES && Flags.isStatic(flags)) || (statics == Static.NO && !Flags
-							.isStatic(flags)))
-					&& (argCount == -1 || method.getNumberOfParameters() == argCount)
-					&& checkMethodName(method, type, methodName, false)) {
-				return method;
-			}
-		}
-
-		return null;
-	}
-
 	/**
 	 * Returns a list of all getters with the given prefix.
 	 */
@@ -325,6 +325,13 @@ public final class Introspector {
 	}
 
 	public static Set<IType> getAllImplementedInterfaces(IType type, TypeHierarchyEngine typeHierarchyEngine) {
+		if (type == null) {
+			return new HashSet<IType>();
+		}
+		return new HashSet<IType>(IntrospectorCache.getAllImplementedInterfaces(type, typeHierarchyEngine));
+	}
+
+	static Set<IType> resolveAllImplementedInterfaces(IType type, TypeHierarchyEngine typeHierarchyEngine) {
 		Set<IType> allInterfaces = new HashSet<IType>();
 		try {
 			while (type != null) {
@@ -391,15 +398,13 @@ public final class Introspector {
 	 */
 	public static Set<IMethod> getAllMethods(IType type, boolean includeHierarchy) throws JavaModelException {
 		Map<String, IMethod> allMethods = new HashMap<String, IMethod>();
-		while (type != null) {
-			for (IMethod method : getMethods(type)) {
-				String key = method.getElementName() + method.getSignature();
-				if (!allMethods.containsKey(key) && !method.isConstructor()) {
-					allMethods.put(key, method);
-				}
+		for (MethodEntry entry : getMethodTable(type)) {
+			if (!includeHierarchy && !entry.getType().equals(type)) {
+				break;
+			}
+			if (!allMethods.containsKey(entry.getKey()) && !entry.isConstructor()) {
+				allMethods.put(entry.getKey(), entry.getMethod());
 			}
-			if (!includeHierarchy) break;
-			type = getSuperType(type);
 		}
 		return new HashSet<IMethod>(allMethods.values());
 	}
@@ -463,10 +468,7 @@ public final class Introspector {
 	 * Returns the super type of the given type.
 	 */
 	public static IType getSuperType(IType type) throws JavaModelException {
-		TypeHierarchyEngine typeHierarchyEngine = System.getProperty(TypeHierarchyEngine.ENABLE_PROPERTY, "true").equals("true")
-				? SpringCore.getTypeHierarchyEngine() : null;
-
-		return getSuperType(type, typeHierarchyEngine);
+		return getSuperType(type, getTypeHierarchyEngine());
 	}
 
 	/**
@@ -474,6 +476,10 @@ public final class Introspector {
 	 * This is using the type hierarchy engine that is passed as parameter, if not null
 	 */
 	public static IType getSuperType(IType type, TypeHierarchyEngine typeHierarchyEngine) throws JavaModelException {
+		return IntrospectorCache.getSuperType(type, typeHierarchyEngine);
+	}
+
+	static IType resolveSuperType(IType type, TypeHierarchyEngine typeHierarchyEngine) throws JavaModelException {
 		if (type == null) {
 			return null;
 		}
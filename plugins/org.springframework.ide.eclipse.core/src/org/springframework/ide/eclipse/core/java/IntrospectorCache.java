@@ -0,0 +1,431 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClassFile;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+
+/**
+ * Per-project memo of the method tables, super types and implemented interfaces the {@link Introspector} resolves
+ * for a type.
+ * <p>
+ * A method table lists the methods of a type and of all its super classes in the order the {@link Introspector}
+ * walks them, together with the method details the lookups check (name, signature, flags and number of
+ * parameters). Lookups and {@link IMethodFilter}s are applied to the cached table instead of asking JDT for every
+ * type of the hierarchy again.
+ * <p>
+ * Every cached entry remembers the compilation units and class files of the types it has been resolved from. A
+ * Java element delta drops the entries that depend on a changed compilation unit or class file, or on anything
+ * contained in a changed package fragment, source folder, jar or project. Changes to method bodies only, as they
+ * are reported while typing in a Java editor, don't drop anything. New types, compilation units, class files,
+ * packages, source folders, jars or projects drop all entries, as types that couldn't be resolved before might exist
+ * now; new imports, package declarations, methods and fields don't.
+ * <p>
+ * Entries resolved with a {@link TypeHierarchyEngine} are kept apart from the ones resolved without, as the engine
+ * resolves super types from the class files instead of the source.
+ * @since 3.8.1
+ */
+class IntrospectorCache {
+
+	/** Maximum number of cached types per project; the memo of a project is dropped if it grows any further */
+	private static final int MAX_TYPES_PER_PROJECT = 10000;
+
+	/** Suffix of the keys of the entries whose super types have been resolved with a type hierarchy engine */
+	private static final String ENGINE_KEY_SUFFIX = "#engine";
+
+	private static final ConcurrentMap<IJavaProject, ConcurrentMap<String, TypeEntry>> PROJECTS = new ConcurrentHashMap<IJavaProject, ConcurrentMap<String, TypeEntry>>();
+
+	private static volatile IElementChangedListener elementChangedListener = null;
+
+	/**
+	 * Returns the methods of the given type and all its super classes.
+	 */
+	public static List<MethodEntry> getMethodTable(IType type, TypeHierarchyEngine typeHierarchyEngine)
+			throws JavaModelException {
+		TypeEntry entry = getEntry(type, typeHierarchyEngine);
+		List<MethodEntry> methodTable = entry.methodTable;
+		if (methodTable == null) {
+			methodTable = new ArrayList<MethodEntry>();
+			Set<String> dependencies = new HashSet<String>();
+			for (IType itrType = type; itrType != null; itrType = getSuperType(itrType, typeHierarchyEngine)) {
+				dependencies.add(getDependency(itrType));
+				boolean isInterface = itrType.isInterface();
+				for (IMethod method : Introspector.getMethods(itrType)) {
+					methodTable.add(new MethodEntry(method, itrType, isInterface));
+				}
+			}
+			methodTable = Collections.unmodifiableList(methodTable);
+			entry.addDependencies(dependencies);
+			entry.methodTable = methodTable;
+		}
+		return methodTable;
+	}
+
+	/**
+	 * Returns the super class of the given type.
+	 */
+	public static IType getSuperType(IType type, TypeHierarchyEngine typeHierarchyEngine) throws JavaModelException {
+		if (type == null) {
+			return null;
+		}
+		TypeEntry entry = getEntry(type, typeHierarchyEngine);
+		if (!entry.superTypeResolved) {
+			IType superType = Introspector.resolveSuperType(type, typeHierarchyEngine);
+			if (superType != null) {
+				entry.addDependencies(Collections.singleton(getDependency(superType)));
+			}
+			entry.superType = superType;
+			entry.superTypeResolved = true;
+		}
+		return entry.superType;
+	}
+
+	/**
+	 * Returns the interfaces implemented by the given type and all its super classes.
+	 */
+	public static Set<IType> getAllImplementedInterfaces(IType type, TypeHierarchyEngine typeHierarchyEngine) {
+		TypeEntry entry = getEntry(type, typeHierarchyEngine);
+		Set<IType> interfaces = entry.interfaces;
+		if (interfaces == null) {
+			interfaces = Introspector.resolveAllImplementedInterfaces(type, typeHierarchyEngine);
+			Set<String> dependencies = new HashSet<String>();
+			for (IType itrType = type; itrType != null; itrType = getSuperTypeQuietly(itrType, typeHierarchyEngine)) {
+				dependencies.add(getDependency(itrType));
+			}
+			for (IType interfaceType : interfaces) {
+				dependencies.add(getDependency(interfaceType));
+			}
+			interfaces = Collections.unmodifiableSet(interfaces);
+			entry.addDependencies(dependencies);
+			entry.interfaces = interfaces;
+		}
+		return interfaces;
+	}
+
+	/**
+	 * Drops all cached entries.
+	 */
+	public static void clear() {
+		PROJECTS.clear();
+	}
+
+	private static IType getSuperTypeQuietly(IType type, TypeHierarchyEngine typeHierarchyEngine) {
+		try {
+			return getSuperType(type, typeHierarchyEngine);
+		}
+		catch (JavaModelException e) {
+			return null;
+		}
+	}
+
+	private static TypeEntry getEntry(IType type, TypeHierarchyEngine typeHierarchyEngine) {
+		registerListenerIfRequired();
+		IJavaProject javaProject = type.getJavaProject();
+		ConcurrentMap<String, TypeEntry> types = PROJECTS.get(javaProject);
+		if (types == null) {
+			types = new ConcurrentHashMap<String, TypeEntry>();
+			ConcurrentMap<String, TypeEntry> existingTypes = PROJECTS.putIfAbsent(javaProject, types);
+			if (existingTypes != null) {
+				types = existingTypes;
+			}
+		}
+		else if (types.size() > MAX_TYPES_PER_PROJECT) {
+			types.clear();
+		}
+
+		// super types resolved from the class files by a type hierarchy engine may differ from the ones resolved from
+		// the source, e.g. for types that haven't been compiled yet; all engines read the same class files
+		String key = typeHierarchyEngine != null ? type.getHandleIdentifier() + ENGINE_KEY_SUFFIX
+				: type.getHandleIdentifier();
+		TypeEntry entry = types.get(key);
+		if (entry == null) {
+			entry = new TypeEntry(getDependency(type));
+			TypeEntry existingEntry = types.putIfAbsent(key, entry);
+			if (existingEntry != null) {
+				entry = existingEntry;
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the handle identifier of the compilation unit or class file of the given type.
+	 */
+	private static String getDependency(IType type) {
+		ICompilationUnit compilationUnit = type.getCompilationUnit();
+		if (compilationUnit != null) {
+			// working copies share the handle of their primary compilation unit
+			return compilationUnit.getPrimary().getHandleIdentifier();
+		}
+		IClassFile classFile = type.getClassFile();
+		if (classFile != null) {
+			return classFile.getHandleIdentifier();
+		}
+		return type.getHandleIdentifier();
+	}
+
+	private static void registerListenerIfRequired() {
+		if (elementChangedListener == null) {
+			synchronized (IntrospectorCache.class) {
+				if (elementChangedListener == null) {
+					IElementChangedListener listener = new IntrospectorCacheElementChangedListener();
+					JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE
+							| ElementChangedEvent.POST_RECONCILE);
+					elementChangedListener = listener;
+				}
+			}
+		}
+	}
+
+	private static void invalidate(Set<String> changedElements) {
+		for (ConcurrentMap<String, TypeEntry> types : PROJECTS.values()) {
+			for (Map.Entry<String, TypeEntry> entry : types.entrySet()) {
+				if (entry.getValue().dependsOn(changedElements)) {
+					types.remove(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * A method of a method table with the details that the {@link Introspector} checks.
+	 */
+	static class MethodEntry {
+
+		private final IMethod method;
+
+		private final IType type;
+
+		private final String name;
+
+		private final String key;
+
+		private final int flags;
+
+		private final int numberOfParameters;
+
+		private final boolean constructor;
+
+		private final boolean declaredByInterface;
+
+		public MethodEntry(IMethod method, IType type, boolean declaredByInterface) throws JavaModelException {
+			this.method = method;
+			this.type = type;
+			this.name = JdtUtils.getMethodName(method);
+			this.key = method.getElementName() + method.getSignature();
+			this.flags = method.getFlags();
+			this.numberOfParameters = method.getNumberOfParameters();
+			this.constructor = method.isConstructor();
+			this.declaredByInterface = declaredByInterface;
+		}
+
+		public IMethod getMethod() {
+			return method;
+		}
+
+		/**
+		 * Returns the type of the hierarchy that declares the method (or, for AJDT intertype declarations, that it is
+		 * declared on).
+		 */
+		public IType getType() {
+			return type;
+		}
+
+		/**
+		 * Returns the name of the method without the type prefix of AJDT intertype declarations.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the element name and signature of the method.
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		public int getFlags() {
+			return flags;
+		}
+
+		public int getNumberOfParameters() {
+			return numberOfParameters;
+		}
+
+		public boolean isConstructor() {
+			return constructor;
+		}
+
+		public boolean isDeclaredByInterface() {
+			return declaredByInterface;
+		}
+	}
+
+	private static class TypeEntry {
+
+		private final Set<String> dependencies = Collections.synchronizedSet(new LinkedHashSet<String>());
+
+		private volatile List<MethodEntry> methodTable;
+
+		private volatile IType superType;
+
+		private volatile boolean superTypeResolved;
+
+		private volatile Set<IType> interfaces;
+
+		public TypeEntry(String dependency) {
+			dependencies.add(dependency);
+		}
+
+		public void addDependencies(Set<String> dependencies) {
+			this.dependencies.addAll(dependencies);
+		}
+
+		public boolean dependsOn(Set<String> changedElements) {
+			synchronized (dependencies) {
+				for (String dependency : dependencies) {
+					for (String changedElement : changedElements) {
+						if (dependency.startsWith(changedElement)) {
+							return true;
+						}
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * {@link IElementChangedListener} that drops the cached entries that depend on changed Java elements.
+	 */
+	private static class IntrospectorCacheElementChangedListener implements IElementChangedListener {
+
+		public void elementChanged(ElementChangedEvent event) {
+			if (hasAddedElements(event.getDelta())) {
+				// a type that couldn't be resolved before might exist now
+				clear();
+				return;
+			}
+			Set<String> changedElements = new HashSet<String>();
+			collectChangedElements(event.getDelta(), changedElements);
+			if (!changedElements.isEmpty()) {
+				invalidate(changedElements);
+			}
+		}
+
+		private boolean hasAddedElements(IJavaElementDelta delta) {
+			IJavaElement element = delta.getElement();
+			if (!(element instanceof IType) && (element instanceof IMember || !canContainTypes(element))) {
+				// new methods and fields drop the entries of their compilation unit, new imports and package
+				// declarations can't make a type resolvable
+				return false;
+			}
+			if (delta.getKind() == IJavaElementDelta.ADDED) {
+				return true;
+			}
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				if (hasAddedElements(child)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean canContainTypes(IJavaElement element) {
+			switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+			case IJavaElement.COMPILATION_UNIT:
+			case IJavaElement.CLASS_FILE:
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		private void collectChangedElements(IJavaElementDelta delta, Set<String> changedElements) {
+			IJavaElement element = delta.getElement();
+			if (element instanceof IMember) {
+				if (!isBodyChange(delta)) {
+					addChangedElement(((IMember) element).getCompilationUnit(), element, changedElements);
+				}
+				return;
+			}
+
+			IJavaElementDelta[] children = delta.getAffectedChildren();
+			if (element instanceof ICompilationUnit || element instanceof IClassFile) {
+				if (delta.getKind() != IJavaElementDelta.CHANGED || children.length == 0
+						|| (delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) == 0) {
+					addChangedElement(element, element, changedElements);
+					return;
+				}
+			}
+			else if (delta.getKind() != IJavaElementDelta.CHANGED
+					|| (delta.getFlags() & (IJavaElementDelta.F_CLASSPATH_CHANGED
+							| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+							| IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_OPENED)) != 0) {
+				// a project, source folder, jar or package has been added, removed or changed as a whole
+				addChangedElement(element, element, changedElements);
+				return;
+			}
+
+			for (IJavaElementDelta child : children) {
+				collectChangedElements(child, changedElements);
+			}
+		}
+
+		/**
+		 * Returns <code>true</code> if only the body of the changed member has changed.
+		 */
+		private boolean isBodyChange(IJavaElementDelta delta) {
+			return delta.getElement().getElementType() != IJavaElement.TYPE
+					&& delta.getKind() == IJavaElementDelta.CHANGED
+					&& (delta.getFlags() & ~(IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED)) == 0;
+		}
+
+		private void addChangedElement(IJavaElement compilationUnit, IJavaElement element, Set<String> changedElements) {
+			if (compilationUnit instanceof ICompilationUnit) {
+				changedElements.add(((ICompilationUnit) compilationUnit).getPrimary().getHandleIdentifier());
+			}
+			else if (compilationUnit != null) {
+				changedElements.add(compilationUnit.getHandleIdentifier());
+			}
+			else {
+				changedElements.add(element.getHandleIdentifier());
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,10 +17,15 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.xbean.classloader.NonLockingJarFileClassLoader;
 import org.eclipse.core.resources.IFolder;
@@ -49,6 +54,13 @@ import org.springframework.ide.eclipse.core.SpringCore;
 
 /**
  * Internal cache of classpath urls and corresponding classloaders.
+ * <p>
+ * Lookups don't block each other. The cache is bounded by the number of entries and by their weight: every distinct jar
+ * on the class paths of the cached entries counts with its size plus a fixed overhead, no matter how many projects
+ * share it, as the jar class loaders of all projects share the open jar files (see {@link SharedJarFiles}); every
+ * class loaded by the jar class loader of an entry adds a fixed weight as well. Once either maximum is exceeded when
+ * an entry is added, the least recently used entries get evicted; the jar files of evicted entries stay open until
+ * their class loaders have been garbage collected, as class loaders handed out before may still be in use. Hit, miss, eviction and rebuild time counters are available via {@link #getStatistics()}.
  * @author Christian Dupuis
  * @author Martin Lippert
  * @since 2.2.5
@@ -57,8 +69,39 @@ import org.springframework.ide.eclipse.core.SpringCore;
 public class ProjectClassLoaderCache {
 
 	private static final String FILE_SCHEME = "file";
-	private static final int CACHE_SIZE = 12;
-	private static final List<ClassLoaderCacheEntry> CLASSLOADER_CACHE = new ArrayList<ClassLoaderCacheEntry>(CACHE_SIZE);
+
+	/** Weight of a jar on top of its size: 64 KB */
+	private static final long JAR_WEIGHT = 64 * 1024;
+
+	/** Weight of a class loaded by the jar class loader of a cached entry: 8 KB */
+	private static final long CLASS_WEIGHT = 8 * 1024;
+
+	/** Default maximum weight of the cached class loaders: 256 MB */
+	private static final long DEFAULT_MAX_WEIGHT = 256 * 1024 * 1024;
+
+	/** Default maximum number of cached class loaders */
+	private static final int DEFAULT_MAX_ENTRIES = 12;
+
+	private static final long MAX_WEIGHT = Long.getLong(SpringCore.PLUGIN_ID + ".java.classloader.maxWeight",
+			DEFAULT_MAX_WEIGHT);
+
+	private static final int MAX_ENTRIES = Integer.getInteger(SpringCore.PLUGIN_ID + ".java.classloader.maxEntries",
+			DEFAULT_MAX_ENTRIES);
+
+	private static final ConcurrentMap<CacheKey, ClassLoaderCacheEntry> CLASSLOADER_CACHE = new ConcurrentHashMap<CacheKey, ClassLoaderCacheEntry>();
+
+	/** Cached entries and charged weight per jar file; guarded by itself */
+	private static final Map<File, JarReferences> JAR_REFERENCES = new HashMap<File, JarReferences>();
+
+	/** Weight of all jar files in {@link #JAR_REFERENCES}; guarded by {@link #JAR_REFERENCES} */
+	private static long jarWeight = 0;
+
+	private static final Object EVICTION_LOCK = new Object();
+
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+	private static final AtomicLong EVICTIONS = new AtomicLong();
+	private static final AtomicLong REBUILD_TIME = new AtomicLong();
 
 	private static final String DEBUG_OPTION = SpringCore.PLUGIN_ID + "/java/classloader/debug";
 	private static final boolean DEBUG_CLASSLOADER = SpringCore.isDebug(DEBUG_OPTION);
@@ -67,37 +110,105 @@ public class ProjectClassLoaderCache {
 	private static IPropertyChangeListener propertyChangeListener = null;
 	private static IResourceChangeListener resourceChangeListener = null;
 
-	private static ClassLoader addClassLoaderToCache(IProject project, List<URL> urls, ClassLoader parentClassLoader) {
-		synchronized (CLASSLOADER_CACHE) {
-			int nEntries = CLASSLOADER_CACHE.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
+	private static ClassLoaderCacheEntry addClassLoaderToCache(IProject project, List<URL> urls,
+			ClassLoader parentClassLoader) {
+		ClassLoaderCacheEntry newEntry = new ClassLoaderCacheEntry(project, urls, parentClassLoader);
+		ClassLoaderCacheEntry entry = CLASSLOADER_CACHE.putIfAbsent(newEntry.getKey(), newEntry);
+		if (entry != null) {
+			// another thread has been faster
+			newEntry.dispose();
+			return entry;
+		}
+
+		addJarReferences(newEntry);
+		evictIfRequired(newEntry);
+		return newEntry;
+	}
+
+	private static void addJarReferences(ClassLoaderCacheEntry entry) {
+		synchronized (JAR_REFERENCES) {
+			for (File jar : entry.getJars()) {
+				JarReferences references = JAR_REFERENCES.get(jar);
+				if (references == null) {
+					// the jar may change on disk; the weight charged now is the one given back on removal
+					references = new JarReferences(getWeight(jar));
+					jarWeight += references.weight;
+					JAR_REFERENCES.put(jar, references);
+				}
+				references.count++;
+			}
+		}
+	}
+
+	private static void removeJarReferences(ClassLoaderCacheEntry entry) {
+		synchronized (JAR_REFERENCES) {
+			for (File jar : entry.getJars()) {
+				JarReferences references = JAR_REFERENCES.get(jar);
+				if (references != null && --references.count == 0) {
+					jarWeight -= references.weight;
+					JAR_REFERENCES.remove(jar);
+				}
+			}
+		}
+	}
+
+	private static long getWeight(File jar) {
+		return jar.length() + JAR_WEIGHT;
+	}
+
+	private static long getJarWeight() {
+		synchronized (JAR_REFERENCES) {
+			return jarWeight;
+		}
+	}
+
+	private static int getLoadedClassCount() {
+		int loadedClasses = 0;
+		for (ClassLoaderCacheEntry entry : CLASSLOADER_CACHE.values()) {
+			loadedClasses += entry.getLoadedClassCount();
+		}
+		return loadedClasses;
+	}
+
+	private static long getWeight() {
+		return getJarWeight() + getLoadedClassCount() * CLASS_WEIGHT;
+	}
+
+	private static boolean isLimitExceeded() {
+		return CLASSLOADER_CACHE.size() > MAX_ENTRIES || getWeight() > MAX_WEIGHT;
+	}
+
+	/**
+	 * Removes entries of projects that are no longer accessible and then the least recently used entries until
+	 * neither the number of entries nor the weight of the cache exceed their maximum any more; the given entry is
+	 * kept in any case.
+	 */
+	private static void evictIfRequired(ClassLoaderCacheEntry newEntry) {
+		if (!isLimitExceeded()) {
+			return;
+		}
+		synchronized (EVICTION_LOCK) {
+			for (ClassLoaderCacheEntry entry : CLASSLOADER_CACHE.values()) {
+				IProject curr = entry.getProject();
+				if (!curr.exists() || !curr.isAccessible() || !curr.isOpen()) {
+					removeClassLoaderEntryFromCache(entry);
+				}
+			}
+
+			while (isLimitExceeded()) {
 				ClassLoaderCacheEntry oldest = null;
-				List<ClassLoaderCacheEntry> obsoleteClassLoaders = new ArrayList<ClassLoaderCacheEntry>(CACHE_SIZE);
-				for (int i = 0; i < nEntries; i++) {
-					ClassLoaderCacheEntry entry = (ClassLoaderCacheEntry) CLASSLOADER_CACHE.get(i);
-					IProject curr = entry.getProject();
-					if (!curr.exists() || !curr.isAccessible() || !curr.isOpen()) {
-						obsoleteClassLoaders.add(entry);
-					}
-					else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest = entry;
-						}
+				for (ClassLoaderCacheEntry entry : CLASSLOADER_CACHE.values()) {
+					if (entry != newEntry && (oldest == null || entry.getLastAccess() < oldest.getLastAccess())) {
+						oldest = entry;
 					}
 				}
-				if (!obsoleteClassLoaders.isEmpty()) {
-					for (int i = 0; i < obsoleteClassLoaders.size(); i++) {
-						removeClassLoaderEntryFromCache((ClassLoaderCacheEntry) obsoleteClassLoaders.get(i));
-					}
+				if (oldest == null) {
+					break;
 				}
-				else if (oldest != null) {
-					removeClassLoaderEntryFromCache(oldest);
+				if (removeClassLoaderEntryFromCache(oldest)) {
+					EVICTIONS.incrementAndGet();
 				}
 			}
-			ClassLoaderCacheEntry newEntry = new ClassLoaderCacheEntry(project, urls, parentClassLoader);
-			CLASSLOADER_CACHE.add(newEntry);
-			return newEntry.getClassLoader();
 		}
 	}
 
@@ -210,26 +321,28 @@ public class ProjectClassLoaderCache {
 	}
 
 	private static ClassLoader findClassLoaderInCache(IProject project, ClassLoader parentClassLoader) {
-		synchronized (CLASSLOADER_CACHE) {
-			for (int i = CLASSLOADER_CACHE.size() - 1; i >= 0; i--) {
-				ClassLoaderCacheEntry entry = (ClassLoaderCacheEntry) CLASSLOADER_CACHE.get(i);
-				IProject curr = entry.getProject();
-				if (curr == null || !curr.exists() || !curr.isAccessible() || !curr.isOpen()) {
-					removeClassLoaderEntryFromCache(entry);
-					if (DEBUG_CLASSLOADER) {
-						System.out.println(String.format("> removing classloader for '%s' : total %s",
-								entry.getProject(), CLASSLOADER_CACHE.size()));
-					}
-				}
-				else {
-					if (entry.matches(project, parentClassLoader)) {
-						entry.markAsAccessed();
-						return entry.getClassLoader();
-					}
-				}
-			}
+		ClassLoaderCacheEntry entry = CLASSLOADER_CACHE.get(new CacheKey(project, parentClassLoader));
+		if (entry == null) {
+			return null;
+		}
+		if (!project.exists() || !project.isAccessible() || !project.isOpen()) {
+			removeClassLoaderEntryFromCache(entry);
+			return null;
 		}
-		return null;
+		entry.markAsAccessed();
+		return entry.getClassLoader();
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counts of the cache, the time spent on creating class loaders for cache
+	 * misses and the weight of the cached class loaders.
+	 * @since 3.8.1
+	 */
+	public static Statistics getStatistics() {
+		long jarWeight = getJarWeight();
+		int loadedClasses = getLoadedClassCount();
+		return new Statistics(HITS.get(), MISSES.get(), EVICTIONS.get(), REBUILD_TIME.get() / 1000000,
+				CLASSLOADER_CACHE.size(), jarWeight, loadedClasses, jarWeight + loadedClasses * CLASS_WEIGHT);
 	}
 
 	/**
@@ -268,15 +381,24 @@ public class ProjectClassLoaderCache {
 	/**
 	 * Removes the given {@link ClassLoaderCacheEntry} from the internal cache.
 	 * @param entry the entry to remove
+	 * @return <code>true</code> if the entry has been removed by this call
 	 */
-	private static void removeClassLoaderEntryFromCache(ClassLoaderCacheEntry entry) {
-		synchronized (CLASSLOADER_CACHE) {
-			if (DEBUG_CLASSLOADER) {
-				System.out.println(String.format("> removing classloader for '%s' : total %s", entry.getProject()
-						.getName(), CLASSLOADER_CACHE.size()));
-			}
-			entry.dispose();
-			CLASSLOADER_CACHE.remove(entry);
+	private static boolean removeClassLoaderEntryFromCache(ClassLoaderCacheEntry entry) {
+		if (!CLASSLOADER_CACHE.remove(entry.getKey(), entry)) {
+			return false;
+		}
+		if (DEBUG_CLASSLOADER) {
+			System.out.println(String.format("> removing classloader for '%s' : total %s", entry.getProject()
+					.getName(), CLASSLOADER_CACHE.size()));
+		}
+		entry.dispose();
+		removeJarReferences(entry);
+		return true;
+	}
+
+	private static void clearCache() {
+		for (ClassLoaderCacheEntry entry : CLASSLOADER_CACHE.values()) {
+			removeClassLoaderEntryFromCache(entry);
 		}
 	}
 
@@ -329,9 +451,15 @@ public class ProjectClassLoaderCache {
 		}
 
 		ClassLoader classLoader = findClassLoaderInCache(project, parentClassLoader);
-		if (classLoader == null) {
+		if (classLoader != null) {
+			HITS.incrementAndGet();
+		}
+		else {
+			MISSES.incrementAndGet();
+			long start = System.nanoTime();
 			List<URL> urls = getClassPathUrls(project, parentClassLoader);
-			classLoader = addClassLoaderToCache(project, urls, parentClassLoader);
+			classLoader = addClassLoaderToCache(project, urls, parentClassLoader).getClassLoader();
+			REBUILD_TIME.addAndGet(System.nanoTime() - start);
 			if (DEBUG_CLASSLOADER) {
 				System.out.println(String.format("> creating new classloader for '%s' with parent '%s' : total %s",
 						project.getName(), parentClassLoader, CLASSLOADER_CACHE.size()));
@@ -345,16 +473,9 @@ public class ProjectClassLoaderCache {
 	 * @param project the project to remove {@link ClassLoaderCacheEntry} for
 	 */
 	protected static void removeClassLoaderEntryFromCache(IProject project) {
-		synchronized (CLASSLOADER_CACHE) {
-			if (DEBUG_CLASSLOADER) {
-				System.out.println(String.format("> removing classloader for '%s' : total %s", project.getName(),
-						CLASSLOADER_CACHE.size()));
-			}
-			for (ClassLoaderCacheEntry entry : new ArrayList<ClassLoaderCacheEntry>(CLASSLOADER_CACHE)) {
-				if (project.equals(entry.getProject())) {
-					entry.dispose();
-					CLASSLOADER_CACHE.remove(entry);
-				}
+		for (ClassLoaderCacheEntry entry : CLASSLOADER_CACHE.values()) {
+			if (project.equals(entry.getProject())) {
+				removeClassLoaderEntryFromCache(entry);
 			}
 		}
 	}
@@ -368,7 +489,7 @@ public class ProjectClassLoaderCache {
 
 		private ClassLoader jarClassLoader;
 
-		private long lastAccess;
+		private volatile long lastAccess;
 
 		private ClassLoader parentClassLoader;
 
@@ -376,18 +497,55 @@ public class ProjectClassLoaderCache {
 
 		private URL[] urls;
 
+		private final CacheKey key;
+
+		private final List<File> jars = new ArrayList<File>();
+
 		public ClassLoaderCacheEntry(IProject project, List<URL> urls, ClassLoader parentClassLoader) {
 			this.project = project;
 			this.urls = urls.toArray(new URL[urls.size()]);
 			this.parentClassLoader = parentClassLoader;
+			this.key = new CacheKey(project, parentClassLoader);
+			for (URL url : urls) {
+				if (shouldLoadFromParent(url) && FILE_SCHEME.equalsIgnoreCase(url.getProtocol())) {
+					try {
+						jars.add(new File(url.toURI()));
+					}
+					catch (Exception e) {
+						jars.add(new File(url.getPath()));
+					}
+				}
+			}
 			markAsAccessed();
 			JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
 		}
 
+		public CacheKey getKey() {
+			return key;
+		}
+
+		public List<File> getJars() {
+			return jars;
+		}
+
 		public void dispose() {
 			JavaCore.removeElementChangedListener(this);
-			this.urls = null;
-			this.jarClassLoader = null;
+			// the shared jars are released once the class loader has been garbage collected, class loaders handed
+			// out before may still be in use and load classes lazily
+		}
+
+		/**
+		 * Returns the number of classes loaded by the jar class loader of this entry.
+		 */
+		public int getLoadedClassCount() {
+			ClassLoader classLoader = getLoadedJarClassLoader();
+			if (classLoader instanceof FilteringJarFileClassLoader) {
+				return ((FilteringJarFileClassLoader) classLoader).getLoadedClassCount();
+			}
+			else if (classLoader instanceof FilteringNonLockingJarFileClassLoader) {
+				return ((FilteringNonLockingJarFileClassLoader) classLoader).getLoadedClassCount();
+			}
+			return 0;
 		}
 
 		public void elementChanged(ElementChangedEvent event) {
@@ -427,10 +585,8 @@ public class ProjectClassLoaderCache {
 			lastAccess = System.currentTimeMillis();
 		}
 
-		public boolean matches(IProject project, ClassLoader parentClassLoader) {
-			return this.project.equals(project)
-					&& ((parentClassLoader == null && this.parentClassLoader == null) || (parentClassLoader != null && parentClassLoader
-							.equals(this.parentClassLoader)));
+		private synchronized ClassLoader getLoadedJarClassLoader() {
+			return jarClassLoader;
 		}
 
 		private synchronized ClassLoader getJarClassLoader() {
@@ -452,8 +608,8 @@ public class ProjectClassLoaderCache {
 								project.getName()), (URL[]) jars.toArray(new URL[jars.size()]), parentClassLoader);
 					}
 					else {
-						jarClassLoader = new FilteringURLClassLoader((URL[]) jars.toArray(new URL[jars.size()]),
-								parentClassLoader);
+						jarClassLoader = new FilteringJarFileClassLoader(String.format("ClassLoader for '%s'",
+								project.getName()), (URL[]) jars.toArray(new URL[jars.size()]), parentClassLoader);
 					}
 				}
 				else {
@@ -462,8 +618,8 @@ public class ProjectClassLoaderCache {
 								project.getName()), (URL[]) jars.toArray(new URL[jars.size()]), cachedParentClassLoader);
 					}
 					else {
-						jarClassLoader = new FilteringURLClassLoader((URL[]) jars.toArray(new URL[jars.size()]),
-								cachedParentClassLoader);
+						jarClassLoader = new FilteringJarFileClassLoader(String.format("ClassLoader for '%s'",
+								project.getName()), (URL[]) jars.toArray(new URL[jars.size()]), cachedParentClassLoader);
 					}
 				}
 				directories = dirs.toArray(new URL[dirs.size()]);
@@ -483,6 +639,135 @@ public class ProjectClassLoaderCache {
 		}
 	}
 	
+	/**
+	 * The number of cached entries that have a jar on their class path, and the weight the jar has been charged with.
+	 * @since 3.8.1
+	 */
+	private static class JarReferences {
+
+		private final long weight;
+
+		private int count;
+
+		public JarReferences(long weight) {
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Key of a {@link ClassLoaderCacheEntry}: the project and the parent class loader.
+	 * @since 3.8.1
+	 */
+	static class CacheKey {
+
+		private final IProject project;
+
+		private final ClassLoader parentClassLoader;
+
+		public CacheKey(IProject project, ClassLoader parentClassLoader) {
+			this.project = project;
+			this.parentClassLoader = parentClassLoader;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return project.equals(other.project)
+					&& (parentClassLoader == null ? other.parentClassLoader == null : parentClassLoader
+							.equals(other.parentClassLoader));
+		}
+
+		@Override
+		public int hashCode() {
+			return project.hashCode() * 31 + (parentClassLoader == null ? 0 : parentClassLoader.hashCode());
+		}
+	}
+
+	/**
+	 * Statistics of the {@link ProjectClassLoaderCache}.
+	 * @since 3.8.1
+	 */
+	public static class Statistics {
+
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final long rebuildTime;
+		private final int size;
+		private final long jarWeight;
+		private final int loadedClassCount;
+		private final long weight;
+
+		public Statistics(long hitCount, long missCount, long evictionCount, long rebuildTime, int size,
+				long jarWeight, int loadedClassCount, long weight) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.rebuildTime = rebuildTime;
+			this.size = size;
+			this.jarWeight = jarWeight;
+			this.loadedClassCount = loadedClassCount;
+			this.weight = weight;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 * Returns the time in milliseconds spent on creating class loaders for cache misses.
+		 */
+		public long getRebuildTime() {
+			return rebuildTime;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns the weight of the distinct jars on the class paths of the cached entries.
+		 */
+		public long getJarWeight() {
+			return jarWeight;
+		}
+
+		/**
+		 * Returns the number of classes loaded by the jar class loaders of the cached entries.
+		 */
+		public int getLoadedClassCount() {
+			return loadedClassCount;
+		}
+
+		/**
+		 * Returns the weight of the jars and the loaded classes.
+		 */
+		public long getWeight() {
+			return weight;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"hits: %d, misses: %d, evictions: %d, rebuild time: %dms, entries: %d, classes: %d, weight: %d",
+					hitCount, missCount, evictionCount, rebuildTime, size, loadedClassCount, weight);
+		}
+	}
+
 	/**
 	 * {@link IPropertyChangeListener} to clear the cache whenever the setting is changed.
 	 * @since 2.5.0
@@ -494,9 +779,7 @@ public class ProjectClassLoaderCache {
 		 */
 		public void propertyChange(PropertyChangeEvent event) {
 			if (SpringCore.USE_NON_LOCKING_CLASSLOADER.equals(event.getProperty())) {
-				synchronized (CLASSLOADER_CACHE) {
-					CLASSLOADER_CACHE.clear();
-				}
+				clearCache();
 			}
 		}
 	}
@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+
+import org.apache.xbean.classloader.NonLockingJarFile;
+import org.apache.xbean.classloader.UrlResourceFinder.JarFileFactory;
+
+/**
+ * Reference counted jar files that are shared by the jar class loaders of all projects.
+ * <p>
+ * Every class loader gets its own {@link JarFileFactory} from {@link #createJarFileFactory(ClassLoader, boolean)}.
+ * A jar that is on the class path of several projects is opened only once and the class file bytes read from it
+ * (by the {@link NonLockingJarFile}) are kept only once. Each class loader that uses a jar holds a reference to it;
+ * the references of a class loader are released once the class loader has been garbage collected, as class loaders
+ * handed out by the {@link ProjectClassLoaderCache} may still be in use after they have been evicted. A jar is
+ * closed and its cached bytes are dropped as soon as the last reference is released.
+ * <p>
+ * Jars are shared as long as their time stamp and size don't change; a changed jar is opened again for new class
+ * loaders while the class loaders created before keep using the old one.
+ * @since 3.8.1
+ */
+public class SharedJarFiles {
+
+	private static final Map<JarKey, SharedJarFile> JAR_FILES = new HashMap<JarKey, SharedJarFile>();
+
+	private static final ReferenceQueue<ClassLoader> RELEASED_CLASS_LOADERS = new ReferenceQueue<ClassLoader>();
+
+	/** Strongly references the {@link ClassLoaderReference}s until they have been enqueued */
+	private static final Set<ClassLoaderReference> CLASS_LOADERS = Collections
+			.newSetFromMap(new ConcurrentHashMap<ClassLoaderReference, Boolean>());
+
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	/**
+	 * Creates the {@link JarFileFactory} for the given class loader; it hands out the shared jar files.
+	 * @param classLoader the class loader that will use the jar files
+	 * @param nonLocking <code>true</code> to keep the jar files closed in between reads
+	 */
+	public static JarFileFactory createJarFileFactory(ClassLoader classLoader, boolean nonLocking) {
+		releaseCollectedClassLoaders();
+		ClassLoaderJarFiles jarFiles = new ClassLoaderJarFiles(nonLocking);
+		CLASS_LOADERS.add(new ClassLoaderReference(classLoader, jarFiles));
+		return jarFiles;
+	}
+
+	/**
+	 * Returns the number of class loaders that hold a reference to the given jar file.
+	 * <p>
+	 * Note: This method is only for internal testing purposes.
+	 */
+	public static int getReferenceCount(File file) {
+		releaseCollectedClassLoaders();
+		File absoluteFile = file.getAbsoluteFile();
+		int references = 0;
+		synchronized (JAR_FILES) {
+			for (SharedJarFile jarFile : JAR_FILES.values()) {
+				if (jarFile.getKey().file.equals(absoluteFile)) {
+					references += jarFile.getReferences();
+				}
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * Returns the number of open jar files, the number of references to them and how often a jar could be shared.
+	 */
+	public static Statistics getStatistics() {
+		releaseCollectedClassLoaders();
+		synchronized (JAR_FILES) {
+			int references = 0;
+			long size = 0;
+			for (SharedJarFile jarFile : JAR_FILES.values()) {
+				references += jarFile.getReferences();
+				size += jarFile.getKey().length;
+			}
+			return new Statistics(JAR_FILES.size(), references, size, HITS.get(), MISSES.get());
+		}
+	}
+
+	private static SharedJarFile acquire(File file, boolean nonLocking) throws IOException {
+		JarKey key = new JarKey(file, nonLocking);
+		synchronized (JAR_FILES) {
+			SharedJarFile jarFile = JAR_FILES.get(key);
+			if (jarFile != null) {
+				HITS.incrementAndGet();
+				jarFile.retain();
+				return jarFile;
+			}
+		}
+
+		// open the jar outside of the lock; if another thread has been faster, use its jar instead
+		MISSES.incrementAndGet();
+		SharedJarFile newJarFile = nonLocking ? new SharedNonLockingJarFile(key) : new SharedLockingJarFile(key);
+		synchronized (JAR_FILES) {
+			SharedJarFile jarFile = JAR_FILES.get(key);
+			if (jarFile == null) {
+				jarFile = newJarFile;
+				JAR_FILES.put(key, jarFile);
+			}
+			jarFile.retain();
+			if (jarFile != newJarFile) {
+				newJarFile.dispose();
+			}
+			return jarFile;
+		}
+	}
+
+	private static void release(List<SharedJarFile> jarFiles) {
+		List<SharedJarFile> unusedJarFiles = new ArrayList<SharedJarFile>();
+		synchronized (JAR_FILES) {
+			for (SharedJarFile jarFile : jarFiles) {
+				if (jarFile.release() == 0) {
+					if (JAR_FILES.get(jarFile.getKey()) == jarFile) {
+						JAR_FILES.remove(jarFile.getKey());
+					}
+					unusedJarFiles.add(jarFile);
+				}
+			}
+		}
+		for (SharedJarFile jarFile : unusedJarFiles) {
+			jarFile.dispose();
+		}
+	}
+
+	private static void releaseCollectedClassLoaders() {
+		Reference<? extends ClassLoader> reference;
+		while ((reference = RELEASED_CLASS_LOADERS.poll()) != null) {
+			ClassLoaderReference classLoaderReference = (ClassLoaderReference) reference;
+			CLASS_LOADERS.remove(classLoaderReference);
+			release(classLoaderReference.jarFiles.release());
+		}
+	}
+
+	/**
+	 * The jar files used by a single class loader.
+	 */
+	private static class ClassLoaderJarFiles implements JarFileFactory {
+
+		private final boolean nonLocking;
+
+		private final List<SharedJarFile> jarFiles = new ArrayList<SharedJarFile>();
+
+		public ClassLoaderJarFiles(boolean nonLocking) {
+			this.nonLocking = nonLocking;
+		}
+
+		public JarFile newJarFile(File file) throws IOException {
+			releaseCollectedClassLoaders();
+			SharedJarFile jarFile = acquire(file, nonLocking);
+			synchronized (jarFiles) {
+				jarFiles.add(jarFile);
+			}
+			return (JarFile) jarFile;
+		}
+
+		public List<SharedJarFile> release() {
+			synchronized (jarFiles) {
+				List<SharedJarFile> released = new ArrayList<SharedJarFile>(jarFiles);
+				jarFiles.clear();
+				return released;
+			}
+		}
+	}
+
+	private static class ClassLoaderReference extends PhantomReference<ClassLoader> {
+
+		private final ClassLoaderJarFiles jarFiles;
+
+		public ClassLoaderReference(ClassLoader classLoader, ClassLoaderJarFiles jarFiles) {
+			super(classLoader, RELEASED_CLASS_LOADERS);
+			this.jarFiles = jarFiles;
+		}
+	}
+
+	/**
+	 * Identifies a version of a jar file.
+	 */
+	private static class JarKey {
+
+		private final File file;
+
+		private final long lastModified;
+
+		private final long length;
+
+		private final boolean nonLocking;
+
+		public JarKey(File file, boolean nonLocking) {
+			this.file = file.getAbsoluteFile();
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+			this.nonLocking = nonLocking;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof JarKey)) {
+				return false;
+			}
+			JarKey other = (JarKey) obj;
+			return file.equals(other.file) && lastModified == other.lastModified && length == other.length
+					&& nonLocking == other.nonLocking;
+		}
+
+		@Override
+		public int hashCode() {
+			return file.hashCode() * 31 + (int) (lastModified ^ (lastModified >>> 32));
+		}
+	}
+
+	/**
+	 * A jar file shared by several class loaders; it gets closed once it is no longer referenced.
+	 */
+	private interface SharedJarFile {
+
+		JarKey getKey();
+
+		void retain();
+
+		int release();
+
+		int getReferences();
+
+		void dispose();
+
+	}
+
+	/**
+	 * Closing a shared locking jar file has no effect, it is still in use by other class loaders.
+	 */
+	private static class SharedLockingJarFile extends JarFile implements SharedJarFile {
+
+		private final JarKey key;
+
+		private int references;
+
+		public SharedLockingJarFile(JarKey key) throws IOException {
+			super(key.file, true, ZipFile.OPEN_READ);
+			this.key = key;
+		}
+
+		public JarKey getKey() {
+			return key;
+		}
+
+		public void retain() {
+			references++;
+		}
+
+		public int release() {
+			return --references;
+		}
+
+		public int getReferences() {
+			return references;
+		}
+
+		@Override
+		public void close() {
+			// shared with other class loaders
+		}
+
+		public void dispose() {
+			try {
+				super.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Closing a shared non-locking jar file is harmless: the {@link NonLockingJarFile} closes itself right after
+	 * opening and reopens the file for every read.
+	 */
+	private static class SharedNonLockingJarFile extends NonLockingJarFile implements SharedJarFile {
+
+		private final JarKey key;
+
+		private int references;
+
+		public SharedNonLockingJarFile(JarKey key) throws IOException {
+			super(key.file);
+			this.key = key;
+			setCheckForUpdates(false);
+		}
+
+		public JarKey getKey() {
+			return key;
+		}
+
+		public void retain() {
+			references++;
+		}
+
+		public int release() {
+			return --references;
+		}
+
+		public int getReferences() {
+			return references;
+		}
+
+		public void dispose() {
+			// the cached entries and bytes are dropped together with this instance
+		}
+	}
+
+	/**
+	 * Statistics of the shared jar files.
+	 */
+	public static class Statistics {
+
+		private final int jarCount;
+		private final int referenceCount;
+		private final long size;
+		private final long hitCount;
+		private final long missCount;
+
+		public Statistics(int jarCount, int referenceCount, long size, long hitCount, long missCount) {
+			this.jarCount = jarCount;
+			this.referenceCount = referenceCount;
+			this.size = size;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+		}
+
+		public int getJarCount() {
+			return jarCount;
+		}
+
+		public int getReferenceCount() {
+			return referenceCount;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("jars: %d, references: %d, size: %d, hits: %d, misses: %d", jarCount, referenceCount,
+					size, hitCount, missCount);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,12 @@
 package org.springframework.ide.eclipse.core.java;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IType;
@@ -23,6 +28,12 @@ import org.eclipse.jdt.core.JavaModelException;
  * Cache for {@link ITypeHierarchy} instances.
  * <p>
  * The implementation has been taken from {@link org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache}.
+ * <p>
+ * Cached hierarchies are indexed by the handle identifiers of all the types they contain, so that lookups don't
+ * lock and only scan the cache if the index doesn't know a hierarchy for the type. A hierarchy that changes is removed together with its index entries as soon as JDT
+ * reports the change; the other hierarchies stay cached. The number of cached hierarchies can be configured with
+ * the <code>org.springframework.ide.eclipse.core.java.typeHierarchyCacheSize</code> system property; once it is
+ * exceeded, the least recently used hierarchies get evicted.
  * @author Christian Dupuis
  * @since 2.0.1
  */
@@ -33,21 +44,33 @@ public class SuperTypeHierarchyCache {
 	 */
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
-		private long lastAccess;
+		private volatile long lastAccess;
+
+		private volatile ITypeHierarchy typeHierarchy;
 
-		private ITypeHierarchy typeHierarchy;
+		private final List<String> handleIdentifiers = new ArrayList<String>();
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			typeHierarchy = hierarchy;
+			for (IType type : hierarchy.getAllTypes()) {
+				handleIdentifiers.add(type.getHandleIdentifier());
+			}
 			typeHierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
 
 		public void dispose() {
-			typeHierarchy.removeTypeHierarchyChangedListener(this);
+			ITypeHierarchy hierarchy = typeHierarchy;
+			if (hierarchy != null) {
+				hierarchy.removeTypeHierarchyChangedListener(this);
+			}
 			typeHierarchy = null;
 		}
 
+		public List<String> getHandleIdentifiers() {
+			return handleIdentifiers;
+		}
+
 		public long getLastAccess() {
 			return lastAccess;
 		}
@@ -57,7 +80,7 @@ public class SuperTypeHierarchyCache {
 		}
 
 		public void markAsAccessed() {
-			lastAccess = System.currentTimeMillis();
+			lastAccess = ACCESS_COUNTER.incrementAndGet();
 		}
 
 		public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
@@ -65,63 +88,98 @@ public class SuperTypeHierarchyCache {
 		}
 	}
 
-	private static final int CACHE_SIZE = 50;
+	private static final int DEFAULT_CACHE_SIZE = 50;
+
+	private static final int CACHE_SIZE = Math.max(1, Integer.getInteger(
+			"org.springframework.ide.eclipse.core.java.typeHierarchyCacheSize", DEFAULT_CACHE_SIZE));
+
+	private static final AtomicLong ACCESS_COUNTER = new AtomicLong();
 
-	private static List<HierarchyCacheEntry> HIERACHY_CACHE = new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
+	private static final Set<HierarchyCacheEntry> HIERACHY_CACHE = Collections
+			.newSetFromMap(new ConcurrentHashMap<HierarchyCacheEntry, Boolean>());
+
+	/** Cached hierarchies by the handle identifiers of the types they contain */
+	private static final ConcurrentMap<String, HierarchyCacheEntry> HIERARCHY_INDEX = new ConcurrentHashMap<String, HierarchyCacheEntry>();
+
+	private static final Object EVICTION_LOCK = new Object();
 
 	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
-		synchronized (HIERACHY_CACHE) {
-			int nEntries = HIERACHY_CACHE.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently
-				// accessed
-				HierarchyCacheEntry oldest = null;
-				List<HierarchyCacheEntry> obsoleteHierarchies = new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-				for (int i = 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry = (HierarchyCacheEntry) HIERACHY_CACHE.get(i);
+		HierarchyCacheEntry newEntry = new HierarchyCacheEntry(hierarchy);
+		HIERACHY_CACHE.add(newEntry);
+		for (String handleIdentifier : newEntry.getHandleIdentifiers()) {
+			HIERARCHY_INDEX.put(handleIdentifier, newEntry);
+		}
+
+		if (HIERACHY_CACHE.size() > CACHE_SIZE) {
+			synchronized (EVICTION_LOCK) {
+				// find obsolete entries or remove entry that was least recently accessed
+				List<HierarchyCacheEntry> obsoleteHierarchies = new ArrayList<HierarchyCacheEntry>();
+				for (HierarchyCacheEntry entry : HIERACHY_CACHE) {
 					ITypeHierarchy curr = entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
+					if (entry != newEntry
+							&& (curr == null || !curr.exists() || hierarchy.contains(curr.getType()))) {
 						obsoleteHierarchies.add(entry);
 					}
-					else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
+				}
+				for (HierarchyCacheEntry entry : obsoleteHierarchies) {
+					removeHierarchyEntryFromCache(entry);
+				}
+
+				while (HIERACHY_CACHE.size() > CACHE_SIZE) {
+					HierarchyCacheEntry oldest = null;
+					for (HierarchyCacheEntry entry : HIERACHY_CACHE) {
+						if (entry != newEntry && (oldest == null || entry.getLastAccess() < oldest.getLastAccess())) {
 							oldest = entry;
 						}
 					}
-				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i = 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache((HierarchyCacheEntry) obsoleteHierarchies.get(i));
+					if (oldest == null) {
+						break;
 					}
-				}
-				else if (oldest != null) {
 					removeHierarchyEntryFromCache(oldest);
 				}
 			}
-			HierarchyCacheEntry newEntry = new HierarchyCacheEntry(hierarchy);
-			HIERACHY_CACHE.add(newEntry);
 		}
 	}
 
 	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (HIERACHY_CACHE) {
-			for (int i = HIERACHY_CACHE.size() - 1; i >= 0; i--) {
-				HierarchyCacheEntry curr = (HierarchyCacheEntry) HIERACHY_CACHE.get(i);
-				ITypeHierarchy hierarchy = curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				}
-				else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
-				}
+		String handleIdentifier = type.getHandleIdentifier();
+		HierarchyCacheEntry entry = HIERARCHY_INDEX.get(handleIdentifier);
+		ITypeHierarchy hierarchy = getTypeHierarchy(entry, type);
+		if (hierarchy != null) {
+			return hierarchy;
+		}
+		if (entry != null && !HIERACHY_CACHE.contains(entry)) {
+			// the entry has been removed while it got indexed
+			HIERARCHY_INDEX.remove(handleIdentifier, entry);
+		}
+
+		// the index only knows one hierarchy per type; another one that contains the type may still be cached
+		for (HierarchyCacheEntry curr : HIERACHY_CACHE) {
+			hierarchy = getTypeHierarchy(curr, type);
+			if (hierarchy != null) {
+				HIERARCHY_INDEX.put(handleIdentifier, curr);
+				return hierarchy;
 			}
 		}
 		return null;
 	}
 
+	private static ITypeHierarchy getTypeHierarchy(HierarchyCacheEntry entry, IType type) {
+		if (entry == null) {
+			return null;
+		}
+		ITypeHierarchy hierarchy = entry.getTypeHierarchy();
+		if (hierarchy == null || !hierarchy.exists()) {
+			removeHierarchyEntryFromCache(entry);
+			return null;
+		}
+		if (hierarchy.contains(type)) {
+			entry.markAsAccessed();
+			return hierarchy;
+		}
+		return null;
+	}
+
 	/**
 	 * Get the {@link ITypeHierarchy} for the given {@link IType}.
 	 * <p>
@@ -163,9 +221,11 @@ public class SuperTypeHierarchyCache {
 	}
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
-		synchronized (HIERACHY_CACHE) {
+		if (HIERACHY_CACHE.remove(entry)) {
 			entry.dispose();
-			HIERACHY_CACHE.remove(entry);
+			for (String handleIdentifier : entry.getHandleIdentifiers()) {
+				HIERARCHY_INDEX.remove(handleIdentifier, entry);
+			}
 		}
 	}
 }
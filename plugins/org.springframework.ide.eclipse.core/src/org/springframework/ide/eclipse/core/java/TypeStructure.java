@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2014 Spring IDE Developers
+ * Copyright (c) 2008, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,209 +10,252 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java;
 
-import org.eclipse.jdt.core.compiler.CharOperation;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.env.ClassSignature;
+import org.eclipse.jdt.internal.compiler.env.EnumConstantSignature;
 import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
 import org.eclipse.jdt.internal.compiler.env.IBinaryElementValuePair;
 import org.eclipse.jdt.internal.compiler.env.IBinaryField;
 import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
-import org.eclipse.jdt.internal.compiler.env.IBinaryNestedType;
-import org.eclipse.jdt.internal.compiler.env.IBinaryType;
+import org.eclipse.jdt.internal.compiler.impl.Constant;
+import org.eclipse.jdt.internal.compiler.lookup.ExtraCompilerModifiers;
+import org.springframework.ide.eclipse.core.SpringCore;
 
 /**
- * Implementation that can hold structural information about Java class files.
+ * Compact fingerprint of the structure of a Java class file.
+ * <p>
+ * Used to check if class files have changes since the last build. Instead of keeping the class file contents, the
+ * structure is reduced to one digest per level of detail:
+ * <ul>
+ * <li>modifiers, signatures, super types and tag bits of the class, its fields and methods</li>
+ * <li>in addition the annotation types of the class, its fields, methods and method parameters</li>
+ * <li>in addition the values of those annotations</li>
+ * </ul>
+ * The order of interfaces, fields, methods and annotations doesn't contribute to the fingerprint.
  * <p>
- * Used to check if class files have changes since the last build.
+ * Note: This class is only public for internal testing purposes.
  * @author Christian Dupuis
  * @author Andy Clement
  * @since 2.2.0
  */
 @SuppressWarnings("restriction")
-class TypeStructure extends org.eclipse.jdt.internal.core.hierarchy.HierarchyBinaryType implements IBinaryType {
-	
-	//Hack Alert! 
-	// We extend 'HierarchyBinaryType' because we have no other way to get/provide an implementation of
-	// 'getTypeAnnotations' method that exist only in versions of JDT that have Java 8 support.
-	// This hack allows us to keep this class compatible with JDT with/without Java 8 support
-	// at the same time.
-	
-	static char[][] NoInterface = CharOperation.NO_CHAR_CHAR;
-
-	static IBinaryNestedType[] NoNestedType = new IBinaryNestedType[0];
-
-	static IBinaryField[] NoField = new IBinaryField[0];
-
-	static IBinaryMethod[] NoMethod = new IBinaryMethod[0];
-	
-	static IBinaryAnnotation[] NoAnnotation = new IBinaryAnnotation[0];
-
-	static IBinaryElementValuePair[] NoElement = new IBinaryElementValuePair[0];
-
-	// this is the core state for comparison
-	char[] className;
-
-	int modifiers;
-
-	char[] genericSignature;
-
-	char[] superclassName;
-
-	char[][] interfaces;
-
-	// this is the extra state that enables us to be an IBinaryType
-	char[] enclosingTypeName;
-
-	boolean isLocal, isAnonymous, isMember;
+public class TypeStructure {
 
-	char[] sourceFileName;
+	private static final int LEVEL_STRUCTURE = 0;
 
-	char[] fileName;
+	private static final int LEVEL_ANNOTATIONS = 1;
 
-	char[] sourceName;
+	private static final int LEVEL_ANNOTATION_VALUES = 2;
 
-	long tagBits;
+	private final String className;
 
-	boolean isBinaryType;
-
-	IBinaryField[] binFields;
-
-	IBinaryMethod[] binMethods;
-
-	IBinaryNestedType[] memberTypes;
-
-	IBinaryAnnotation[] annotations;
+	private final byte[][] fingerprints = new byte[3][];
 
 	public TypeStructure(ClassFileReader cfr) {
-		//It shouldn't really matter what arguments we provide to the constructor
-		// since this class implements all the methods, except for getTypeAnnotations,
-		// which just returns 'null'. So all that really matters is we pass in 
-		// something that doesn't make the super constructor crash. We will nevertheless
-		// try our best to pass in sensible values.
-		super(
-				cfr.getModifiers(),
-				computeQualification(cfr),
-				cfr.getSourceName(),
-				cfr.getEnclosingTypeName(),
-				(char[][])null,
-				'?' //?? appears not used in super class, so not sure what its for
-		);
-		
-		this.enclosingTypeName = cfr.getEnclosingTypeName();
-		this.isLocal = cfr.isLocal();
-		this.isAnonymous = cfr.isAnonymous();
-		this.isMember = cfr.isMember();
-		this.sourceFileName = cfr.sourceFileName();
-		this.fileName = cfr.getFileName();
-		this.tagBits = cfr.getTagBits();
-		this.isBinaryType = cfr.isBinaryType();
-		this.binFields = cfr.getFields();
-		if (binFields == null)
-			binFields = NoField;
-		this.binMethods = cfr.getMethods();
-		if (binMethods == null)
-			binMethods = NoMethod;
-		this.memberTypes = cfr.getMemberTypes();
-		this.annotations = cfr.getAnnotations();
-		this.sourceName = cfr.getSourceName();
-		this.className = cfr.getName(); // slashes...
-		this.modifiers = cfr.getModifiers();
-		this.genericSignature = cfr.getGenericSignature();
-		// if (this.genericSignature.length == 0) {
-		// this.genericSignature = null;
-		// }
-		this.superclassName = cfr.getSuperclassName(); // slashes...
-		interfaces = cfr.getInterfaceNames();
-
-	}
-	
-	private static char[] computeQualification(ClassFileReader cfr) {
-		String qualifiedName = new String(cfr.getName());
-		int pos = qualifiedName.lastIndexOf('/');
-		if (pos==-1) {
-			return null;
-		} else {
-			return qualifiedName.substring(pos+1).toCharArray();
+		this.className = new String(cfr.getName()).replace('/', '.');
+		for (int level = LEVEL_STRUCTURE; level <= LEVEL_ANNOTATION_VALUES; level++) {
+			fingerprints[level] = digest(describe(cfr, level));
 		}
 	}
 
-	public char[] getEnclosingTypeName() {
-		return enclosingTypeName;
-	}
-
-	public int getModifiers() {
-		return modifiers;
-	}
-
-	public char[] getGenericSignature() {
-		return genericSignature;
-	}
-
-	public char[][] getInterfaceNames() {
-		return interfaces;
-	}
-
-	public boolean isAnonymous() {
-		return isAnonymous;
-	}
-
-	public char[] sourceFileName() {
-		return sourceFileName;
+	/**
+	 * Returns the fully-qualified name of the type (with <code>$</code> separating inner classes).
+	 */
+	public String getClassName() {
+		return className;
 	}
 
-	public boolean isLocal() {
-		return isLocal;
+	/**
+	 * Returns <code>true</code> if the given structure differs from this one in any of the changes of interest.
+	 * @see ITypeStructureCache#FLAG_ANNOTATION
+	 * @see ITypeStructureCache#FLAG_ANNOTATION_VALUE
+	 */
+	public boolean hasStructuralChanges(TypeStructure other, int flags) {
+		if (other == null) {
+			return true;
+		}
+		int level = LEVEL_STRUCTURE;
+		if ((flags & ITypeStructureCache.FLAG_ANNOTATION) != 0) {
+			level = (flags & ITypeStructureCache.FLAG_ANNOTATION_VALUE) != 0 ? LEVEL_ANNOTATION_VALUES
+					: LEVEL_ANNOTATIONS;
+		}
+		return !Arrays.equals(fingerprints[level], other.fingerprints[level]);
 	}
 
-	public boolean isMember() {
-		return isMember;
-	}
+	private static String describe(ClassFileReader cfr, int level) {
+		StringBuilder description = new StringBuilder();
+		description.append(modifiers(cfr.getModifiers())).append('|');
+		description.append(string(cfr.getGenericSignature())).append('|');
+		description.append(string(cfr.getSuperclassName())).append('|');
+		description.append(cfr.getTagBits()).append('|');
+
+		List<String> interfaces = new ArrayList<String>();
+		char[][] interfaceNames = cfr.getInterfaceNames();
+		if (interfaceNames != null) {
+			for (char[] interfaceName : interfaceNames) {
+				interfaces.add(string(interfaceName));
+			}
+		}
+		description.append(sorted(interfaces)).append('|');
 
-	public char[] getSuperclassName() {
-		return superclassName;
-	}
+		if (level >= LEVEL_ANNOTATIONS) {
+			description.append(annotations(cfr.getAnnotations(), level)).append('|');
+		}
 
-	public char[] getFileName() {
-		return fileName;
-	}
+		List<String> fields = new ArrayList<String>();
+		IBinaryField[] binaryFields = cfr.getFields();
+		if (binaryFields != null) {
+			for (IBinaryField field : binaryFields) {
+				StringBuilder fieldDescription = new StringBuilder();
+				fieldDescription.append(string(field.getName())).append(' ');
+				fieldDescription.append(modifiers(field.getModifiers())).append(' ');
+				fieldDescription.append(string(field.getTypeName()));
+				if (level >= LEVEL_ANNOTATIONS) {
+					fieldDescription.append(' ').append(annotations(field.getAnnotations(), level));
+				}
+				fields.add(fieldDescription.toString());
+			}
+		}
+		description.append(sorted(fields)).append('|');
+
+		List<String> methods = new ArrayList<String>();
+		IBinaryMethod[] binaryMethods = cfr.getMethods();
+		if (binaryMethods != null) {
+			char[] fileName = cfr.getFileName();
+			for (IBinaryMethod method : binaryMethods) {
+				StringBuilder methodDescription = new StringBuilder();
+				methodDescription.append(string(method.getSelector()));
+				methodDescription.append(string(method.getMethodDescriptor())).append(' ');
+				methodDescription.append(modifiers(method.getModifiers()));
+				if (level >= LEVEL_ANNOTATIONS) {
+					methodDescription.append(' ').append(annotations(method.getAnnotations(), level));
+					char[][] argumentNames = method.getArgumentNames();
+					int argumentCount = argumentNames != null ? argumentNames.length : 0;
+					for (int i = 0; i < argumentCount; i++) {
+						methodDescription.append(' ').append(
+								annotations(getParameterAnnotation(method, i, fileName), level));
+					}
+				}
+				methods.add(methodDescription.toString());
+			}
+		}
+		description.append(sorted(methods));
 
-	public char[] getName() {
-		return className;
+		return description.toString();
 	}
 
-	public long getTagBits() {
-		return tagBits;
+	private static String annotations(IBinaryAnnotation[] annotations, int level) {
+		List<String> descriptions = new ArrayList<String>();
+		if (annotations != null) {
+			for (IBinaryAnnotation annotation : annotations) {
+				descriptions.add(annotation(annotation, level));
+			}
+		}
+		return sorted(descriptions);
 	}
 
-	public boolean isBinaryType() {
-		return isBinaryType;
+	private static String annotation(IBinaryAnnotation annotation, int level) {
+		StringBuilder description = new StringBuilder("@").append(string(annotation.getTypeName()));
+		if (level >= LEVEL_ANNOTATION_VALUES) {
+			List<String> values = new ArrayList<String>();
+			IBinaryElementValuePair[] pairs = annotation.getElementValuePairs();
+			if (pairs != null) {
+				for (IBinaryElementValuePair pair : pairs) {
+					values.add(string(pair.getName()) + "=" + value(pair.getValue(), level));
+				}
+			}
+			description.append(sorted(values));
+		}
+		return description.toString();
 	}
 
-	public IBinaryField[] getFields() {
-		return binFields;
+	private static String value(Object value, int level) {
+		if (value instanceof Object[]) {
+			StringBuilder description = new StringBuilder("{");
+			for (Object element : (Object[]) value) {
+				description.append(value(element, level)).append(',');
+			}
+			return description.append('}').toString();
+		}
+		else if (value instanceof ClassSignature) {
+			return string(((ClassSignature) value).getTypeName());
+		}
+		else if (value instanceof EnumConstantSignature) {
+			return string(((EnumConstantSignature) value).getTypeName()) + "."
+					+ string(((EnumConstantSignature) value).getEnumConstantName());
+		}
+		else if (value instanceof IBinaryAnnotation) {
+			return annotation((IBinaryAnnotation) value, level);
+		}
+		else if (value instanceof Constant) {
+			return ((Constant) value).toString();
+		}
+		return String.valueOf(value);
 	}
 
-	public IBinaryMethod[] getMethods() {
-		return binMethods;
+	private static String sorted(List<String> descriptions) {
+		Collections.sort(descriptions);
+		return descriptions.toString();
 	}
 
-	public IBinaryNestedType[] getMemberTypes() {
-		return memberTypes;
+	private static int modifiers(int modifiers) {
+		return modifiers & ExtraCompilerModifiers.AccJustFlag;
 	}
 
-	public IBinaryAnnotation[] getAnnotations() {
-		return annotations;
+	private static String string(char[] chars) {
+		return chars != null ? new String(chars) : "";
 	}
 
-	public char[] getSourceName() {
-		return sourceName;
+	private static byte[] digest(String description) {
+		try {
+			return MessageDigest.getInstance("MD5").digest(description.getBytes("UTF-8"));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
-	public char[][][] getMissingTypeNames() {
-		return null;
-	}
+	// changed API of IBinaryMethod (between Eclipse 4.5 and Eclipse 4.6)
+	// therefore adapting to this via reflection to use the correct existing method
+	private static IBinaryAnnotation[] getParameterAnnotation(IBinaryMethod newMethod, int i, char[] fileName) {
+		IBinaryAnnotation[] result = null;
+
+		// try the old method first
+		try {
+
+			try {
+				Method getParameterAnnotationsMethod = newMethod.getClass().getMethod("getParameterAnnotations", int.class);
+				if (getParameterAnnotationsMethod != null) {
+					getParameterAnnotationsMethod.setAccessible(true);
+					result = (IBinaryAnnotation[]) getParameterAnnotationsMethod.invoke(newMethod, i);
+				}
+			} catch (NoSuchMethodException e) {
+
+				// if the old method is not there, try the new one
+				Method getParameterAnnotationsMethod = newMethod.getClass().getMethod("getParameterAnnotations", int.class, char[].class);
+				if (getParameterAnnotationsMethod != null) {
+					getParameterAnnotationsMethod.setAccessible(true);
+					result = (IBinaryAnnotation[]) getParameterAnnotationsMethod.invoke(newMethod, i, fileName);
+				}
+			}
+
+		} catch (Exception e) {
+			SpringCore.log(e);
+		}
 
-	public char[] getEnclosingMethod() {
-		return null;
+		return result;
 	}
 
 }
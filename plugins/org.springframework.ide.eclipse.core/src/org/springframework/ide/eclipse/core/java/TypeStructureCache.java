@@ -10,28 +10,25 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Method;
-import java.net.MalformedURLException;
-import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.eclipse.core.filesystem.EFS;
-import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IPathVariableManager;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -43,25 +40,20 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
-import org.eclipse.jdt.internal.compiler.env.ClassSignature;
-import org.eclipse.jdt.internal.compiler.env.EnumConstantSignature;
-import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
-import org.eclipse.jdt.internal.compiler.env.IBinaryElementValuePair;
-import org.eclipse.jdt.internal.compiler.env.IBinaryField;
-import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
-import org.eclipse.jdt.internal.compiler.impl.Constant;
-import org.eclipse.jdt.internal.compiler.lookup.ExtraCompilerModifiers;
 import org.springframework.ide.eclipse.core.SpringCore;
-import org.springsource.ide.eclipse.commons.core.SpringCoreUtils;
 
 /**
  * Object that caches instances of {@link TypeStructure}. Furthermore this implementation is able to answer if a given
  * {@link IResource} which represents a class file has structural changes.
  * <p>
  * For this implementation a change of class and method level annotation is considered a structural change.
+ * <p>
+ * Only the fingerprints of the types are kept, so detecting a change is a comparison of two fingerprints. The
+ * fingerprint of the class file in the output folder is computed once per version of the class file and is
+ * reused when the type structures get recorded at the end of the build. Every project has its own lock, so builds of
+ * different projects don't block each other.
  * 
  * @author Christian Dupuis
  * @author Martin Lippert
@@ -70,18 +62,10 @@ import org.springsource.ide.eclipse.commons.core.SpringCoreUtils;
 @SuppressWarnings("restriction")
 public class TypeStructureCache implements ITypeStructureCache {
 
-	private static final char[][] EMPTY_CHAR_ARRAY = new char[0][];
-
 	private IElementChangedListener changedListener = null;
 
-	/** {@link TypeStructure} instances keyed by full-qualified class names */
-	private Map<IProject, Map<String, TypeStructure>> typeStructuresByProject = new ConcurrentHashMap<IProject, Map<String, TypeStructure>>();
-
-	protected final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
-
-	protected final Lock r = rwl.readLock();
-
-	protected final Lock w = rwl.writeLock();
+	/** Recorded and current {@link TypeStructure} instances per project */
+	private final ConcurrentMap<IProject, ProjectTypeStructures> typeStructuresByProject = new ConcurrentHashMap<IProject, ProjectTypeStructures>();
 
 	public void startup() {
 		changedListener = new TypeRemovingJavaElementChangeListener();
@@ -91,79 +75,55 @@ public class TypeStructureCache implements ITypeStructureCache {
 	public void shutdown() {
 		JavaCore.removeElementChangedListener(changedListener);
 		changedListener = null;
-		typeStructuresByProject = null;
+		typeStructuresByProject.clear();
 	}
 
 	/**
 	 * Removes {@link TypeStructure}s for a given project.
 	 */
 	public void clearStateForProject(IProject project) {
-		try {
-			w.lock();
-			typeStructuresByProject.remove(project);
-		}
-		finally {
-			w.unlock();
-		}
+		typeStructuresByProject.remove(project);
 	}
 
 	/**
 	 * Checks if {@link TypeStructure} instances exist for a given project.
 	 */
 	public boolean hasRecordedTypeStructures(IProject project) {
-		try {
-			r.lock();
-			return typeStructuresByProject.containsKey(project);
-		}
-		finally {
-			r.unlock();
-		}
+		return typeStructuresByProject.containsKey(project);
 	}
 
 	/**
 	 * Record {@link TypeStructure} instances of the given <code>resources</code>.
 	 */
 	public void recordTypeStructures(IProject project, IResource... resources) {
-		try {
-			w.lock();
-			Map<String, TypeStructure> typeStructures = null;
-			if (!typeStructuresByProject.containsKey(project)) {
-				typeStructures = new ConcurrentHashMap<String, TypeStructure>();
-				typeStructuresByProject.put(project, typeStructures);
-			}
-			else {
-				typeStructures = typeStructuresByProject.get(project);
+		ProjectTypeStructures projectTypeStructures = typeStructuresByProject.get(project);
+		if (projectTypeStructures == null) {
+			projectTypeStructures = new ProjectTypeStructures();
+			ProjectTypeStructures existing = typeStructuresByProject.putIfAbsent(project, projectTypeStructures);
+			if (existing != null) {
+				projectTypeStructures = existing;
+			}
+		}
+
+		// compute the fingerprints before taking the lock; most of them are known from the change detection
+		List<TypeStructure> typeStructures = new ArrayList<TypeStructure>();
+		for (IResource resource : resources) {
+			if ("class".equals(resource.getFileExtension()) && resource instanceof IFile) {
+				TypeStructure typeStructure = projectTypeStructures.getCurrentTypeStructure((IFile) resource);
+				if (typeStructure != null) {
+					typeStructures.add(typeStructure);
+				}
 			}
+		}
 
-			for (IResource resource : resources) {
-				if (resource.getFileExtension().equals("class") && resource instanceof IFile) {
-					InputStream input = null;
-					try {
-						input = ((IFile) resource).getContents();
-						ClassFileReader reader = ClassFileReader.read(input, resource.getName());
-						TypeStructure typeStructure = new TypeStructure(reader);
-						typeStructures.put(new String(reader.getName()).replace('/', '.'), typeStructure);
-					}
-					catch (CoreException e) {
-					}
-					catch (ClassFormatException e) {
-					}
-					catch (IOException e) {
-					}
-					finally {
-						if (input != null) {
-							try {
-								input.close();
-							}
-							catch (IOException e) {
-							}
-						}
-					}
-				}
+		try {
+			projectTypeStructures.lock.writeLock().lock();
+			for (TypeStructure typeStructure : typeStructures) {
+				projectTypeStructures.recorded.put(typeStructure.getClassName(), typeStructure);
 			}
 		}
 		finally {
-			w.unlock();
+			projectTypeStructures.lock.writeLock().unlock();
 		}
 	}
 
@@ -171,453 +131,255 @@ public class TypeStructureCache implements ITypeStructureCache {
 	 * Check if a given {@link IResource} representing a class file has structural changes.
 	 */
 	public boolean hasStructuralChanges(IResource resource, int flags) {
-		try {
-			r.lock();
-			if (!hasRecordedTypeStructures(resource.getProject())) {
-				return true;
-			}
-
-			Map<String, TypeStructure> typeStructures = typeStructuresByProject.get(resource.getProject());
-
-			if (resource != null && resource.getFileExtension() != null && resource.getFileExtension().equals("java")) {
-				IJavaElement element = JavaCore.create(resource);
-				if (element instanceof ICompilationUnit && ((ICompilationUnit) element).isOpen()) {
-					try {
-						IType[] types = ((ICompilationUnit) element).getAllTypes();
-						for (IType type : types) {
-							String fqn = type.getFullyQualifiedName();
-							TypeStructure typeStructure = typeStructures.get(fqn);
-							if (typeStructure == null) {
-								return true;
-							}
-							ClassFileReader reader = getClassFileReaderForClassName(type.getFullyQualifiedName(),
-									resource.getProject());
-							if (reader != null && hasStructuralChanges(reader, typeStructure, flags)) {
-								return true;
-							}
-						}
-						return false;
-					}
-					catch (JavaModelException e) {
-						SpringCore.log(e);
-					}
-					catch (MalformedURLException e) {
-						SpringCore.log(e);
-					}
-				}
-			}
+		ProjectTypeStructures projectTypeStructures = typeStructuresByProject.get(resource.getProject());
+		if (projectTypeStructures == null) {
 			return true;
 		}
+
+		try {
+			projectTypeStructures.lock.readLock().lock();
+			return hasStructuralChanges(projectTypeStructures, resource, flags);
+		}
 		finally {
-			r.unlock();
+			projectTypeStructures.lock.readLock().unlock();
 		}
 	}
 
 	/**
-	 * Removes cached type structures by the given className.
+	 * Checks all java source files of the given {@link IResourceDelta} for structural changes, taking the lock of
+	 * each affected project only once.
+	 * @return the result of {@link #hasStructuralChanges(IResource, int)} for every java source file in the delta
+	 * @since 3.8.1
 	 */
-	protected void removeRecordedTyeStructures(IProject project, String className) {
-		try {
-			w.lock();
-			if (!hasRecordedTypeStructures(project)) {
-				return;
-			}
-
-			String innerClassName = className + "$";
-			List<String> typeStructuresToRemove = new ArrayList<String>();
-
-			Map<String, TypeStructure> typeStructures = typeStructuresByProject.get(project);
-			for (String recordedClassName : typeStructures.keySet()) {
-				if (className.equals(recordedClassName) || recordedClassName.startsWith(innerClassName)) {
-					typeStructuresToRemove.add(recordedClassName);
+	public Map<IResource, Boolean> hasStructuralChanges(IResourceDelta delta, int flags) {
+		Map<IProject, List<IResource>> resourcesByProject = new HashMap<IProject, List<IResource>>();
+		for (IResource resource : getJavaSourceFiles(delta)) {
+			List<IResource> resources = resourcesByProject.get(resource.getProject());
+			if (resources == null) {
+				resources = new ArrayList<IResource>();
+				resourcesByProject.put(resource.getProject(), resources);
+			}
+			resources.add(resource);
+		}
+
+		Map<IResource, Boolean> result = new HashMap<IResource, Boolean>();
+		for (Map.Entry<IProject, List<IResource>> entry : resourcesByProject.entrySet()) {
+			ProjectTypeStructures projectTypeStructures = typeStructuresByProject.get(entry.getKey());
+			if (projectTypeStructures == null) {
+				for (IResource resource : entry.getValue()) {
+					result.put(resource, Boolean.TRUE);
 				}
+				continue;
 			}
-			for (String recordedClassName : typeStructuresToRemove) {
-				typeStructures.remove(recordedClassName);
-			}
-		}
-		finally {
-			w.unlock();
-		}
-	}
-
-	private static ClassFileReader getClassFileReaderForClassName(String className, IProject project)
-			throws JavaModelException, MalformedURLException {
-		IJavaProject jp = JavaCore.create(project);
 
-		File outputDirectory = convertPathToFile(project, jp.getOutputLocation());
-		File classFile = new File(outputDirectory, ClassUtils.getClassFileName(className));
-		if (classFile.exists() && classFile.canRead()) {
 			try {
-				return ClassFileReader.read(classFile);
-			}
-			catch (ClassFormatException e) {
-			}
-			catch (IOException e) {
-			}
-		}
-
-		IClasspathEntry[] classpath = jp.getRawClasspath();
-		for (int i = 0; i < classpath.length; i++) {
-			IClasspathEntry path = classpath[i];
-			if (path.getEntryKind() == IClasspathEntry.CPE_SOURCE) {
-				outputDirectory = convertPathToFile(project, path.getOutputLocation());
-				classFile = new File(outputDirectory, ClassUtils.getClassFileName(className));
-				if (classFile.exists() && classFile.canRead()) {
-					try {
-						return ClassFileReader.read(classFile);
-					}
-					catch (ClassFormatException e) {
-					}
-					catch (IOException e) {
-					}
+				projectTypeStructures.lock.readLock().lock();
+				for (IResource resource : entry.getValue()) {
+					result.put(resource, hasStructuralChanges(projectTypeStructures, resource, flags));
 				}
 			}
-		}
-		return null;
-	}
-
-	private static File convertPathToFile(IProject project, IPath path) throws MalformedURLException {
-		if (path != null && project != null && path.removeFirstSegments(1) != null) {
-			IResource resource = project.findMember(path.removeFirstSegments(1));
-			if (resource != null) {
-				URI uri = resource.getRawLocationURI();
-
-				if (uri != null) {
-					String scheme = uri.getScheme();
-					if (SpringCoreUtils.FILE_SCHEME.equalsIgnoreCase(scheme)) {
-						return toLocalFile(uri);
-					}
-					else {
-						IPathVariableManager variableManager = ResourcesPlugin.getWorkspace().getPathVariableManager();
-						return toLocalFile(variableManager.resolveURI(uri));
-					}
-				}
+			finally {
+				projectTypeStructures.lock.readLock().unlock();
 			}
 		}
-		return null;
+		return result;
 	}
-	
-	private static File toLocalFile(URI locationURI) {
-		if (locationURI == null)
-			return null;
 
+	/**
+	 * Returns the java source files of the given {@link IResourceDelta}.
+	 */
+	static List<IResource> getJavaSourceFiles(IResourceDelta delta) {
+		final List<IResource> resources = new ArrayList<IResource>();
 		try {
-			IFileStore store = EFS.getStore(locationURI);
-			return store.toLocalFile(0, null);
-		} catch (CoreException ex) {
-			SpringCore.log("Error while converting URI to local file: " + locationURI.toString(), ex);
-		}
-		
-		return null;
-	}
-
-	private boolean hasStructuralChanges(ClassFileReader reader, TypeStructure existingType, int flags) {
-		if (existingType == null) {
-			return true;
-		}
-
-		// modifiers
-		if (!modifiersEqual(reader.getModifiers(), existingType.modifiers)) {
-			return true;
-		}
-
-		// generic signature
-		if (!CharOperation.equals(reader.getGenericSignature(), existingType.genericSignature)) {
-			return true;
-		}
-
-		// superclass name
-		if (!CharOperation.equals(reader.getSuperclassName(), existingType.superclassName)) {
-			return true;
-		}
-
-		// class level annotations
-		if ((flags & FLAG_ANNOTATION) != 0) {
-			IBinaryAnnotation[] existingAnnotations = existingType.getAnnotations();
-			IBinaryAnnotation[] newAnnotations = reader.getAnnotations();
-			if (!annotationsEqual(existingAnnotations, newAnnotations, flags)) {
-				return true;
-			}
-		}
-
-		// tag bits; standard annotations like @Deprecated
-		if (reader.getTagBits() != existingType.getTagBits()) {
-			return true;
-		}
+			delta.accept(new IResourceDeltaVisitor() {
 
-		// interfaces
-		char[][] existingIfs = existingType.interfaces;
-		char[][] newIfsAsChars = reader.getInterfaceNames();
-		if (newIfsAsChars == null) {
-			newIfsAsChars = EMPTY_CHAR_ARRAY;
-		} // damn I'm lazy...
-		if (existingIfs == null) {
-			existingIfs = EMPTY_CHAR_ARRAY;
-		}
-		if (existingIfs.length != newIfsAsChars.length)
-			return true;
-		new_interface_loop: for (int i = 0; i < newIfsAsChars.length; i++) {
-			for (int j = 0; j < existingIfs.length; j++) {
-				if (CharOperation.equals(existingIfs[j], newIfsAsChars[i])) {
-					continue new_interface_loop;
-				}
-			}
-			return true;
-		}
-
-		// fields
-		IBinaryField[] newFields = reader.getFields();
-		if (newFields == null) {
-			newFields = TypeStructure.NoField;
-		}
-
-		IBinaryField[] existingFs = existingType.binFields;
-		if (newFields.length != existingFs.length)
-			return true;
-		new_field_loop: for (int i = 0; i < newFields.length; i++) {
-			IBinaryField field = newFields[i];
-			char[] fieldName = field.getName();
-			for (int j = 0; j < existingFs.length; j++) {
-				if (CharOperation.equals(existingFs[j].getName(), fieldName)) {
-					if (!modifiersEqual(field.getModifiers(), existingFs[j].getModifiers())) {
-						return true;
-					}
-					if (!CharOperation.equals(existingFs[j].getTypeName(), field.getTypeName())) {
-						return true;
-					}
-					if ((flags & FLAG_ANNOTATION) != 0) {
-						if (!annotationsEqual(field.getAnnotations(), existingFs[j].getAnnotations(), flags)) {
-							return true;
-						}
+				public boolean visit(IResourceDelta resourceDelta) throws CoreException {
+					IResource resource = resourceDelta.getResource();
+					if (resource instanceof IFile && "java".equals(resource.getFileExtension())) {
+						resources.add(resource);
 					}
-					continue new_field_loop;
+					return true;
 				}
-			}
-			return true;
+			});
 		}
-
-		// methods
-		IBinaryMethod[] newMethods = reader.getMethods();
-		if (newMethods == null) {
-			newMethods = TypeStructure.NoMethod;
+		catch (CoreException e) {
+			SpringCore.log(e);
 		}
-		
-		char[] fileName = reader.getFileName();
+		return resources;
+	}
 
-		IBinaryMethod[] existingMs = existingType.binMethods;
-		if (newMethods.length != existingMs.length)
-			return true;
-		new_method_loop: for (int i = 0; i < newMethods.length; i++) {
-			IBinaryMethod method = newMethods[i];
-			char[] methodName = method.getSelector();
-			for (int j = 0; j < existingMs.length; j++) {
-				if (CharOperation.equals(existingMs[j].getSelector(), methodName)) {
-					// candidate match
-					if (!CharOperation.equals(method.getMethodDescriptor(), existingMs[j].getMethodDescriptor())) {
-						continue; // might be overloading
-					}
-					else {
-						// matching sigs
-						if (!modifiersEqual(method.getModifiers(), existingMs[j].getModifiers())) {
+	private boolean hasStructuralChanges(ProjectTypeStructures projectTypeStructures, IResource resource, int flags) {
+		if (resource.getFileExtension() != null && resource.getFileExtension().equals("java")) {
+			IJavaElement element = JavaCore.create(resource);
+			if (element instanceof ICompilationUnit && ((ICompilationUnit) element).isOpen()) {
+				try {
+					IType[] types = ((ICompilationUnit) element).getAllTypes();
+					for (IType type : types) {
+						String fqn = type.getFullyQualifiedName();
+						TypeStructure typeStructure = projectTypeStructures.recorded.get(fqn);
+						if (typeStructure == null) {
 							return true;
 						}
-						if ((flags & FLAG_ANNOTATION) != 0) {
-							if (!annotationsEqual(method.getAnnotations(), existingMs[j].getAnnotations(), flags)) {
+						IFile classFile = getClassFileForClassName(fqn, resource.getProject());
+						if (classFile != null) {
+							TypeStructure currentTypeStructure = projectTypeStructures.getCurrentTypeStructure(classFile);
+							if (currentTypeStructure != null
+									&& currentTypeStructure.hasStructuralChanges(typeStructure, flags)) {
 								return true;
 							}
-							
-							if (!parameterAnnotationsEquals(method, existingMs[j], fileName, flags)) {
-								return true;
-							}
-							
 						}
-						continue new_method_loop;
 					}
+					return false;
+				}
+				catch (JavaModelException e) {
+					SpringCore.log(e);
 				}
 			}
-			return true; // (no match found)
 		}
-
-		return false;
+		return true;
 	}
 
-	private static boolean parameterAnnotationsEquals(IBinaryMethod newMethod,
-			IBinaryMethod existingMethod, char[] fileName, int flags) {
-		
-		char[][] argumentNames = newMethod.getArgumentNames();
-		char[][] existingArgumentNames = existingMethod.getArgumentNames();
-		
-		if (argumentNames == null && existingArgumentNames == null)
-			return true;
-		
-		int argumentCount = argumentNames != null ? argumentNames.length : 0;
-		int existingArgumentCount = existingArgumentNames != null ? existingArgumentNames.length : 0;
-		
-		if (argumentCount != existingArgumentCount)
-			return false;
-		
-		for (int i = 0; i < argumentCount; i++) {
-			IBinaryAnnotation[] parameterAnnotations = getParameterAnnotation(newMethod, i, fileName);
-			IBinaryAnnotation[] existingParameterAnnotations = getParameterAnnotation(existingMethod, i, fileName);
-			
-			if (!annotationsEqual(parameterAnnotations, existingParameterAnnotations, flags)) {
-				return false;
-			}
+	/**
+	 * Removes cached type structures by the given className.
+	 */
+	protected void removeRecordedTyeStructures(IProject project, String className) {
+		ProjectTypeStructures projectTypeStructures = typeStructuresByProject.get(project);
+		if (projectTypeStructures == null) {
+			return;
 		}
-		
-		return true;
-	}
 
-	// changed API of IBinaryMethod (between Eclipse 4.5 and Eclipse 4.6)
-	// therefore adapting to this via reflection to use the correct existing method
-	private static IBinaryAnnotation[] getParameterAnnotation(IBinaryMethod newMethod, int i, char[] fileName) {
-		IBinaryAnnotation[] result = null;
-		
-		// try the old method first
 		try {
+			projectTypeStructures.lock.writeLock().lock();
+			String innerClassName = className + "$";
+			List<String> typeStructuresToRemove = new ArrayList<String>();
 
-			try {
-				Method getParameterAnnotationsMethod = newMethod.getClass().getMethod("getParameterAnnotations", int.class);
-				if (getParameterAnnotationsMethod != null) {
-					getParameterAnnotationsMethod.setAccessible(true);
-					result = (IBinaryAnnotation[]) getParameterAnnotationsMethod.invoke(newMethod, i);
+			for (String recordedClassName : projectTypeStructures.recorded.keySet()) {
+				if (className.equals(recordedClassName) || recordedClassName.startsWith(innerClassName)) {
+					typeStructuresToRemove.add(recordedClassName);
 				}
-			} catch (NoSuchMethodException e) {
-				
-				// if the old method is not there, try the new one
-				Method getParameterAnnotationsMethod = newMethod.getClass().getMethod("getParameterAnnotations", int.class, char[].class);
-				if (getParameterAnnotationsMethod != null) {
-					getParameterAnnotationsMethod.setAccessible(true);
-					result = (IBinaryAnnotation[]) getParameterAnnotationsMethod.invoke(newMethod, i, fileName);
+			}
+			for (String recordedClassName : typeStructuresToRemove) {
+				projectTypeStructures.recorded.remove(recordedClassName);
+			}
+
+			for (Map.Entry<IPath, ClassFileTypeStructure> entry : projectTypeStructures.current.entrySet()) {
+				String currentClassName = entry.getValue().typeStructure.getClassName();
+				if (className.equals(currentClassName) || currentClassName.startsWith(innerClassName)) {
+					projectTypeStructures.current.remove(entry.getKey(), entry.getValue());
 				}
 			}
-			
-		} catch (Exception e) {
-			SpringCore.log(e);
 		}
-		
-		return result;
+		finally {
+			projectTypeStructures.lock.writeLock().unlock();
+		}
 	}
 
-	private static boolean annotationsEqual(IBinaryAnnotation[] existingAnnotations,
-			IBinaryAnnotation[] newAnnotations, int flags) {
-		if (existingAnnotations == null) {
-			existingAnnotations = TypeStructure.NoAnnotation;
+	private static TypeStructure readTypeStructure(IFile classFile) {
+		InputStream input = null;
+		try {
+			input = classFile.getContents();
+			return new TypeStructure(ClassFileReader.read(input, classFile.getName()));
 		}
-		if (newAnnotations == null) {
-			newAnnotations = TypeStructure.NoAnnotation;
+		catch (CoreException e) {
 		}
-		if (existingAnnotations.length != newAnnotations.length) {
-			return false;
+		catch (ClassFormatException e) {
 		}
-
-		new_annotation_loop: for (int i = 0; i < newAnnotations.length; i++) {
-			for (int j = 0; j < existingAnnotations.length; j++) {
-				if (CharOperation.equals(newAnnotations[j].getTypeName(), existingAnnotations[i].getTypeName())) {
-					// compare annotation parameters
-					if ((flags & FLAG_ANNOTATION_VALUE) != 0) {
-						IBinaryElementValuePair[] newParameters = newAnnotations[j].getElementValuePairs();
-						IBinaryElementValuePair[] existingParameters = existingAnnotations[j].getElementValuePairs();
-						if (newParameters == null) {
-							newParameters = TypeStructure.NoElement;
-						}
-						if (existingParameters == null) {
-							existingParameters = TypeStructure.NoElement;
-						}
-						if (existingParameters.length != newParameters.length) {
-							return false;
-						}
-						for (int k = 0; k < newParameters.length; k++) {
-							for (int l = 0; l < existingParameters.length; l++) {
-								char[] newName = newParameters[l].getName();
-								char[] existingName = existingParameters[l].getName();
-								Object newValue = newParameters[l].getValue();
-								Object existingValue = existingParameters[l].getValue();
-
-								if (!CharOperation.equals(newName, existingName)) {
-									return false;
-								}
-
-								if (!parameterValuesEquals(flags, newValue, existingValue)) {
-									return false;
-								}
-							}
-						}
-					}
-					continue new_annotation_loop;
+		catch (IOException e) {
+		}
+		finally {
+			if (input != null) {
+				try {
+					input.close();
+				}
+				catch (IOException e) {
 				}
 			}
-			return false;
 		}
-		return true;
+		return null;
 	}
 
-	private static boolean parameterValuesEquals(int flags, Object newValue, Object existingValue) {
-		if (newValue.getClass().isArray() && existingValue.getClass().isArray()) {
-			Object[] newValueArray = (Object[]) newValue;
-			Object[] existingValueArray = (Object[]) existingValue;
-			if (newValueArray.length != existingValueArray.length) {
-				return false;
-			}
-			for (int i = 0; i < newValueArray.length; i++) {
-				if (!parameterValuesEquals(flags, newValueArray[i], existingValueArray[i])) {
-					return false;
-				}
-			}
+	private static IFile getClassFileForClassName(String className, IProject project) throws JavaModelException {
+		IJavaProject jp = JavaCore.create(project);
+		String classFileName = ClassUtils.getClassFileName(className);
+
+		IFile classFile = getClassFile(project, jp.getOutputLocation(), classFileName);
+		if (classFile != null) {
+			return classFile;
 		}
-		else if (newValue instanceof ClassSignature) {
-			if (existingValue instanceof ClassSignature) {
-				if (!CharOperation.equals(((ClassSignature) newValue).getTypeName(),
-						((ClassSignature) existingValue).getTypeName())) {
-					return false;
+
+		IClasspathEntry[] classpath = jp.getRawClasspath();
+		for (int i = 0; i < classpath.length; i++) {
+			IClasspathEntry path = classpath[i];
+			if (path.getEntryKind() == IClasspathEntry.CPE_SOURCE) {
+				classFile = getClassFile(project, path.getOutputLocation(), classFileName);
+				if (classFile != null) {
+					return classFile;
 				}
 			}
-			else {
-				return false;
-			}
 		}
-		else if (newValue instanceof Constant) {
-			if (existingValue instanceof Constant) {
-				if (!((Constant) newValue).hasSameValue((Constant) existingValue)) {
-					return false;
+		return null;
+	}
+
+	private static IFile getClassFile(IProject project, IPath outputLocation, String classFileName) {
+		if (outputLocation != null && project != null) {
+			IResource outputFolder = project.findMember(outputLocation.removeFirstSegments(1));
+			if (outputFolder instanceof IContainer) {
+				IFile classFile = ((IContainer) outputFolder).getFile(new Path(classFileName));
+				if (classFile.exists()) {
+					return classFile;
 				}
 			}
-			else {
-				return false;
-			}
 		}
-		else if (newValue instanceof EnumConstantSignature) {
-			if (existingValue instanceof EnumConstantSignature) {
-				if (!(CharOperation.equals(((EnumConstantSignature) newValue).getTypeName(),
-						((EnumConstantSignature) existingValue).getTypeName()) && CharOperation.equals(
-						((EnumConstantSignature) newValue).getEnumConstantName(),
-						((EnumConstantSignature) existingValue).getEnumConstantName()))) {
-					return false;
-				}
-			}
-			else {
-				return false;
+		return null;
+	}
+
+	/**
+	 * The recorded {@link TypeStructure}s of a project and the ones of the class files currently on disk.
+	 */
+	private static class ProjectTypeStructures {
+
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+		/** {@link TypeStructure} instances keyed by full-qualified class names */
+		private final Map<String, TypeStructure> recorded = new ConcurrentHashMap<String, TypeStructure>();
+
+		/** {@link TypeStructure} instances of the class files in the output folders keyed by their path */
+		private final ConcurrentMap<IPath, ClassFileTypeStructure> current = new ConcurrentHashMap<IPath, ClassFileTypeStructure>();
+
+		public TypeStructure getCurrentTypeStructure(IFile classFile) {
+			IPath path = classFile.getFullPath();
+			long modificationStamp = classFile.getModificationStamp();
+
+			ClassFileTypeStructure typeStructure = current.get(path);
+			if (typeStructure != null && modificationStamp != IResource.NULL_STAMP
+					&& typeStructure.modificationStamp == modificationStamp) {
+				return typeStructure.typeStructure;
 			}
-		}
-		else if (newValue instanceof IBinaryAnnotation) {
-			if (existingValue instanceof EnumConstantSignature) {
-				if (!annotationsEqual(new IBinaryAnnotation[] { (IBinaryAnnotation) newValue },
-						new IBinaryAnnotation[] { (IBinaryAnnotation) existingValue }, flags)) {
-					return false;
-				}
+
+			TypeStructure newTypeStructure = readTypeStructure(classFile);
+			if (newTypeStructure != null) {
+				current.put(path, new ClassFileTypeStructure(newTypeStructure, modificationStamp));
 			}
 			else {
-				return false;
+				current.remove(path);
 			}
+			return newTypeStructure;
 		}
-		return true;
 	}
 
-	private static boolean modifiersEqual(int eclipseModifiers, int resolvedTypeModifiers) {
-		resolvedTypeModifiers = resolvedTypeModifiers & ExtraCompilerModifiers.AccJustFlag;
-		eclipseModifiers = eclipseModifiers & ExtraCompilerModifiers.AccJustFlag;
-		return (eclipseModifiers == resolvedTypeModifiers);
+	/**
+	 * A {@link TypeStructure} together with the modification stamp of the class file it has been read from.
+	 */
+	private static class ClassFileTypeStructure {
+
+		private final TypeStructure typeStructure;
+
+		private final long modificationStamp;
+
+		public ClassFileTypeStructure(TypeStructure typeStructure, long modificationStamp) {
+			this.typeStructure = typeStructure;
+			this.modificationStamp = modificationStamp;
+		}
 	}
 
 	private class TypeRemovingJavaElementChangeListener implements IElementChangedListener {
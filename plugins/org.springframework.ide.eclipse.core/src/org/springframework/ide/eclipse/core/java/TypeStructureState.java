@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Spring IDE Developers
+ * Copyright (c) 2008, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,15 +10,20 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.project.IProjectContributor;
 
 /**
  * State that makes the {@link TypeStructureCache} accessible to {@link IProjectContributor}s.
+ * <p>
+ * A resource is only checked when it is asked for; the result is kept for the duration of the build. Contributors
+ * that need the results for all java source files of a delta can ask for them in one call.
  * @author Christian Dupuis
  * @since 2.2.0
  */
@@ -27,8 +32,8 @@ public class TypeStructureState {
 
 	private boolean useChangeDetectionInJavaFiles = false;
 
-	// Internal cache to speed up the checking
-	private Map<IResource, Boolean> resultsCache = new ConcurrentHashMap<IResource, Boolean>();
+	// Internal cache to speed up the checking; results keyed by flags
+	private Map<Integer, Map<IResource, Boolean>> resultsCache = new ConcurrentHashMap<Integer, Map<IResource, Boolean>>();
 
 	public TypeStructureState() {
 		this.useChangeDetectionInJavaFiles = SpringCore.getDefault().getPluginPreferences().getBoolean(
@@ -46,16 +51,57 @@ public class TypeStructureState {
 	 * @see ITypeStructureCache#FLAG_TAB_BITS
 	 */
 	public boolean hasStructuralChanges(IResource resource, int flags) {
+		if (!useChangeDetectionInJavaFiles) {
+			return true;
+		}
+
 		// First check the internal cache for faster access
-		if (!resultsCache.containsKey(resource)) {
+		Map<IResource, Boolean> results = getResults(flags);
+		Boolean result = results.get(resource);
+		if (result == null) {
 			// Only if not in cache do the calculation
-			boolean result = !useChangeDetectionInJavaFiles
-					|| SpringCore.getTypeStructureCache().hasStructuralChanges(resource, flags);
+			result = SpringCore.getTypeStructureCache().hasStructuralChanges(resource, flags);
 			// Store value in cache and proceed;
-			resultsCache.put(resource, result);
+			results.put(resource, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks all java source files of the given <code>delta</code> for structural changes. If the
+	 * {@link ITypeStructureCache} is a {@link TypeStructureCache} the files are checked in one call to it.
+	 * @param delta the delta containing the changed java type(s)
+	 * @param flags flags indicating interest in special changes
+	 * @return the result of {@link #hasStructuralChanges(IResource, int)} for every java source file in the delta
+	 * @since 3.8.1
+	 */
+	public Map<IResource, Boolean> hasStructuralChanges(IResourceDelta delta, int flags) {
+		ITypeStructureCache typeStructureCache = SpringCore.getTypeStructureCache();
+		if (useChangeDetectionInJavaFiles && typeStructureCache instanceof TypeStructureCache) {
+			Map<IResource, Boolean> results = ((TypeStructureCache) typeStructureCache).hasStructuralChanges(delta, flags);
+			getResults(flags).putAll(results);
+			return results;
+		}
+
+		Map<IResource, Boolean> results = new HashMap<IResource, Boolean>();
+		for (IResource resource : TypeStructureCache.getJavaSourceFiles(delta)) {
+			results.put(resource, hasStructuralChanges(resource, flags));
 		}
+		return results;
+	}
 
-		return resultsCache.get(resource);
+	private Map<IResource, Boolean> getResults(int flags) {
+		Map<IResource, Boolean> results = resultsCache.get(flags);
+		if (results == null) {
+			synchronized (resultsCache) {
+				results = resultsCache.get(flags);
+				if (results == null) {
+					results = new ConcurrentHashMap<IResource, Boolean>();
+					resultsCache.put(flags, results);
+				}
+			}
+		}
+		return results;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2014 Spring IDE Developers
+ * Copyright (c) 2012, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,35 +10,60 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java.classreading;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
 import org.springframework.core.io.Resource;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.ide.eclipse.core.type.asm.ClassReadingCache;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
 
 /**
+ * {@link MetadataReaderFactory} that caches the {@link MetadataReader}s per class name. The cache is bounded by the
+ * estimated size of the readers and readers get dropped when the source, class or jar file of their type changes.
+ * Class names that cannot be resolved are cached as well.
  * @author Martin Lippert
  * @since 3.2.0
+ * @see ClassReadingCache
  */
 public class CachingJdtMetadataReaderFactory implements MetadataReaderFactory {
-	
+
+	/** Default maximum estimated size of the cached metadata readers: 16 MB */
+	public static final long DEFAULT_MAX_WEIGHT = 16 * 1024 * 1024;
+
+	/** Estimated size of a reader whose class file and source file sizes are unknown */
+	private static final long DEFAULT_READER_WEIGHT = 4 * 1024;
+
+	/** Estimated size of the entry for a class name that cannot be resolved */
+	private static final long NULL_READER_WEIGHT = 64;
+
 	private final JdtMetadataReaderFactory factory;
-	private final Map<String, MetadataReader> cache = new HashMap<String, MetadataReader>();
+	private final ClassLoader classloader;
+	private final ClassReadingCache<String, MetadataReader> cache;
 	
 	public CachingJdtMetadataReaderFactory(IJavaProject project, ClassLoader classloader) {
+		this(project, classloader, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * @param maxWeight the maximum estimated size in bytes of the cached readers
+	 * @since 3.8.1
+	 */
+	public CachingJdtMetadataReaderFactory(IJavaProject project, ClassLoader classloader, long maxWeight) {
 		this.factory = new JdtMetadataReaderFactory(project, classloader);
+		this.classloader = classloader;
+		this.cache = new ClassReadingCache<String, MetadataReader>(new MetadataReaderLoader(), maxWeight);
 	}
 
 	public MetadataReader getMetadataReader(String className) throws IOException {
-		synchronized(cache) {
-			if (!cache.containsKey(className)) {
-				cache.put(className, factory.getMetadataReader(className));
-			}
-		}
-		
 		return cache.get(className);
 	}
 
@@ -46,4 +71,136 @@ public class CachingJdtMetadataReaderFactory implements MetadataReaderFactory {
 		throw new JdtMetadataReaderException("'getMetadataReader' is not supported");
 	}
 
+	/**
+	 * Returns the hit, miss and eviction counts of this factory's cache.
+	 * @since 3.8.1
+	 */
+	public ClassReadingCache.Statistics getStatistics() {
+		return cache.getStatistics();
+	}
+
+	/**
+	 * Drops all cached readers.
+	 * @since 3.8.1
+	 */
+	public void dispose() {
+		cache.dispose();
+	}
+
+	/**
+	 * The weight of a reader is the size of its class file or - if that is not available as a plain file - of its
+	 * source file; the source file (or the jar) of the type and the class file the reader has been created from are
+	 * recorded as locations. The files are resolved once when the reader is loaded.
+	 */
+	private class MetadataReaderLoader implements ClassReadingCache.EntryLoader<String, MetadataReader> {
+
+		/** The files of the reader that has been loaded last on the current thread */
+		private final ThreadLocal<ReaderFiles> loadedFiles = new ThreadLocal<ReaderFiles>();
+
+		public MetadataReader load(String className) throws IOException {
+			MetadataReader reader = factory.getMetadataReader(className);
+			if (reader instanceof JdtConnectedMetadataReader) {
+				loadedFiles.set(new ReaderFiles(reader));
+			}
+			return reader;
+		}
+
+		public long getWeight(String className, MetadataReader reader) {
+			if (reader == null) {
+				return NULL_READER_WEIGHT;
+			}
+			ReaderFiles files = getFiles(reader);
+			if (files != null) {
+				if (files.classFile != null && files.classFile.isFile()) {
+					return files.classFile.length();
+				}
+				if (files.sourceFile != null && files.sourceFile.isFile()
+						&& !files.sourceFile.getName().endsWith(".jar")) {
+					return files.sourceFile.length();
+				}
+			}
+			return DEFAULT_READER_WEIGHT;
+		}
+
+		public File[] getLocations(String className, MetadataReader reader) {
+			ReaderFiles files = getFiles(reader);
+			// the locations are asked for last
+			loadedFiles.remove();
+			if (files == null) {
+				return null;
+			}
+
+			List<File> locations = new ArrayList<File>(2);
+			if (files.sourceFile != null) {
+				locations.add(files.sourceFile);
+			}
+			if (files.classFile != null) {
+				locations.add(files.classFile);
+			}
+			return locations.toArray(new File[locations.size()]);
+		}
+
+		private ReaderFiles getFiles(MetadataReader reader) {
+			if (!(reader instanceof JdtConnectedMetadataReader)) {
+				return null;
+			}
+			ReaderFiles files = loadedFiles.get();
+			if (files == null || files.reader != reader) {
+				files = new ReaderFiles(reader);
+			}
+			return files;
+		}
+	}
+
+	/**
+	 * The source file (or the jar) and the class file of the type of a {@link JdtConnectedMetadataReader}.
+	 */
+	private class ReaderFiles {
+
+		private final MetadataReader reader;
+		private final File sourceFile;
+		private final File classFile;
+
+		public ReaderFiles(MetadataReader reader) {
+			this.reader = reader;
+			IType type = ((JdtConnectedMetadataReader) reader).getType();
+			this.sourceFile = getSourceFile(type);
+			// binary types from jars have no resource and no class file of their own
+			this.classFile = type.getResource() != null ? getClassFile(type) : null;
+		}
+
+		/**
+		 * Returns the source file of the given type or the jar that contains it.
+		 */
+		private File getSourceFile(IType type) {
+			IResource resource = type.getResource();
+			if (resource != null && resource.getLocation() != null) {
+				return resource.getLocation().toFile();
+			}
+			else if (type.getPath() != null) {
+				return type.getPath().toFile();
+			}
+			return null;
+		}
+
+		/**
+		 * Returns the class file of the given type if it is a plain file on the local file system.
+		 */
+		private File getClassFile(IType type) {
+			if (classloader != null) {
+				URL classFile = classloader.getResource(ClassUtils.convertClassNameToResourcePath(type
+						.getFullyQualifiedName()) + ClassUtils.CLASS_FILE_SUFFIX);
+				try {
+					if (classFile != null && ResourceUtils.isFileURL(classFile)) {
+						return ResourceUtils.getFile(classFile);
+					}
+				}
+				catch (IOException e) {
+					// ignore, the source location is enough
+				}
+			}
+			return null;
+		}
+	}
+
 }
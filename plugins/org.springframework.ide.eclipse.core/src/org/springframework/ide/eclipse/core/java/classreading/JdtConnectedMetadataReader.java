@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -47,6 +47,14 @@ public class JdtConnectedMetadataReader implements MetadataReader {
 		
 	}
 
+	/**
+	 * Returns the type this metadata has been read for.
+	 * @since 3.8.1
+	 */
+	public IType getType() {
+		return this.type;
+	}
+
 	public ClassMetadata getClassMetadata() {
 		return this.visitor;
 	}
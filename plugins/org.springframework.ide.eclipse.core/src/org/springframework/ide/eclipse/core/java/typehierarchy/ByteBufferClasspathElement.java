@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java.typehierarchy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ClasspathElement} that gives access to the content of class files as {@link ByteBuffer}s.
+ * Implementations are safe to be used from multiple threads concurrently, so callers don't need to
+ * synchronize on them.
+ *
+ * @since 3.8.1
+ */
+public interface ByteBufferClasspathElement extends ClasspathElement {
+
+	/**
+	 * Returns the content of the given class file or <code>null</code> if this element doesn't contain it.
+	 * The returned buffer is independent of other callers and may be a read-only view of the underlying data.
+	 */
+	public ByteBuffer getBuffer(String fullyQualifiedClassFileName, String packageName, String classFileName) throws Exception;
+
+}
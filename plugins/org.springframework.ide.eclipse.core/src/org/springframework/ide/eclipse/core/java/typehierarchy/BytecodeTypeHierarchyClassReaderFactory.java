@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2015 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,13 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java.typehierarchy;
 
+import java.net.URL;
+import java.util.List;
+
 import org.eclipse.core.resources.IProject;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.ProjectClassLoaderCache;
 
 /**
  * @author Martin Lippert
@@ -20,10 +25,17 @@ import org.springframework.ide.eclipse.core.java.JdtUtils;
 public class BytecodeTypeHierarchyClassReaderFactory implements TypeHierarchyClassReaderFactory {
 
 	public TypeHierarchyClassReader createClassReader(IProject project) {
-//		List<URL> urls = ProjectClassLoaderCache.getClassPathUrls(project, null);
-//		ClasspathLookup lookup = new ClasspathLookupDirect(urls.toArray(new URL[0]));
-		
+		if (System.getProperty(TypeHierarchyEngine.MAP_JAR_FILES_PROPERTY, "false").equals("true")) {
+			List<URL> urls = ProjectClassLoaderCache.getClassPathUrls(project, null);
+			ClasspathLookup lookup = new ClasspathLookupDirect(urls.toArray(new URL[urls.size()]), true);
+			return new BytecodeTypeHierarchyClassReader(lookup);
+		}
+
 		ClassLoader loader = JdtUtils.getClassLoader(project, null);
+		if (System.getProperty(TypeHierarchyEngine.ENABLE_INDEX_PROPERTY, "true").equals("true")) {
+			return new IndexedTypeHierarchyClassReader(loader, SpringCore.getTypeHierarchyIndex(), project);
+		}
+
 		ClasspathLookup lookup = new ClasspathLookupClassloader(loader);
 
 		return new BytecodeTypeHierarchyClassReader(lookup);
@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java.typehierarchy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * {@link ClasspathElement} for jar files that maps the jar file into memory once and keeps a sorted
+ * table of the entries from the central directory of the jar. Lookups are done via binary search on
+ * that table and don't need any locking, so that many threads can read from the same jar concurrently.
+ * <p>
+ * Stored entries are returned as slices of the mapped buffer without copying, deflated entries are
+ * inflated into a new buffer. Jar files that can't be mapped or that use the zip64 format are read
+ * through a {@link ClasspathElementJar} instead.
+ * <p>
+ * Mapped files are unmapped by the garbage collector only, which means that the jar file stays
+ * locked on Windows until that happens. Mapped jar files are therefore only used by the type hierarchy
+ * engine when the system property {@link TypeHierarchyEngine#MAP_JAR_FILES_PROPERTY} is set to
+ * <code>true</code>.
+ *
+ * @since 3.8.1
+ */
+public class ClasspathElementMappedJar implements ByteBufferClasspathElement {
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int MAX_COMMENT_SIZE = 0xffff;
+
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final String jarFileName;
+	private volatile EntryTable entries;
+	private volatile ClasspathElementJar fallback;
+
+	public ClasspathElementMappedJar(String jarFileName) {
+		this.jarFileName = jarFileName;
+	}
+
+	public InputStream getStream(String fullyQualifiedClassFileName, String packageName, String classFileName) throws Exception {
+		EntryTable table = getEntries();
+		if (table == null) {
+			return getFallbackStream(fullyQualifiedClassFileName, packageName, classFileName);
+		}
+
+		ByteBuffer buffer = getBuffer(table, fullyQualifiedClassFileName);
+		return buffer != null ? new ByteBufferInputStream(buffer) : null;
+	}
+
+	public ByteBuffer getBuffer(String fullyQualifiedClassFileName, String packageName, String classFileName) throws Exception {
+		EntryTable table = getEntries();
+		if (table == null) {
+			InputStream stream = getFallbackStream(fullyQualifiedClassFileName, packageName, classFileName);
+			if (stream == null) {
+				return null;
+			}
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] chunk = new byte[4096];
+				int count;
+				while ((count = stream.read(chunk)) != -1) {
+					bytes.write(chunk, 0, count);
+				}
+				return ByteBuffer.wrap(bytes.toByteArray());
+			}
+			finally {
+				stream.close();
+			}
+		}
+		return getBuffer(table, fullyQualifiedClassFileName);
+	}
+
+	private ByteBuffer getBuffer(EntryTable table, String fullyQualifiedClassFileName) throws IOException {
+
+		int index = Collections.binarySearch(table.names, fullyQualifiedClassFileName);
+		if (index < 0) {
+			return null;
+		}
+
+		ByteBuffer content = table.content(index);
+		if (table.methods[index] == METHOD_STORED) {
+			return content;
+		}
+		else if (table.methods[index] == METHOD_DEFLATED) {
+			return inflate(content, table.sizes[index]);
+		}
+		return null;
+	}
+
+	/**
+	 * Releases the fallback jar, if any. The mapped entry table is kept, since it doesn't hold any file
+	 * handle and mapping the jar again would cost more than this element saves. It is released together
+	 * with this element.
+	 */
+	public void cleanup() {
+		ClasspathElementJar fallback = this.fallback;
+		if (fallback != null) {
+			synchronized (fallback) {
+				fallback.cleanup();
+			}
+		}
+	}
+
+	private InputStream getFallbackStream(String fullyQualifiedClassFileName, String packageName, String classFileName) throws Exception {
+		ClasspathElementJar fallback = this.fallback;
+		if (fallback == null) {
+			return null;
+		}
+		synchronized (fallback) {
+			return fallback.getStream(fullyQualifiedClassFileName, packageName, classFileName);
+		}
+	}
+
+	private EntryTable getEntries() {
+		EntryTable result = this.entries;
+		if (result == null && this.fallback == null) {
+			synchronized (this) {
+				result = this.entries;
+				if (result == null && this.fallback == null) {
+					try {
+						result = readEntries(new File(jarFileName));
+						this.entries = result;
+					}
+					catch (UnsupportedJarException e) {
+						this.fallback = new ClasspathElementJar(jarFileName);
+					}
+					catch (IOException e) {
+						SpringCore.log("Error mapping jar file " + jarFileName + ", reading it without mapping", e);
+						this.fallback = new ClasspathElementJar(jarFileName);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static EntryTable readEntries(File file) throws IOException {
+		ByteBuffer buffer;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new UnsupportedJarException("jar file too large to be mapped: " + file);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally {
+			randomAccessFile.close();
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		int endOfCentralDirectory = findEndOfCentralDirectory(buffer);
+		int entryCount = buffer.getShort(endOfCentralDirectory + 10) & 0xffff;
+		long centralDirectoryOffset = buffer.getInt(endOfCentralDirectory + 16) & 0xffffffffL;
+		if (entryCount == 0xffff || centralDirectoryOffset == 0xffffffffL) {
+			throw new UnsupportedJarException("zip64 format not supported: " + file);
+		}
+
+		List<Entry> entries = new ArrayList<Entry>(entryCount);
+		int position = (int) centralDirectoryOffset;
+		for (int i = 0; i < entryCount; i++) {
+			if (buffer.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new IOException("invalid central directory: " + file);
+			}
+			int method = buffer.getShort(position + 10) & 0xffff;
+			long compressedSize = buffer.getInt(position + 20) & 0xffffffffL;
+			long size = buffer.getInt(position + 24) & 0xffffffffL;
+			int nameLength = buffer.getShort(position + 28) & 0xffff;
+			int extraLength = buffer.getShort(position + 30) & 0xffff;
+			int commentLength = buffer.getShort(position + 32) & 0xffff;
+			long localHeaderOffset = buffer.getInt(position + 42) & 0xffffffffL;
+			if (compressedSize == 0xffffffffL || size == 0xffffffffL || localHeaderOffset == 0xffffffffL) {
+				throw new UnsupportedJarException("zip64 format not supported: " + file);
+			}
+
+			byte[] name = new byte[nameLength];
+			ByteBuffer nameBuffer = buffer.duplicate();
+			nameBuffer.position(position + CENTRAL_DIRECTORY_HEADER_SIZE);
+			nameBuffer.get(name);
+
+			entries.add(new Entry(new String(name, UTF8), method, (int) compressedSize, (int) size, (int) localHeaderOffset));
+			position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+
+		Collections.sort(entries);
+		return new EntryTable(buffer, entries);
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer buffer) throws IOException {
+		int last = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+		int first = Math.max(0, last - MAX_COMMENT_SIZE);
+		for (int position = last; position >= first; position--) {
+			if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				return position;
+			}
+		}
+		throw new IOException("no end of central directory found");
+	}
+
+	private static ByteBuffer inflate(ByteBuffer content, int size) throws IOException {
+		// the inflater needs an extra dummy byte at the end when reading raw deflate data
+		byte[] input = new byte[content.remaining() + 1];
+		content.get(input, 0, input.length - 1);
+
+		byte[] output = new byte[size];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(input);
+			int read = 0;
+			while (read < size && !inflater.finished()) {
+				int count = inflater.inflate(output, read, size - read);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				read += count;
+			}
+			if (read != size) {
+				throw new IOException("unexpected end of deflated entry");
+			}
+			return ByteBuffer.wrap(output);
+		}
+		catch (DataFormatException e) {
+			throw new IOException(e);
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Thrown for valid jar files that can't be mapped by this element.
+	 */
+	private static class UnsupportedJarException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public UnsupportedJarException(String message) {
+			super(message);
+		}
+	}
+
+	private static class Entry implements Comparable<Entry> {
+
+		final String name;
+		final int method;
+		final int compressedSize;
+		final int size;
+		final int localHeaderOffset;
+
+		public Entry(String name, int method, int compressedSize, int size, int localHeaderOffset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		public int compareTo(Entry other) {
+			return name.compareTo(other.name);
+		}
+	}
+
+	/**
+	 * Immutable, sorted table of the jar entries with their offsets into the mapped jar file.
+	 */
+	private static class EntryTable {
+
+		final ByteBuffer buffer;
+		final List<String> names;
+		final int[] methods;
+		final int[] compressedSizes;
+		final int[] sizes;
+		final int[] localHeaderOffsets;
+
+		public EntryTable(ByteBuffer buffer, List<Entry> entries) {
+			this.buffer = buffer;
+
+			int count = entries.size();
+			String[] names = new String[count];
+			this.methods = new int[count];
+			this.compressedSizes = new int[count];
+			this.sizes = new int[count];
+			this.localHeaderOffsets = new int[count];
+
+			for (int i = 0; i < count; i++) {
+				Entry entry = entries.get(i);
+				names[i] = entry.name;
+				methods[i] = entry.method;
+				compressedSizes[i] = entry.compressedSize;
+				sizes[i] = entry.size;
+				localHeaderOffsets[i] = entry.localHeaderOffset;
+			}
+			this.names = Arrays.asList(names);
+		}
+
+		/**
+		 * Returns a slice of the mapped file containing the (possibly compressed) data of the entry.
+		 * Every call returns an independent buffer, so callers can read from it without synchronization.
+		 */
+		public ByteBuffer content(int index) throws IOException {
+			int localHeader = localHeaderOffsets[index];
+			if (buffer.getInt(localHeader) != LOCAL_HEADER_SIGNATURE) {
+				throw new IOException("invalid local header for entry " + names.get(index));
+			}
+			int nameLength = buffer.getShort(localHeader + 26) & 0xffff;
+			int extraLength = buffer.getShort(localHeader + 28) & 0xffff;
+			int start = localHeader + LOCAL_HEADER_SIZE + nameLength + extraLength;
+
+			ByteBuffer content = buffer.duplicate();
+			content.position(start);
+			content.limit(start + compressedSizes[index]);
+			return content.slice();
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		public ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) {
+			int count = (int) Math.min(n, buffer.remaining());
+			buffer.position(buffer.position() + count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Pivotal Software, Inc. and others.
+ * Copyright (c) 2015, 2016 Pivotal Software, Inc. and others.
  * All rights reserved. This program and the accompanying materials are made 
  * available under the terms of the Eclipse Public License v1.0 
  * (http://www.eclipse.org/legal/epl-v10.html), and the Eclipse Distribution 
@@ -35,6 +35,15 @@ public class ClasspathLookupDirect implements ClasspathLookup {
 	private ClasspathElement[] cpElements;
 	
 	public ClasspathLookupDirect(URL[] urls) {
+		this(urls, false);
+	}
+
+	/**
+	 * @param mapJarFiles whether jar files should be read through memory mapped {@link ClasspathElementMappedJar}s,
+	 * which can be accessed concurrently, instead of {@link ClasspathElementJar}s
+	 * @since 3.8.1
+	 */
+	public ClasspathLookupDirect(URL[] urls, boolean mapJarFiles) {
 		List<ClasspathElement> locations = new ArrayList<ClasspathElement>();
 		
 		Set<URL> usedURLs = new HashSet<URL>();
@@ -43,7 +52,7 @@ public class ClasspathLookupDirect implements ClasspathLookup {
 				if (url.toString().endsWith(".jar")) {
 					try {
 						String path = url.toURI().getPath();
-						locations.add(new ClasspathElementJar(path));
+						locations.add(mapJarFiles ? new ClasspathElementMappedJar(path) : new ClasspathElementJar(path));
 						usedURLs.add(url);
 					} catch (Exception e) {
 						SpringCore.log(e);
@@ -71,6 +80,17 @@ public class ClasspathLookupDirect implements ClasspathLookup {
 	public InputStream getStream(String fullyQualifiedClassFileName, String packageName, String className) {
 		for (int i = 0; i < cpElements.length; i++) {
 			InputStream stream = null;
+			if (cpElements[i] instanceof ByteBufferClasspathElement) {
+				try {
+					stream = cpElements[i].getStream(fullyQualifiedClassFileName, packageName, className);
+					if (stream != null) {
+						return stream;
+					}
+				} catch (Exception e) {
+					SpringCore.log("Error reading " + fullyQualifiedClassFileName, e);
+				}
+				continue;
+			}
 			synchronized(cpElements[i]) {
 				try {
 					stream = cpElements[i].getStream(fullyQualifiedClassFileName, packageName, className);
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java.typehierarchy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.ProjectClassLoaderCache;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyIndex.JarStamp;
+
+/**
+ * Bytecode based class reader that consults the persistent {@link TypeHierarchyIndex} for classes
+ * that are loaded from jar files. Classes that have been found in a jar before (for the same class path
+ * of the project) are answered from the index without asking the class loader, unless a class of the same
+ * name exists in one of the output folders of the class path, which may shadow the jar. Classes that are read
+ * from jar files are recorded in the index, classes from output folders are always read from bytecode.
+ * <p>
+ * Instances live as long as the type hierarchy engine keeps them for a project, which is until the next
+ * build of the project. The timestamps of the jars are therefore read only once per instance.
+ *
+ * @since 3.8.1
+ */
+public class IndexedTypeHierarchyClassReader extends BytecodeTypeHierarchyClassReader {
+
+	private static final String JAR_SEPARATOR = "!/";
+
+	private final ClassLoader loader;
+	private final TypeHierarchyIndex index;
+	private final IProject project;
+
+	private final Map<String, JarStamp> stamps = new ConcurrentHashMap<String, JarStamp>();
+	private volatile Long classpathHash;
+	private volatile List<File> classFolders;
+
+	public IndexedTypeHierarchyClassReader(ClassLoader loader, TypeHierarchyIndex index, IProject project) {
+		super(new ClasspathLookupClassloader(loader));
+		this.loader = loader;
+		this.index = index;
+		this.project = project;
+	}
+
+	@Override
+	public TypeHierarchyElement readTypeHierarchyInformation(char[] fullyQualifiedClassName, IProject project) {
+		String className = new String(fullyQualifiedClassName);
+		long classpathHash = getClasspathHash();
+
+		String jarPath = index.getLocation(this.project.getName(), classpathHash, className);
+		if (jarPath != null && !isInClassFolder(className)) {
+			JarStamp jar = getStamp(new File(jarPath));
+			if (jar.exists()) {
+				TypeHierarchyElement result = index.get(jar, className);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+
+		URL resource = loader.getResource(className + ".class");
+		if (resource == null) {
+			return null;
+		}
+
+		File jarFile = getJarFile(resource);
+		if (jarFile == null) {
+			return readTypeHierarchy(resource);
+		}
+
+		JarStamp jar = getStamp(jarFile);
+		TypeHierarchyElement result = index.get(jar, className);
+		if (result == null) {
+			result = readTypeHierarchy(resource);
+			if (result != null) {
+				index.put(jar, result);
+			}
+		}
+		if (result != null) {
+			index.putLocation(this.project.getName(), classpathHash, className, jar.getPath());
+		}
+		return result;
+	}
+
+	private JarStamp getStamp(File jarFile) {
+		JarStamp stamp = stamps.get(jarFile.getPath());
+		if (stamp == null) {
+			stamp = index.stamp(jarFile);
+			stamps.put(jarFile.getPath(), stamp);
+		}
+		return stamp;
+	}
+
+	/**
+	 * Returns a hash over the ordered class path entries of the project, so that recorded class locations are
+	 * only used as long as the class path (and therefore the lookup order) stays the same.
+	 */
+	private long getClasspathHash() {
+		Long result = this.classpathHash;
+		if (result == null) {
+			readClasspath();
+			result = this.classpathHash;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks whether a class file for the given class exists in one of the folders of the class path. The hash
+	 * of the class path doesn't cover the contents of the output folders, so a recorded jar location can't be
+	 * trusted for such a class.
+	 */
+	private boolean isInClassFolder(String className) {
+		List<File> folders = this.classFolders;
+		if (folders == null) {
+			readClasspath();
+			folders = this.classFolders;
+		}
+		String classFile = className + ".class";
+		for (File folder : folders) {
+			if (new File(folder, classFile).isFile()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void readClasspath() {
+		long hash = 0xcbf29ce484222325L;
+		List<File> folders = new ArrayList<File>();
+		for (URL url : ProjectClassLoaderCache.getClassPathUrls(project, null)) {
+			String entry = url.toString();
+			for (int i = 0; i < entry.length(); i++) {
+				hash = (hash ^ entry.charAt(i)) * 0x100000001b3L;
+			}
+			hash = (hash ^ '\n') * 0x100000001b3L;
+
+			if ("file".equals(url.getProtocol())) {
+				try {
+					File file = new File(url.toURI());
+					if (file.isDirectory()) {
+						folders.add(file);
+					}
+				}
+				catch (Exception e) {
+					// not a local folder, classes in it can't shadow a jar on the local file system
+				}
+			}
+		}
+		this.classFolders = folders;
+		this.classpathHash = hash;
+	}
+
+	private TypeHierarchyElement readTypeHierarchy(URL resource) {
+		InputStream stream = null;
+		try {
+			stream = resource.openStream();
+			return readTypeHierarchy(stream);
+		}
+		catch (IOException e) {
+			return null;
+		}
+		finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					SpringCore.log(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the jar file that contains the given class file resource or <code>null</code> if the resource
+	 * is not located inside a jar file on the local file system.
+	 */
+	protected static File getJarFile(URL resource) {
+		if (!"jar".equals(resource.getProtocol())) {
+			return null;
+		}
+
+		String path = resource.getPath();
+		int separator = path.indexOf(JAR_SEPARATOR);
+		if (separator < 0) {
+			return null;
+		}
+
+		try {
+			URL jarURL = new URL(path.substring(0, separator));
+			if ("file".equals(jarURL.getProtocol())) {
+				return new File(jarURL.toURI());
+			}
+		}
+		catch (Exception e) {
+			// not a local jar file, don't index it
+		}
+		return null;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,35 +10,68 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java.typehierarchy;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Cache for {@link TypeHierarchyElement}s, keyed by the fully qualified class name (in slash notation).
+ * <p>
+ * Keys compare the class names themselves, not only their hash codes, so that two classes with the same
+ * hash code don't replace each other.
+ *
  * @author Martin Lippert
  * @since 3.3.0
  */
 public class TypeHierarchyElementCache {
-	
-	private Map<Integer, TypeHierarchyElement> cache;
-	
+
+	private Map<ClassNameKey, TypeHierarchyElement> cache;
+
 	public TypeHierarchyElementCache() {
-		this.cache = new ConcurrentHashMap<Integer, TypeHierarchyElement>();
+		this.cache = new ConcurrentHashMap<ClassNameKey, TypeHierarchyElement>();
 	}
 
 	public TypeHierarchyElement get(char[] fullyQualifiedClassName) {
-		return cache.get(charArrayToHashcode(fullyQualifiedClassName));
+		return cache.get(new ClassNameKey(fullyQualifiedClassName));
 	}
 
 	public void put(char[] fullyQualifiedClassName, TypeHierarchyElement typeElement) {
-		cache.put(charArrayToHashcode(fullyQualifiedClassName), typeElement);
+		cache.put(new ClassNameKey(fullyQualifiedClassName), typeElement);
 	}
-	
-	private int charArrayToHashcode(char[] characters) {
-		int h = 0;
-		for (int i = 0; i < characters.length; i++) {
-			h = 31*h + characters[i];
+
+	/**
+	 * @since 3.8.1
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	private static final class ClassNameKey {
+
+		private final char[] name;
+		private final int hash;
+
+		public ClassNameKey(char[] name) {
+			this.name = name;
+			this.hash = Arrays.hashCode(name);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ClassNameKey)) {
+				return false;
+			}
+			ClassNameKey other = (ClassNameKey) obj;
+			return hash == other.hash && Arrays.equals(name, other.name);
 		}
-        return h;
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Spring IDE Developers
+ * Copyright (c) 2013, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,8 @@ import org.eclipse.jdt.core.compiler.CharOperation;
 public class TypeHierarchyEngine {
 	
 	public static final String ENABLE_PROPERTY = "org.springframework.ide.eclipse.core.java.enableTypeHierarchyEngine";
+	public static final String ENABLE_INDEX_PROPERTY = "org.springframework.ide.eclipse.core.java.enableTypeHierarchyIndex";
+	public static final String MAP_JAR_FILES_PROPERTY = "org.springframework.ide.eclipse.core.java.mapTypeHierarchyJarFiles";
 	
 	private TypeHierarchyClassReaderFactory classReaderFactory;
 	private TypeHierarchyElementCacheFactory elementCacheFactory;
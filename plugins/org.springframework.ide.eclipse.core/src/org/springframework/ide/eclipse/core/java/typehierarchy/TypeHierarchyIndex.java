@@ -0,0 +1,501 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java.typehierarchy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Persistent index of the supertype and interface tables of classes that live inside of jar files.
+ * Entries are grouped per jar and keyed by the jar path plus its last modified timestamp and file size
+ * (the same way the package cache of {@link ClasspathElementJar} works), so that a changed jar
+ * invalidates only its own entries.
+ * <p>
+ * In addition the index remembers per project in which jar a class has been found, together with a hash
+ * of the class path of the project. As long as the class path stays the same, a class can be answered
+ * from the index without asking the class loader to search for it.
+ * <p>
+ * The index is stored in a compact, versioned binary file (with a shared table for all type names),
+ * is read lazily the first time it gets accessed and is written back in the background a while after
+ * it has been changed.
+ *
+ * @since 3.8.1
+ */
+public class TypeHierarchyIndex {
+
+	private static final int MAGIC = 0x54484958; // "THIX"
+	private static final int VERSION = 2;
+
+	/** Delay between the first change to the index and writing it back to disc */
+	private static final long SAVE_DELAY = 60 * 1000;
+
+	private final File file;
+
+	private volatile Map<String, JarTypes> jars;
+	private volatile Map<String, ProjectLocations> projects;
+	private volatile boolean dirty;
+
+	private final AtomicBoolean saveScheduled = new AtomicBoolean();
+	private final Job saveJob;
+
+	public TypeHierarchyIndex(File file) {
+		this.file = file;
+		this.saveJob = new Job("Saving type hierarchy index") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				saveScheduled.set(false);
+				save();
+				return Status.OK_STATUS;
+			}
+		};
+		this.saveJob.setSystem(true);
+	}
+
+	/**
+	 * Reads the last modified timestamp and size of the given jar file. Callers that look up many classes
+	 * of the same jar should keep the returned stamp instead of passing the file again.
+	 */
+	public JarStamp stamp(File jarFile) {
+		return new JarStamp(jarFile.getPath(), jarFile.lastModified(), jarFile.length());
+	}
+
+	/**
+	 * Returns the type hierarchy information of the given class (in slash notation) if it has been recorded
+	 * for exactly this version of the jar file, otherwise <code>null</code>.
+	 */
+	public TypeHierarchyElement get(File jarFile, char[] fullyQualifiedClassName) {
+		return get(stamp(jarFile), new String(fullyQualifiedClassName));
+	}
+
+	/**
+	 * Returns the type hierarchy information of the given class (in slash notation) if it has been recorded
+	 * for exactly this version of the jar, otherwise <code>null</code>.
+	 */
+	public TypeHierarchyElement get(JarStamp jar, String className) {
+		JarTypes jarTypes = getJars().get(jar.path);
+		if (jarTypes != null && jarTypes.matches(jar)) {
+			TypeRecord record = jarTypes.types.get(className);
+			if (record != null) {
+				return new TypeHierarchyElement(className.toCharArray(), record.superclassName, record.interfaces);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Records the type hierarchy information of a class that has been read from the given jar file.
+	 */
+	public void put(File jarFile, TypeHierarchyElement element) {
+		put(stamp(jarFile), element);
+	}
+
+	/**
+	 * Records the type hierarchy information of a class that has been read from the given version of a jar.
+	 */
+	public void put(JarStamp jar, TypeHierarchyElement element) {
+		Map<String, JarTypes> jars = getJars();
+
+		JarTypes jarTypes = jars.get(jar.path);
+		if (jarTypes == null || !jarTypes.matches(jar)) {
+			jarTypes = new JarTypes(jar.lastModified, jar.fileSize);
+			jars.put(jar.path, jarTypes);
+		}
+
+		jarTypes.types.put(new String(element.className), new TypeRecord(element.superclassName, element.interfaces));
+		changed();
+	}
+
+	/**
+	 * Returns the path of the jar in which the given class has been found for the given project, as long as
+	 * the class path of the project did not change since then. Otherwise <code>null</code>.
+	 */
+	public String getLocation(String projectName, long classpathHash, String className) {
+		ProjectLocations locations = getProjects().get(projectName);
+		if (locations != null && locations.classpathHash == classpathHash) {
+			return locations.locations.get(className);
+		}
+		return null;
+	}
+
+	/**
+	 * Records that the given class has been found in the given jar for the project with the given class path.
+	 * All locations recorded for a different class path of the project are dropped.
+	 */
+	public void putLocation(String projectName, long classpathHash, String className, String jarPath) {
+		Map<String, ProjectLocations> projects = getProjects();
+		ProjectLocations locations = projects.get(projectName);
+		if (locations == null || locations.classpathHash != classpathHash) {
+			locations = new ProjectLocations(classpathHash);
+			projects.put(projectName, locations);
+		}
+		if (!jarPath.equals(locations.locations.put(className, jarPath))) {
+			changed();
+		}
+	}
+
+	/**
+	 * Drops all recorded entries for the given jar file.
+	 */
+	public void invalidate(File jarFile) {
+		if (getJars().remove(jarFile.getPath()) != null) {
+			changed();
+		}
+	}
+
+	public void clear() {
+		getJars().clear();
+		getProjects().clear();
+		changed();
+	}
+
+	private void changed() {
+		this.dirty = true;
+		if (saveScheduled.compareAndSet(false, true)) {
+			saveJob.schedule(SAVE_DELAY);
+		}
+	}
+
+	/**
+	 * Stops the background saving and writes pending changes to disc.
+	 */
+	public void shutdown() {
+		saveJob.cancel();
+		save();
+	}
+
+	/**
+	 * Writes the index back to disc if something changed since it has been loaded. Entries for jar files that
+	 * do not exist anymore are not written. The index is written to a temporary file first, which then
+	 * replaces the previous index file.
+	 */
+	public synchronized void save() {
+		if (!this.dirty || this.jars == null) return;
+		this.dirty = false;
+
+		File tempFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			if (!file.getParentFile().exists()) {
+				file.getParentFile().mkdirs();
+			}
+
+			// the maps may still be changed by other threads, so write from a snapshot
+			Map<String, JarTypes> validJars = new HashMap<String, JarTypes>();
+			Map<String, List<Map.Entry<String, TypeRecord>>> validTypes = new HashMap<String, List<Map.Entry<String, TypeRecord>>>();
+			for (Map.Entry<String, JarTypes> entry : this.jars.entrySet()) {
+				if (entry.getValue().matches(stamp(new File(entry.getKey())))) {
+					validJars.put(entry.getKey(), entry.getValue());
+					validTypes.put(entry.getKey(), new ArrayList<Map.Entry<String, TypeRecord>>(entry.getValue().types.entrySet()));
+				}
+			}
+
+			NameTable names = new NameTable();
+			for (List<Map.Entry<String, TypeRecord>> types : validTypes.values()) {
+				for (Map.Entry<String, TypeRecord> type : types) {
+					names.add(type.getKey());
+					names.add(type.getValue().superclassName);
+					if (type.getValue().interfaces != null) {
+						for (char[] interfaceName : type.getValue().interfaces) {
+							names.add(interfaceName);
+						}
+					}
+				}
+			}
+			Map<String, ProjectLocations> projects = getProjects();
+			for (ProjectLocations locations : projects.values()) {
+				for (String className : locations.locations.keySet()) {
+					names.add(className);
+				}
+			}
+
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			out.writeInt(names.names.size());
+			for (String name : names.names) {
+				out.writeUTF(name);
+			}
+
+			Map<String, Integer> jarIndices = new HashMap<String, Integer>();
+			out.writeInt(validJars.size());
+			for (Map.Entry<String, JarTypes> entry : validJars.entrySet()) {
+				JarTypes jarTypes = entry.getValue();
+				jarIndices.put(entry.getKey(), jarIndices.size());
+				out.writeUTF(entry.getKey());
+				out.writeLong(jarTypes.lastModified);
+				out.writeLong(jarTypes.fileSize);
+
+				List<Map.Entry<String, TypeRecord>> types = validTypes.get(entry.getKey());
+				out.writeInt(types.size());
+				for (Map.Entry<String, TypeRecord> type : types) {
+					TypeRecord record = type.getValue();
+					out.writeInt(names.indexOf(type.getKey()));
+					out.writeInt(record.superclassName != null ? names.indexOf(new String(record.superclassName)) : -1);
+					if (record.interfaces != null) {
+						out.writeShort(record.interfaces.length);
+						for (char[] interfaceName : record.interfaces) {
+							out.writeInt(names.indexOf(new String(interfaceName)));
+						}
+					}
+					else {
+						out.writeShort(-1);
+					}
+				}
+			}
+
+			out.writeInt(projects.size());
+			for (Map.Entry<String, ProjectLocations> entry : projects.entrySet()) {
+				List<Map.Entry<String, String>> locations = new ArrayList<Map.Entry<String, String>>();
+				for (Map.Entry<String, String> location : entry.getValue().locations.entrySet()) {
+					if (jarIndices.containsKey(location.getValue()) && names.contains(location.getKey())) {
+						locations.add(location);
+					}
+				}
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue().classpathHash);
+				out.writeInt(locations.size());
+				for (Map.Entry<String, String> location : locations) {
+					out.writeInt(names.indexOf(location.getKey()));
+					out.writeInt(jarIndices.get(location.getValue()));
+				}
+			}
+			out.close();
+			out = null;
+
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			this.dirty = true;
+			SpringCore.log("Error saving type hierarchy index to " + file, e);
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				}
+				catch (IOException e) {
+				}
+			}
+			tempFile.delete();
+		}
+	}
+
+	private Map<String, JarTypes> getJars() {
+		if (this.jars == null) {
+			load();
+		}
+		return this.jars;
+	}
+
+	private Map<String, ProjectLocations> getProjects() {
+		if (this.projects == null) {
+			load();
+		}
+		return this.projects;
+	}
+
+	private synchronized void load() {
+		if (this.jars != null) return;
+
+		Map<String, JarTypes> jars = new ConcurrentHashMap<String, JarTypes>();
+		Map<String, ProjectLocations> projects = new ConcurrentHashMap<String, ProjectLocations>();
+		if (file.exists()) {
+			DataInputStream in = null;
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+					// outdated or foreign format, start from scratch and overwrite with the next save
+					this.dirty = true;
+				}
+				else {
+					read(in, jars, projects);
+				}
+			}
+			catch (Exception e) {
+				SpringCore.log("Error loading type hierarchy index from " + file, e);
+				jars.clear();
+				projects.clear();
+				this.dirty = true;
+			}
+			finally {
+				if (in != null) {
+					try {
+						in.close();
+					}
+					catch (IOException e) {
+					}
+				}
+			}
+		}
+		this.projects = projects;
+		this.jars = jars;
+	}
+
+	private void read(DataInputStream in, Map<String, JarTypes> jars, Map<String, ProjectLocations> projects)
+			throws IOException {
+		int nameCount = in.readInt();
+		char[][] names = new char[nameCount][];
+		for (int i = 0; i < nameCount; i++) {
+			names[i] = in.readUTF().toCharArray();
+		}
+
+		int jarCount = in.readInt();
+		String[] jarPaths = new String[jarCount];
+		for (int i = 0; i < jarCount; i++) {
+			String path = in.readUTF();
+			JarTypes jarTypes = new JarTypes(in.readLong(), in.readLong());
+
+			int typeCount = in.readInt();
+			for (int j = 0; j < typeCount; j++) {
+				char[] className = names[in.readInt()];
+				int superclassIndex = in.readInt();
+				char[] superclassName = superclassIndex >= 0 ? names[superclassIndex] : null;
+
+				short interfacesCount = in.readShort();
+				char[][] interfaces = null;
+				if (interfacesCount >= 0) {
+					interfaces = new char[interfacesCount][];
+					for (int k = 0; k < interfacesCount; k++) {
+						interfaces[k] = names[in.readInt()];
+					}
+				}
+				jarTypes.types.put(new String(className), new TypeRecord(superclassName, interfaces));
+			}
+			jars.put(path, jarTypes);
+			jarPaths[i] = path;
+		}
+
+		int projectCount = in.readInt();
+		for (int i = 0; i < projectCount; i++) {
+			String projectName = in.readUTF();
+			ProjectLocations locations = new ProjectLocations(in.readLong());
+			int locationCount = in.readInt();
+			for (int j = 0; j < locationCount; j++) {
+				String className = new String(names[in.readInt()]);
+				locations.locations.put(className, jarPaths[in.readInt()]);
+			}
+			projects.put(projectName, locations);
+		}
+	}
+
+	/**
+	 * Identifies a specific version of a jar file by its path, last modified timestamp and size.
+	 */
+	public static class JarStamp {
+
+		final String path;
+		final long lastModified;
+		final long fileSize;
+
+		public JarStamp(String path, long lastModified, long fileSize) {
+			this.path = path;
+			this.lastModified = lastModified;
+			this.fileSize = fileSize;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public boolean exists() {
+			return lastModified != 0L;
+		}
+	}
+
+	private static class JarTypes {
+
+		final long lastModified;
+		final long fileSize;
+		final Map<String, TypeRecord> types;
+
+		public JarTypes(long lastModified, long fileSize) {
+			this.lastModified = lastModified;
+			this.fileSize = fileSize;
+			this.types = new ConcurrentHashMap<String, TypeRecord>();
+		}
+
+		public boolean matches(JarStamp jar) {
+			return jar.lastModified == lastModified && jar.fileSize == fileSize;
+		}
+	}
+
+	private static class ProjectLocations {
+
+		final long classpathHash;
+		final Map<String, String> locations;
+
+		public ProjectLocations(long classpathHash) {
+			this.classpathHash = classpathHash;
+			this.locations = new ConcurrentHashMap<String, String>();
+		}
+	}
+
+	private static class TypeRecord {
+
+		final char[] superclassName;
+		final char[][] interfaces;
+
+		public TypeRecord(char[] superclassName, char[][] interfaces) {
+			this.superclassName = superclassName;
+			this.interfaces = interfaces;
+		}
+	}
+
+	private static class NameTable {
+
+		final List<String> names = new ArrayList<String>();
+		final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+		public void add(char[] name) {
+			if (name != null) {
+				add(new String(name));
+			}
+		}
+
+		public void add(String name) {
+			if (!indices.containsKey(name)) {
+				indices.put(name, names.size());
+				names.add(name);
+			}
+		}
+
+		public boolean contains(String name) {
+			return indices.containsKey(name);
+		}
+
+		public int indexOf(String name) {
+			return indices.get(name);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,16 +10,24 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.model.validation;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinitionFactory;
 import org.springframework.ide.eclipse.core.model.IModelElement;
@@ -78,6 +86,11 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 	 */
 	public final void validate(Set<IResource> affectedResources, int kind, IProgressMonitor monitor)
 			throws CoreException {
+		if (affectedResources.size() > 1 && isParallelValidationEnabled()) {
+			validateInParallel(affectedResources, kind, monitor);
+			return;
+		}
+
 		SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, affectedResources.size());
 		try {
 			for (IResource resource : affectedResources) {
@@ -119,6 +132,111 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 		}
 	}
 
+	/**
+	 * Validates the given resources using a validation pool that only lives for this build.
+	 * <p>
+	 * Marker cleanup, lifecycle callbacks and marker creation stay on the calling builder thread. Only the
+	 * execution of thread-safe rules is spread over the pool, one task per resource. Rules that are not
+	 * thread-safe are executed afterwards on the calling thread. Problems are merged in resource, context
+	 * element and rule order, so the created markers don't depend on the scheduling of the pool.
+	 */
+	private void validateInParallel(Set<IResource> affectedResources, int kind, IProgressMonitor monitor)
+			throws CoreException {
+		SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, affectedResources.size() * 2);
+		final List<ResourceValidationTask> tasks = new ArrayList<ResourceValidationTask>(affectedResources.size());
+		ForkJoinPool pool = null;
+		try {
+			for (IResource resource : affectedResources) {
+				String progressMessage = "Preparing validation of '" + resource.getFullPath().toString().substring(1) + "'";
+				reportProgress(progressMessage, subMonitor);
+
+				cleanup(resource, subMonitor);
+				if (subMonitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+
+				IValidationElementLifecycleManager callback = initValidationElementCallback(resource, kind);
+				IResourceModelElement rootElement = callback.getRootElement();
+				// Check if resource model element is external to the workspace -> if so, do not validate the resource
+				if (rootElement != null && rootElement.isExternal()) {
+					callback.destroy();
+					subMonitor.worked(2);
+					break;
+				}
+
+				Set<ValidationRuleDefinition> ruleDefinitions = getRuleDefinitions(resource);
+				if (rootElement == null || ruleDefinitions == null || ruleDefinitions.isEmpty()) {
+					callback.destroy();
+					subMonitor.worked(2);
+					continue;
+				}
+
+				Set<ValidationRuleDefinition> parallelRules = new LinkedHashSet<ValidationRuleDefinition>();
+				Set<ValidationRuleDefinition> sequentialRules = new LinkedHashSet<ValidationRuleDefinition>();
+				for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
+					// initialize the rule configuration before the rule is shared between threads
+					ruleDefinition.getRule();
+					if (ruleDefinition.isThreadSafe()) {
+						parallelRules.add(ruleDefinition);
+					}
+					else {
+						sequentialRules.add(ruleDefinition);
+					}
+				}
+				tasks.add(new ResourceValidationTask(resource, callback, parallelRules, sequentialRules, monitor));
+				subMonitor.worked(1);
+			}
+
+			monitor.subTask("Validating " + tasks.size() + " resources");
+			pool = new ForkJoinPool(Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors())));
+			ForkJoinTask<?> all = pool.submit(new Runnable() {
+				public void run() {
+					ForkJoinTask.invokeAll(tasks);
+				}
+			});
+			try {
+				all.get();
+			}
+			catch (InterruptedException e) {
+				throw new OperationCanceledException();
+			}
+			catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+
+			for (ResourceValidationTask task : tasks) {
+				String progressMessage = "Validating '" + task.resource.getFullPath().toString().substring(1) + "'";
+				reportProgress(progressMessage, subMonitor);
+
+				Set<ValidationProblem> problems = task.join();
+				if (!task.sequentialRules.isEmpty()) {
+					problems.addAll(validate(task.callback, task.sequentialRules, subMonitor));
+				}
+				ValidationUtils.createProblemMarkers(task.resource, problems, getMarkerId());
+
+				// call close on callback to execute any required resource cleanup in template
+				task.destroy();
+
+				subMonitor.worked(1);
+				if (subMonitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+			}
+		}
+		finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+			for (ResourceValidationTask task : tasks) {
+				task.destroy();
+			}
+			subMonitor.done();
+		}
+	}
+
 	private IValidationElementLifecycleManager initValidationElementCallback(IResource resource, int kind) {
 		IValidationElementLifecycleManager callback = createValidationElementLifecycleManager();
 		if (callback instanceof IValidationElementLifecycleManagerExtension) {
@@ -129,26 +247,42 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 	}
 
 	private Set<ValidationProblem> validate(IValidationElementLifecycleManager callback,
-			Set<ValidationRuleDefinition> ruleDefinitions, SubProgressMonitor subMonitor) {
+			Set<ValidationRuleDefinition> ruleDefinitions, IProgressMonitor monitor) {
 		Set<ValidationProblem> problems = new LinkedHashSet<ValidationProblem>();
 		for (IResourceModelElement contextElement : callback.getContextElements()) {
-			IValidationContext context = createContext(callback.getRootElement(), contextElement);
-			if (context instanceof IProjectContributorStateAware) {
-				((IProjectContributorStateAware) context).setProjectContributorState(contributorState);
-			}
-
-			if (context != null) {
-				IModelElementVisitor visitor = new ValidationVisitor(context, ruleDefinitions);
-				callback.getRootElement().accept(visitor, subMonitor);
-				problems.addAll(context.getProblems());
-			}
-			if (subMonitor.isCanceled()) {
+			problems.addAll(validate(callback, contextElement, ruleDefinitions, monitor));
+			if (monitor.isCanceled()) {
 				throw new OperationCanceledException();
 			}
 		}
 		return problems;
 	}
 
+	private Set<ValidationProblem> validate(IValidationElementLifecycleManager callback,
+			IResourceModelElement contextElement, Set<ValidationRuleDefinition> ruleDefinitions,
+			IProgressMonitor monitor) {
+		IValidationContext context = createContext(callback.getRootElement(), contextElement);
+		if (context instanceof IProjectContributorStateAware) {
+			((IProjectContributorStateAware) context).setProjectContributorState(contributorState);
+		}
+
+		if (context != null) {
+			IModelElementVisitor visitor = new ValidationVisitor(context, ruleDefinitions);
+			callback.getRootElement().accept(visitor, monitor);
+			return context.getProblems();
+		}
+		return new LinkedHashSet<ValidationProblem>();
+	}
+
+	/**
+	 * Returns <code>true</code> if the affected resources should be validated concurrently. Defaults to the
+	 * {@link SpringCore#USE_PARALLEL_VALIDATION} preference.
+	 * @since 3.8.1
+	 */
+	protected boolean isParallelValidationEnabled() {
+		return SpringCore.getDefault().getPluginPreferences().getBoolean(SpringCore.USE_PARALLEL_VALIDATION);
+	}
+
 	/**
 	 * Returns a newly created {@link IValidationContext} for the given {@link IResourceModelElement root element} and
 	 * it's {@link IResourceModelElement context element}.
@@ -248,6 +382,69 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 		return true;
 	}
 
+	/**
+	 * Validates a single resource with the thread-safe rules; executed on the validation pool.
+	 */
+	@SuppressWarnings("serial")
+	private final class ResourceValidationTask extends RecursiveTask<Set<ValidationProblem>> {
+
+		private final IResource resource;
+
+		private final IValidationElementLifecycleManager callback;
+
+		private final Set<ValidationRuleDefinition> parallelRules;
+
+		private final Set<ValidationRuleDefinition> sequentialRules;
+
+		private final IProgressMonitor monitor;
+
+		private boolean destroyed;
+
+		public ResourceValidationTask(IResource resource, IValidationElementLifecycleManager callback,
+				Set<ValidationRuleDefinition> parallelRules, Set<ValidationRuleDefinition> sequentialRules,
+				IProgressMonitor monitor) {
+			this.resource = resource;
+			this.callback = callback;
+			this.parallelRules = parallelRules;
+			this.sequentialRules = sequentialRules;
+			this.monitor = new CancelableProgressMonitor(monitor);
+		}
+
+		@Override
+		protected Set<ValidationProblem> compute() {
+			if (parallelRules.isEmpty()) {
+				return new LinkedHashSet<ValidationProblem>();
+			}
+
+			return validate(callback, parallelRules, monitor);
+		}
+
+		public void destroy() {
+			if (!destroyed) {
+				destroyed = true;
+				callback.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Progress monitor for pool threads that only forwards cancellation of the builder's monitor, since progress
+	 * monitors are not meant to be updated from several threads.
+	 */
+	private static final class CancelableProgressMonitor extends NullProgressMonitor {
+
+		private final IProgressMonitor delegate;
+
+		public CancelableProgressMonitor(IProgressMonitor delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || (delegate != null && delegate.isCanceled());
+		}
+	}
+
 	/**
 	 * {@link IModelElementVisitor} implementation that validates a specified model tree.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 Spring IDE Developers
+ * Copyright (c) 2009, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,8 @@
 package org.springframework.ide.eclipse.core.project;
 
 import java.util.Dictionary;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.osgi.framework.Filter;
 import org.osgi.framework.FrameworkUtil;
@@ -26,9 +26,9 @@ import org.springframework.util.StringUtils;
  */
 public class DefaultProjectContributorState implements IProjectContributorState {
 
-	private Map<Class, Object> managedObjects = new HashMap<Class, Object>();
+	private Map<Class, Object> managedObjects = new ConcurrentHashMap<Class, Object>();
 
-	private Map<Dictionary<String, String>, Object> managedObjectsWithFilters = new HashMap<Dictionary<String, String>, Object>();
+	private Map<Dictionary<String, String>, Object> managedObjectsWithFilters = new ConcurrentHashMap<Dictionary<String, String>, Object>();
 
 	public <T> T get(Class<T> clazz) {
 		if (managedObjects.containsKey(clazz)) {
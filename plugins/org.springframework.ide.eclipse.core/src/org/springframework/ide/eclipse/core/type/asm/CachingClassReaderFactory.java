@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,31 +10,39 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.type.asm;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.net.URL;
 
 import org.springframework.asm.ClassReader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ResourceUtils;
 
 /**
  * Caching implementation of the {@link ClassReaderFactory} interface, caching a
  * ClassReader per Spring Resource handle (i.e. per ".class" file).
+ * <p>
+ * The cache is bounded by the size of the retained class file bytes and drops
+ * entries whose class or jar file changes in the workspace.
  * @author Christian Dupuis
  * @author Juergen Hoeller
  * @since 2.0.2
+ * @see ClassReadingCache
  */
 public class CachingClassReaderFactory extends SimpleClassReaderFactory {
 
-	private final Map<Resource, ClassReader> classReaderCache = 
-		new HashMap<Resource, ClassReader>();
+	/** Default maximum size of the cached class file bytes: 16 MB */
+	public static final long DEFAULT_MAX_WEIGHT = 16 * 1024 * 1024;
+
+	private final ClassReadingCache<Resource, ClassReader> classReaderCache;
 
 	/**
 	 * Create a new CachingClassReaderFactory for the default class loader.
 	 */
 	public CachingClassReaderFactory() {
 		super();
+		this.classReaderCache = createCache(DEFAULT_MAX_WEIGHT);
 	}
 
 	/**
@@ -44,6 +52,7 @@ public class CachingClassReaderFactory extends SimpleClassReaderFactory {
 	 */
 	public CachingClassReaderFactory(ResourceLoader resourceLoader) {
 		super(resourceLoader);
+		this.classReaderCache = createCache(DEFAULT_MAX_WEIGHT);
 	}
 
 	/**
@@ -51,18 +60,67 @@ public class CachingClassReaderFactory extends SimpleClassReaderFactory {
 	 * @param classLoader the ClassLoader to use
 	 */
 	public CachingClassReaderFactory(ClassLoader classLoader) {
+		this(classLoader, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * Create a new CachingClassReaderFactory for the given class loader.
+	 * @param classLoader the ClassLoader to use
+	 * @param maxWeight the maximum number of class file bytes to keep in the cache
+	 * @since 3.8.1
+	 */
+	public CachingClassReaderFactory(ClassLoader classLoader, long maxWeight) {
 		super(classLoader);
+		this.classReaderCache = createCache(maxWeight);
 	}
 
 	public ClassReader getClassReader(Resource resource) throws IOException {
-		synchronized (this.classReaderCache) {
-			ClassReader classReader = this.classReaderCache.get(resource);
-			if (classReader == null) {
-				classReader = super.getClassReader(resource);
-				this.classReaderCache.put(resource, classReader);
+		return this.classReaderCache.get(resource);
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counts of this factory's cache.
+	 * @since 3.8.1
+	 */
+	public ClassReadingCache.Statistics getStatistics() {
+		return this.classReaderCache.getStatistics();
+	}
+
+	/**
+	 * Drops all cached class readers.
+	 * @since 3.8.1
+	 */
+	public void dispose() {
+		this.classReaderCache.dispose();
+	}
+
+	private ClassReadingCache<Resource, ClassReader> createCache(long maxWeight) {
+		return new ClassReadingCache<Resource, ClassReader>(new ClassReadingCache.EntryLoader<Resource, ClassReader>() {
+
+			public ClassReader load(Resource resource) throws IOException {
+				return CachingClassReaderFactory.super.getClassReader(resource);
+			}
+
+			public long getWeight(Resource resource, ClassReader classReader) {
+				return classReader.b.length;
+			}
+
+			public File[] getLocations(Resource resource, ClassReader classReader) {
+				try {
+					URL url = resource.getURL();
+					if (ResourceUtils.isJarURL(url)) {
+						url = ResourceUtils.extractJarFileURL(url);
+					}
+					if (ResourceUtils.isFileURL(url)) {
+						return new File[] { ResourceUtils.getFile(url) };
+					}
+				}
+				catch (IOException e) {
+					// no file on the local file system, entry gets dropped on eviction only
+				}
+				return null;
 			}
-			return classReader;
-		}
+		}, maxWeight);
 	}
 
 }
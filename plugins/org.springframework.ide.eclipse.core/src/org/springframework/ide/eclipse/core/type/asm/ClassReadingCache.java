@@ -0,0 +1,449 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.type.asm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Bounded cache for the results of reading class files, used by the {@link CachingClassReaderFactory} and the
+ * {@link org.springframework.ide.eclipse.core.java.classreading.CachingJdtMetadataReaderFactory}.
+ * <p>
+ * The cache is split into segments that are locked independently, so that threads that read different entries
+ * don't block each other. Every segment keeps its entries in least recently used order and evicts the oldest
+ * entries once the weight of the segment (e.g. the size of the retained class file bytes) exceeds its share of
+ * the maximum weight. Values are loaded outside of any lock.
+ * <p>
+ * <code>null</code> values are cached as well, so that types that cannot be found are not searched again and
+ * again. Entries are dropped as soon as one of the files they have been read from (a class file, a jar file or a
+ * source file) changes or gets removed in the workspace; <code>null</code> entries are dropped as soon as such a
+ * file is added. The workspace listener is shared by all caches and installed by {@link #startListening()}.
+ * Hit, miss and eviction counts are available per cache via {@link #getStatistics()} and summed up for all caches
+ * via {@link #getGlobalStatistics()}.
+ *
+ * @since 3.8.1
+ */
+public class ClassReadingCache<K, V> {
+
+	private static final int SEGMENT_COUNT = 16;
+
+	private static final Set<ClassReadingCache<?, ?>> CACHES = Collections
+			.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<ClassReadingCache<?, ?>, Boolean>()));
+
+	private static final AtomicLong GLOBAL_HITS = new AtomicLong();
+	private static final AtomicLong GLOBAL_MISSES = new AtomicLong();
+	private static final AtomicLong GLOBAL_EVICTIONS = new AtomicLong();
+
+	private static IResourceChangeListener resourceChangeListener = null;
+
+	/**
+	 * Loads the values of a {@link ClassReadingCache} and tells the cache how much each value weighs and which
+	 * files it has been read from.
+	 */
+	public interface EntryLoader<K, V> {
+
+		V load(K key) throws IOException;
+
+		/**
+		 * Returns the weight of the given value (which might be <code>null</code>) in the unit of the maximum
+		 * weight of the cache.
+		 */
+		long getWeight(K key, V value);
+
+		/**
+		 * Returns the files (class files, jar files or source files) the value has been created from; a change to
+		 * any of these files invalidates the entry. May return <code>null</code>; only called for non
+		 * <code>null</code> values.
+		 */
+		File[] getLocations(K key, V value);
+
+	}
+
+	private final EntryLoader<K, V> loader;
+	private final long maxSegmentWeight;
+	private final Segment<K, V>[] segments;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	@SuppressWarnings("unchecked")
+	public ClassReadingCache(EntryLoader<K, V> loader, long maxWeight) {
+		this.loader = loader;
+		this.maxSegmentWeight = Math.max(1, maxWeight / SEGMENT_COUNT);
+		this.segments = new Segment[SEGMENT_COUNT];
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			this.segments[i] = new Segment<K, V>();
+		}
+		CACHES.add(this);
+	}
+
+	/**
+	 * Returns the cached value for the given key or loads (and caches) it if it isn't cached yet.
+	 */
+	public V get(K key) throws IOException {
+		Segment<K, V> segment = segmentFor(key);
+		synchronized (segment) {
+			Entry<V> entry = segment.entries.get(key);
+			if (entry != null) {
+				hits.incrementAndGet();
+				GLOBAL_HITS.incrementAndGet();
+				return entry.value;
+			}
+		}
+
+		misses.incrementAndGet();
+		GLOBAL_MISSES.incrementAndGet();
+
+		V value = loader.load(key);
+		long weight = Math.max(1, loader.getWeight(key, value));
+		if (weight > maxSegmentWeight) {
+			// would evict everything else, so don't cache it at all
+			return value;
+		}
+		Entry<V> newEntry = new Entry<V>(value, weight, value != null ? loader.getLocations(key, value) : null);
+
+		synchronized (segment) {
+			Entry<V> existingEntry = segment.entries.get(key);
+			if (existingEntry != null) {
+				// another thread has been faster
+				return existingEntry.value;
+			}
+			segment.entries.put(key, newEntry);
+			segment.weight += weight;
+
+			Iterator<Entry<V>> iterator = segment.entries.values().iterator();
+			while (segment.weight > maxSegmentWeight && iterator.hasNext()) {
+				Entry<V> eldest = iterator.next();
+				if (eldest == newEntry) {
+					break;
+				}
+				iterator.remove();
+				segment.weight -= eldest.weight;
+				evictions.incrementAndGet();
+				GLOBAL_EVICTIONS.incrementAndGet();
+			}
+		}
+		return value;
+	}
+
+	public void invalidate(K key) {
+		Segment<K, V> segment = segmentFor(key);
+		synchronized (segment) {
+			Entry<V> entry = segment.entries.remove(key);
+			if (entry != null) {
+				segment.weight -= entry.weight;
+			}
+		}
+	}
+
+	public void invalidateAll() {
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				segment.entries.clear();
+				segment.weight = 0;
+			}
+		}
+	}
+
+	/**
+	 * Drops all entries and removes this cache from the ones that are updated on workspace changes.
+	 */
+	public void dispose() {
+		CACHES.remove(this);
+		invalidateAll();
+	}
+
+	/**
+	 * Drops all entries that have been read from one of the given files or from a file inside of one of the given
+	 * directories and - if requested - all <code>null</code> entries.
+	 */
+	public void invalidateLocations(Set<String> paths, boolean nullEntries) {
+		if (paths.isEmpty() && !nullEntries) {
+			return;
+		}
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				Iterator<Entry<V>> iterator = segment.entries.values().iterator();
+				while (iterator.hasNext()) {
+					Entry<V> entry = iterator.next();
+					if ((nullEntries && entry.value == null) || entry.isReadFrom(paths)) {
+						iterator.remove();
+						segment.weight -= entry.weight;
+					}
+				}
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				size += segment.entries.size();
+			}
+		}
+		return size;
+	}
+
+	public long getWeight() {
+		long weight = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				weight += segment.weight;
+			}
+		}
+		return weight;
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(hits.get(), misses.get(), evictions.get(), size(), getWeight());
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counts of all caches that have been created so far, together with the
+	 * number of entries and the weight of all caches that are still in use.
+	 */
+	public static Statistics getGlobalStatistics() {
+		int size = 0;
+		long weight = 0;
+		for (ClassReadingCache<?, ?> cache : getCaches()) {
+			size += cache.size();
+			weight += cache.getWeight();
+		}
+		return new Statistics(GLOBAL_HITS.get(), GLOBAL_MISSES.get(), GLOBAL_EVICTIONS.get(), size, weight);
+	}
+
+	private Segment<K, V> segmentFor(K key) {
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return segments[hash & (SEGMENT_COUNT - 1)];
+	}
+
+	private static List<ClassReadingCache<?, ?>> getCaches() {
+		synchronized (CACHES) {
+			return new ArrayList<ClassReadingCache<?, ?>>(CACHES);
+		}
+	}
+
+	/**
+	 * Installs the workspace listener that drops the entries of all caches whose files change; called once when
+	 * the core plugin starts.
+	 */
+	public static synchronized void startListening() {
+		if (resourceChangeListener == null) {
+			try {
+				resourceChangeListener = new ClassFileResourceChangeListener();
+				ResourcesPlugin.getWorkspace().addResourceChangeListener(resourceChangeListener,
+						IResourceChangeEvent.POST_CHANGE);
+			}
+			catch (IllegalStateException e) {
+				// workspace not available, entries will only be dropped on eviction
+				resourceChangeListener = null;
+			}
+		}
+	}
+
+	/**
+	 * Removes the workspace listener installed by {@link #startListening()}; called when the core plugin stops.
+	 */
+	public static synchronized void stopListening() {
+		if (resourceChangeListener != null) {
+			try {
+				ResourcesPlugin.getWorkspace().removeResourceChangeListener(resourceChangeListener);
+			}
+			catch (IllegalStateException e) {
+				// workspace already gone
+			}
+			resourceChangeListener = null;
+		}
+	}
+
+	/**
+	 * Snapshot of the counters of one or all {@link ClassReadingCache}s.
+	 */
+	public static class Statistics {
+
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final int size;
+		private final long weight;
+
+		public Statistics(long hitCount, long missCount, long evictionCount, int size, long weight) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.size = size;
+			this.weight = weight;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public long getWeight() {
+			return weight;
+		}
+
+		public double getHitRate() {
+			long requests = hitCount + missCount;
+			return requests == 0 ? 1.0 : (double) hitCount / requests;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("hits: %d, misses: %d, evictions: %d, entries: %d, weight: %d", hitCount, missCount,
+					evictionCount, size, weight);
+		}
+	}
+
+	private static class Segment<K, V> {
+
+		final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+		long weight;
+
+	}
+
+	private static class Entry<V> {
+
+		final V value;
+		final long weight;
+		final String[] locations;
+
+		public Entry(V value, long weight, File[] files) {
+			this.value = value;
+			this.weight = weight;
+			if (files != null) {
+				List<String> paths = new ArrayList<String>(files.length);
+				for (File file : files) {
+					if (file != null) {
+						paths.add(file.getAbsolutePath());
+					}
+				}
+				this.locations = paths.toArray(new String[paths.size()]);
+			}
+			else {
+				this.locations = null;
+			}
+		}
+
+		public boolean isReadFrom(Set<String> paths) {
+			if (locations == null) {
+				return false;
+			}
+			for (String location : locations) {
+				String path = location;
+				while (path != null) {
+					if (paths.contains(path)) {
+						return true;
+					}
+					path = new File(path).getParent();
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * {@link IResourceChangeListener} that drops the entries of all caches that have been read from changed or
+	 * removed class, jar and source files.
+	 */
+	static class ClassFileResourceChangeListener implements IResourceChangeListener {
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			IResourceDelta delta = event.getDelta();
+			if (delta == null) {
+				return;
+			}
+
+			final Set<String> paths = new HashSet<String>();
+			final boolean[] added = new boolean[1];
+			try {
+				delta.accept(new IResourceDeltaVisitor() {
+
+					public boolean visit(IResourceDelta delta) throws CoreException {
+						IResource resource = delta.getResource();
+						if (delta.getKind() == IResourceDelta.REMOVED
+								|| (delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.REPLACED)) != 0) {
+							addLocation(resource, paths);
+							return false;
+						}
+						if (resource.getType() == IResource.FILE && delta.getKind() == IResourceDelta.CHANGED
+								&& (delta.getFlags() & IResourceDelta.CONTENT) != 0 && isClassReadingInput(resource)) {
+							addLocation(resource, paths);
+						}
+						else if (delta.getKind() == IResourceDelta.ADDED && resource.getType() == IResource.FILE
+								&& isClassReadingInput(resource)) {
+							// a type that could not be found before might be available now
+							added[0] = true;
+						}
+						return true;
+					}
+				});
+			}
+			catch (CoreException e) {
+				SpringCore.log("Error while traversing resource change delta", e);
+			}
+
+			if (!paths.isEmpty() || added[0]) {
+				for (ClassReadingCache<?, ?> cache : getCaches()) {
+					cache.invalidateLocations(paths, added[0]);
+				}
+			}
+		}
+
+		private static boolean isClassReadingInput(IResource resource) {
+			String extension = resource.getFileExtension();
+			return "class".equals(extension) || "jar".equals(extension) || "zip".equals(extension)
+					|| "java".equals(extension);
+		}
+
+		private static void addLocation(IResource resource, Set<String> paths) {
+			IPath location = resource.getLocation();
+			if (location != null) {
+				paths.add(location.toFile().getAbsolutePath());
+			}
+		}
+	}
+
+}
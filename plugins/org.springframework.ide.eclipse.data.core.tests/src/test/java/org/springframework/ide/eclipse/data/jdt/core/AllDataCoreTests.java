@@ -18,7 +18,8 @@ import org.junit.runners.Suite.SuiteClasses;
  * @author Tomasz Zarna
  */
 @RunWith(Suite.class)
-@SuiteClasses({ KeywordProviderSupportUnitTests.class, //
+@SuiteClasses({ DerivedQueryValidationCacheTest.class, //
+		KeywordProviderSupportUnitTests.class, //
 		QueryMethodCandidateUnitTests.class, //
 		QueryMethodPartUnitTests.class, //
 		RepositoryInformationTest.class //
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.Scanner;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @since 3.8.1
+ */
+public class DerivedQueryValidationCacheTest {
+
+	private IProject project;
+	private IJavaProject javaProject;
+
+	@BeforeClass
+	public static void setUp() {
+		if (Platform.OS_WIN32.equals(Platform.getOS())) {
+			/*
+			 * Set non-locking class-loader for windows testing
+			 */
+			InstanceScope.INSTANCE.getNode(SpringCore.PLUGIN_ID).putBoolean(
+					SpringCore.USE_NON_LOCKING_CLASSLOADER, true);
+		}
+	}
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("spring-data-testdata", "org.springframework.ide.eclipse.data.core.tests");
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		javaProject = JdtUtils.getJavaProject(project);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testManagedDomainTypeName() throws Exception {
+		IType type = javaProject.findType("org.PersonRepository");
+		assertEquals("org.Person", DerivedQueryValidationCache.getManagedDomainTypeName(type));
+	}
+
+	@Test
+	public void testInvalidQueryMethods() throws Exception {
+		IType type = javaProject.findType("org.PersonRepository");
+
+		Map<IMethod, String> problems = DerivedQueryValidationCache.validate(type);
+		assertEquals(1, problems.size());
+		IMethod invalid = problems.keySet().iterator().next();
+		assertEquals("findByLastname", invalid.getElementName());
+		assertTrue(problems.get(invalid).contains("lastname"));
+
+		// validating again reports the same problems from the cache
+		assertEquals(problems, DerivedQueryValidationCache.validate(type));
+	}
+
+	@Test
+	public void testDomainTypeChangeInvalidatesResults() throws Exception {
+		IType type = javaProject.findType("org.PersonRepository");
+		assertEquals(1, DerivedQueryValidationCache.validate(type).size());
+
+		// adding the missing property changes the fingerprint of the domain type
+		IFile person = project.getFile("src/org/Person.java");
+		String source = read(person).replace("private String firstname;",
+				"private String firstname;\n\n\tprivate String lastname;");
+		person.setContents(new ByteArrayInputStream(source.getBytes("UTF-8")), true, false, null);
+		project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+		assertTrue(DerivedQueryValidationCache.validate(type).isEmpty());
+	}
+
+	private static String read(IFile file) throws Exception {
+		Scanner scanner = new Scanner(file.getContents(), "UTF-8");
+		try {
+			return scanner.useDelimiter("\\A").next();
+		}
+		finally {
+			scanner.close();
+		}
+	}
+
+}
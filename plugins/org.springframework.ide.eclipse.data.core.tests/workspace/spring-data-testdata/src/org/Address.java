@@ -0,0 +1,10 @@
+package org;
+
+public class Address {
+
+	private String city;
+
+	public String getCity() {
+		return city;
+	}
+}
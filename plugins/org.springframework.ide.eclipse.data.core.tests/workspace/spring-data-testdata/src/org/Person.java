@@ -0,0 +1,16 @@
+package org;
+
+public class Person {
+
+	private String firstname;
+
+	private Address address;
+
+	public String getFirstname() {
+		return firstname;
+	}
+
+	public Address getAddress() {
+		return address;
+	}
+}
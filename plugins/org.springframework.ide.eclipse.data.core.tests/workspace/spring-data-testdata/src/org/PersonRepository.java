@@ -0,0 +1,14 @@
+package org;
+
+import java.util.List;
+
+import org.springframework.data.repository.Repository;
+
+public interface PersonRepository extends Repository<Person, Long> {
+
+	List<Person> findByFirstname(String firstname);
+
+	List<Person> findByAddressCity(String city);
+
+	List<Person> findByLastname(String lastname);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 Spring IDE Developers
+ * Copyright (c) 2012, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,20 +10,21 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.data.internal.validation;
 
+import java.util.Map;
+
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
-import org.springframework.data.mapping.PropertyReferenceException;
-import org.springframework.data.repository.query.parser.PartTree;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.java.JavaModelSourceLocation;
 import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
 import org.springframework.ide.eclipse.core.model.validation.ValidationProblemAttribute;
+import org.springframework.ide.eclipse.data.jdt.core.DerivedQueryValidationCache;
 import org.springframework.ide.eclipse.data.jdt.core.RepositoryInformation;
 import org.springframework.ide.eclipse.data.jdt.core.SpringDataCompilationParticipant;
 
@@ -67,14 +68,7 @@ public class InvalidDerivedQueryRule implements IValidationRule<CompilationUnit,
 			return false;
 		}
 
-		// resolve repository information and generate problem markers
-		RepositoryInformation information = new RepositoryInformation(type);
-
-		Class<?> domainClass = information.getManagedDomainClass();
-		if (domainClass == null) {
-			return false;
-		}
-		return true;
+		return DerivedQueryValidationCache.getManagedDomainTypeName(type) != null;
 	}
 
 	public void validate(CompilationUnit element,
@@ -88,34 +82,27 @@ public class InvalidDerivedQueryRule implements IValidationRule<CompilationUnit,
 			if (!supports(typeRoot))
 				return;
 
-			// resolve repository information and generate problem markers
-			RepositoryInformation information = new RepositoryInformation(type);
-
-			Class<?> domainClass = information.getManagedDomainClass();
-			if (domainClass == null) {
+			// validate the query methods (only the ones not validated before are parsed again)
+			Map<IMethod, String> invalidMethods = DerivedQueryValidationCache.validate(type);
+			if (invalidMethods == null) {
 				return;
 			}
 
-			for (IMethod method : information.getMethodsToValidate()) {
-
-				String methodName = method.getElementName();
-
-				try {
-					new PartTree(methodName, domainClass);
-				} catch (PropertyReferenceException e) {
-					element.setElementSourceLocation(new JavaModelSourceLocation(
-							method));
-					ValidationProblemAttribute start = new ValidationProblemAttribute(
-							IMarker.CHAR_START, method.getNameRange()
-									.getOffset());
-					ValidationProblemAttribute end = new ValidationProblemAttribute(
-							IMarker.CHAR_END, method.getSourceRange()
-									.getOffset()
-									+ method.getSourceRange().getLength());
-					context.error(element, "INVALID_DERIVED_QUERY",
-							"Invalid derived query! " + e.getMessage(),
-							new ValidationProblemAttribute[] { start, end });
-				}
+			for (Map.Entry<IMethod, String> invalidMethod : invalidMethods.entrySet()) {
+
+				IMethod method = invalidMethod.getKey();
+				element.setElementSourceLocation(new JavaModelSourceLocation(
+						method));
+				ValidationProblemAttribute start = new ValidationProblemAttribute(
+						IMarker.CHAR_START, method.getNameRange()
+								.getOffset());
+				ValidationProblemAttribute end = new ValidationProblemAttribute(
+						IMarker.CHAR_END, method.getSourceRange()
+								.getOffset()
+								+ method.getSourceRange().getLength());
+				context.error(element, "INVALID_DERIVED_QUERY",
+						"Invalid derived query! " + invalidMethod.getValue(),
+						new ValidationProblemAttribute[] { start, end });
 			}
 
 		} catch (JavaModelException e) {
@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.env.IBinaryField;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.ProjectClassLoaderCache;
+
+/**
+ * Per-project cache of the outcome of parsing the names of derived query methods with {@link PartTree}.
+ * <p>
+ * Results are cached by method name and by a fingerprint of the managed domain type. The fingerprint is taken from
+ * the class files the project class loader would load the domain type from: the class file of the domain type and
+ * those of all project types reachable through its super types, fields and methods, read from the project's output
+ * folders. So as long as neither the domain classes nor the method names change, a repository can be validated
+ * without loading any classes, and after an edit only the methods with new names get parsed again.
+ * <p>
+ * Types that are not in an output folder (e.g. types in jars) don't contribute to the fingerprint; the cache of a
+ * project is dropped whenever its classpath changes.
+ * @since 3.8.1
+ */
+@SuppressWarnings("restriction")
+public class DerivedQueryValidationCache {
+
+	/** Marks a method name that parses without problems */
+	private static final String VALID = "";
+
+	/** Matches the (slash-separated) type names in a type descriptor or generic signature */
+	private static final Pattern TYPE_NAME = Pattern.compile("L([^;<]+)");
+
+	private static final ConcurrentMap<IProject, ProjectCache> CACHES = new ConcurrentHashMap<IProject, ProjectCache>();
+
+	static {
+		JavaCore.addElementChangedListener(new ClasspathChangeListener(), ElementChangedEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Validates the derived query methods of the given repository interface.
+	 * @param type the repository interface
+	 * @return the problem message for every invalid query method, or <code>null</code> if the managed domain type of
+	 * the repository can't be determined
+	 */
+	public static Map<IMethod, String> validate(IType type) {
+		ProjectCache cache = getCache(type.getJavaProject().getProject());
+		String domainTypeName = cache.getManagedDomainTypeName(type);
+		if (domainTypeName == null) {
+			return null;
+		}
+
+		Map<String, String> results = cache.getResults(domainTypeName);
+		Map<IMethod, String> problems = new LinkedHashMap<IMethod, String>();
+		Class<?> domainClass = null;
+		for (IMethod method : RepositoryInformation.getMethodsToValidate(type)) {
+			String methodName = method.getElementName();
+			String problem = results.get(methodName);
+			if (problem == null) {
+				if (domainClass == null) {
+					domainClass = new RepositoryInformation(type).getManagedDomainClass();
+					if (domainClass == null) {
+						return null;
+					}
+				}
+				try {
+					new PartTree(methodName, domainClass);
+					problem = VALID;
+				}
+				catch (PropertyReferenceException e) {
+					problem = e.getMessage();
+				}
+				results.put(methodName, problem);
+			}
+			if (problem != VALID) {
+				problems.put(method, problem);
+			}
+		}
+		return problems;
+	}
+
+	/**
+	 * Returns the fully-qualified name of the domain type managed by the given repository interface, or
+	 * <code>null</code> if it can't be determined.
+	 */
+	public static String getManagedDomainTypeName(IType type) {
+		return getCache(type.getJavaProject().getProject()).getManagedDomainTypeName(type);
+	}
+
+	private static ProjectCache getCache(IProject project) {
+		ProjectCache cache = CACHES.get(project);
+		if (cache == null) {
+			cache = new ProjectCache(project);
+			ProjectCache existing = CACHES.putIfAbsent(project, cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * The cached information of a single project.
+	 */
+	private static class ProjectCache {
+
+		private final IProject project;
+
+		private volatile List<File> outputFolders;
+
+		/** Domain type names by repository name; only valid for the recorded fingerprint of the repository */
+		private final ConcurrentMap<String, Fingerprinted<String>> domainTypeNames = new ConcurrentHashMap<String, Fingerprinted<String>>();
+
+		/** Parse results by method name by domain type name */
+		private final ConcurrentMap<String, Fingerprinted<ConcurrentMap<String, String>>> results = new ConcurrentHashMap<String, Fingerprinted<ConcurrentMap<String, String>>>();
+
+		private final ConcurrentMap<String, ClassFileInfo> classFiles = new ConcurrentHashMap<String, ClassFileInfo>();
+
+		public ProjectCache(IProject project) {
+			this.project = project;
+		}
+
+		public String getManagedDomainTypeName(IType type) {
+			String repositoryName = type.getFullyQualifiedName();
+			// the domain type is bound by the type arguments of the super interfaces
+			String fingerprint = getFingerprint(repositoryName, false);
+			Fingerprinted<String> domainTypeName = domainTypeNames.get(repositoryName);
+			if (domainTypeName == null || !domainTypeName.fingerprint.equals(fingerprint)) {
+				Class<?> domainClass = new RepositoryInformation(type).getManagedDomainClass();
+				if (domainClass == null) {
+					return null;
+				}
+				domainTypeName = new Fingerprinted<String>(fingerprint, domainClass.getName());
+				domainTypeNames.put(repositoryName, domainTypeName);
+			}
+			return domainTypeName.value;
+		}
+
+		public Map<String, String> getResults(String domainTypeName) {
+			String fingerprint = getFingerprint(domainTypeName, true);
+			Fingerprinted<ConcurrentMap<String, String>> cached = results.get(domainTypeName);
+			if (cached == null || !cached.fingerprint.equals(fingerprint)) {
+				cached = new Fingerprinted<ConcurrentMap<String, String>>(fingerprint,
+						new ConcurrentHashMap<String, String>());
+				results.put(domainTypeName, cached);
+			}
+			return cached.value;
+		}
+
+		/**
+		 * Computes the fingerprint of the class files of the given type and of the project types it references.
+		 * @param members whether to follow the types of fields and methods or only the super types
+		 */
+		private String getFingerprint(String className, boolean members) {
+			List<String> parts = new ArrayList<String>();
+			Set<String> seen = new HashSet<String>();
+			Deque<String> todo = new ArrayDeque<String>();
+			todo.add(className);
+			seen.add(className);
+			while (!todo.isEmpty()) {
+				String name = todo.removeFirst();
+				ClassFileInfo info = getClassFileInfo(name);
+				if (info == null) {
+					continue;
+				}
+				parts.add(name + "@" + info.lastModified + ":" + info.length);
+				for (String referenced : members ? info.referencedTypes : info.superTypes) {
+					if (seen.add(referenced)) {
+						todo.add(referenced);
+					}
+				}
+			}
+			Collections.sort(parts);
+			return parts.toString();
+		}
+
+		private ClassFileInfo getClassFileInfo(String className) {
+			File file = findClassFile(className);
+			if (file == null) {
+				classFiles.remove(className);
+				return null;
+			}
+			ClassFileInfo info = classFiles.get(className);
+			if (info == null || !info.isCurrent(file)) {
+				try {
+					info = new ClassFileInfo(file);
+					classFiles.put(className, info);
+				}
+				catch (Exception e) {
+					SpringCore.log(e);
+					return null;
+				}
+			}
+			return info;
+		}
+
+		private File findClassFile(String className) {
+			if (className.startsWith("java.")) {
+				return null;
+			}
+			String path = className.replace('.', File.separatorChar) + ".class";
+			for (File folder : getOutputFolders()) {
+				File file = new File(folder, path);
+				if (file.isFile()) {
+					return file;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Returns the folders (i.e. not the jars) on the classpath of the project, like the project class loader
+		 * uses them.
+		 */
+		private List<File> getOutputFolders() {
+			List<File> folders = outputFolders;
+			if (folders == null) {
+				folders = new ArrayList<File>();
+				for (URL url : ProjectClassLoaderCache.getClassPathUrls(project, null)) {
+					String path = url.getPath();
+					if (!"file".equals(url.getProtocol()) || path.endsWith(".jar") || path.endsWith(".zip")) {
+						continue;
+					}
+					try {
+						File folder = new File(url.toURI());
+						if (folder.isDirectory()) {
+							folders.add(folder);
+						}
+					}
+					catch (URISyntaxException e) {
+						folders.add(new File(path));
+					}
+					catch (IllegalArgumentException e) {
+						// not a hierarchical file uri
+					}
+				}
+				outputFolders = folders;
+			}
+			return folders;
+		}
+	}
+
+	/**
+	 * The parts of a class file that the fingerprints are built from.
+	 */
+	private static class ClassFileInfo {
+
+		private final long lastModified;
+
+		private final long length;
+
+		private final Set<String> superTypes = new HashSet<String>();
+
+		private final Set<String> referencedTypes = new HashSet<String>();
+
+		public ClassFileInfo(File file) throws Exception {
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+
+			ClassFileReader reader = ClassFileReader.read(file);
+			addTypeName(superTypes, reader.getSuperclassName());
+			char[][] interfaceNames = reader.getInterfaceNames();
+			if (interfaceNames != null) {
+				for (char[] interfaceName : interfaceNames) {
+					addTypeName(superTypes, interfaceName);
+				}
+			}
+			referencedTypes.addAll(superTypes);
+
+			IBinaryField[] fields = reader.getFields();
+			if (fields != null) {
+				for (IBinaryField field : fields) {
+					addTypeNames(referencedTypes, field.getGenericSignature() != null ? field.getGenericSignature()
+							: field.getTypeName());
+				}
+			}
+			IBinaryMethod[] methods = reader.getMethods();
+			if (methods != null) {
+				for (IBinaryMethod method : methods) {
+					addTypeNames(referencedTypes, method.getGenericSignature() != null ? method.getGenericSignature()
+							: method.getMethodDescriptor());
+				}
+			}
+		}
+
+		public boolean isCurrent(File file) {
+			return lastModified == file.lastModified() && length == file.length();
+		}
+
+		private static void addTypeName(Set<String> names, char[] slashedName) {
+			if (slashedName != null) {
+				names.add(new String(slashedName).replace('/', '.'));
+			}
+		}
+
+		private static void addTypeNames(Set<String> names, char[] signature) {
+			if (signature != null) {
+				Matcher matcher = TYPE_NAME.matcher(new String(signature));
+				while (matcher.find()) {
+					names.add(matcher.group(1).replace('/', '.'));
+				}
+			}
+		}
+	}
+
+	private static class Fingerprinted<T> {
+
+		private final String fingerprint;
+
+		private final T value;
+
+		public Fingerprinted(String fingerprint, T value) {
+			this.fingerprint = fingerprint;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Drops the cache of projects that are removed or of which the classpath changes.
+	 */
+	private static class ClasspathChangeListener implements IElementChangedListener {
+
+		public void elementChanged(ElementChangedEvent event) {
+			for (IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
+				if (delta.getElement().getElementType() == IJavaElement.JAVA_PROJECT
+						&& (delta.getKind() == IJavaElementDelta.REMOVED
+								|| (delta.getFlags() & IJavaElementDelta.F_CLASSPATH_CHANGED) != 0
+								|| (delta.getFlags() & IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED) != 0)) {
+					// the classpath may include the output folders of other projects
+					CACHES.clear();
+					return;
+				}
+			}
+		}
+	}
+
+}
@@ -240,6 +240,17 @@ public class RepositoryInformation {
 	 * @return
 	 */
 	public Iterable<IMethod> getMethodsToValidate() {
+		return getMethodsToValidate(type);
+	}
+
+	/**
+	 * Returns all {@link IMethod}s of the given repository interface that shall be considered query methods (which
+	 * need to be validated).
+	 * 
+	 * @param type the repository interface
+	 * @return
+	 */
+	public static Iterable<IMethod> getMethodsToValidate(IType type) {
 
 		Set<IMethod> result = new HashSet<IMethod>();
 
@@ -256,7 +267,7 @@ public class RepositoryInformation {
 		return result;
 	}
 
-	public boolean isMethodToValidate(IMethod method) throws JavaModelException {
+	public static boolean isMethodToValidate(IMethod method) throws JavaModelException {
 		if (isCrudMethod(method)) return false;
 		if (hasAnnotation(method, "Query")) return false;
 		if (hasAnnotation(method, "Procedure")) return false;
@@ -273,11 +284,11 @@ public class RepositoryInformation {
 		return false;
 	}
 
-	private boolean isCrudMethod(IMethod method) {
+	private static boolean isCrudMethod(IMethod method) {
 		return METHOD_NAMES.contains(method.getElementName());
 	}
 	
-	private boolean hasAnnotation(IMethod method, String annotationName) throws JavaModelException {
+	private static boolean hasAnnotation(IMethod method, String annotationName) throws JavaModelException {
 		for (IAnnotation annotation : method.getAnnotations()) {
 			if (annotation.getElementName().equals(annotationName)) {
 				return true;
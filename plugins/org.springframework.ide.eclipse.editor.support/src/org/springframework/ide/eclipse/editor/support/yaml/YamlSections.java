@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Pivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Pivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.editor.support.yaml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+/**
+ * Snapshot of the text of a yml document, split into sections at the '---' lines
+ * that start a new yml document.
+ * <p>
+ * Sections are the unit of reuse for incremental parsing: both the SnakeYaml
+ * parser and the {@link org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureParser}
+ * start from scratch at the beginning of each section, so a section whose text
+ * hasn't changed since the last parse parses to the same result (modulo the
+ * offsets, if text before the section has changed).
+ * <p>
+ * The snapshot of a document is shared by all parsers for as long as the document's
+ * modification stamp doesn't change.
+ */
+public class YamlSections {
+
+	/**
+	 * Matches a line that starts a new document for both SnakeYaml and the
+	 * structure parser: '---' at the start of the line, optionally followed
+	 * by whitespace and a comment.
+	 */
+	private static final Pattern SECTION_START = Pattern.compile("---(\\s+(\\#.*)?)?");
+
+	private static final Map<IDocument, YamlSections> cache = new WeakHashMap<IDocument, YamlSections>();
+
+	public static class Section {
+		private final int start;
+		private final int end;
+		private final int startLine;
+		private final int endLine;
+
+		private Section(int start, int end, int startLine, int endLine) {
+			this.start = start;
+			this.end = end;
+			this.startLine = startLine;
+			this.endLine = endLine;
+		}
+
+		/**
+		 * Offset of the first character of the section.
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * Offset just after the last character of the section.
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * Number of the first line of the section.
+		 */
+		public int getStartLine() {
+			return startLine;
+		}
+
+		/**
+		 * Number of the line just after the last line of the section.
+		 */
+		public int getEndLine() {
+			return endLine;
+		}
+
+		public int getLength() {
+			return end - start;
+		}
+
+		@Override
+		public String toString() {
+			return "Section("+start+"-"+end+", lines "+startLine+"-"+endLine+")";
+		}
+	}
+
+	private final String text;
+	private final long modificationStamp;
+	private final List<Section> sections;
+	private final boolean hasDirectives;
+
+	private YamlSections(String text, long modificationStamp) {
+		this.text = text;
+		this.modificationStamp = modificationStamp;
+		List<Section> sections = new ArrayList<Section>();
+		boolean hasDirectives = false;
+		int sectionStart = 0;
+		int sectionStartLine = 0;
+		int line = 0;
+		int lineStart = 0;
+		int len = text.length();
+		while (lineStart<=len) {
+			int lineEnd = lineStart;
+			while (lineEnd<len && text.charAt(lineEnd)!='\n' && text.charAt(lineEnd)!='\r') {
+				lineEnd++;
+			}
+			if (lineStart<len) {
+				char c = text.charAt(lineStart);
+				if (c=='%') {
+					hasDirectives = true;
+				} else if (c=='-' && lineStart>0 && SECTION_START.matcher(text.subSequence(lineStart, lineEnd)).matches()) {
+					sections.add(new Section(sectionStart, lineStart, sectionStartLine, line));
+					sectionStart = lineStart;
+					sectionStartLine = line;
+				}
+			}
+			if (lineEnd>=len) {
+				break;
+			}
+			int nextLineStart = lineEnd + 1;
+			if (text.charAt(lineEnd)=='\r' && nextLineStart<len && text.charAt(nextLineStart)=='\n') {
+				nextLineStart++;
+			}
+			lineStart = nextLineStart;
+			line++;
+		}
+		sections.add(new Section(sectionStart, len, sectionStartLine, line+1));
+		this.sections = Collections.unmodifiableList(sections);
+		this.hasDirectives = hasDirectives;
+	}
+
+	/**
+	 * Get the sections of the current contents of a document. The result is cached
+	 * for as long as the document's modification stamp doesn't change.
+	 */
+	public static YamlSections of(IDocument doc) {
+		long stamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (doc instanceof IDocumentExtension4) {
+			stamp = ((IDocumentExtension4) doc).getModificationStamp();
+		}
+		if (stamp==IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+			return new YamlSections(doc.get(), stamp);
+		}
+		synchronized (cache) {
+			YamlSections sections = cache.get(doc);
+			if (sections==null || sections.modificationStamp!=stamp) {
+				sections = new YamlSections(doc.get(), stamp);
+				cache.put(doc, sections);
+			}
+			return sections;
+		}
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public List<Section> getSections() {
+		return sections;
+	}
+
+	/**
+	 * Whether the text contains yml directives (i.e. lines starting with '%'). Directives
+	 * apply to the document that follows them, so documents with directives can
+	 * not be parsed section by section.
+	 */
+	public boolean hasDirectives() {
+		return hasDirectives;
+	}
+
+	public boolean hasSameText(YamlSections other) {
+		return other!=null && (other==this || text.equals(other.text));
+	}
+
+	/**
+	 * Find the section of a previous snapshot that has exactly the same text as
+	 * a section of this snapshot.
+	 * <p>
+	 * Sections are matched by position, counting from the start of the document for
+	 * the sections in front of the edited part and from the end of the document for
+	 * the ones after it. So this finds unchanged sections also if the edit has
+	 * added or removed sections.
+	 *
+	 * @return The matching section of the previous snapshot or null if the section has changed.
+	 */
+	public Section findUnchanged(YamlSections previous, int index) {
+		if (previous==null) {
+			return null;
+		}
+		Section section = sections.get(index);
+		if (index<previous.sections.size()) {
+			Section candidate = previous.sections.get(index);
+			if (sameText(section, previous, candidate)) {
+				return candidate;
+			}
+		}
+		int fromEnd = sections.size() - index;
+		if (fromEnd<=previous.sections.size()) {
+			Section candidate = previous.sections.get(previous.sections.size()-fromEnd);
+			if (sameText(section, previous, candidate)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private boolean sameText(Section section, YamlSections previous, Section candidate) {
+		return section.getLength()==candidate.getLength()
+				&& text.regionMatches(section.getStart(), previous.text, candidate.getStart(), section.getLength());
+	}
+
+}
@@ -11,18 +11,32 @@
 package org.springframework.ide.eclipse.editor.support.yaml.ast;
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
-import org.eclipse.jface.text.IDocumentListener;
+import org.springframework.ide.eclipse.editor.support.yaml.YamlSections;
+import org.springframework.ide.eclipse.editor.support.yaml.YamlSections.Section;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
 
 /**
  * Responsible for providing a AST for a document containing yml formatted text.
+ * <p>
+ * The AST is parsed incrementally: the document is split into {@link YamlSections}
+ * and only sections that have changed since the last parse are composed again. Each
+ * section is composed on its own text and its nodes are then moved to the section's
+ * position in the document. The nodes of an unchanged section are reused as they are if
+ * the section is still at the same offset, and moved otherwise. If a section has a syntax
+ * error the whole document is parsed again, so the error's marks are relative to the document.
  *
  * @author Kris De Volder
  */
@@ -36,25 +50,10 @@ public class YamlASTProvider {
 	private IDocument cachedFor = null;
 
 	/**
-	 * For cache invalidation
+	 * The snapshot of the source the cached AST got parsed from and the nodes of each of its sections.
 	 */
-	private IDocumentListener listener = new IDocumentListener() {
-
-		public void documentChanged(final DocumentEvent event) {
-			Job job = new Job("Clear YamlASTProvider Cache") {
-				protected IStatus run(IProgressMonitor monitor) {
-					changed(event.getDocument());
-					return Status.OK_STATUS;
-				}
-			};
-			job.setPriority(Job.INTERACTIVE);
-			job.setSystem(true);
-			job.schedule();
-		}
-		public void documentAboutToBeChanged(DocumentEvent event) {
-			//Don't care.
-		}
-	};
+	private YamlSections cachedSections = null;
+	private List<List<Node>> cachedSectionNodes = null;
 
 	private Yaml yaml;
 
@@ -62,26 +61,142 @@ public class YamlASTProvider {
 		this.yaml = yaml;
 	}
 
-	private synchronized void changed(IDocument doc) {
-		if (doc==cachedFor) {
-			doc.removeDocumentListener(listener);
-			cachedFor = null;
-			cached = null;
-		}
-	}
-
 	public synchronized YamlFileAST getAST(IDocument doc) {
-		if (doc==cachedFor) {
+		YamlSections sections = YamlSections.of(doc);
+		if (doc==cachedFor && sections.hasSameText(cachedSections)) {
+			cachedSections = sections;
 			return cached;
+		}
+		YamlSections previous = doc==cachedFor ? cachedSections : null;
+		List<List<Node>> sectionNodes = null;
+		List<Node> nodes = null;
+		if (sections.hasDirectives()) {
+			//Directives apply across sections so can't parse incrementally
+			nodes = composeAll(sections.getText());
 		} else {
-			if (cachedFor!=null) {
-				cachedFor.removeDocumentListener(listener);
+			try {
+				nodes = new ArrayList<Node>();
+				sectionNodes = new ArrayList<List<Node>>();
+				List<Section> all = sections.getSections();
+				for (int i = 0; i < all.size(); i++) {
+					Section section = all.get(i);
+					List<Node> parsed = null;
+					Section unchanged = cachedSectionNodes==null ? null : sections.findUnchanged(previous, i);
+					if (unchanged!=null) {
+						parsed = cachedSectionNodes.get(previous.getSections().indexOf(unchanged));
+						if (unchanged.getStart()!=section.getStart()) {
+							parsed = move(parsed, section.getStart()-unchanged.getStart(),
+									section.getStartLine()-unchanged.getStartLine());
+						}
+					} else {
+						parsed = compose(sections.getText(), section);
+					}
+					sectionNodes.add(parsed);
+					nodes.addAll(parsed);
+				}
+			} catch (MarkedYAMLException e) {
+				//The marks of the error are relative to the section's text. Parse the whole
+				//document instead, so the error is reported with marks relative to the document.
+				sectionNodes = null;
+				nodes = composeAll(sections.getText());
 			}
-			doc.addDocumentListener(listener);
-			cached = new YamlFileAST(yaml.composeAll(new StringReader(doc.get())));
-			cachedFor = doc;
 		}
+		cached = new YamlFileAST(nodes);
+		cachedFor = doc;
+		cachedSections = sections;
+		cachedSectionNodes = sectionNodes;
 		return cached;
 	}
 
+	/**
+	 * Compose the nodes of a single section from the section's own text, and move them
+	 * to the section's position in the document.
+	 */
+	private List<Node> compose(String text, Section section) {
+		List<Node> nodes = composeAll(text.substring(section.getStart(), section.getEnd()));
+		if (section.getStart()>0) {
+			nodes = move(nodes, section.getStart(), section.getStartLine());
+		}
+		return nodes;
+	}
+
+	private List<Node> composeAll(String text) {
+		List<Node> nodes = new ArrayList<Node>();
+		for (Node node : yaml.composeAll(new StringReader(text))) {
+			nodes.add(node);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Copy the given nodes, moving their marks by 'offset' characters and 'lines' lines.
+	 * Sections start at the beginning of a line, so columns stay the same.
+	 */
+	private static List<Node> move(List<Node> nodes, int offset, int lines) {
+		NodeMover mover = new NodeMover(offset, lines);
+		List<Node> moved = new ArrayList<Node>(nodes.size());
+		for (Node node : nodes) {
+			moved.add(mover.move(node));
+		}
+		return moved;
+	}
+
+	/**
+	 * Copies a tree of nodes with moved marks (SnakeYaml marks and the marks of a node
+	 * can't be changed). Nodes that occur more than once in the tree (i.e. aliases)
+	 * are copied only once.
+	 */
+	private static class NodeMover {
+
+		private final int offset;
+		private final int lines;
+		private final Map<Node, Node> copies = new IdentityHashMap<Node, Node>();
+
+		public NodeMover(int offset, int lines) {
+			this.offset = offset;
+			this.lines = lines;
+		}
+
+		public Node move(Node node) {
+			Node copy = copies.get(node);
+			if (copy!=null) {
+				return copy;
+			}
+			Mark start = move(node.getStartMark());
+			Mark end = move(node.getEndMark());
+			if (node instanceof ScalarNode) {
+				ScalarNode scalar = (ScalarNode) node;
+				copy = new ScalarNode(scalar.getTag(), scalar.getValue(), start, end, scalar.getStyle());
+				copies.put(node, copy);
+			} else if (node instanceof SequenceNode) {
+				SequenceNode seq = (SequenceNode) node;
+				List<Node> children = new ArrayList<Node>(seq.getValue().size());
+				copy = new SequenceNode(seq.getTag(), children, start, end, seq.getFlowStyle());
+				copies.put(node, copy);
+				for (Node child : seq.getValue()) {
+					children.add(move(child));
+				}
+			} else if (node instanceof MappingNode) {
+				MappingNode map = (MappingNode) node;
+				List<NodeTuple> entries = new ArrayList<NodeTuple>(map.getValue().size());
+				copy = new MappingNode(map.getTag(), entries, start, end, map.getFlowStyle());
+				copies.put(node, copy);
+				for (NodeTuple entry : map.getValue()) {
+					entries.add(new NodeTuple(move(entry.getKeyNode()), move(entry.getValueNode())));
+				}
+			} else {
+				throw new IllegalArgumentException("Can not move node of type "+node.getNodeId());
+			}
+			return copy;
+		}
+
+		private Mark move(Mark mark) {
+			if (mark==null) {
+				return null;
+			}
+			//The snippet of the mark's buffer is only used in error messages, so it isn't kept
+			return new Mark(mark.getName(), mark.getIndex()+offset, mark.getLine()+lines, mark.getColumn(), null, 0);
+		}
+	}
+
 }
@@ -26,6 +26,8 @@ import org.springframework.ide.eclipse.editor.support.util.CollectionUtil;
 import org.springframework.ide.eclipse.editor.support.util.StringUtil;
 import org.springframework.ide.eclipse.editor.support.util.YamlIndentUtil;
 import org.springframework.ide.eclipse.editor.support.yaml.YamlDocument;
+import org.springframework.ide.eclipse.editor.support.yaml.YamlSections;
+import org.springframework.ide.eclipse.editor.support.yaml.YamlSections.Section;
 import org.springframework.ide.eclipse.editor.support.yaml.path.KeyAliases;
 import org.springframework.ide.eclipse.editor.support.yaml.path.YamlNavigable;
 import org.springframework.ide.eclipse.editor.support.yaml.path.YamlPath;
@@ -172,13 +174,23 @@ public class YamlStructureParser {
 	public class YamlLineReader {
 		private final YamlDocument doc;
 		private int nextLine = 0; //next line to read
+		private int endLine = Integer.MAX_VALUE; //line at which to stop reading
 
 		public YamlLineReader(YamlDocument doc) {
 			this.doc = doc;
 		}
 
+		/**
+		 * Reader that only reads the lines from startLine up to (but not including) endLine.
+		 */
+		public YamlLineReader(YamlDocument doc, int startLine, int endLine) {
+			this.doc = doc;
+			this.nextLine = startLine;
+			this.endLine = endLine;
+		}
+
 		public YamlLine read() throws Exception {
-			if (nextLine < doc.getDocument().getNumberOfLines()) {
+			if (nextLine < endLine && nextLine < doc.getDocument().getNumberOfLines()) {
 				return YamlLine.atLineNumber(doc, nextLine++);
 			}
 			return null; //means EOF
@@ -553,7 +565,43 @@ public class YamlStructureParser {
 	public SRootNode parse() throws Exception {
 		SRootNode root = new SRootNode(input.getDocument());
 		SDocNode doc = new SDocNode(root,0,0);
-		SChildBearingNode parent = doc;
+		parseLines(doc, input);
+		return root;
+	}
+
+	/**
+	 * Parse the document section by section, reusing the nodes of a previous parse for
+	 * sections that haven't changed since then. The reused nodes are copied and moved to
+	 * the section's new offset.
+	 *
+	 * @param sections The sections of the document's current contents.
+	 * @param previousSections The sections of the document's contents at the time of the previous parse (may be null).
+	 * @param previous The result of the previous parse (may be null).
+	 */
+	public SRootNode parse(YamlSections sections, YamlSections previousSections, SRootNode previous) throws Exception {
+		YamlDocument document = input.getDocument();
+		SRootNode root = new SRootNode(document);
+		List<Section> all = sections.getSections();
+		for (int i = 0; i < all.size(); i++) {
+			Section section = all.get(i);
+			Section unchanged = previous==null ? null : sections.findUnchanged(previousSections, i);
+			if (unchanged!=null) {
+				int delta = section.getStart() - unchanged.getStart();
+				for (SNode docNode : previous.getChildren()) {
+					int start = docNode.getStart();
+					if (start>=unchanged.getStart() && (start<unchanged.getEnd() || unchanged.getLength()==0)) {
+						copy(docNode, root, delta);
+					}
+				}
+			} else {
+				SChildBearingNode parent = i==0 ? new SDocNode(root, 0, 0) : root;
+				parseLines(parent, new YamlLineReader(document, section.getStartLine(), section.getEndLine()));
+			}
+		}
+		return root;
+	}
+
+	private void parseLines(SChildBearingNode parent, YamlLineReader input) throws Exception {
 		YamlLine line;
 		while (null!=(line=input.read())) {
 			int indent = line.getIndent();
@@ -564,7 +612,37 @@ public class YamlStructureParser {
 				parent = parseLine(parent, line, true);
 			}
 		}
-		return root;
+	}
+
+	/**
+	 * Copy a node and its children, moving them by 'delta' characters.
+	 */
+	private void copy(SNode node, SChildBearingNode parent, int delta) throws Exception {
+		YamlDocument doc = input.getDocument();
+		int start = node.getStart() + delta;
+		int end = node.getNodeEnd() + delta;
+		SNode copy;
+		switch (node.getNodeType()) {
+		case DOC:
+			copy = new SDocNode((SRootNode) parent, start, end);
+			break;
+		case KEY:
+			copy = new SKeyNode(parent, doc, node.getIndent(), start, end, ((SKeyNode) node).getColonOffset() + delta);
+			break;
+		case SEQ:
+			copy = new SSeqNode(parent, doc, node.getIndent(), start, end);
+			break;
+		case RAW:
+			copy = new SRawNode(parent, doc, node.getIndent(), start, end);
+			break;
+		default:
+			throw new IllegalArgumentException("Can not copy node of type "+node.getNodeType());
+		}
+		if (node instanceof SChildBearingNode) {
+			for (SNode child : ((SChildBearingNode) node).getChildren()) {
+				copy(child, (SChildBearingNode) copy, delta);
+			}
+		}
 	}
 
 	protected SChildBearingNode parseLine(SChildBearingNode parent, YamlLine line, boolean createRawNode) throws Exception {
@@ -663,6 +741,11 @@ public class YamlStructureParser {
 			this.colonOffset = relativeColonOffset + start;
 		}
 
+		private SKeyNode(SChildBearingNode parent, YamlDocument doc, int indent, int start, int end, int colonOffset) {
+			super(parent, doc, indent, start, end);
+			this.colonOffset = colonOffset;
+		}
+
 		@Override
 		public SNodeType getNodeType() {
 			return SNodeType.KEY;
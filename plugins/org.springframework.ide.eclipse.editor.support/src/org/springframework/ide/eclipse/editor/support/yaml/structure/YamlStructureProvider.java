@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.editor.support.yaml.structure;
 
+import org.eclipse.jface.text.IDocument;
 import org.springframework.ide.eclipse.editor.support.yaml.YamlDocument;
+import org.springframework.ide.eclipse.editor.support.yaml.YamlSections;
 import org.springframework.ide.eclipse.editor.support.yaml.path.KeyAliases;
 import org.springframework.ide.eclipse.editor.support.yaml.structure.YamlStructureParser.SRootNode;
 
@@ -44,4 +46,47 @@ public abstract class YamlStructureProvider {
 		}
 	};
 
+	/**
+	 * Create a provider that keeps the structure of the last document it has parsed. The structure is
+	 * reused as long as the document's contents don't change, and when they do change only
+	 * the {@link YamlSections} touched by the change are parsed again.
+	 * <p>
+	 * The provider holds on to the last document, so it should be owned by the editor of that
+	 * document rather than be kept in a static field.
+	 */
+	public static YamlStructureProvider incremental(KeyAliases keyAliases) {
+		return new IncrementalYamlStructureProvider(keyAliases);
+	}
+
+	private static class IncrementalYamlStructureProvider extends YamlStructureProvider {
+
+		private final KeyAliases keyAliases;
+
+		private IDocument cachedFor = null;
+		private YamlSections cachedSections = null;
+		private SRootNode cached = null;
+
+		public IncrementalYamlStructureProvider(KeyAliases keyAliases) {
+			this.keyAliases = keyAliases;
+		}
+
+		@Override
+		public synchronized SRootNode getStructure(YamlDocument doc) throws Exception {
+			IDocument document = doc.getDocument();
+			YamlSections sections = YamlSections.of(document);
+			if (document==cachedFor && sections.hasSameText(cachedSections)) {
+				cachedSections = sections;
+				return cached;
+			}
+			YamlStructureParser parser = new YamlStructureParser(doc, keyAliases);
+			SRootNode structure = document==cachedFor
+					? parser.parse(sections, cachedSections, cached)
+					: parser.parse(sections, null, null);
+			cachedFor = document;
+			cachedSections = sections;
+			cached = structure;
+			return structure;
+		}
+	}
+
 }
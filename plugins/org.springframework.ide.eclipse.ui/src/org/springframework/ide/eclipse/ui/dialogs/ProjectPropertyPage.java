@@ -51,6 +51,8 @@ public class ProjectPropertyPage extends ProjectAndPreferencePage {
 
 	private Button useNonLockingClassLoader;
 
+	private Button useParallelValidation;
+
 	public ProjectPropertyPage() {
 		noDefaultAndApplyButton();
 	}
@@ -95,6 +97,15 @@ public class ProjectPropertyPage extends ProjectAndPreferencePage {
 			note = new Label(composite, SWT.WRAP);
 			note.setText(SpringUIMessages.ProjectBuilderPropertyPage_NonLockingClassLoaderNote);
 			note.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+
+			useParallelValidation = new Button(composite, SWT.CHECK);
+			useParallelValidation.setText(SpringUIMessages.ProjectBuilderPropertyPage_ParallelValidationMessage);
+			useParallelValidation.setSelection(prefs.getBoolean(
+					SpringCore.USE_PARALLEL_VALIDATION, false));
+
+			note = new Label(composite, SWT.WRAP);
+			note.setText(SpringUIMessages.ProjectBuilderPropertyPage_ParallelValidationNote);
+			note.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
 		}
 
 		Dialog.applyDialogFont(folder);
@@ -130,6 +141,7 @@ public class ProjectPropertyPage extends ProjectAndPreferencePage {
 		} else {
 			prefs.putBoolean(SpringCore.USE_CHANGE_DETECTION_IN_JAVA_FILES, useChangeDetectionForJavaFiles.getSelection());
 			prefs.putBoolean(SpringCore.USE_NON_LOCKING_CLASSLOADER, useNonLockingClassLoader.getSelection());
+			prefs.putBoolean(SpringCore.USE_PARALLEL_VALIDATION, useParallelValidation.getSelection());
 		}
 
 		this.builderTab.performOk();
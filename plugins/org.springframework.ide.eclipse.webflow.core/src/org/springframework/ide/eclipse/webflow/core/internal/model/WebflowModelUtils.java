@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -85,7 +85,14 @@ public class WebflowModelUtils {
 
 	public static Set<IMethod> getActionMethods(IWebflowConfig config,
 			IDOMNode node) {
-		IType type = getActionType(config, node);
+		return getActionMethods(getActionType(config, node), node);
+	}
+
+	/**
+	 * Returns the action methods of the given already resolved action type.
+	 * @since 3.8.1
+	 */
+	public static Set<IMethod> getActionMethods(IType type, IDOMNode node) {
 		if (type != null) {
 			if ("bean-action".equals(node.getLocalName())) {
 				return Introspector.findAllMethods(type, getBeanActionMethodFilter());
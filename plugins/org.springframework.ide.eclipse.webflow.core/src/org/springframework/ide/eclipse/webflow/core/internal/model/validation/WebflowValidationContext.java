@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 - 2013 Spring IDE Developers
+ * Copyright (c) 2007 - 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,15 +10,29 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.webflow.core.internal.model.validation;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.resources.IFile;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.wst.sse.core.StructuredModelManager;
 import org.eclipse.wst.sse.core.internal.provisional.IStructuredModel;
 import org.eclipse.wst.xml.core.internal.document.DOMModelImpl;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMAttr;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMDocument;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMNode;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.ui.editor.util.BeansEditorUtils;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.ide.eclipse.core.model.validation.AbstractValidationContext;
 import org.springframework.ide.eclipse.webflow.core.Activator;
+import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowModelUtils;
 import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowModelXmlUtils;
 import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowState;
 import org.springframework.ide.eclipse.webflow.core.model.IState;
@@ -40,6 +54,17 @@ public class WebflowValidationContext extends AbstractValidationContext {
 
 	private boolean isVersion1 = true;
 
+	/** State ids of every (inline) flow validated with this context */
+	private final Map<IWebflowState, Map<String, List<IState>>> statesById =
+			new IdentityHashMap<IWebflowState, Map<String, List<IState>>>();
+
+	/** Beans of the linked beans configs by their id; created lazily */
+	private Map<String, IBean> beansById;
+
+	private final Map<String, Boolean> referencedBeans = new HashMap<String, Boolean>();
+
+	private final Map<String, IType> actionTypes = new HashMap<String, IType>();
+
 	public WebflowValidationContext(IWebflowState state, IWebflowConfig webflowConfig) {
 		super(state, null);
 		this.webflowConfig = webflowConfig;
@@ -54,6 +79,85 @@ public class WebflowValidationContext extends AbstractValidationContext {
 		return isVersion1;
 	}
 
+	/**
+	 * Returns <code>true</code> if the given state's id is used only once
+	 * within its flow. The flow's state ids are indexed once per context.
+	 * @since 3.8.1
+	 */
+	public boolean isStateIdUnique(IState state) {
+		IWebflowState webflowState = WebflowModelUtils.getWebflowState(state, false);
+		if (webflowState == null) {
+			return false;
+		}
+		Map<String, List<IState>> states = statesById.get(webflowState);
+		if (states == null) {
+			states = new HashMap<String, List<IState>>();
+			List<IState> allStates = new ArrayList<IState>();
+			allStates.addAll(webflowState.getStates());
+			allStates.addAll(webflowState.getInlineFlowStates());
+			for (IState s : allStates) {
+				List<IState> sameIdStates = states.get(s.getId());
+				if (sameIdStates == null) {
+					sameIdStates = new ArrayList<IState>(1);
+					states.put(s.getId(), sameIdStates);
+				}
+				sameIdStates.add(s);
+			}
+			statesById.put(webflowState, states);
+		}
+		List<IState> sameIdStates = states.get(state.getId());
+		return sameIdStates != null && sameIdStates.size() == 1;
+	}
+
+	/**
+	 * Returns <code>true</code> if a bean with the given name or alias is
+	 * defined in one of the beans configs linked with the validated flow.
+	 * @since 3.8.1
+	 */
+	public boolean isReferencedBeanFound(String beanName) {
+		Boolean isFound = referencedBeans.get(beanName);
+		if (isFound == null) {
+			isFound = WebflowModelUtils.isReferencedBeanFound(webflowConfig, beanName);
+			referencedBeans.put(beanName, isFound);
+		}
+		return isFound;
+	}
+
+	/**
+	 * Returns the type of the bean referenced by the given action node.
+	 * @see WebflowModelUtils#getActionType(IWebflowConfig, IDOMNode)
+	 * @since 3.8.1
+	 */
+	public IType getActionType(IDOMNode node) {
+		String beanName = BeansEditorUtils.getAttribute(node, "bean");
+		if (actionTypes.containsKey(beanName)) {
+			return actionTypes.get(beanName);
+		}
+		if (beansById == null) {
+			beansById = new HashMap<String, IBean>();
+			for (IBean bean : WebflowModelUtils.getBeans(webflowConfig)) {
+				if (!beansById.containsKey(bean.getElementName())) {
+					beansById.put(bean.getElementName(), bean);
+				}
+			}
+		}
+		IBean bean = beansById.get(beanName);
+		String className = (bean != null ? BeansModelUtils.getBeanClass(bean, null) : null);
+		IType type = JdtUtils.getJavaType(webflowConfig.getProject().getProject(), className);
+		actionTypes.put(beanName, type);
+		return type;
+	}
+
+	/**
+	 * Returns the methods of the type of the bean referenced by the given
+	 * action node.
+	 * @see WebflowModelUtils#getActionMethods(IWebflowConfig, IDOMNode)
+	 * @since 3.8.1
+	 */
+	public Set<IMethod> getActionMethods(IDOMNode node) {
+		return WebflowModelUtils.getActionMethods(getActionType(node), node);
+	}
+
 	private void determineVersion() {
 		IStructuredModel model = null;
 		try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,7 +21,6 @@ import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
 import org.springframework.ide.eclipse.webflow.core.internal.model.BeanAction;
-import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowModelUtils;
 import org.springframework.ide.eclipse.webflow.core.internal.model.validation.WebflowValidationContext;
 import org.springframework.util.StringUtils;
 
@@ -40,16 +39,16 @@ public class BeanActionValidationRule implements IValidationRule<BeanAction, Web
 		if (!StringUtils.hasText(action.getBean())) {
 			context.error(action, "NO_BEAN_ATTRIBUTE", "Element 'bean-action' requires bean attribute");
 		}
-		else if (!WebflowModelUtils.isReferencedBeanFound(context.getWebflowConfig(), action.getBean())) {
+		else if (!context.isReferencedBeanFound(action.getBean())) {
 			context.error(action, "INVALID_BEAN", MessageUtils.format("Referenced bean \"{0}\" cannot be found", action
 					.getBean()));
 		}
 		if (!StringUtils.hasText(action.getMethod())) {
 			context.error(action, "NO_METHOD_ATTRIBUTE", "Element 'bean-action' requires method attribute");
 		}
-		else if (!JdtUtils.doesImplement(context.getWebflowConfig().getElementResource(), WebflowModelUtils
-				.getActionType(context.getWebflowConfig(), action.getNode()), FactoryBean.class.getName())) {
-			Set<IMethod> methods = WebflowModelUtils.getActionMethods(context.getWebflowConfig(), action.getNode());
+		else if (!JdtUtils.doesImplement(context.getWebflowConfig().getElementResource(), context
+				.getActionType(action.getNode()), FactoryBean.class.getName())) {
+			Set<IMethod> methods = context.getActionMethods(action.getNode());
 			boolean found = false;
 			for (IMethod method : methods) {
 				if (method.getElementName().equals(action.getMethod())) {
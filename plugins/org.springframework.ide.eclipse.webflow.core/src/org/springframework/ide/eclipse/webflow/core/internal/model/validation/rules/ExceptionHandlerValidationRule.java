@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,7 +16,6 @@ import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
 import org.springframework.ide.eclipse.webflow.core.internal.model.ExceptionHandler;
-import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowModelUtils;
 import org.springframework.ide.eclipse.webflow.core.internal.model.validation.WebflowValidationContext;
 import org.springframework.util.StringUtils;
 
@@ -40,8 +39,7 @@ public class ExceptionHandlerValidationRule implements
 			context.error(handler, "NO_BEAN_ATTRIBUTE",
 					"Element 'exception-handler' requires 'bean' attribute");
 		}
-		else if (!WebflowModelUtils.isReferencedBeanFound(context
-				.getWebflowConfig(), handler.getBean())) {
+		else if (!context.isReferencedBeanFound(handler.getBean())) {
 			context.error(handler, "INVALID_BEAN", MessageUtils
 					.format("Referenced bean \"{0}\" cannot be found", handler
 							.getBean()));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Spring IDE Developers
+ * Copyright (c) 2007, 2016 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,7 +15,6 @@ import org.springframework.ide.eclipse.core.MessageUtils;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
-import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowModelUtils;
 import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowState;
 import org.springframework.ide.eclipse.webflow.core.internal.model.validation.WebflowValidationContext;
 import org.springframework.ide.eclipse.webflow.core.model.IState;
@@ -41,7 +40,7 @@ public class StateValidationRule implements
 			context.error(state, "NO_ID",
 					"Element requires unique 'id' attribute");
 		}
-		else if (!WebflowModelUtils.isStateIdUnique(state)) {
+		else if (!context.isStateIdUnique(state)) {
 			context.error(state, "NO_UNIQUE_ID_GIVEN", MessageUtils.format(
 					"Specified state id \"{0}\" is not unique", state.getId()));
 		}